@@ -80,6 +80,13 @@ public class TransactionLogController {
 
     }
 
+    @PostMapping(value = "/batchReplay")
+    @Permission
+    public AjaxResponse batchReplay(@RequestBody TransactionLogDTO transactionLogDTO) {
+        final Boolean success = logService.batchReplay(transactionLogDTO.getIds(), transactionLogDTO.getApplicationName());
+        return AjaxResponse.success(success);
+    }
+
     @PostMapping(value = "/update")
     @Permission
     public AjaxResponse update(@RequestBody TransactionLogDTO transactionLogDTO) {
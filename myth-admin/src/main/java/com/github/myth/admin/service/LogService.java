@@ -63,4 +63,14 @@ public interface LogService {
      * @return true 成功
      */
     Boolean updateRetry(String id, Integer retry, String applicationName);
+
+
+    /**
+     * 批量回放死信，状态重置为开始、重试次数清零，由消费端的定时任务在本地重新执行
+     *
+     * @param ids             事务id集合
+     * @param applicationName 应用名称
+     * @return true 成功
+     */
+    Boolean batchReplay(List<String> ids, String applicationName);
 }
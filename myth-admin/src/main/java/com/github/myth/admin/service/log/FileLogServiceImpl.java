@@ -26,6 +26,7 @@ import com.github.myth.admin.page.CommonPager;
 import com.github.myth.admin.page.PageParameter;
 import com.github.myth.admin.query.ConditionQuery;
 import com.github.myth.common.bean.adapter.CoordinatorRepositoryAdapter;
+import com.github.myth.common.enums.MythStatusEnum;
 import com.github.myth.common.exception.MythException;
 import com.github.myth.common.serializer.ObjectSerializer;
 import com.github.myth.common.utils.DateUtils;
@@ -39,6 +40,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -84,7 +86,7 @@ public class FileLogServiceImpl implements LogService {
         //如果只查 重试条件的
         if (StringUtils.isBlank(query.getTransId())) {
             path = new File(filePath);
-            files = path.listFiles();
+            files = path.listFiles(file -> !FileUtils.isTempFile(file));
             totalCount = files.length;
             voList = findByPage(files, start, pageSize);
         } else {
@@ -158,6 +160,38 @@ public class FileLogServiceImpl implements LogService {
     }
 
 
+    /**
+     * 批量回放死信，状态重置为开始、重试次数清零，由消费端的定时任务在本地重新执行
+     *
+     * @param ids             事务id集合
+     * @param applicationName 应用名称
+     * @return true 成功
+     */
+    @Override
+    public Boolean batchReplay(List<String> ids, String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return false;
+        }
+        final String filePath = RepositoryPathUtils.buildFilePath(applicationName);
+        for (String id : ids) {
+            final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, id);
+            final CoordinatorRepositoryAdapter adapter = readRecover(new File(fullFileName));
+            if (Objects.isNull(adapter) || adapter.getStatus() != MythStatusEnum.DEAD_LETTER.getCode()) {
+                continue;
+            }
+            adapter.setStatus(MythStatusEnum.BEGIN.getCode());
+            adapter.setRetriedCount(0);
+            adapter.setLastTime(new Date());
+            try {
+                FileUtils.writeFile(fullFileName, objectSerializer.serialize(adapter));
+            } catch (Exception e) {
+                e.printStackTrace();
+                return false;
+            }
+        }
+        return true;
+    }
+
     private CoordinatorRepositoryAdapter readRecover(File file) {
         try {
             try (FileInputStream fis = new FileInputStream(file)) {
@@ -24,6 +24,7 @@ import com.github.myth.admin.query.ConditionQuery;
 import com.github.myth.admin.service.LogService;
 import com.github.myth.admin.vo.LogVO;
 import com.github.myth.admin.page.PageParameter;
+import com.github.myth.common.enums.MythStatusEnum;
 import com.github.myth.common.utils.DateUtils;
 import com.github.myth.common.utils.DbTypeUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
@@ -34,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -150,6 +152,26 @@ public class JdbcLogServiceImpl implements LogService {
     }
 
 
+    /**
+     * 批量回放死信，状态重置为开始、重试次数清零，由消费端的定时任务在本地重新执行
+     *
+     * @param ids             事务id集合
+     * @param applicationName 应用名称
+     * @return true 成功
+     */
+    @Override
+    public Boolean batchReplay(List<String> ids, String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return Boolean.FALSE;
+        }
+        final String tableName = RepositoryPathUtils.buildDbTableName(applicationName);
+        final String sql = "update " + tableName + " set status = ?, retried_count = 0, last_time = ?"
+                + " where trans_id = ? and status = ?";
+        ids.forEach(id -> jdbcTemplate.update(sql, MythStatusEnum.BEGIN.getCode(), new Date(), id,
+                MythStatusEnum.DEAD_LETTER.getCode()));
+        return Boolean.TRUE;
+    }
+
     private LogVO buildByMap(Map<String, Object> map) {
         LogVO vo = new LogVO();
         vo.setTransId((String) map.get("trans_id"));
@@ -26,6 +26,7 @@ import com.github.myth.admin.service.LogService;
 import com.github.myth.admin.helper.ConvertHelper;
 import com.github.myth.admin.query.ConditionQuery;
 import com.github.myth.common.bean.adapter.MongoAdapter;
+import com.github.myth.common.enums.MythStatusEnum;
 import com.github.myth.common.utils.DateUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
 import com.mongodb.WriteResult;
@@ -38,6 +39,7 @@ import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -163,5 +165,27 @@ public class MongoLogServiceImpl implements LogService {
         return Boolean.TRUE;
     }
 
-
+    /**
+     * 批量回放死信，状态重置为开始、重试次数清零，由消费端的定时任务在本地重新执行
+     *
+     * @param ids             事务id集合
+     * @param applicationName 应用名称
+     * @return true 成功
+     */
+    @Override
+    public Boolean batchReplay(List<String> ids, String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return Boolean.FALSE;
+        }
+        final String mongoTableName = RepositoryPathUtils.buildMongoTableName(applicationName);
+        Query query = new Query();
+        query.addCriteria(new Criteria("transId").in(ids)
+                .and("status").is(MythStatusEnum.DEAD_LETTER.getCode()));
+        Update update = new Update();
+        update.set("status", MythStatusEnum.BEGIN.getCode());
+        update.set("retriedCount", 0);
+        update.set("lastTime", new Date());
+        mongoTemplate.updateMulti(query, update, MongoAdapter.class, mongoTableName);
+        return Boolean.TRUE;
+    }
 }
@@ -23,6 +23,7 @@ import com.github.myth.admin.vo.LogVO;
 import com.github.myth.common.bean.adapter.CoordinatorRepositoryAdapter;
 import com.github.myth.common.jedis.JedisClient;
 import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.enums.MythStatusEnum;
 import com.github.myth.common.utils.DateUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
 import com.google.common.collect.Sets;
@@ -36,6 +37,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -185,6 +187,39 @@ public class RedisLogServiceImpl implements LogService {
     }
 
 
+    /**
+     * 批量回放死信，状态重置为开始、重试次数清零，由消费端的定时任务在本地重新执行
+     *
+     * @param ids             事务id集合
+     * @param applicationName 应用名称
+     * @return true 成功
+     */
+    @Override
+    public Boolean batchReplay(List<String> ids, String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return Boolean.FALSE;
+        }
+        String keyPrefix = RepositoryPathUtils.buildRedisKeyPrefix(applicationName);
+        for (String id : ids) {
+            final String key = RepositoryPathUtils.buildRedisKey(keyPrefix, id);
+            final byte[] bytes = jedisClient.get(key.getBytes());
+            try {
+                final CoordinatorRepositoryAdapter adapter =
+                        objectSerializer.deSerialize(bytes, CoordinatorRepositoryAdapter.class);
+                if (adapter.getStatus() == MythStatusEnum.DEAD_LETTER.getCode()) {
+                    adapter.setStatus(MythStatusEnum.BEGIN.getCode());
+                    adapter.setRetriedCount(0);
+                    adapter.setLastTime(new Date());
+                    jedisClient.set(key, objectSerializer.serialize(adapter));
+                }
+            } catch (Exception e) {
+                LOGGER.error("redis 回放死信失败：{}", id, e);
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
     private List<LogVO> findAll(Set<byte[]> keys) {
         return keys.parallelStream()
                 .map(this::buildVOByKey).filter(Objects::nonNull).collect(Collectors.toList());
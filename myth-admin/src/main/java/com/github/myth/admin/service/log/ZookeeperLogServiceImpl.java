@@ -25,6 +25,7 @@ import com.github.myth.admin.service.LogService;
 import com.github.myth.admin.vo.LogVO;
 import com.github.myth.common.bean.adapter.CoordinatorRepositoryAdapter;
 import com.github.myth.common.constant.CommonConstant;
+import com.github.myth.common.enums.MythStatusEnum;
 import com.github.myth.common.serializer.ObjectSerializer;
 import com.github.myth.common.utils.DateUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
@@ -41,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -184,6 +186,40 @@ public class ZookeeperLogServiceImpl implements LogService {
         return Boolean.FALSE;
     }
 
+    /**
+     * 批量回放死信，状态重置为开始、重试次数清零，由消费端的定时任务在本地重新执行
+     *
+     * @param ids             事务id集合
+     * @param applicationName 应用名称
+     * @return true 成功
+     */
+    @Override
+    public Boolean batchReplay(List<String> ids, String applicationName) {
+        if (CollectionUtils.isEmpty(ids) || StringUtils.isBlank(applicationName)) {
+            return Boolean.FALSE;
+        }
+        final String rootPathPrefix = RepositoryPathUtils.buildZookeeperPathPrefix(applicationName);
+        for (String id : ids) {
+            final String path = RepositoryPathUtils.buildZookeeperRootPath(rootPathPrefix, id);
+            try {
+                Stat stat = new Stat();
+                byte[] content = zooKeeper.getData(path, false, stat);
+                final CoordinatorRepositoryAdapter adapter =
+                        objectSerializer.deSerialize(content, CoordinatorRepositoryAdapter.class);
+                if (adapter.getStatus() == MythStatusEnum.DEAD_LETTER.getCode()) {
+                    adapter.setStatus(MythStatusEnum.BEGIN.getCode());
+                    adapter.setRetriedCount(0);
+                    adapter.setLastTime(new Date());
+                    zooKeeper.setData(path, objectSerializer.serialize(adapter), stat.getVersion());
+                }
+            } catch (Exception e) {
+                LOGGER.error(e.getMessage());
+                return Boolean.FALSE;
+            }
+        }
+        return Boolean.TRUE;
+    }
+
     private String buildRootPath(String rootPath, String id) {
         return String.join("/", rootPath, id);
     }
@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.enums.MythRoleEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.enums.SerializeEnum;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.ServiceBootstrap;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基准测试公用的数据.
+ *
+ * @author xiaoyu
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 按配置名称加载序列化方式，与 MythInitServiceImpl 相同走spi.
+     *
+     * @param name jdk kryo hessian protostuff
+     * @return ObjectSerializer
+     */
+    static ObjectSerializer serializer(String name) {
+        final SerializeEnum serializeEnum = SerializeEnum.acquire(name);
+        return StreamSupport.stream(ServiceBootstrap.loadAll(ObjectSerializer.class).spliterator(), false)
+                .filter(objectSerializer -> Objects.equals(objectSerializer.getScheme(), serializeEnum.getSerialize()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("serializer not found: " + name));
+    }
+
+    /**
+     * 一个下单事务，带若干个参与者.
+     *
+     * @param transId      事务id
+     * @param participants 参与者数量
+     * @return MythTransaction
+     */
+    static MythTransaction transaction(String transId, int participants) {
+        MythTransaction mythTransaction = new MythTransaction(transId);
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.setTargetClass("com.github.myth.demo.order.service.impl.PaymentServiceImpl");
+        mythTransaction.setTargetMethod("makePayment");
+        for (int i = 0; i < participants; i++) {
+            mythTransaction.registerParticipant(participant(transId, "account" + i));
+        }
+        return mythTransaction;
+    }
+
+    static MythParticipant participant(String transId, String destination) {
+        MythInvocation mythInvocation = new MythInvocation(AccountService.class, "payment",
+                new Class[]{String.class, BigDecimal.class},
+                new Object[]{"10000" + transId, new BigDecimal("99.90")});
+        return new MythParticipant(transId, destination, 1, mythInvocation);
+    }
+
+    /**
+     * 参与者接口的本地实现，只做空调用.
+     */
+    public static class AccountService {
+
+        public void payment(String accountId, BigDecimal amount) {
+        }
+    }
+}
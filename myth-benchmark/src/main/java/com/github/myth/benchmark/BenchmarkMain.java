@@ -0,0 +1,61 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Objects;
+
+/**
+ * 基准测试入口，参数与 jmh 命令行相同.
+ * 没有指定 -rf -rff 时结果以 json 格式写入 myth-benchmark-{版本}.json，便于对比不同版本之间的变化.
+ * <pre>
+ * java -jar myth-benchmark/target/myth-benchmarks.jar
+ * java -jar myth-benchmark/target/myth-benchmarks.jar SerializerBenchmark -p serializer=kryo
+ * </pre>
+ *
+ * @author xiaoyu
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        final ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLineOptions.getResult().hasValue()) {
+            builder.result("myth-benchmark-" + version() + ".json");
+        }
+        new Runner(builder.build()).run();
+    }
+
+    private static String version() {
+        final String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        return Objects.isNull(version) ? "SNAPSHOT" : version;
+    }
+}
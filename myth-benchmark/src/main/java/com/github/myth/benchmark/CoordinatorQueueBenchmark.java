@@ -0,0 +1,108 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.core.concurrent.ringbuffer.MythRingBuffer;
+import com.github.myth.core.coordinator.command.CoordinatorAction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 协调资源队列：原来的 LinkedBlockingQueue（每条命令一个节点）与预先分配槽位的环形队列对比，
+ * 两个生产者一个消费者，队列满或空时立即返回，不计入阻塞唤醒的开销.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinatorQueueBenchmark {
+
+    private static final int CAPACITY = 4096;
+
+    private static final BiConsumer<CoordinatorAction, CoordinatorAction> TRANSLATOR = (slot, source) -> {
+        slot.setAction(source.getAction());
+        slot.setMythTransaction(source.getMythTransaction());
+        slot.setSubmitTime(source.getSubmitTime());
+    };
+
+    private final MythTransaction mythTransaction = BenchmarkFixtures.transaction("queue", 3);
+
+    private BlockingQueue<CoordinatorAction> queue;
+
+    private MythRingBuffer<CoordinatorAction> ring;
+
+    @Setup
+    public void setUp() {
+        queue = new LinkedBlockingQueue<>(CAPACITY);
+        ring = new MythRingBuffer<>(CAPACITY, () -> new CoordinatorAction(null, null));
+    }
+
+    @Benchmark
+    @Group("linkedBlockingQueue")
+    @GroupThreads(2)
+    public boolean queueOffer() {
+        final CoordinatorAction action = new CoordinatorAction(CoordinatorActionEnum.UPDATE, mythTransaction);
+        action.setSubmitTime(System.nanoTime());
+        return queue.offer(action);
+    }
+
+    @Benchmark
+    @Group("linkedBlockingQueue")
+    @GroupThreads(1)
+    public CoordinatorAction queuePoll() {
+        return queue.poll();
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(2)
+    public boolean ringPublish() {
+        final CoordinatorAction action = new CoordinatorAction(CoordinatorActionEnum.UPDATE, mythTransaction);
+        action.setSubmitTime(System.nanoTime());
+        return ring.tryPublish(TRANSLATOR, action);
+    }
+
+    @Benchmark
+    @Group("ringBuffer")
+    @GroupThreads(1)
+    public boolean ringPoll(Blackhole blackhole) {
+        return ring.poll(slot -> blackhole.consume(slot.getSubmitTime()));
+    }
+}
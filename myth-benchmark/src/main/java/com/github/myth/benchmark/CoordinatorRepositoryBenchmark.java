@@ -0,0 +1,124 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.core.spi.CoordinatorRepository;
+import com.github.myth.core.spi.repository.FileCoordinatorRepository;
+import com.github.myth.core.spi.repository.JdbcCoordinatorRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 事务日志存储的读写.
+ * db 使用内存中的 h2（mysql模式），file 写在 /myth 目录下，可以把该目录挂载为 tmpfs 排除磁盘的影响.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinatorRepositoryBenchmark {
+
+    private static final String MODEL_NAME = "myth-benchmark";
+
+    @Param({"file", "db"})
+    private String repository;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private CoordinatorRepository coordinatorRepository;
+
+    private MythTransaction mythTransaction;
+
+    @Setup
+    public void setUp() {
+        coordinatorRepository = createRepository(repository);
+        mythTransaction = BenchmarkFixtures.transaction("100", 3);
+        coordinatorRepository.create(mythTransaction);
+    }
+
+    @TearDown
+    public void tearDown() {
+        coordinatorRepository.remove(mythTransaction.getTransId());
+    }
+
+    @Benchmark
+    public int createThenRemove() {
+        final MythTransaction created =
+                BenchmarkFixtures.transaction("bench" + sequence.incrementAndGet(), 3);
+        coordinatorRepository.create(created);
+        return coordinatorRepository.remove(created.getTransId());
+    }
+
+    @Benchmark
+    public MythTransaction findByTransId() {
+        return coordinatorRepository.findByTransId(mythTransaction.getTransId());
+    }
+
+    @Benchmark
+    public int updateStatus() {
+        return coordinatorRepository.updateStatus(mythTransaction.getTransId(), MythStatusEnum.COMMIT.getCode());
+    }
+
+    /**
+     * 创建并初始化事务日志存储.
+     *
+     * @param repository file 或 db
+     * @return CoordinatorRepository
+     */
+    static CoordinatorRepository createRepository(String repository) {
+        final CoordinatorRepository coordinatorRepository = "db".equals(repository)
+                ? new JdbcCoordinatorRepository() : new FileCoordinatorRepository();
+        coordinatorRepository.setSerializer(BenchmarkFixtures.serializer("kryo"));
+        coordinatorRepository.init(MODEL_NAME, mythConfig());
+        if ("db".equals(repository)) {
+            alterInvocationColumn();
+        }
+        return coordinatorRepository;
+    }
+
+    static void alterInvocationColumn() {
+        H2Support.alterInvocationColumn(MODEL_NAME);
+    }
+
+    static MythConfig mythConfig() {
+        MythConfig mythConfig = new MythConfig();
+        mythConfig.setRepositorySuffix(MODEL_NAME);
+        mythConfig.setMythDbConfig(H2Support.dbConfig());
+        return mythConfig;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadPool;
+import com.github.myth.core.coordinator.command.CoordinatorAction;
+import com.github.myth.core.coordinator.impl.CoordinatorServiceImpl;
+import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.service.mq.MythMessageCodec;
+import com.github.myth.core.spi.CoordinatorRepository;
+import com.github.myth.core.spi.repository.JdbcCoordinatorRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 协调服务：消费端处理mq消息的吞吐，以及发起者提交事务日志到持久化完成的延迟.
+ * 事务日志存储使用内存中的 h2.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinatorServiceBenchmark {
+
+    private static final int MESSAGES = 1024;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final Map<String, CountDownLatch> persisting = new ConcurrentHashMap<>();
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    private byte[][] messages;
+
+    @Setup
+    public void setUp() throws MythException {
+        final MythConfig mythConfig = CoordinatorRepositoryBenchmark.mythConfig();
+        mythConfig.setDedupRetention(0);
+        final ObjectSerializer serializer = BenchmarkFixtures.serializer("kryo");
+        final CoordinatorRepository coordinatorRepository = new SignallingRepository(persisting);
+        coordinatorRepository.setSerializer(serializer);
+
+        final MythTransactionThreadPool threadPool = new MythTransactionThreadPool(mythConfig);
+        threadPool.init();
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("mythTransactionThreadPool", threadPool);
+        context.getBeanFactory().registerSingleton("coordinatorRepository", coordinatorRepository);
+        context.getBeanFactory().registerSingleton("accountService", new BenchmarkFixtures.AccountService());
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+
+        coordinatorService = new CoordinatorServiceImpl(() -> "myth-benchmark");
+        coordinatorService.setSerializer(serializer);
+        coordinatorService.start(mythConfig);
+        CoordinatorRepositoryBenchmark.alterInvocationColumn();
+
+        final MythMessageCodec messageCodec = new MythMessageCodec(serializer);
+        messages = new byte[MESSAGES][];
+        for (int i = 0; i < MESSAGES; i++) {
+            final String transId = "message" + i;
+            messages[i] = messageCodec.encode(new MessageEntity(transId,
+                    BenchmarkFixtures.participant(transId, "account").getMythInvocation()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * 消费端：解码消息头、查询事务日志去重、解码并执行参与者.
+     *
+     * @return true
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Boolean processMessage() {
+        final int index = (int) (sequence.incrementAndGet() & (MESSAGES - 1));
+        return coordinatorService.processMessage(messages[index]);
+    }
+
+    /**
+     * 发起者：提交到协调队列，直到工作线程写入事务日志.
+     *
+     * @throws InterruptedException 中断
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void submitToPersist() throws InterruptedException {
+        final MythTransaction mythTransaction =
+                BenchmarkFixtures.transaction("submit" + sequence.incrementAndGet(), 3);
+        final CountDownLatch latch = new CountDownLatch(1);
+        persisting.put(mythTransaction.getTransId(), latch);
+        coordinatorService.submit(new CoordinatorAction(CoordinatorActionEnum.SAVE, mythTransaction));
+        latch.await();
+    }
+
+    /**
+     * 写入完成后通知等待的基准测试线程.
+     */
+    static class SignallingRepository extends JdbcCoordinatorRepository {
+
+        private final Map<String, CountDownLatch> persisting;
+
+        SignallingRepository(Map<String, CountDownLatch> persisting) {
+            this.persisting = persisting;
+        }
+
+        @Override
+        public int create(MythTransaction mythTransaction) {
+            final int rows = super.create(mythTransaction);
+            final CountDownLatch latch = persisting.remove(mythTransaction.getTransId());
+            if (latch != null) {
+                latch.countDown();
+            }
+            return rows;
+        }
+    }
+}
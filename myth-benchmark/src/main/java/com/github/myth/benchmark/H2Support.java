@@ -0,0 +1,74 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.config.MythDbConfig;
+import com.github.myth.common.utils.RepositoryPathUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 内存中的 h2（mysql模式），代替 mysql 作为 db 方式的事务日志存储.
+ *
+ * @author xiaoyu
+ */
+public final class H2Support {
+
+    /**
+     * 进程内的内存库，连接全部关闭后也保留.
+     */
+    public static final String URL = "jdbc:h2:mem:myth;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private H2Support() {
+    }
+
+    /**
+     * 连接内存库的数据源配置.
+     *
+     * @return MythDbConfig
+     */
+    public static MythDbConfig dbConfig() {
+        MythDbConfig mythDbConfig = new MythDbConfig();
+        mythDbConfig.setDriverClassName("org.h2.Driver");
+        mythDbConfig.setUrl(URL);
+        mythDbConfig.setUsername("sa");
+        mythDbConfig.setPassword("");
+        mythDbConfig.setInitialSize(1);
+        mythDbConfig.setMinIdle(1);
+        return mythDbConfig;
+    }
+
+    /**
+     * h2 把 longblob 读成 Blob，改为 varbinary 后与 mysql 一样读成 byte[].
+     * 需要在 JdbcCoordinatorRepository 建表之后、写入事务日志之前调用.
+     *
+     * @param modelName 事务日志存储的模块名称
+     */
+    public static void alterInvocationColumn(String modelName) {
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("alter table " + RepositoryPathUtils.buildDbTableName(modelName)
+                    + " alter column invocation varbinary");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
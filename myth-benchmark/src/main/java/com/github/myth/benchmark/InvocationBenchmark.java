@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.core.helper.MethodHandleHelper;
+import org.apache.commons.lang3.reflect.MethodUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消费端执行本地补偿方法：原来每次通过 MethodUtils 反射查找并调用，与缓存的 MethodHandle 对比，
+ * direct 为直接调用，作为下限参考.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvocationBenchmark {
+
+    private final BenchmarkFixtures.AccountService bean = new BenchmarkFixtures.AccountService();
+
+    private MythInvocation mythInvocation;
+
+    @Setup
+    public void setUp() {
+        mythInvocation = BenchmarkFixtures.participant("100", "account").getMythInvocation();
+    }
+
+    @Benchmark
+    public Object methodUtils() throws Exception {
+        return MethodUtils.invokeMethod(bean, mythInvocation.getMethodName(),
+                mythInvocation.getArgs(), mythInvocation.getParameterTypes());
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Exception {
+        return MethodHandleHelper.invoke(bean, mythInvocation.getTargetClass(), mythInvocation.getMethodName(),
+                mythInvocation.getParameterTypes(), mythInvocation.getArgs());
+    }
+
+    @Benchmark
+    public void direct() {
+        final Object[] args = mythInvocation.getArgs();
+        bean.payment((String) args[0], (BigDecimal) args[1]);
+    }
+}
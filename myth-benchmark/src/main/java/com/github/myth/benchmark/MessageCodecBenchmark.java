@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.bean.mq.MessageHeader;
+import com.github.myth.common.enums.CompressEnum;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.core.service.mq.MythMessageCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * mq消息编解码，消费端去重只需要解码消息头.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+    @Param({"kryo", "hessian"})
+    private String serializer;
+
+    @Param({"false", "true"})
+    private boolean compact;
+
+    @Param({"none", "lz4"})
+    private String compress;
+
+    private MythMessageCodec messageCodec;
+
+    private MessageEntity messageEntity;
+
+    private byte[] message;
+
+    @Setup
+    public void setUp() throws MythException {
+        messageCodec = new MythMessageCodec(BenchmarkFixtures.serializer(serializer), compact,
+                CompressEnum.acquire(compress), 0);
+        messageEntity = new MessageEntity("100",
+                BenchmarkFixtures.participant("100", "account").getMythInvocation());
+        message = messageCodec.encode(messageEntity);
+    }
+
+    @Benchmark
+    public byte[] encode() throws MythException {
+        return messageCodec.encode(messageEntity);
+    }
+
+    @Benchmark
+    public MessageHeader decodeHeader() throws MythException {
+        return messageCodec.decodeHeader(message);
+    }
+
+    @Benchmark
+    public MessageEntity decode() throws MythException {
+        return messageCodec.decode(message);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythMessageDispatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发起者提交后分发参与者消息，broker 为空实现，只统计序列化与分发本身的开销.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDispatcherBenchmark {
+
+    @Param({"1", "5"})
+    private int participants;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private ExecutorService executorService;
+
+    private MythMessageDispatcher messageDispatcher;
+
+    private List<MythParticipant> mythParticipants;
+
+    @Setup
+    public void setUp() {
+        executorService = parallel ? Executors.newFixedThreadPool(participants) : null;
+        MythMqSendService broker = (destination, pattern, message) -> {
+        };
+        messageDispatcher = new MythMessageDispatcher(BenchmarkFixtures.serializer("kryo"),
+                () -> broker, executorService);
+        mythParticipants = BenchmarkFixtures.transaction("100", participants).getMythParticipants();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (Objects.nonNull(executorService)) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void dispatch(Blackhole blackhole) {
+        for (MythParticipant mythParticipant : mythParticipants) {
+            mythParticipant.setStatus(MythDeliveryStatusEnum.PENDING.getCode());
+        }
+        blackhole.consume(messageDispatcher.dispatch(mythParticipants));
+    }
+}
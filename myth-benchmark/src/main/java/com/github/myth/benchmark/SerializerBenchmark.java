@@ -0,0 +1,78 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.serializer.ObjectSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各个序列化方式序列化、反序列化事务日志.
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+
+    @Param({"jdk", "kryo", "hessian", "protostuff"})
+    private String serializer;
+
+    @Param({"1", "5"})
+    private int participants;
+
+    private ObjectSerializer objectSerializer;
+
+    private MythTransaction mythTransaction;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws MythException {
+        objectSerializer = BenchmarkFixtures.serializer(serializer);
+        mythTransaction = BenchmarkFixtures.transaction("100", participants);
+        bytes = objectSerializer.serialize(mythTransaction);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws MythException {
+        return objectSerializer.serialize(mythTransaction);
+    }
+
+    @Benchmark
+    public MythTransaction deSerialize() throws MythException {
+        return objectSerializer.deSerialize(bytes, MythTransaction.class);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark;
+
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 协调资源线程：每批 concurrency 个阻塞任务（模拟一次事务日志/mq 往返）同时执行.
+ * fixed 为与并发数同样大小的平台线程池，virtual 为每个任务一个虚拟线程（jdk21 及以上，低版本退化为平台线程）.
+ * platformThreads 为每个测量轮次中批次执行时 jvm 平台线程数的最大值（jmh 把各轮次的值累加，除以 Cnt 为每轮的最大值），
+ * 每个平台线程都要占用一份线程栈，虚拟线程只占用少量载体线程.
+ * <pre>
+ * java -jar myth-benchmark/target/myth-benchmarks.jar WorkerThreadBenchmark -prof gc
+ * </pre>
+ *
+ * @author xiaoyu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WorkerThreadBenchmark {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    @Param({"fixed", "virtual"})
+    private String mode;
+
+    @Param({"100", "1000"})
+    private int concurrency;
+
+    @Param({"1"})
+    private long blockingMillis;
+
+    private ExecutorService fixedPool;
+
+    private ThreadFactory virtualThreadFactory;
+
+    /**
+     * 本轮次批次执行中的最大平台线程数.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+
+        public long platformThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            platformThreads = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        if ("fixed".equals(mode)) {
+            fixedPool = Executors.newFixedThreadPool(concurrency,
+                    MythTransactionThreadFactory.create("benchmark-fixed", true, false));
+        } else {
+            virtualThreadFactory = MythTransactionThreadFactory.create("benchmark", true, true);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (fixedPool != null) {
+            fixedPool.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public void blockingBatch(Footprint footprint) throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(concurrency);
+        final CountDownLatch done = new CountDownLatch(concurrency);
+        final Runnable task = () -> {
+            started.countDown();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(blockingMillis));
+            done.countDown();
+        };
+        for (int i = 0; i < concurrency; i++) {
+            if (fixedPool != null) {
+                fixedPool.execute(task);
+            } else {
+                virtualThreadFactory.newThread(task).start();
+            }
+        }
+        started.await();
+        footprint.platformThreads = Math.max(footprint.platformThreads, THREAD_MX_BEAN.getThreadCount());
+        done.await();
+    }
+}
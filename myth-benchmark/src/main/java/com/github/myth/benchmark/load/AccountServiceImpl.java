@@ -0,0 +1,47 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.annotation.Myth;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的账户，参与者只做一次余额扣减，压测的是 myth 本身.
+ *
+ * @author xiaoyu
+ */
+public class AccountServiceImpl implements AccountService {
+
+    private final Map<String, BigDecimal> payments = new ConcurrentHashMap<>();
+
+    private final ExecutionReporter executionReporter;
+
+    public AccountServiceImpl(ExecutionReporter executionReporter) {
+        this.executionReporter = executionReporter;
+    }
+
+    @Override
+    @Myth(destination = "account")
+    public void payment(String orderId, BigDecimal amount, long orderTime) {
+        payments.merge(orderId, amount, BigDecimal::add);
+        executionReporter.executed("account", orderId, orderTime);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import javax.jms.TextMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 压测驱动收集参与者的执行通知：下单到参与者执行的延迟、执行次数和重复执行次数.
+ * 只统计当前这一轮压测的订单，预热期间的订单不统计延迟和执行次数.
+ *
+ * @author xiaoyu
+ */
+class ExecutionCollector implements MessageListener {
+
+    private final Map<String, Boolean> executed = new ConcurrentHashMap<>();
+
+    private final AtomicLong duplicates = new AtomicLong();
+
+    private final AtomicLong lastExecutedTime = new AtomicLong();
+
+    private volatile Recorder recorder = new Recorder(3);
+
+    private volatile String orderPrefix = "";
+
+    private volatile long warmupOrders;
+
+    /**
+     * 开始新的一轮压测.
+     *
+     * @param runId        本轮压测的标识，也是订单号的前缀
+     * @param warmupOrders 预热期间的订单数
+     */
+    void reset(String runId, long warmupOrders) {
+        orderPrefix = runId + "-";
+        this.warmupOrders = warmupOrders;
+        executed.clear();
+        duplicates.set(0);
+        lastExecutedTime.set(0);
+        recorder = new Recorder(3);
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        final String[] fields;
+        try {
+            fields = ExecutionReporter.parse(((TextMessage) message).getText());
+        } catch (JMSException e) {
+            throw new IllegalStateException(e);
+        }
+        if (!fields[1].startsWith(orderPrefix)
+                || Long.parseLong(fields[1].substring(orderPrefix.length())) < warmupOrders) {
+            return;
+        }
+        final long executedTime = Long.parseLong(fields[3]);
+        if (executed.putIfAbsent(fields[0] + ":" + fields[1], Boolean.TRUE) != null) {
+            duplicates.incrementAndGet();
+            return;
+        }
+        recorder.recordValue(TimeUnit.MILLISECONDS.toMicros(Math.max(executedTime - Long.parseLong(fields[2]), 0)));
+        lastExecutedTime.accumulateAndGet(executedTime, Math::max);
+    }
+
+    /**
+     * 等待参与者全部执行.
+     *
+     * @param expected 应该执行的次数
+     * @param timeout  超时时间，单位秒
+     * @throws InterruptedException 中断
+     */
+    void awaitExecuted(long expected, long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        while (executed.size() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+    }
+
+    /**
+     * 没有执行的参与者，用来排查丢失的消息.
+     *
+     * @param orders 订单总数，包括预热期间的订单
+     * @param limit  最多返回的数量
+     * @return 队列:订单号
+     */
+    List<String> missing(long orders, int limit) {
+        final List<String> missing = new ArrayList<>();
+        for (long i = warmupOrders; i < orders && missing.size() < limit; i++) {
+            for (LoadNode loadNode : new LoadNode[]{LoadNode.ACCOUNT, LoadNode.INVENTORY}) {
+                final String key = loadNode.getDestination() + ":" + orderPrefix + i;
+                if (!executed.containsKey(key) && missing.size() < limit) {
+                    missing.add(key);
+                }
+            }
+        }
+        return missing;
+    }
+
+    long getExecuted() {
+        return executed.size();
+    }
+
+    long getDuplicates() {
+        return duplicates.get();
+    }
+
+    long getLastExecutedTime() {
+        return lastExecutedTime.get();
+    }
+
+    /**
+     * 下单到参与者执行的延迟，单位微秒，精度是毫秒.
+     *
+     * @return Histogram
+     */
+    Histogram getHistogram() {
+        return recorder.getIntervalHistogram();
+    }
+}
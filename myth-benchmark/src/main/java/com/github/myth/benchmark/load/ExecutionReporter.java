@@ -0,0 +1,65 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import org.springframework.jms.core.JmsTemplate;
+
+/**
+ * 参与者执行完成后通知压测驱动，驱动按下单时间统计端到端的执行延迟.
+ * 重复执行也会通知，由驱动统计重复次数.
+ *
+ * @author xiaoyu
+ */
+public class ExecutionReporter {
+
+    /**
+     * 执行通知的队列.
+     */
+    public static final String EXECUTED_QUEUE = "myth.load.executed";
+
+    private static final String SEPARATOR = "|";
+
+    private final JmsTemplate jmsTemplate;
+
+    public ExecutionReporter(JmsTemplate jmsTemplate) {
+        this.jmsTemplate = jmsTemplate;
+    }
+
+    /**
+     * 参与者执行完成.
+     *
+     * @param destination 参与者的队列
+     * @param orderId     订单号
+     * @param orderTime   下单时间
+     */
+    public void executed(String destination, String orderId, long orderTime) {
+        final String text = String.join(SEPARATOR, destination, orderId,
+                String.valueOf(orderTime), String.valueOf(System.currentTimeMillis()));
+        jmsTemplate.send(EXECUTED_QUEUE, session -> session.createTextMessage(text));
+    }
+
+    /**
+     * 解析执行通知.
+     *
+     * @param text 通知内容
+     * @return 参与者的队列、订单号、下单时间、执行时间
+     */
+    static String[] parse(String text) {
+        return text.split("\\" + SEPARATOR);
+    }
+}
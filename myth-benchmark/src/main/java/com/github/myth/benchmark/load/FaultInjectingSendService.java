@@ -0,0 +1,70 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.enums.MythDeliveryClassEnum;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.service.MythMqSendService;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按比例让首次发送失败，模拟 broker 不可用，失败的消息由发起者的定时任务恢复.
+ * 重试消息不注入失败，压测结束后可以统计追平的时间.
+ *
+ * @author xiaoyu
+ */
+public class FaultInjectingSendService implements MythMqSendService {
+
+    private final MythMqSendService delegate;
+
+    private final double failureRatio;
+
+    public FaultInjectingSendService(MythMqSendService delegate, double failureRatio) {
+        this.delegate = delegate;
+        this.failureRatio = failureRatio;
+    }
+
+    @Override
+    public void sendMessage(String destination, Integer pattern, byte[] message) {
+        inject();
+        delegate.sendMessage(destination, pattern, message);
+    }
+
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+        inject();
+        delegate.sendMessage(destination, pattern, transId, message);
+    }
+
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                            MessageDelivery delivery) {
+        if (delivery.getDeliveryClass() != MythDeliveryClassEnum.RETRY) {
+            inject();
+        }
+        delegate.sendMessage(destination, pattern, transId, message, delivery);
+    }
+
+    private void inject() {
+        if (failureRatio > 0 && ThreadLocalRandom.current().nextDouble() < failureRatio) {
+            throw new MythRuntimeException("injected send failure");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.annotation.Myth;
+
+/**
+ * 库存服务，发起者通过 myth 消息调用.
+ *
+ * @author xiaoyu
+ */
+public interface InventoryService {
+
+    /**
+     * 扣减库存.
+     *
+     * @param orderId   订单号
+     * @param count     数量
+     * @param orderTime 下单时间，用来统计参与者的执行延迟
+     */
+    @Myth(destination = "inventory", target = InventoryService.class)
+    void decrease(String orderId, int count, long orderTime);
+}
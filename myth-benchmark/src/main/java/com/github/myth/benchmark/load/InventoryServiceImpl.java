@@ -0,0 +1,46 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.annotation.Myth;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的库存，参与者只做一次库存扣减，压测的是 myth 本身.
+ *
+ * @author xiaoyu
+ */
+public class InventoryServiceImpl implements InventoryService {
+
+    private final Map<String, Integer> decreases = new ConcurrentHashMap<>();
+
+    private final ExecutionReporter executionReporter;
+
+    public InventoryServiceImpl(ExecutionReporter executionReporter) {
+        this.executionReporter = executionReporter;
+    }
+
+    @Override
+    @Myth(destination = "inventory")
+    public void decrease(String orderId, int count, long orderTime) {
+        decreases.merge(orderId, count, Integer::sum);
+        executionReporter.executed("inventory", orderId, orderTime);
+    }
+}
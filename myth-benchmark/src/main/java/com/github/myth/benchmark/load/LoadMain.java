@@ -0,0 +1,213 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.common.utils.RepositoryPathUtils;
+import org.HdrHistogram.Histogram;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+
+/**
+ * 端到端压测驱动：内嵌 activemq broker，为每一种事务日志存储和序列化方式的组合启动发起者和参与者节点，
+ * 统计下单延迟、下单到参与者执行的延迟，以及压测结束后恢复发送失败的消息所需的追平时间.
+ * <pre>
+ * java -cp myth-benchmarks.jar com.github.myth.benchmark.load.LoadMain --rps 500 --duration 60 \
+ *     --repository db,file --serializer kryo,hessian --send-failure 0.01
+ * </pre>
+ *
+ * @author xiaoyu
+ */
+public final class LoadMain {
+
+    private static final long STARTUP_TIMEOUT = 120;
+
+    private LoadMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        final LoadOptions loadOptions;
+        try {
+            loadOptions = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        final BrokerService broker = new BrokerService();
+        broker.setBrokerName("myth-load");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setUseShutdownHook(false);
+        broker.addConnector(loadOptions.getBrokerUrl());
+        broker.start();
+
+        final ExecutionCollector collector = new ExecutionCollector();
+        final DefaultMessageListenerContainer listener = new DefaultMessageListenerContainer();
+        listener.setConnectionFactory(new ActiveMQConnectionFactory(loadOptions.getBrokerUrl()));
+        listener.setDestinationName(ExecutionReporter.EXECUTED_QUEUE);
+        listener.setConcurrentConsumers(2);
+        listener.setMessageListener(collector);
+        listener.afterPropertiesSet();
+        listener.start();
+
+        final List<String> summary = new ArrayList<>();
+        try {
+            for (String repository : loadOptions.getRepositories()) {
+                for (String serializer : loadOptions.getSerializers()) {
+                    summary.add(run(loadOptions, repository, serializer, collector, broker));
+                }
+            }
+        } finally {
+            listener.shutdown();
+            broker.stop();
+        }
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-10s %-12s %10s %10s %10s %10s %12s %12s %12s",
+                "repository", "serializer", "orders/s", "order-p99", "order-max", "exec-p50", "exec-p99",
+                "executed", "catch-up-ms"));
+        summary.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private static String run(LoadOptions loadOptions, String repository, String serializer,
+                              ExecutionCollector collector, BrokerService broker) throws Exception {
+        final String runId = repository + "-" + serializer + "-" + System.currentTimeMillis();
+        final List<String> args = loadOptions.toArgs(repository, serializer, runId);
+        final LoadOptions roundOptions = LoadOptions.parse(args.toArray(new String[0]));
+        collector.reset(runId, loadOptions.getWarmupOrders());
+        System.out.println(String.format(Locale.ROOT,
+                "==== repository=%s serializer=%s mode=%s rps=%d warmup=%ds duration=%ds send-failure=%s",
+                repository, serializer, loadOptions.getMode(), loadOptions.getRps(), loadOptions.getWarmup(),
+                loadOptions.getDuration(), loadOptions.getSendFailure()));
+
+        final List<NodeProcess> participants = new ArrayList<>();
+        NodeProcess order = null;
+        try {
+            if (!loadOptions.isLocal()) {
+                for (LoadNode loadNode : new LoadNode[]{LoadNode.ACCOUNT, LoadNode.INVENTORY}) {
+                    final List<String> participantArgs = new ArrayList<>();
+                    participantArgs.add(loadNode.getDestination());
+                    participantArgs.addAll(args);
+                    participants.add(NodeProcess.start(loadNode.getDestination(), ParticipantNode.class,
+                            participantArgs));
+                }
+                for (NodeProcess participant : participants) {
+                    participant.await(LoadNode.READY, STARTUP_TIMEOUT);
+                }
+            }
+            order = NodeProcess.start("order", OrderNode.class, args);
+            order.await(LoadNode.READY, STARTUP_TIMEOUT);
+            final String[] result = order.await(LoadNode.RESULT,
+                    loadOptions.getWarmup() + loadOptions.getDuration() + STARTUP_TIMEOUT)
+                    .split(" ");
+            final long loadEnd = System.currentTimeMillis();
+            final long orders = Long.parseLong(result[1]);
+            final long errors = Long.parseLong(result[2]);
+            final double elapsedSeconds = Long.parseLong(result[3]) / 1e9;
+            final Histogram orderLatency = decode(result[4]);
+
+            final long expected = (orders - errors) * LoadOrderService.PARTICIPANTS;
+            collector.awaitExecuted(expected, loadOptions.getCatchUpTimeout());
+            final long catchUp = Math.max(collector.getLastExecutedTime() - loadEnd, 0);
+            final Histogram executionLatency = collector.getHistogram();
+
+            System.out.println(String.format(Locale.ROOT, "orders %d, errors %d, %.1f orders/s",
+                    orders, errors, orders / elapsedSeconds));
+            System.out.println("order latency (ms)     " + percentiles(orderLatency));
+            System.out.println("execution latency (ms) " + percentiles(executionLatency));
+            System.out.println(String.format(Locale.ROOT, "executed %d/%d, duplicates %d, catch-up %d ms",
+                    collector.getExecuted(), expected, collector.getDuplicates(), catchUp));
+            if (collector.getExecuted() < expected) {
+                System.out.println("missing " + collector.missing(orders + loadOptions.getWarmupOrders(), 10));
+            }
+            return String.format(Locale.ROOT, "%-10s %-12s %10.1f %10.2f %10.2f %10.2f %12.2f %12s %12d",
+                    repository, serializer, orders / elapsedSeconds,
+                    millis(orderLatency.getValueAtPercentile(99)), millis(orderLatency.getMaxValue()),
+                    millis(executionLatency.getValueAtPercentile(50)),
+                    millis(executionLatency.getValueAtPercentile(99)),
+                    collector.getExecuted() + "/" + expected, catchUp);
+        } finally {
+            if (order != null) {
+                order.stop();
+            }
+            for (NodeProcess participant : participants) {
+                participant.stop();
+            }
+            purge(broker);
+            if ("file".equals(repository)) {
+                for (LoadNode loadNode : LoadNode.values()) {
+                    delete(RepositoryPathUtils.buildFilePath(loadNode.repositorySuffix(roundOptions)));
+                }
+            }
+        }
+    }
+
+    private static Histogram decode(String encoded) throws DataFormatException {
+        return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+    }
+
+    private static String percentiles(Histogram histogram) {
+        return String.format(Locale.ROOT, "p50 %.2f  p90 %.2f  p99 %.2f  p99.9 %.2f  max %.2f",
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /**
+     * 上一轮没有消费完的消息不带到下一轮.
+     */
+    private static void purge(BrokerService broker) {
+        for (LoadNode loadNode : new LoadNode[]{LoadNode.ACCOUNT, LoadNode.INVENTORY}) {
+            try {
+                broker.removeDestination(new ActiveMQQueue(loadNode.getDestination()));
+            } catch (Exception ignore) {
+                //队列不存在
+            }
+        }
+    }
+
+    private static void delete(String path) throws IOException {
+        final File directory = new File(path);
+        if (!directory.exists()) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.benchmark.H2Support;
+import com.github.myth.core.service.ApplicationService;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Locale;
+
+/**
+ * 压测的节点进程：发起者（订单）和参与者（账户、库存）.
+ * 协调服务的队列和mq发送服务是静态的，一个进程只能运行一个 myth 节点；同一个事务的参与者事务日志使用相同的事务id，
+ * 两个参与者也不能共用一个事务日志存储，所以每个节点单独一个进程，通过标准输出与压测驱动交换就绪和结果.
+ *
+ * @author xiaoyu
+ */
+public enum LoadNode implements ApplicationService {
+
+    /**
+     * 发起者，开启自动恢复.
+     */
+    ORDER("myth-load-order", true),
+
+    /**
+     * 账户参与者.
+     */
+    ACCOUNT("myth-load-account", false),
+
+    /**
+     * 库存参与者.
+     */
+    INVENTORY("myth-load-inventory", false);
+
+    /**
+     * 节点启动完成.
+     */
+    static final String READY = "MYTH-LOAD-READY";
+
+    /**
+     * 发起者压测结束，后面跟着压测结果.
+     */
+    static final String RESULT = "MYTH-LOAD-RESULT";
+
+    private final String applicationName;
+
+    private final boolean needRecover;
+
+    LoadNode(String applicationName, boolean needRecover) {
+        this.applicationName = applicationName;
+        this.needRecover = needRecover;
+    }
+
+    /**
+     * 参与者节点消费的队列.
+     *
+     * @return 队列名称
+     */
+    public String getDestination() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public String acquireName() {
+        return applicationName;
+    }
+
+    public boolean isNeedRecover() {
+        return needRecover;
+    }
+
+    /**
+     * 每一轮压测使用单独的事务日志，file 方式不会读到上一轮留下的文件.
+     *
+     * @param loadOptions 压测参数
+     * @return 事务日志存储的模块名称
+     */
+    public String repositorySuffix(LoadOptions loadOptions) {
+        return applicationName + "-" + loadOptions.getRunId();
+    }
+
+    /**
+     * 启动节点的 spring 容器.
+     *
+     * @param loadOptions    压测参数
+     * @param configurations 节点自身的配置
+     * @return spring 容器
+     */
+    AnnotationConfigApplicationContext start(LoadOptions loadOptions, Class<?>... configurations) {
+        final AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().registerSingleton("loadOptions", loadOptions);
+        context.getBeanFactory().registerSingleton("applicationService", this);
+        context.register(LoadNodeConfiguration.class);
+        context.register(configurations);
+        context.refresh();
+        if ("db".equals(loadOptions.getRepository())) {
+            H2Support.alterInvocationColumn(repositorySuffix(loadOptions));
+        }
+        return context;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.benchmark.H2Support;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.core.bootstrap.MythTransactionBootstrap;
+import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadPool;
+import com.github.myth.core.interceptor.AbstractMythTransactionAspect;
+import com.github.myth.core.service.MythInitService;
+import com.github.myth.core.service.MythTransactionAspectService;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.jms.pool.PooledConnectionFactory;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.core.Ordered;
+import org.springframework.jms.core.JmsTemplate;
+
+import java.util.Arrays;
+
+/**
+ * 节点的公共配置：myth 核心组件、切面，以及连接压测驱动内嵌 broker 的连接工厂.
+ *
+ * @author xiaoyu
+ */
+@Configuration
+@EnableAspectJAutoProxy
+@ComponentScan(basePackages = "com.github.myth.core",
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE,
+                classes = {MythTransactionBootstrap.class, MythTransactionThreadPool.class}))
+public class LoadNodeConfiguration {
+
+    @Bean
+    public MythTransactionBootstrap mythTransactionBootstrap(MythInitService mythInitService,
+                                                             LoadOptions loadOptions, LoadNode loadNode) {
+        final MythTransactionBootstrap bootstrap = new MythTransactionBootstrap(mythInitService);
+        bootstrap.setRepositorySupport(loadOptions.getRepository());
+        bootstrap.setSerializer(loadOptions.getSerializer());
+        bootstrap.setRepositorySuffix(loadNode.repositorySuffix(loadOptions));
+        bootstrap.setMythDbConfig(H2Support.dbConfig());
+        bootstrap.setNeedRecover(loadNode.isNeedRecover());
+        bootstrap.setScheduledDelay(loadOptions.getRecoverDelay());
+        bootstrap.setRecoverDelayTime(loadOptions.getRecoverDelay());
+        if (loadOptions.isLocal()) {
+            bootstrap.setLocalDestinations(Arrays.asList("account", "inventory"));
+        }
+        return bootstrap;
+    }
+
+    /**
+     * 在启动类之后创建：启动类初始化协调服务时才获取线程池，线程池再使用启动类作为配置.
+     *
+     * @param mythConfig 启动类
+     * @return MythTransactionThreadPool
+     */
+    @Bean
+    public MythTransactionThreadPool mythTransactionThreadPool(MythConfig mythConfig) {
+        return new MythTransactionThreadPool(mythConfig);
+    }
+
+    @Bean
+    public LoadMythTransactionAspect loadMythTransactionAspect(MythTransactionAspectService mythTransactionAspectService) {
+        final LoadMythTransactionAspect aspect = new LoadMythTransactionAspect();
+        //没有 rpc 上下文，发起者的上下文为空，参与者的上下文由协调服务执行前设置
+        aspect.setMythTransactionInterceptor(point ->
+                mythTransactionAspectService.invoke(TransactionContextLocal.getInstance().get(), point));
+        return aspect;
+    }
+
+    @Bean(destroyMethod = "stop")
+    public PooledConnectionFactory connectionFactory(LoadOptions loadOptions) {
+        final ActiveMQConnectionFactory connectionFactory =
+                new ActiveMQConnectionFactory(loadOptions.getBrokerUrl());
+        connectionFactory.setUseAsyncSend(true);
+        final PooledConnectionFactory pooledConnectionFactory = new PooledConnectionFactory();
+        pooledConnectionFactory.setConnectionFactory(connectionFactory);
+        return pooledConnectionFactory;
+    }
+
+    @Bean
+    public ExecutionReporter executionReporter(PooledConnectionFactory connectionFactory) {
+        return new ExecutionReporter(new JmsTemplate(connectionFactory));
+    }
+
+    /**
+     * myth 切面.
+     */
+    @Aspect
+    public static class LoadMythTransactionAspect extends AbstractMythTransactionAspect implements Ordered {
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 端到端压测的参数，压测驱动原样传给各个节点进程.
+ *
+ * @author xiaoyu
+ */
+public class LoadOptions {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "usage: java -cp myth-benchmarks.jar " + LoadMain.class.getName() + " [options]",
+            "  --mode broker|local      参与者经过 activemq 投递，或者与发起者在同一进程内执行（默认 broker）",
+            "  --rps <n>                每秒下单数（默认 200）",
+            "  --duration <s>           压测时长，单位秒（默认 30）",
+            "  --warmup <s>             预热时长，单位秒，预热期间的订单不统计延迟（默认 10）",
+            "  --threads <n>            发起者下单线程数，也是参与者的消费线程数（默认 8）",
+            "  --repository <list>      事务日志存储，逗号分隔：db,file（默认 db）",
+            "  --serializer <list>      序列化方式，逗号分隔：kryo,hessian,protostuff,jdk（默认 kryo）",
+            "  --send-failure <ratio>   首次发送消息失败的比例，由定时任务恢复（默认 0）",
+            "  --recover-delay <s>      恢复多久之前的事务日志，以及恢复任务的间隔，单位秒（默认 10）",
+            "  --catch-up-timeout <s>   压测结束后等待参与者全部执行的最长时间，单位秒（默认 180）",
+            "  --broker-port <port>     内嵌 activemq 的端口（默认 61626）");
+
+    private String mode = "broker";
+
+    private int rps = 200;
+
+    private int duration = 30;
+
+    private int warmup = 10;
+
+    private int threads = 8;
+
+    private List<String> repositories = Arrays.asList("db");
+
+    private List<String> serializers = Arrays.asList("kryo");
+
+    private double sendFailure;
+
+    private int recoverDelay = 10;
+
+    private int catchUpTimeout = 180;
+
+    private int brokerPort = 61626;
+
+    private String runId = "run";
+
+    /**
+     * 解析命令行参数.
+     *
+     * @param args --name value 形式的参数
+     * @return LoadOptions
+     */
+    public static LoadOptions parse(String[] args) {
+        final LoadOptions options = new LoadOptions();
+        for (int i = 0; i < args.length; i += 2) {
+            final String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("missing value for " + name);
+            }
+            final String value = args[i + 1];
+            switch (name) {
+                case "--mode":
+                    if (!"broker".equals(value) && !"local".equals(value)) {
+                        throw new IllegalArgumentException("unknown mode: " + value);
+                    }
+                    options.mode = value;
+                    break;
+                case "--rps":
+                    options.rps = positive(name, Integer.parseInt(value));
+                    break;
+                case "--duration":
+                    options.duration = positive(name, Integer.parseInt(value));
+                    break;
+                case "--warmup":
+                    options.warmup = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    options.threads = positive(name, Integer.parseInt(value));
+                    break;
+                case "--repository":
+                    options.repositories = Arrays.asList(value.split(","));
+                    break;
+                case "--serializer":
+                    options.serializers = Arrays.asList(value.split(","));
+                    break;
+                case "--send-failure":
+                    options.sendFailure = Double.parseDouble(value);
+                    break;
+                case "--recover-delay":
+                    options.recoverDelay = positive(name, Integer.parseInt(value));
+                    break;
+                case "--catch-up-timeout":
+                    options.catchUpTimeout = positive(name, Integer.parseInt(value));
+                    break;
+                case "--broker-port":
+                    options.brokerPort = positive(name, Integer.parseInt(value));
+                    break;
+                case "--run-id":
+                    options.runId = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option: " + name);
+            }
+        }
+        return options;
+    }
+
+    /**
+     * 启动单个节点进程的参数，只带一种事务日志存储和序列化方式.
+     *
+     * @param repository 事务日志存储
+     * @param serializer 序列化方式
+     * @param runId      本轮压测的标识
+     * @return 命令行参数
+     */
+    List<String> toArgs(String repository, String serializer, String runId) {
+        final List<String> args = new ArrayList<>();
+        add(args, "--mode", mode);
+        add(args, "--rps", rps);
+        add(args, "--duration", duration);
+        add(args, "--warmup", warmup);
+        add(args, "--threads", threads);
+        add(args, "--repository", repository);
+        add(args, "--serializer", serializer);
+        add(args, "--send-failure", sendFailure);
+        add(args, "--recover-delay", recoverDelay);
+        add(args, "--catch-up-timeout", catchUpTimeout);
+        add(args, "--broker-port", brokerPort);
+        add(args, "--run-id", runId);
+        return args;
+    }
+
+    private static void add(List<String> args, String name, Object value) {
+        args.add(name);
+        args.add(String.valueOf(value));
+    }
+
+    private static int positive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return value;
+    }
+
+    public boolean isLocal() {
+        return "local".equals(mode);
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public int getRps() {
+        return rps;
+    }
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public int getWarmup() {
+        return warmup;
+    }
+
+    /**
+     * 预热期间的订单数，订单号的序号小于该值的订单不统计延迟.
+     *
+     * @return 订单数
+     */
+    public long getWarmupOrders() {
+        return (long) rps * warmup;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public List<String> getRepositories() {
+        return repositories;
+    }
+
+    public List<String> getSerializers() {
+        return serializers;
+    }
+
+    /**
+     * 单节点进程只有一种事务日志存储.
+     *
+     * @return 事务日志存储
+     */
+    public String getRepository() {
+        return repositories.get(0);
+    }
+
+    /**
+     * 单节点进程只有一种序列化方式.
+     *
+     * @return 序列化方式
+     */
+    public String getSerializer() {
+        return serializers.get(0);
+    }
+
+    public double getSendFailure() {
+        return sendFailure;
+    }
+
+    public int getRecoverDelay() {
+        return recoverDelay;
+    }
+
+    public int getCatchUpTimeout() {
+        return catchUpTimeout;
+    }
+
+    public int getBrokerPort() {
+        return brokerPort;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getBrokerUrl() {
+        return "tcp://127.0.0.1:" + brokerPort;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.annotation.Myth;
+
+import java.math.BigDecimal;
+
+/**
+ * 下单：扣减账户余额和库存，两个参与者.
+ *
+ * @author xiaoyu
+ */
+public class LoadOrderService {
+
+    /**
+     * 每个订单的参与者数量.
+     */
+    static final int PARTICIPANTS = 2;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("99.90");
+
+    private final AccountService accountService = ParticipantClient.create(AccountService.class);
+
+    private final InventoryService inventoryService = ParticipantClient.create(InventoryService.class);
+
+    /**
+     * 下单.
+     *
+     * @param orderId   订单号
+     * @param orderTime 下单时间
+     */
+    @Myth(destination = "")
+    public void placeOrder(String orderId, long orderTime) {
+        accountService.payment(orderId, AMOUNT, orderTime);
+        inventoryService.decrease(orderId, 1, orderTime);
+    }
+}
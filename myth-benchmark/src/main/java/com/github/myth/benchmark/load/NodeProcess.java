@@ -0,0 +1,128 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压测驱动启动的节点进程，使用与驱动相同的 classpath.
+ * 节点输出的就绪和结果行放入队列，其他输出带上节点名称转发到驱动的标准错误.
+ *
+ * @author xiaoyu
+ */
+class NodeProcess {
+
+    private final String name;
+
+    private final Process process;
+
+    private final BlockingQueue<String> protocolLines = new LinkedBlockingQueue<>();
+
+    private NodeProcess(String name, Process process) {
+        this.name = name;
+        this.process = process;
+    }
+
+    /**
+     * 启动节点进程.
+     *
+     * @param name      节点名称
+     * @param mainClass 节点的启动类
+     * @param args      压测参数
+     * @return NodeProcess
+     * @throws IOException 启动失败
+     */
+    static NodeProcess start(String name, Class<?> mainClass, List<String> args) throws IOException {
+        final List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Xms256m");
+        command.add("-Xmx1g");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(args);
+        final Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        final NodeProcess nodeProcess = new NodeProcess(name, process);
+        final Thread reader = new Thread(nodeProcess::readOutput, "myth-load-" + name);
+        reader.setDaemon(true);
+        reader.start();
+        return nodeProcess;
+    }
+
+    /**
+     * 等待节点输出指定的行.
+     *
+     * @param prefix  行的前缀
+     * @param timeout 超时时间，单位秒
+     * @return 输出的行
+     * @throws InterruptedException 中断
+     */
+    String await(String prefix, long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        while (true) {
+            final String line = protocolLines.poll(Math.min(deadline - System.nanoTime(),
+                    TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+            if (line != null && line.startsWith(prefix)) {
+                return line;
+            }
+            if (line == null && !process.isAlive()) {
+                throw new IllegalStateException(name + " exited with " + process.exitValue());
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IllegalStateException(name + " did not print " + prefix + " within " + timeout + "s");
+            }
+        }
+    }
+
+    /**
+     * 结束节点进程.
+     *
+     * @throws InterruptedException 中断
+     */
+    void stop() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(10, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private void readOutput() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(LoadNode.READY) || line.startsWith(LoadNode.RESULT)) {
+                    protocolLines.add(line);
+                } else {
+                    System.err.println("[" + name + "] " + line);
+                }
+            }
+        } catch (IOException ignore) {
+            //进程已经结束
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 按固定速率下单，统计下单接口的延迟.
+ * 延迟从计划的下单时间算起，下单线程排队的时间也计算在内，不会因为协调遗漏低估延迟.
+ *
+ * @author xiaoyu
+ */
+class OrderLoadGenerator {
+
+    private final LoadOptions loadOptions;
+
+    private final LoadOrderService loadOrderService;
+
+    private final Recorder recorder = new Recorder(3);
+
+    private final AtomicLong errors = new AtomicLong();
+
+    OrderLoadGenerator(LoadOptions loadOptions, LoadOrderService loadOrderService) {
+        this.loadOptions = loadOptions;
+        this.loadOrderService = loadOrderService;
+    }
+
+    /**
+     * 按固定速率下单，全部完成后返回结果行.
+     *
+     * 预热期间的订单正常下单，但不计入结果.
+     *
+     * @return 结果行：订单数 失败数 耗时（纳秒） 延迟直方图（微秒）
+     * @throws InterruptedException 中断
+     */
+    String run() throws InterruptedException {
+        final ExecutorService workers = Executors.newFixedThreadPool(loadOptions.getThreads());
+        final long interval = TimeUnit.SECONDS.toNanos(1) / loadOptions.getRps();
+        final long warmupOrders = loadOptions.getWarmupOrders();
+        final long orders = warmupOrders + (long) loadOptions.getRps() * loadOptions.getDuration();
+        final long startTime = System.currentTimeMillis();
+        final long start = System.nanoTime();
+        long measureStart = start;
+        for (long i = 0; i < orders; i++) {
+            final long intended = start + i * interval;
+            if (i == warmupOrders) {
+                measureStart = intended;
+            }
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            final String orderId = loadOptions.getRunId() + "-" + i;
+            final long orderTime = startTime + TimeUnit.NANOSECONDS.toMillis(intended - start);
+            final boolean measured = i >= warmupOrders;
+            workers.execute(() -> placeOrder(orderId, orderTime, intended, measured));
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        final long elapsed = System.nanoTime() - measureStart;
+        final Histogram histogram = recorder.getIntervalHistogram();
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        final byte[] encoded = new byte[length];
+        buffer.flip();
+        buffer.get(encoded);
+        return String.join(" ", LoadNode.RESULT, String.valueOf(orders - warmupOrders), String.valueOf(errors.get()),
+                String.valueOf(elapsed), Base64.getEncoder().encodeToString(encoded));
+    }
+
+    private void placeOrder(String orderId, long orderTime, long intended, boolean measured) {
+        try {
+            loadOrderService.placeOrder(orderId, orderTime);
+            if (measured) {
+                recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+            }
+        } catch (Exception e) {
+            if (measured && errors.getAndIncrement() == 0) {
+                //只输出第一个异常，失败原因一般相同
+                e.printStackTrace();
+            }
+        }
+    }
+}
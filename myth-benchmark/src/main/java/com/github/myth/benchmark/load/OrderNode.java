@@ -0,0 +1,59 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.jms.service.ActivemqSendServiceImpl;
+import org.apache.activemq.jms.pool.PooledConnectionFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 发起者节点：启动后按固定速率下单，压测结束后进程继续运行，由定时任务恢复发送失败的消息，直到压测驱动结束进程.
+ *
+ * @author xiaoyu
+ */
+@Configuration
+public class OrderNode {
+
+    public static void main(String[] args) throws Exception {
+        final LoadOptions loadOptions = LoadOptions.parse(args);
+        final AnnotationConfigApplicationContext context = loadOptions.isLocal()
+                ? LoadNode.ORDER.start(loadOptions, OrderNode.class, ParticipantConfiguration.class)
+                : LoadNode.ORDER.start(loadOptions, OrderNode.class);
+        System.out.println(LoadNode.READY);
+        System.out.println(new OrderLoadGenerator(loadOptions, context.getBean(LoadOrderService.class)).run());
+        //等待定时任务恢复发送失败的消息
+        new CountDownLatch(1).await();
+    }
+
+    @Bean
+    public LoadOrderService loadOrderService() {
+        return new LoadOrderService();
+    }
+
+    @Bean
+    public MythMqSendService mythMqSendService(PooledConnectionFactory connectionFactory, LoadOptions loadOptions) {
+        final ActivemqSendServiceImpl activemqSendService = new ActivemqSendServiceImpl();
+        activemqSendService.setConnectionFactory(connectionFactory);
+        return new FaultInjectingSendService(activemqSendService, loadOptions.getSendFailure());
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.annotation.Myth;
+import com.github.myth.common.bean.context.MythTransactionContext;
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
+import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.service.impl.MythTransactionManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Objects;
+
+/**
+ * 发起者调用参与者的客户端，与 MythFeignHandler 一样登记参与者，
+ * 压测的是 myth 消息的链路，不再真正发起 rpc 调用.
+ *
+ * @author xiaoyu
+ */
+public final class ParticipantClient implements InvocationHandler {
+
+    private ParticipantClient() {
+    }
+
+    /**
+     * 创建参与者接口的客户端.
+     *
+     * @param type 参与者接口
+     * @param <T>  接口类型
+     * @return 客户端
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T create(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, new ParticipantClient());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (Object.class.equals(method.getDeclaringClass())) {
+            return method.invoke(this, args);
+        }
+        final Myth myth = method.getAnnotation(Myth.class);
+        final MythTransactionContext mythTransactionContext = TransactionContextLocal.getInstance().get();
+        if (Objects.nonNull(myth) && Objects.nonNull(mythTransactionContext)) {
+            final MythInvocation mythInvocation = new MythInvocation(myth.target(),
+                    method.getName(), method.getParameterTypes(), args);
+            SpringBeanUtils.getInstance().getBean(MythTransactionManager.class)
+                    .registerParticipant(new MythParticipant(mythTransactionContext.getTransId(),
+                            myth.destination(), myth.pattern().getCode(), mythInvocation));
+        }
+        return null;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 参与者的业务服务，broker 模式在参与者节点，local 模式在发起者节点.
+ *
+ * @author xiaoyu
+ */
+@Configuration
+public class ParticipantConfiguration {
+
+    @Bean
+    public AccountService accountService(ExecutionReporter executionReporter) {
+        return new AccountServiceImpl(executionReporter);
+    }
+
+    @Bean
+    public InventoryService inventoryService(ExecutionReporter executionReporter) {
+        return new InventoryServiceImpl(executionReporter);
+    }
+}
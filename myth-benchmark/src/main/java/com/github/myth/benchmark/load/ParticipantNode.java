@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.benchmark.load;
+
+import com.github.myth.core.service.MythMqReceiveService;
+import org.apache.activemq.jms.pool.PooledConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MessageListener;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 参与者节点：消费账户或者库存队列的 myth 消息并执行参与者，直到压测驱动结束进程.
+ *
+ * @author xiaoyu
+ */
+@Configuration
+@Import(ParticipantConfiguration.class)
+public class ParticipantNode {
+
+    /**
+     * 启动参与者节点.
+     *
+     * @param args 第一个参数是节点（account、inventory），其余是压测参数
+     * @throws Exception 启动失败
+     */
+    public static void main(String[] args) throws Exception {
+        final LoadNode loadNode = LoadNode.valueOf(args[0].toUpperCase(Locale.ROOT));
+        loadNode.start(LoadOptions.parse(Arrays.copyOfRange(args, 1, args.length)), ParticipantNode.class);
+        System.out.println(LoadNode.READY);
+        new CountDownLatch(1).await();
+    }
+
+    @Bean
+    public DefaultMessageListenerContainer participantListener(PooledConnectionFactory connectionFactory,
+                                                              MythMqReceiveService mythMqReceiveService,
+                                                              LoadOptions loadOptions, LoadNode loadNode) {
+        final DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setDestinationName(loadNode.getDestination());
+        container.setSessionTransacted(true);
+        container.setConcurrentConsumers(loadOptions.getThreads());
+        container.setMessageListener((MessageListener) message -> {
+            try {
+                final BytesMessage bytesMessage = (BytesMessage) message;
+                final byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(body);
+                mythMqReceiveService.processMessage(body);
+            } catch (JMSException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return container;
+    }
+}
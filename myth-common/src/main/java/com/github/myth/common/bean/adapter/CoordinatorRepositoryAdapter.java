@@ -21,6 +21,7 @@ package com.github.myth.common.bean.adapter;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
 import java.util.Date;
 
 /**
@@ -33,8 +34,9 @@ import java.util.Date;
  */
 @Data
 @NoArgsConstructor
-public class CoordinatorRepositoryAdapter {
+public class CoordinatorRepositoryAdapter implements Serializable {
 
+    private static final long serialVersionUID = 6212578960352470215L;
 
     /**
      * 事务id
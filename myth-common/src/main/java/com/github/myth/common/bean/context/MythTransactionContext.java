@@ -38,5 +38,10 @@ public class MythTransactionContext implements Serializable {
      */
     private int role;
 
+    /**
+     * 调用方的 W3C traceparent，没有开启链路追踪时为空
+     */
+    private String traceParent;
+
 
 }
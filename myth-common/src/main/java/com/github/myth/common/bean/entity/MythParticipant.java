@@ -57,5 +57,24 @@ public class  MythParticipant implements Serializable {
      */
     private MythInvocation mythInvocation;
 
+    /**
+     * 消息投递状态 {@linkplain com.github.myth.common.enums.MythDeliveryStatusEnum}
+     */
+    private int status;
+
+    /**
+     * 消息发送时间（毫秒）
+     */
+    private long sentTime;
+
+
+    public MythParticipant(String transId, String destination,
+                           Integer pattern, MythInvocation mythInvocation) {
+        this.transId = transId;
+        this.destination = destination;
+        this.pattern = pattern;
+        this.mythInvocation = mythInvocation;
+    }
+
 
 }
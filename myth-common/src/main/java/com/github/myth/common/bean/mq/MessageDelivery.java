@@ -0,0 +1,69 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.common.bean.mq;
+
+import com.github.myth.common.enums.MythDeliveryClassEnum;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * <p>Description: 消息投递方式，各个mq按自身的机制实现（重试主题、延迟级别、TTL队列、定时投递）.</p>
+ * 重试消息的延迟由broker保存，不依赖发送方进程内的定时器，进程重启后不会丢失.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MessageDelivery {
+
+    private static final MessageDelivery FRESH = new MessageDelivery(MythDeliveryClassEnum.FRESH, 0);
+
+    /**
+     * 投递类型
+     */
+    private final MythDeliveryClassEnum deliveryClass;
+
+    /**
+     * 第几次重试，首次发送为0
+     */
+    private final int attempt;
+
+    /**
+     * 首次发送.
+     *
+     * @return MessageDelivery
+     */
+    public static MessageDelivery fresh() {
+        return FRESH;
+    }
+
+    /**
+     * 定时任务重试发送.
+     *
+     * @param attempt 第几次重试
+     * @return MessageDelivery
+     */
+    public static MessageDelivery retry(int attempt) {
+        return new MessageDelivery(MythDeliveryClassEnum.RETRY, attempt);
+    }
+}
@@ -19,10 +19,11 @@
 package com.github.myth.common.bean.mq;
 
 import com.github.myth.common.bean.entity.MythInvocation;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.io.Serializable;
+
 /**
  * <p>Description: .</p>
  *
@@ -32,9 +33,10 @@ import lombok.NoArgsConstructor;
  * @since JDK 1.8
  */
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
-public class MessageEntity {
+public class MessageEntity implements Serializable {
+
+    private static final long serialVersionUID = -2940412390186434618L;
 
     /**
      * 事务id
@@ -47,4 +49,14 @@ public class MessageEntity {
      */
     private MythInvocation mythInvocation;
 
+    /**
+     * 发送方的 W3C traceparent，只在紧凑格式的消息头中传递
+     */
+    private transient String traceParent;
+
+    public MessageEntity(String transId, MythInvocation mythInvocation) {
+        this.transId = transId;
+        this.mythInvocation = mythInvocation;
+    }
+
 }
@@ -0,0 +1,62 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.common.bean.mq;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * <p>Description: 消息头，消费端不需要反序列化参数即可按事务id去重、按目标方法路由.</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MessageHeader {
+
+    /**
+     * 消息格式版本，0 表示旧格式
+     */
+    private int version;
+
+    /**
+     * 事务id
+     */
+    private String transId;
+
+    /**
+     * 目标类名，签名id未注册时为空
+     */
+    private String targetClassName;
+
+    /**
+     * 目标方法名，签名id未注册时为空
+     */
+    private String methodName;
+
+    /**
+     * 发送方的 W3C traceparent，没有时为空
+     */
+    private String traceParent;
+
+}
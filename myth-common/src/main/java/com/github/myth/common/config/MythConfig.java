@@ -19,6 +19,8 @@ package com.github.myth.common.config;
 
 import lombok.Data;
 
+import java.util.List;
+
 /**
  * @author xiaoyu
  */
@@ -47,6 +49,119 @@ public class MythConfig {
      */
     private int coordinatorThreadMax = Runtime.getRuntime().availableProcessors() << 1;
 
+    /**
+     * 回滚队列按事务id分成的通道数，同一事务的命令在一个通道内按顺序执行
+     * 通道多于线程时空闲线程可以处理其他线程的通道，小于 coordinatorThreadMax 时使用 coordinatorThreadMax
+     */
+    private int coordinatorLaneMax = Runtime.getRuntime().availableProcessors() << 3;
+
+    /**
+     * 是否根据队列等待时间、事务日志存储耗时自动调整协调资源线程数（在 coordinatorThreadMin 与 coordinatorThreadMax 之间）
+     * 也可以通过 JMX（com.github.myth:type=CoordinatorPool）在运行时调整
+     */
+    private Boolean coordinatorAdaptive = false;
+
+    /**
+     * 自动调整时最少的协调资源线程数
+     */
+    private int coordinatorThreadMin = 1;
+
+    /**
+     * 自动调整时期望的队列等待时间 单位毫秒，超过后增加线程
+     */
+    private int coordinatorWaitTarget = 20;
+
+    /**
+     * 自动调整的周期 单位秒
+     */
+    private int coordinatorAdaptiveInterval = 5;
+
+    /**
+     * 协调资源工作线程的等待策略 {@linkplain com.github.myth.common.enums.WaitStrategyEnum}
+     * busySpin、yielding 会占用cpu，只在cpu核心数大于 coordinatorThreadMax 时使用
+     */
+    private String coordinatorWaitStrategy = "blocking";
+
+    /**
+     * 回滚队列已满时的处理策略 {@linkplain com.github.myth.common.enums.OverflowPolicyEnum}
+     */
+    private String coordinatorOverflowPolicy = "block";
+
+    /**
+     * 回滚队列已满时业务线程等待的时间 单位毫秒，超时后按 coordinatorOverflowPolicy 处理（block 策略一直等待）
+     */
+    private int coordinatorSubmitTimeout = 0;
+
+    /**
+     * 回滚队列使用超过该百分比（或者正在写入本地文件）时认为已饱和，rpc过滤器会直接拒绝新的 @Myth 调用
+     */
+    private int coordinatorSaturation = 80;
+
+    /**
+     * 回滚队列已满时写入的本地文件目录，默认为应用的工作目录
+     */
+    private String coordinatorJournalPath;
+
+    /**
+     * 停止时等待正在发送的消息、执行队列中命令的最长时间 单位秒，超时未执行的命令写入本地文件，下次启动时执行
+     */
+    private int coordinatorShutdownTimeout = 30;
+
+
+    /**
+     * 协调资源线程是否使用虚拟线程（需要jdk21及以上，低版本自动使用普通线程）
+     * 开启后日志持久化等阻塞操作不再占用平台线程，可以配合更大的 coordinatorThreadMax 使用
+     */
+    private Boolean virtualThread = false;
+
+
+    /**
+     * 是否并行发送参与者消息，开启后按 destination 分组并行发送，默认顺序发送
+     */
+    private Boolean parallelSend = false;
+
+    /**
+     * 并行发送消息的线程数
+     */
+    private int sendThreadMax = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 并行发送时等待分组在线程池中开始发送的时间 单位毫秒，超时后由调用线程发送
+     * 需要大于高峰时发送线程池的排队时间，否则并行发送会退化为顺序发送
+     */
+    private int sendGroupStartWait = 200;
+
+    /**
+     * 部署在本进程内的参与者队列（与 @Myth destination 一致），发往这些队列的消息不经过mq，直接在本进程内执行
+     */
+    private List<String> localDestinations;
+
+    /**
+     * 本进程内执行参与者消息的线程数
+     */
+    private int localThreadMax = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 是否使用紧凑消息格式（带版本号的消息头，方法签名可以使用短id），消费端同时兼容旧格式
+     * 滚动升级时需要所有消费端先升级后再开启
+     */
+    private Boolean compactMessage = false;
+
+    /**
+     * 紧凑消息参数的压缩方式 {@linkplain com.github.myth.common.enums.CompressEnum}
+     */
+    private String messageCompress = "none";
+
+    /**
+     * 参数序列化后超过该字节数才压缩
+     */
+    private int messageCompressThreshold = 1024;
+
+    /**
+     * 共享签名的类（各个节点配置相同），这些类的public方法在紧凑消息中只传递签名id
+     */
+    private List<String> messageSignatureClasses;
+
 
     /**
      * 线程池的拒绝策略 {@linkplain com.github.myth.common.enums.RejectedPolicyTypeEnum}
@@ -58,6 +173,11 @@ public class MythConfig {
      */
     private String blockingQueueType = "Linked";
 
+    /**
+     * 线程池队列类型为 Array 时的队列大小
+     */
+    private int threadPoolQueueMax = 1000;
+
 
     /**
      * 补偿存储类型 {@linkplain com.github.myth.common.enums.RepositorySupportEnum}
@@ -83,15 +203,37 @@ public class MythConfig {
     private int scheduledDelay = 60;
 
     /**
-     * 最大重试次数
+     * 最大重试次数，消费端本地执行失败超过该次数的消息转入死信，不再由mq重新投递；
+     * 发起端定时任务重新发送超过该次数的事务日志同样转入死信
      */
     private int retryMax = 3;
 
+    /**
+     * 消费端本地执行抛出这些异常（类名，包含子类）时不再重试，直接转入死信
+     * 默认已包含 ClassNotFoundException NoSuchMethodException ClassCastException IllegalArgumentException 等
+     */
+    private List<String> permanentExceptions;
+
     /**
      * 事务恢复间隔时间 单位秒（注意 此时间表示本地事务创建的时间多少秒以后才会执行）
      */
     private int recoverDelayTime = 60;
 
+    /**
+     * 消费端内存去重的保留时长 单位秒，保留时长内的重复消息不再读取事务日志，小于等于0时关闭
+     */
+    private int dedupRetention = 600;
+
+    /**
+     * 消费端内存去重最多保存的事务id数量，超过时提前丢弃最早的桶，小于等于0时不限制
+     */
+    private int dedupMaxEntries = 100000;
+
+    /**
+     * 事务id生成器 workerId 的租约时长 单位秒，每三分之一租约时长续约一次，超过租约时长未续约的 workerId 可以被其他节点租用
+     */
+    private int workerIdLease = 60;
+
 
     /**
      * db配置
@@ -119,5 +261,10 @@ public class MythConfig {
      */
     private MythFileConfig mythFileConfig;
 
+    /**
+     * kafka生产者配置
+     */
+    private MythKafkaConfig mythKafkaConfig;
+
 
 }
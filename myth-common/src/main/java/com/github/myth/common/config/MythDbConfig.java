@@ -46,6 +46,12 @@ public class MythDbConfig {
      */
     private String password;
 
+    /**
+     * 更新事务日志时是否校验 version（乐观锁）
+     * 协调资源线程已按事务id顺序写入，只在没有其他节点、线程同时更新同一事务日志时才可以关闭
+     */
+    private Boolean versionCheck = true;
+
 
     /**
      * 初始化时建立物理连接的个数。初始化发生在显示调用init方法，或者第一次getConnection时
@@ -0,0 +1,75 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.config;
+
+
+import lombok.Data;
+
+/**
+ * kafka 生产者配置，未注入 KafkaTemplate 时 KafkaSendServiceImpl 用它创建生产者.
+ * 默认值与 kafka-clients 不同：acks=all、retries=3、每个连接1个未确认请求，broker确认后消息不丢失并且同一分区按顺序写入；
+ * 压缩使用 lz4. 需要 kafka-clients 原来的默认值（acks=1、retries=0、5个未确认请求、不压缩）时按下面的属性配置，
+ * 注入自己的 KafkaTemplate 时这些配置都不生效.
+ *
+ * @author xiaoyu
+ */
+@Data
+public class MythKafkaConfig {
+
+    /**
+     * kafka地址 ip:port,ip:port
+     */
+    private String bootstrapServers;
+
+    /**
+     * 消息发送前等待凑批的时间 单位毫秒
+     */
+    private int lingerMs = 5;
+
+    /**
+     * 每个分区的批次大小 单位字节
+     */
+    private int batchSize = 16384;
+
+    /**
+     * 压缩方式 none, gzip, snappy, lz4，kafka-clients 默认 none
+     */
+    private String compressionType = "lz4";
+
+    /**
+     * 确认方式 0, 1, all，kafka-clients 默认 1，leader 宕机时已确认的消息可能丢失
+     */
+    private String acks = "all";
+
+    /**
+     * 发送失败的重试次数，kafka-clients 默认 0
+     */
+    private int retries = 3;
+
+    /**
+     * 每个连接未确认的最大请求数，开启幂等时最多为5，需要严格有序时设置为1，kafka-clients 默认 5；
+     * 大于1并且 retries 大于0时，重试可能使同一分区的消息乱序
+     */
+    private int maxInFlightRequestsPerConnection = 1;
+
+    /**
+     * 是否开启幂等生产者（需要 kafka-clients 0.11 及以上，acks 必须为 all）
+     */
+    private Boolean enableIdempotence = false;
+
+}
@@ -37,6 +37,11 @@ public interface CommonConstant {
 
     String RECOVER_REDIS_KEY_PRE = "myth:transaction:%s";
 
+    /**
+     * 租用 workerId 使用的表名、集合名、redis key、zookeeper 节点名，所有模块共用
+     */
+    String WORKER_ID = "myth_worker_id";
+
 
     String MYTH_TRANSACTION_CONTEXT = "MYTH_TRANSACTION_CONTEXT";
 
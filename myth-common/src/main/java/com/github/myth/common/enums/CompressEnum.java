@@ -0,0 +1,71 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.common.enums;
+
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * @author xiaoyu
+ */
+
+public enum CompressEnum {
+
+    /**
+     * None compress enum.
+     */
+    NONE("none"),
+
+    /**
+     * Lz4 compress enum.
+     */
+    LZ4("lz4");
+
+    private String compress;
+
+    CompressEnum(String compress) {
+        this.compress = compress;
+    }
+
+    /**
+     * Acquire compress enum.
+     *
+     * @param compress the compress
+     * @return the compress enum
+     */
+    public static CompressEnum acquire(String compress) {
+        Optional<CompressEnum> compressEnum =
+                Arrays.stream(CompressEnum.values())
+                        .filter(v -> Objects.equals(v.getCompress(), compress))
+                        .findFirst();
+        return compressEnum.orElse(CompressEnum.NONE);
+    }
+
+    /**
+     * Gets compress.
+     *
+     * @return the compress
+     */
+    public String getCompress() {
+        return compress;
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.enums;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+
+/**
+ * The enum Myth message delivery class enum.
+ *
+ * @author xiaoyu
+ */
+public enum MythDeliveryClassEnum {
+
+    /**
+     * Fresh delivery class enum.
+     */
+    FRESH(0, "首次发送"),
+
+    /**
+     * Retry delivery class enum.
+     */
+    RETRY(1, "重试");
+
+    private int code;
+
+    private String desc;
+
+    MythDeliveryClassEnum(int code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+
+    /**
+     * Acquire by code myth delivery class enum.
+     *
+     * @param code the code
+     * @return the myth delivery class enum
+     */
+    public static MythDeliveryClassEnum acquireByCode(int code) {
+        Optional<MythDeliveryClassEnum> deliveryClassEnum =
+                Arrays.stream(MythDeliveryClassEnum.values())
+                        .filter(v -> Objects.equals(v.getCode(), code))
+                        .findFirst();
+        return deliveryClassEnum.orElse(MythDeliveryClassEnum.FRESH);
+    }
+
+    /**
+     * Gets code.
+     *
+     * @return the code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets desc.
+     *
+     * @return the desc
+     */
+    public String getDesc() {
+        return desc;
+    }
+}
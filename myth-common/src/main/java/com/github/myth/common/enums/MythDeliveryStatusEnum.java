@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.enums;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+
+/**
+ * The enum Myth participant delivery status enum.
+ *
+ * @author xiaoyu
+ */
+public enum MythDeliveryStatusEnum {
+
+    /**
+     * Pending delivery status enum.
+     */
+    PENDING(0, "待发送"),
+
+    /**
+     * Sent delivery status enum.
+     */
+    SENT(1, "已发送");
+
+    private int code;
+
+    private String desc;
+
+    MythDeliveryStatusEnum(int code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+
+    /**
+     * Acquire by code myth delivery status enum.
+     *
+     * @param code the code
+     * @return the myth delivery status enum
+     */
+    public static MythDeliveryStatusEnum acquireByCode(int code) {
+        Optional<MythDeliveryStatusEnum> deliveryStatusEnum =
+                Arrays.stream(MythDeliveryStatusEnum.values())
+                        .filter(v -> Objects.equals(v.getCode(), code))
+                        .findFirst();
+        return deliveryStatusEnum.orElse(MythDeliveryStatusEnum.PENDING);
+    }
+
+    /**
+     * Gets code.
+     *
+     * @return the code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Gets desc.
+     *
+     * @return the desc
+     */
+    public String getDesc() {
+        return desc;
+    }
+}
@@ -61,7 +61,12 @@ public enum MythStatusEnum {
     /**
      * Lock transaction status enum.
      */
-    LOCK(6, "锁定");
+    LOCK(6, "锁定"),
+
+    /**
+     * Dead letter transaction status enum.
+     */
+    DEAD_LETTER(7, "死信");
 
 
     private int code;
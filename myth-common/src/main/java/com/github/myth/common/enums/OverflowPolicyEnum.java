@@ -0,0 +1,82 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.common.enums;
+
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 协调资源队列已满时的处理策略.
+ *
+ * @author xiaoyu
+ */
+public enum OverflowPolicyEnum {
+
+    /**
+     * 业务线程一直等待队列空出位置，被中断时放弃提交.
+     */
+    BLOCK("block"),
+
+    /**
+     * 在业务线程中同步执行，可能先于队列中同一事务之前的命令执行.
+     */
+    CALLER_RUNS("callerRuns"),
+
+    /**
+     * 丢弃该命令，只记录日志及指标.
+     */
+    DISCARD("discard"),
+
+    /**
+     * 写入本地文件，队列空闲后按顺序重新执行；写入文件期间后续命令也写入文件，保证同一事务的命令顺序.
+     */
+    SPILL("spill");
+
+    private String policy;
+
+    OverflowPolicyEnum(String policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Acquire overflow policy enum.
+     *
+     * @param policy the policy
+     * @return the overflow policy enum
+     */
+    public static OverflowPolicyEnum acquire(String policy) {
+        Optional<OverflowPolicyEnum> overflowPolicyEnum =
+                Arrays.stream(OverflowPolicyEnum.values())
+                        .filter(v -> Objects.equals(v.getPolicy(), policy))
+                        .findFirst();
+        return overflowPolicyEnum.orElse(OverflowPolicyEnum.BLOCK);
+    }
+
+    /**
+     * Gets policy.
+     *
+     * @return the policy
+     */
+    public String getPolicy() {
+        return policy;
+    }
+
+}
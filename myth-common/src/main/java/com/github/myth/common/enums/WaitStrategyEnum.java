@@ -0,0 +1,77 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.common.enums;
+
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 协调资源工作线程没有待处理命令时的等待策略.
+ *
+ * @author xiaoyu
+ */
+public enum WaitStrategyEnum {
+
+    /**
+     * 加锁等待，提交命令时唤醒，不占用cpu，延迟最高.
+     */
+    BLOCKING("blocking"),
+
+    /**
+     * 自旋一定次数后让出cpu，延迟低，空闲时仍会占用cpu.
+     */
+    YIELDING("yielding"),
+
+    /**
+     * 一直自旋，延迟最低，每个工作线程独占一个cpu核心.
+     */
+    BUSY_SPIN("busySpin");
+
+    private String strategy;
+
+    WaitStrategyEnum(String strategy) {
+        this.strategy = strategy;
+    }
+
+    /**
+     * Acquire wait strategy enum.
+     *
+     * @param strategy the strategy
+     * @return the wait strategy enum
+     */
+    public static WaitStrategyEnum acquire(String strategy) {
+        Optional<WaitStrategyEnum> waitStrategyEnum =
+                Arrays.stream(WaitStrategyEnum.values())
+                        .filter(v -> Objects.equals(v.getStrategy(), strategy))
+                        .findFirst();
+        return waitStrategyEnum.orElse(WaitStrategyEnum.BLOCKING);
+    }
+
+    /**
+     * Gets strategy.
+     *
+     * @return the strategy
+     */
+    public String getStrategy() {
+        return strategy;
+    }
+
+}
@@ -0,0 +1,33 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.exception;
+
+
+/**
+ * 协调资源队列已饱和，事务日志无法提交时抛出.
+ *
+ * @author xiaoyu
+ */
+public class MythOverloadException extends MythRuntimeException {
+
+    private static final long serialVersionUID = 4093874163470623530L;
+
+    public MythOverloadException(String message) {
+        super(message);
+    }
+}
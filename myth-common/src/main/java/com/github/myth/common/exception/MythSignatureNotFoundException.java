@@ -0,0 +1,34 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.exception;
+
+
+/**
+ * 消息中的方法签名id在本地没有注册时抛出.
+ * 一般是发送方与消费方的 messageSignatureClasses 配置不一致，修正配置后重新投递就可以解码，按暂时失败处理.
+ *
+ * @author xiaoyu
+ */
+public class MythSignatureNotFoundException extends MythRuntimeException {
+
+    private static final long serialVersionUID = -2659837414726937125L;
+
+    public MythSignatureNotFoundException(String message) {
+        super(message);
+    }
+}
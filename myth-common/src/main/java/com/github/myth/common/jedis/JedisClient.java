@@ -18,6 +18,7 @@
 
 package com.github.myth.common.jedis;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -47,6 +48,26 @@ public interface JedisClient {
      */
     String set(String key, byte[] value);
 
+    /**
+     * set 操作，带条件及过期时间
+     * @param key key
+     * @param value value
+     * @param nxxx NX 不存在时设置 XX 存在时设置
+     * @param expx EX 秒 PX 毫秒
+     * @param time 过期时间
+     * @return 设置成功返回 OK，否则为 null
+     */
+    String set(String key, String value, String nxxx, String expx, long time);
+
+    /**
+     * 执行lua脚本
+     * @param script 脚本
+     * @param keys KEYS
+     * @param args ARGV
+     * @return 脚本返回值
+     */
+    Object eval(String script, List<String> keys, List<String> args);
+
     /**
      * 批量删除key
      * @param keys key集合
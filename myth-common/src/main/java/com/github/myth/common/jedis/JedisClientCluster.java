@@ -20,6 +20,7 @@ package com.github.myth.common.jedis;
 
 import redis.clients.jedis.JedisCluster;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -44,6 +45,16 @@ public class JedisClientCluster implements JedisClient {
         return jedisCluster.set(key, value);
     }
 
+    @Override
+    public String set(String key, String value, String nxxx, String expx, long time) {
+        return jedisCluster.set(key, value, nxxx, expx, time);
+    }
+
+    @Override
+    public Object eval(String script, List<String> keys, List<String> args) {
+        return jedisCluster.eval(script, keys, args);
+    }
+
     @Override
     public String set(String key, byte[] value) {
         return jedisCluster.set(key.getBytes(),value);
@@ -21,6 +21,7 @@ package com.github.myth.common.jedis;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -48,6 +49,20 @@ public class JedisClientSingle implements JedisClient {
 
     }
 
+    @Override
+    public String set(String key, String value, String nxxx, String expx, long time) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.set(key, value, nxxx, expx, time);
+        }
+    }
+
+    @Override
+    public Object eval(String script, List<String> keys, List<String> args) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            return jedis.eval(script, keys, args);
+        }
+    }
+
     @Override
     public String set(String key, byte[] value) {
         try (Jedis jedis = jedisPool.getResource()) {
@@ -20,6 +20,7 @@ package com.github.myth.common.serializer;
 import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.github.myth.common.bean.entity.MythParticipant;
 import com.github.myth.common.enums.SerializeEnum;
 import com.github.myth.common.exception.MythException;
 
@@ -43,7 +44,7 @@ public class KryoSerializer implements ObjectSerializer {
         byte[] bytes;
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
             //获取kryo对象
-            Kryo kryo = new Kryo();
+            Kryo kryo = newKryo();
             Output output = new Output(outputStream);
             kryo.writeObject(output, obj);
             bytes = output.toBytes();
@@ -65,7 +66,7 @@ public class KryoSerializer implements ObjectSerializer {
     public <T> T deSerialize(byte[] param, Class<T> clazz) throws MythException {
         T object;
         try (ByteArrayInputStream inputStream = new ByteArrayInputStream(param)) {
-            Kryo kryo = new Kryo();
+            Kryo kryo = newKryo();
             Input input = new Input(inputStream);
             object = kryo.readObject(input, clazz);
             input.close();
@@ -75,6 +76,17 @@ public class KryoSerializer implements ObjectSerializer {
         return object;
     }
 
+    /**
+     * MythParticipant 使用带版本的序列化，只设置默认序列化器不注册，类名的写法与之前相同.
+     *
+     * @return Kryo
+     */
+    private static Kryo newKryo() {
+        Kryo kryo = new Kryo();
+        kryo.addDefaultSerializer(MythParticipant.class, new MythParticipantKryoSerializer());
+        return kryo;
+    }
+
     /**
      * 设置scheme
      *
@@ -0,0 +1,99 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.github.myth.common.bean.entity.MythParticipant;
+
+/**
+ * <p>Description: MythParticipant 的 kryo 序列化，兼容增加投递状态之前保存的事务日志.</p>
+ * 新格式以 {@link #MARKER} 开头，之后是格式版本和全部字段.
+ * 旧格式由 FieldSerializer 按字段名顺序直接从 destination 字段开始写，开启引用（kryo 默认）时
+ * 第一个字节是空值标记 0 或非空标记 1，据此区分新旧格式.
+ * 旧格式没有 status、sentTime，读出后为 {@linkplain com.github.myth.common.enums.MythDeliveryStatusEnum#PENDING}，
+ * 恢复时会重发所有参与者，与增加投递状态之前的行为一致.
+ * 以后 MythParticipant 增加字段时，{@link #VERSION} 加 1，并为上一个版本增加去掉新字段的解码器.
+ *
+ * @author xiaoyu
+ */
+class MythParticipantKryoSerializer extends Serializer<MythParticipant> {
+
+    /**
+     * 新格式标记.
+     */
+    static final byte MARKER = (byte) 0xFF;
+
+    /**
+     * 当前格式版本.
+     */
+    static final int VERSION = 1;
+
+    private FieldSerializer<MythParticipant> current;
+
+    private FieldSerializer<MythParticipant> legacy;
+
+    @Override
+    public void write(Kryo kryo, Output output, MythParticipant mythParticipant) {
+        output.writeByte(MARKER);
+        output.writeVarInt(VERSION, true);
+        current(kryo).write(kryo, output, mythParticipant);
+    }
+
+    @Override
+    public MythParticipant read(Kryo kryo, Input input, Class<MythParticipant> type) {
+        if (input.readByte() == MARKER) {
+            //目前只有一个版本
+            input.readVarInt(true);
+            return current(kryo).read(kryo, input, type);
+        }
+        //刚读出的字节还在缓冲区中，退回后按旧格式读取
+        input.setPosition(input.position() - 1);
+        return legacy(kryo).read(kryo, input, type);
+    }
+
+    private FieldSerializer<MythParticipant> current(Kryo kryo) {
+        if (current == null) {
+            current = new FieldSerializer<>(kryo, MythParticipant.class);
+        }
+        return current;
+    }
+
+    private FieldSerializer<MythParticipant> legacy(Kryo kryo) {
+        if (legacy == null) {
+            legacy = legacyFieldSerializer(kryo);
+        }
+        return legacy;
+    }
+
+    /**
+     * 增加投递状态之前的字段布局.
+     *
+     * @param kryo kryo
+     * @return FieldSerializer
+     */
+    static FieldSerializer<MythParticipant> legacyFieldSerializer(Kryo kryo) {
+        final FieldSerializer<MythParticipant> fieldSerializer = new FieldSerializer<>(kryo, MythParticipant.class);
+        fieldSerializer.removeField("status");
+        fieldSerializer.removeField("sentTime");
+        return fieldSerializer;
+    }
+}
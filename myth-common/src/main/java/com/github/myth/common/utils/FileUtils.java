@@ -18,9 +18,14 @@
 
 package com.github.myth.common.utils;
 
-import java.io.RandomAccessFile;
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 /**
  * <p>Description: .</p>
@@ -32,24 +37,43 @@ import java.nio.channels.FileChannel;
  */
 public class FileUtils {
 
+    /**
+     * 写入中的临时文件后缀.
+     */
+    public static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * 先写临时文件再原子替换，读取方不会读到写了一半的文件，内容变短时也不会残留旧数据.
+     *
+     * @param fullFileName 文件名
+     * @param contents     内容
+     * @throws Exception 写入失败
+     */
     public static void writeFile(String fullFileName, byte[] contents) throws Exception {
-        RandomAccessFile raf = new RandomAccessFile(fullFileName, "rw");
-        FileChannel channel = raf.getChannel();
+        final Path target = Paths.get(fullFileName);
+        final Path temp = Paths.get(fullFileName + "." + Thread.currentThread().getId() + TEMP_SUFFIX);
         try {
-            ByteBuffer buffer = ByteBuffer.allocate(contents.length);
-            buffer.clear();
-            buffer.put(contents);
-            buffer.flip();
-            while (buffer.hasRemaining()) {
-                channel.write(buffer);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(contents);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
             }
-            channel.force(true);
-        } catch (Exception e) {
-            throw e;
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
         } finally {
-            if (channel != null) {
-                channel.close();
-            }
+            Files.deleteIfExists(temp);
         }
     }
+
+    /**
+     * 是否是写入中的临时文件，遍历目录时需要跳过.
+     *
+     * @param file 文件
+     * @return true 临时文件
+     */
+    public static boolean isTempFile(File file) {
+        return file.getName().endsWith(TEMP_SUFFIX);
+    }
 }
@@ -17,32 +17,51 @@
  */
 package com.github.myth.common.utils;
 
-import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
+ * 事务id生成器.
+ * 时间戳(41) + workerId(10) + 序列号(12)，时间戳和序列号放在一个 {@linkplain AtomicLong} 中CAS递增，不加锁；
+ * 序列号用完或者时钟小幅回拨时向后借用时间戳继续递增，借用超过 {@linkplain #MAX_BORROW_MILLIS} 时等待时钟追上，不会抛出异常.
+ * workerId 启动时从事务日志存储中租用，租用之前使用随机值.
+ *
  * @author xiaoyu
  */
 public final class IdWorkerUtils {
 
-    private final long twepoch = 1288834974657L;
-    private final long workerIdBits = 5L;
-    private final long datacenterIdBits = 5L;
-    private final long maxWorkerId = -1L ^ (-1L << workerIdBits);
-    private final long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
-    private final long sequenceBits = 12L;
-    private final long workerIdShift = sequenceBits;
-    private final long datacenterIdShift = sequenceBits + workerIdBits;
-    private final long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
-    private final long sequenceMask = -1L ^ (-1L << sequenceBits);
-
-    private long workerId = 0;
-    private long datacenterId = 0;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
+    /**
+     * workerId 最大值
+     */
+    public static final long MAX_WORKER_ID = ~(-1L << 10);
+
+    private static final long TWEPOCH = 1288834974657L;
+
+    private static final long SEQUENCE_BITS = 12L;
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
+
+    private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + 10L;
+
+    /**
+     * 最多向后借用的毫秒数
+     */
+    private static final long MAX_BORROW_MILLIS = 1000L;
 
     private static final IdWorkerUtils ID_WORKER_UTILS = new IdWorkerUtils();
 
+    /**
+     * 高位为上一个id的时间戳，低12位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private volatile long workerId = ThreadLocalRandom.current().nextLong(MAX_WORKER_ID + 1);
+
     public static IdWorkerUtils getInstance() {
         return ID_WORKER_UTILS;
     }
@@ -51,60 +70,53 @@ public final class IdWorkerUtils {
 
     }
 
-    private IdWorkerUtils(long workerId, long datacenterId) {
-        if (workerId > maxWorkerId || workerId < 0) {
-            throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
+    /**
+     * 设置租用的 workerId.
+     *
+     * @param workerId workerId，小于0时保持不变
+     * @throws IllegalArgumentException 超过 {@linkplain #MAX_WORKER_ID}，取低位会与其他节点重复
+     */
+    public void setWorkerId(long workerId) {
+        if (workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId " + workerId + " exceeds " + MAX_WORKER_ID);
         }
-        if (datacenterId > maxDatacenterId || datacenterId < 0) {
-            throw new IllegalArgumentException(String.format("datacenter Id can't be greater than %d or less than 0", maxDatacenterId));
+        if (workerId >= 0) {
+            this.workerId = workerId;
         }
-        this.workerId = workerId;
-        this.datacenterId = datacenterId;
     }
 
-    private synchronized long nextId() {
-        long timestamp = timeGen();
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(String.format("Clock    moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
-        }
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp);
-            }
-        } else {
-            sequence = 0L;
-        }
-
-        lastTimestamp = timestamp;
-
-        return ((timestamp - twepoch) << timestampLeftShift) | (datacenterId << datacenterIdShift) | (workerId << workerIdShift) | sequence;
+    public long getWorkerId() {
+        return workerId;
     }
 
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
+    /**
+     * 生成id，同一个 workerId 下单调递增.
+     *
+     * @return id
+     */
+    public long nextId() {
+        while (true) {
+            final long last = state.get();
+            final long now = System.currentTimeMillis() - TWEPOCH;
+            //时钟前进时序列号从0开始，否则在上一个id上加1，序列号用完时进位到时间戳
+            final long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if ((next >>> SEQUENCE_BITS) - now > MAX_BORROW_MILLIS) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_LEFT_SHIFT)
+                        | (workerId << WORKER_ID_SHIFT)
+                        | (next & SEQUENCE_MASK);
+            }
         }
-        return timestamp;
-    }
-
-    private long timeGen() {
-        return System.currentTimeMillis();
     }
 
-
-
     public String createUUID() {
-        return String.valueOf(UUID.randomUUID().hashCode() & 0x7fffffff);
+        return String.valueOf(nextId());
     }
 
     public long randomUUID() {
-        return ID_WORKER_UTILS.nextId();
-    }
-
-
-    public static void main(String[] args) {
-
+        return nextId();
     }
 }
@@ -43,6 +43,11 @@ public class RepositoryPathUtils {
     }
 
 
+    public static String buildJournalPath(String root, String applicationName) {
+        return String.join("/", root, "myth_journal", applicationName.replaceAll("-", "_"));
+    }
+
+
     public static  String getFullFileName(String filePath,String id) {
         return String.format("%s/%s", filePath, id);
     }
@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class KryoSerializerTest {
+
+    private static final List<String> DESTINATIONS =
+            Arrays.asList("account", "a", "库存", StringUtils.repeat("inventory", 8), null);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void readsParticipantsSavedBeforeDeliveryState() throws Exception {
+        //增加投递状态之前保存的事务日志
+        final Kryo kryo = new Kryo();
+        kryo.addDefaultSerializer(MythParticipant.class, MythParticipantKryoSerializer.legacyFieldSerializer(kryo));
+        final Output output = new Output(4096);
+        kryo.writeObject(output, buildParticipants());
+
+        final List<MythParticipant> participants =
+                new KryoSerializer().deSerialize(output.toBytes(), CopyOnWriteArrayList.class);
+
+        Assert.assertEquals(DESTINATIONS.size(), participants.size());
+        for (int i = 0; i < DESTINATIONS.size(); i++) {
+            final MythParticipant participant = participants.get(i);
+            Assert.assertEquals(DESTINATIONS.get(i), participant.getDestination());
+            Assert.assertEquals("100", participant.getTransId());
+            Assert.assertEquals("payment", participant.getMythInvocation().getMethodName());
+            Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(), participant.getStatus());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void keepsDeliveryState() throws Exception {
+        final List<MythParticipant> source = buildParticipants();
+        source.get(0).setStatus(MythDeliveryStatusEnum.SENT.getCode());
+        source.get(0).setSentTime(123L);
+        final KryoSerializer serializer = new KryoSerializer();
+
+        final List<MythParticipant> participants =
+                serializer.deSerialize(serializer.serialize(source), CopyOnWriteArrayList.class);
+
+        Assert.assertEquals(source, participants);
+    }
+
+    private static List<MythParticipant> buildParticipants() {
+        final List<MythParticipant> participants = new ArrayList<>();
+        for (String destination : DESTINATIONS) {
+            MythInvocation invocation = new MythInvocation(KryoSerializerTest.class, "payment",
+                    new Class[]{String.class}, new Object[]{destination});
+            participants.add(new MythParticipant("100", destination, 1, invocation));
+        }
+        return participants;
+    }
+}
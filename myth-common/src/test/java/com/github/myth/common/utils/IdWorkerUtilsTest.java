@@ -0,0 +1,99 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.common.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class IdWorkerUtilsTest {
+
+    private static final int THREADS = 8;
+
+    private static final int IDS_PER_THREAD = 50000;
+
+    @Test
+    public void uniqueAndIncreasingUnderContention() throws Exception {
+        final ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<long[]>> futures = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executorService.submit((Callable<long[]>) () -> {
+                    final long[] ids = new long[IDS_PER_THREAD];
+                    for (int j = 0; j < IDS_PER_THREAD; j++) {
+                        ids[j] = IdWorkerUtils.getInstance().nextId();
+                    }
+                    return ids;
+                }));
+            }
+            final Set<Long> unique = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+            for (Future<long[]> future : futures) {
+                final long[] ids = future.get();
+                for (int j = 0; j < ids.length; j++) {
+                    Assert.assertTrue(unique.add(ids[j]));
+                    if (j > 0) {
+                        Assert.assertTrue(ids[j] > ids[j - 1]);
+                    }
+                }
+            }
+            Assert.assertEquals(THREADS * IDS_PER_THREAD, unique.size());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void workerIdIsEncodedAndRejectedWhenOutOfRange() {
+        final IdWorkerUtils idWorker = IdWorkerUtils.getInstance();
+        final long original = idWorker.getWorkerId();
+        try {
+            idWorker.setWorkerId(5);
+            Assert.assertEquals(5, idWorker.getWorkerId());
+            Assert.assertEquals(5, (idWorker.nextId() >>> 12) & IdWorkerUtils.MAX_WORKER_ID);
+
+            //租用失败时保持不变
+            idWorker.setWorkerId(-1);
+            Assert.assertEquals(5, idWorker.getWorkerId());
+
+            //超过范围时不取低位，避免与其他节点重复
+            try {
+                idWorker.setWorkerId(IdWorkerUtils.MAX_WORKER_ID + 6);
+                Assert.fail("workerId out of range should be rejected");
+            } catch (IllegalArgumentException expected) {
+                Assert.assertEquals(5, idWorker.getWorkerId());
+            }
+        } finally {
+            idWorker.setWorkerId(original);
+        }
+    }
+}
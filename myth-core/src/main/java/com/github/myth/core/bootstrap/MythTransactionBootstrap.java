@@ -24,7 +24,9 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.stereotype.Component;
 
 
@@ -32,11 +34,14 @@ import org.springframework.stereotype.Component;
  * @author xiaoyu
  */
 @Component
-public class MythTransactionBootstrap extends MythConfig implements ApplicationContextAware {
+public class MythTransactionBootstrap extends MythConfig
+        implements ApplicationContextAware, ApplicationListener<ContextClosedEvent> {
 
 
     private final MythInitService mythInitService;
 
+    private ApplicationContext applicationContext;
+
     @Autowired
     public MythTransactionBootstrap(MythInitService mythInitService) {
         this.mythInitService = mythInitService;
@@ -44,12 +49,26 @@ public class MythTransactionBootstrap extends MythConfig implements ApplicationC
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
         SpringBeanUtils.getInstance().setCfgContext((ConfigurableApplicationContext) applicationContext);
         //因为自身继承了MythConfig，所以这里将自身作为配置类传入start，而MythTransactionBootstrap已经在applicaionContext.xml中进行了初始化配置
         start(this);
     }
 
 
+    /**
+     * spring容器关闭时（销毁bean之前）停止，这时事务日志存储、mq发送仍然可用.
+     *
+     * @param event 容器关闭事件
+     */
+    @Override
+    public void onApplicationEvent(ContextClosedEvent event) {
+        //子容器（如feign）关闭的事件也会发布到这里
+        if (event.getApplicationContext() == applicationContext) {
+            mythInitService.destroy();
+        }
+    }
+
     private void start(MythConfig tccConfig) {
         //根据配置文件MythConfig进行事务初始化
         mythInitService.initialization(tccConfig);
@@ -0,0 +1,415 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.ringbuffer;
+
+import com.github.myth.common.utils.LogUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 按key保证顺序的执行器.
+ * 数据按key的hash写入固定数量的通道（每个通道一个环形队列），一个通道同一时间只被一个线程处理，
+ * 所以同一个key的数据按写入顺序执行；通道数量大于线程数，线程优先处理分配给自己的通道，
+ * 没有数据时去处理其他空闲线程没有占用的通道，不同key的数据可以分散到所有线程.
+ * 线程数量可以在运行时调整，减少时下标超出的线程处理完当前批次后退出.
+ * 停止时先 {@link #shutdown()} 让线程处理完剩余数据后退出，超时后 {@link #halt(Consumer)} 取出未处理的数据.
+ *
+ * @param <E> 槽位对象
+ * @author xiaoyu
+ */
+public class MythKeyedExecutor<E> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MythKeyedExecutor.class);
+
+    /**
+     * 占用一个通道后最多连续处理的数量，处理完后释放，让其他通道有机会被处理
+     */
+    private static final int BATCH_SIZE = 64;
+
+    private final Lane<E>[] lanes;
+
+    private final Consumer<E> handler;
+
+    private final MythWaitStrategy waitStrategy;
+
+    private final Set<Integer> running = new HashSet<>();
+
+    private volatile int workers;
+
+    /**
+     * 已停止，线程处理完剩余数据后退出，不再启动新线程
+     */
+    private volatile boolean shutdown;
+
+    /**
+     * 已强制停止，不再接收和处理数据
+     */
+    private volatile boolean halted;
+
+    private Executor executor;
+
+    /**
+     * 创建执行器.
+     *
+     * @param laneCount    通道数量
+     * @param laneCapacity 每个通道的容量
+     * @param factory      槽位对象工厂
+     * @param handler      处理者，抛出的异常只记录日志
+     * @param waitStrategy 没有数据时的等待策略
+     */
+    @SuppressWarnings("unchecked")
+    public MythKeyedExecutor(int laneCount, int laneCapacity, Supplier<E> factory,
+                             Consumer<E> handler, MythWaitStrategy waitStrategy) {
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane<>(new MythRingBuffer<>(laneCapacity, factory));
+        }
+        this.handler = handler;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * 启动处理线程，第 i 个线程优先处理下标对线程数取模等于 i 的通道.
+     *
+     * @param executor 线程池，需要能够同时运行调整后的最大线程数
+     * @param workers  处理线程数量
+     */
+    public synchronized void start(Executor executor, int workers) {
+        this.executor = executor;
+        resize(workers);
+    }
+
+    /**
+     * 调整处理线程数量.
+     *
+     * @param workers 处理线程数量，最少1个
+     */
+    public synchronized void resize(int workers) {
+        if (shutdown) {
+            return;
+        }
+        this.workers = Math.max(1, workers);
+        for (int i = 0; i < this.workers; i++) {
+            if (running.add(i)) {
+                try {
+                    executor.execute(new Worker(i));
+                } catch (RejectedExecutionException e) {
+                    running.remove(i);
+                    LogUtil.error(LOGGER, "启动协调资源线程失败：{}", e::getMessage);
+                }
+            }
+        }
+    }
+
+    /**
+     * 当前处理线程数量.
+     *
+     * @return 数量
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * 停止：仍然接收数据，线程处理完所有通道的数据后退出.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        waitStrategy.signalAll();
+    }
+
+    /**
+     * 等待 {@link #shutdown()} 后所有线程退出.
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return false 超时
+     * @throws InterruptedException 中断
+     */
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!running.isEmpty()) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * 强制停止：不再接收数据，线程处理完当前数据后退出，按通道顺序取出未处理的数据.
+     *
+     * @param leftover 处理未执行的数据
+     * @return 未执行的数量
+     */
+    public int halt(Consumer<E> leftover) {
+        shutdown();
+        halted = true;
+        int count = 0;
+        for (Lane<E> lane : lanes) {
+            //等待正在处理该通道的线程处理完当前数据，之后一直占用，线程不会再处理
+            while (!lane.owned.compareAndSet(false, true)) {
+                Thread.yield();
+            }
+            while (lane.publishers.get() > 0) {
+                Thread.yield();
+            }
+            while (lane.ring.poll(leftover)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 是否已强制停止.
+     *
+     * @return true 已停止，不再接收数据
+     */
+    public boolean isHalted() {
+        return halted;
+    }
+
+    /**
+     * 写入key对应的通道.
+     *
+     * @param key        key，null 写入第一个通道
+     * @param translator 把参数写入槽位对象
+     * @param arg        参数
+     * @param <A>        参数类型
+     * @return false 通道已满或者已强制停止
+     */
+    public <A> boolean tryPublish(Object key, BiConsumer<E, A> translator, A arg) {
+        final Lane<E> lane = lanes[laneOf(key)];
+        //halt 等待正在写入的线程写完后再取出数据，保证写入成功的数据不会遗留在通道中
+        lane.publishers.incrementAndGet();
+        final boolean published;
+        try {
+            published = !halted && lane.ring.tryPublish(translator, arg);
+        } finally {
+            lane.publishers.decrementAndGet();
+        }
+        if (published) {
+            //任意线程都可以处理该通道，只唤醒一个线程
+            waitStrategy.signal();
+        }
+        return published;
+    }
+
+    /**
+     * 所有通道中待处理的数量.
+     *
+     * @return 数量
+     */
+    public int size() {
+        int size = 0;
+        for (Lane<E> lane : lanes) {
+            size += lane.ring.size();
+        }
+        return size;
+    }
+
+    /**
+     * 所有通道的容量.
+     *
+     * @return 容量
+     */
+    public int capacity() {
+        return lanes.length * lanes[0].ring.capacity();
+    }
+
+    /**
+     * 所有通道都为空并且没有线程正在处理.
+     *
+     * @return true 空闲
+     */
+    public boolean isIdle() {
+        for (Lane<E> lane : lanes) {
+            if (lane.owned.get() || !lane.ring.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 通道数量.
+     *
+     * @return 数量
+     */
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    private int laneOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        final int hash = key.hashCode();
+        return ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % lanes.length;
+    }
+
+    private boolean hasAvailable() {
+        for (Lane<E> lane : lanes) {
+            if (lane.ring.hasAvailable()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 占用通道并处理一批数据.
+     *
+     * @param lane 通道
+     * @return 处理的数量，通道被其他线程占用时为0
+     */
+    private int drain(Lane<E> lane) {
+        if (!lane.ring.hasAvailable() || !lane.owned.compareAndSet(false, true)) {
+            return 0;
+        }
+        int count = 0;
+        try {
+            while (count < BATCH_SIZE && !halted && lane.ring.poll(this::handle)) {
+                count++;
+            }
+        } finally {
+            lane.owned.set(false);
+        }
+        return count;
+    }
+
+    private void handle(E entry) {
+        try {
+            handler.accept(entry);
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "执行协调命令失败：{}", e::getMessage);
+        }
+    }
+
+    /**
+     * 通道，owned 保证同一时间只有一个线程处理，publishers 为正在写入的线程数
+     */
+    private static final class Lane<E> {
+
+        private final MythRingBuffer<E> ring;
+
+        private final AtomicBoolean owned = new AtomicBoolean();
+
+        private final AtomicInteger publishers = new AtomicInteger();
+
+        private Lane(MythRingBuffer<E> ring) {
+            this.ring = ring;
+        }
+    }
+
+    /**
+     * 处理线程
+     */
+    private final class Worker implements Runnable {
+
+        private final int index;
+
+        private Worker(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            boolean retired = false;
+            try {
+                while (!Thread.currentThread().isInterrupted() && !halted && !(retired = retire())) {
+                    final int step = workers;
+                    int processed = 0;
+                    for (int i = index; i < lanes.length; i += step) {
+                        processed += drain(lanes[i]);
+                    }
+                    if (processed == 0) {
+                        processed = steal();
+                    }
+                    if (processed == 0 && shutdown) {
+                        //已停止并且没有数据
+                        break;
+                    }
+                    if (processed == 0) {
+                        try {
+                            waitStrategy.waitFor(MythKeyedExecutor.this::hasAvailable);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }
+            } finally {
+                //被中断或者停止时释放下标，之后调整线程数量时可以重新启动
+                if (!retired) {
+                    synchronized (MythKeyedExecutor.this) {
+                        running.remove(index);
+                        MythKeyedExecutor.this.notifyAll();
+                    }
+                }
+            }
+        }
+
+        /**
+         * 线程数量减少后，下标超出的线程退出.
+         *
+         * @return true 退出
+         */
+        private boolean retire() {
+            if (index < workers) {
+                return false;
+            }
+            synchronized (MythKeyedExecutor.this) {
+                if (index < workers) {
+                    return false;
+                }
+                running.remove(index);
+                MythKeyedExecutor.this.notifyAll();
+                return true;
+            }
+        }
+
+        /**
+         * 自己的通道都没有数据时，处理其他线程的通道，从相邻的通道开始，避免所有空闲线程争抢同一个通道.
+         *
+         * @return 处理的数量
+         */
+        private int steal() {
+            for (int i = 1; i < lanes.length; i++) {
+                final int processed = drain(lanes[(index + i) % lanes.length]);
+                if (processed > 0) {
+                    return processed;
+                }
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.ringbuffer;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 有界环形队列，槽位中的对象在创建时一次分配，之后反复使用.
+ * 每个槽位有一个序号：等于写指针时可写，等于读指针+1时可读，读完后加上容量留给下一圈写入.
+ * 支持多个生产者、多个消费者，写满时立即返回 false，由调用方决定如何处理.
+ *
+ * @param <E> 槽位对象
+ * @author xiaoyu
+ */
+public final class MythRingBuffer<E> {
+
+    private final int mask;
+
+    private final Object[] entries;
+
+    private final AtomicLongArray sequences;
+
+    private final PaddedAtomicLong tail = new PaddedAtomicLong();
+
+    private final PaddedAtomicLong head = new PaddedAtomicLong();
+
+    /**
+     * 创建环形队列.
+     *
+     * @param capacity 容量，向上取整为2的幂
+     * @param factory  槽位对象工厂
+     */
+    public MythRingBuffer(int capacity, Supplier<E> factory) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("ring buffer capacity out of range: " + capacity);
+        }
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.entries = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            entries[i] = Objects.requireNonNull(factory.get());
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 占用一个槽位并写入数据.
+     *
+     * @param translator 把参数写入槽位对象
+     * @param arg        参数
+     * @param <A>        参数类型
+     * @return false 队列已满
+     */
+    public <A> boolean tryPublish(BiConsumer<E, A> translator, A arg) {
+        long position = tail.get();
+        for (;;) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    translator.accept(entry(index), arg);
+                    //volatile 写，阻塞等待的消费者在此之后检查是否需要唤醒
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 取出一个槽位交给处理者，处理完成（包括抛出异常）后槽位才可以重新写入.
+     *
+     * @param handler 处理者，不要在处理者之外持有槽位对象
+     * @return false 队列为空
+     */
+    public boolean poll(Consumer<E> handler) {
+        long position = head.get();
+        for (;;) {
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    try {
+                        handler.accept(entry(index));
+                    } finally {
+                        sequences.lazySet(index, position + mask + 1);
+                    }
+                    return true;
+                }
+                position = head.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * 队首槽位是否已经写入完成.
+     *
+     * @return true 可以读取
+     */
+    public boolean hasAvailable() {
+        final long position = head.get();
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    /**
+     * 已占用的槽位数量，并发写入时为近似值.
+     *
+     * @return 数量
+     */
+    public int size() {
+        final long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E entry(int index) {
+        return (E) entries[index];
+    }
+
+    /**
+     * 读写指针分别独占缓存行，避免生产者与消费者之间的伪共享.
+     */
+    @SuppressWarnings("unused")
+    static final class PaddedAtomicLong extends AtomicLong {
+
+        private static final long serialVersionUID = 2426569585958617467L;
+
+        public volatile long p1, p2, p3, p4, p5, p6 = 7L;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.ringbuffer;
+
+import com.github.myth.common.enums.WaitStrategyEnum;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * 消费者没有可处理数据时的等待策略.
+ *
+ * @author xiaoyu
+ */
+public interface MythWaitStrategy {
+
+    /**
+     * 等待直到有数据可以处理，实现可以提前返回，调用方需要重新检查.
+     *
+     * @param available 是否有数据
+     * @throws InterruptedException 线程被中断
+     */
+    void waitFor(BooleanSupplier available) throws InterruptedException;
+
+    /**
+     * 生产者写入数据后调用，唤醒等待中的消费者.
+     */
+    default void signalAll() {
+    }
+
+    /**
+     * 生产者写入数据后调用，唤醒一个等待中的消费者，用于任意消费者都可以处理该数据的场景.
+     */
+    default void signal() {
+        signalAll();
+    }
+
+    /**
+     * 根据配置创建等待策略.
+     *
+     * @param waitStrategyEnum 策略类型
+     * @return 等待策略
+     */
+    static MythWaitStrategy of(WaitStrategyEnum waitStrategyEnum) {
+        switch (waitStrategyEnum) {
+            case BUSY_SPIN:
+                return new BusySpinWaitStrategy();
+            case YIELDING:
+                return new YieldingWaitStrategy();
+            default:
+                return new BlockingWaitStrategy();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.threadlocal;
+
+import com.github.myth.common.bean.context.MythTransactionContext;
+import com.github.myth.common.bean.entity.MythTransaction;
+
+import java.util.Objects;
+
+/**
+ * 线程上下文快照，保存 {@linkplain TransactionContextLocal} 与 {@linkplain MythTransactionLocal} 的值.
+ * 在提交异步任务的线程中 {@link #capture()}，在执行任务的线程中 {@link #attach()}，
+ * 执行完成后用 attach 返回的快照 {@link #restore()}，保证线程池中的线程不会残留事务信息.
+ *
+ * @author xiaoyu
+ */
+public final class MythContextSnapshot {
+
+    private static final MythContextSnapshot EMPTY = new MythContextSnapshot(null, null);
+
+    private final MythTransactionContext mythTransactionContext;
+
+    private final MythTransaction mythTransaction;
+
+    private MythContextSnapshot(MythTransactionContext mythTransactionContext,
+                                MythTransaction mythTransaction) {
+        this.mythTransactionContext = mythTransactionContext;
+        this.mythTransaction = mythTransaction;
+    }
+
+    /**
+     * 获取当前线程的事务上下文快照.
+     *
+     * @return MythContextSnapshot
+     */
+    public static MythContextSnapshot capture() {
+        final MythTransactionContext context = TransactionContextLocal.getInstance().get();
+        final MythTransaction transaction = MythTransactionLocal.getInstance().get();
+        if (Objects.isNull(context) && Objects.isNull(transaction)) {
+            return EMPTY;
+        }
+        return new MythContextSnapshot(context, transaction);
+    }
+
+    /**
+     * 将快照设置到当前线程.
+     *
+     * @return 当前线程原来的快照，用于执行完成后恢复
+     */
+    public MythContextSnapshot attach() {
+        final MythContextSnapshot previous = capture();
+        restore();
+        return previous;
+    }
+
+    /**
+     * 用快照的值覆盖当前线程，值为空时清除.
+     */
+    public void restore() {
+        if (Objects.isNull(mythTransactionContext)) {
+            TransactionContextLocal.getInstance().remove();
+        } else {
+            TransactionContextLocal.getInstance().set(mythTransactionContext);
+        }
+        if (Objects.isNull(mythTransaction)) {
+            MythTransactionLocal.getInstance().remove();
+        } else {
+            MythTransactionLocal.getInstance().set(mythTransaction);
+        }
+    }
+
+    public MythTransactionContext getMythTransactionContext() {
+        return mythTransactionContext;
+    }
+
+    public MythTransaction getMythTransaction() {
+        return mythTransaction;
+    }
+}
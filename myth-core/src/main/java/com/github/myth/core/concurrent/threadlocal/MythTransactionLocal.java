@@ -0,0 +1,52 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.threadlocal;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+
+/**
+ * 当前线程正在执行的Myth事务（发起者）.
+ *
+ * @author xiaoyu
+ */
+public class MythTransactionLocal {
+
+    private static final ThreadLocal<MythTransaction> CURRENT_LOCAL = new ThreadLocal<>();
+
+    private static final MythTransactionLocal MYTH_TRANSACTION_LOCAL = new MythTransactionLocal();
+
+    private MythTransactionLocal() {
+
+    }
+
+    public static MythTransactionLocal getInstance() {
+        return MYTH_TRANSACTION_LOCAL;
+    }
+
+    public void set(MythTransaction mythTransaction) {
+        CURRENT_LOCAL.set(mythTransaction);
+    }
+
+    public MythTransaction get() {
+        return CURRENT_LOCAL.get();
+    }
+
+    public void remove() {
+        CURRENT_LOCAL.remove();
+    }
+}
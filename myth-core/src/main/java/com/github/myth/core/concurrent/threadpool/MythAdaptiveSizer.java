@@ -0,0 +1,145 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.threadpool;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 根据队列等待时间和处理耗时调整工作线程数量.
+ * 按利特尔法则，一个周期内平均忙碌的线程数 = 到达速率 * 平均处理耗时 = 周期内处理耗时之和 / 周期长度；
+ * 平均等待时间超过期望值时每个周期增加线程（至少加1，最多加到忙碌线程数的1.25倍），
+ * 否则线程多于需要时每个周期最多减少四分之一，避免负载波动时线程数来回震荡.
+ *
+ * @author xiaoyu
+ */
+public class MythAdaptiveSizer {
+
+    /**
+     * 忙碌线程数之外预留的余量
+     */
+    private static final double HEADROOM = 1.25;
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final LongAdder serviceNanos = new LongAdder();
+
+    private final IntSupplier current;
+
+    private final IntConsumer resize;
+
+    private final LongSupplier clock;
+
+    private volatile int min;
+
+    private volatile int max;
+
+    private final long waitTargetNanos;
+
+    private long lastTick;
+
+    /**
+     * 创建线程数量调整器.
+     *
+     * @param min              最少线程数
+     * @param max              最多线程数
+     * @param waitTargetMillis 期望的队列等待时间
+     * @param current          当前线程数
+     * @param resize           调整线程数
+     */
+    public MythAdaptiveSizer(int min, int max, long waitTargetMillis, IntSupplier current, IntConsumer resize) {
+        this(min, max, waitTargetMillis, current, resize, System::nanoTime);
+    }
+
+    MythAdaptiveSizer(int min, int max, long waitTargetMillis,
+                      IntSupplier current, IntConsumer resize, LongSupplier clock) {
+        this.waitTargetNanos = TimeUnit.MILLISECONDS.toNanos(waitTargetMillis);
+        this.current = current;
+        this.resize = resize;
+        this.clock = clock;
+        this.lastTick = clock.getAsLong();
+        setBounds(min, max);
+    }
+
+    /**
+     * 记录一次处理.
+     *
+     * @param waitNanos    在队列中的等待时间
+     * @param serviceNanos 处理耗时
+     */
+    public void record(long waitNanos, long serviceNanos) {
+        completed.increment();
+        this.waitNanos.add(waitNanos);
+        this.serviceNanos.add(serviceNanos);
+    }
+
+    /**
+     * 根据上一个周期的统计调整线程数量，由调度线程定时调用.
+     *
+     * @return 调整后的线程数
+     */
+    public synchronized int tick() {
+        final long now = clock.getAsLong();
+        final long period = Math.max(1, now - lastTick);
+        lastTick = now;
+        final long count = completed.sumThenReset();
+        final long waited = waitNanos.sumThenReset();
+        final long served = serviceNanos.sumThenReset();
+
+        final int workers = current.getAsInt();
+        final int needed = (int) Math.ceil((double) served / period * HEADROOM);
+        int target = workers;
+        if (count > 0 && waited / count > waitTargetNanos) {
+            target = Math.max(workers + 1, needed);
+        } else if (needed < workers) {
+            target = Math.max(needed, workers - Math.max(1, workers >> 2));
+        }
+        target = Math.max(min, Math.min(max, target));
+        if (target != workers) {
+            resize.accept(target);
+        }
+        return target;
+    }
+
+    /**
+     * 调整线程数的范围.
+     *
+     * @param min 最少线程数
+     * @param max 最多线程数
+     */
+    public void setBounds(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("invalid worker bounds: " + min + "-" + max);
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+}
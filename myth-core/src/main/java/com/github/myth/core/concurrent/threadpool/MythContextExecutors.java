@@ -0,0 +1,168 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.threadpool;
+
+import com.github.myth.core.concurrent.threadlocal.MythContextSnapshot;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 异步调用时传递Myth事务上下文.
+ * 发起者在 @Myth 方法中通过线程池、CompletableFuture 并行调用参与者（dubbo异步调用、feign等）时，
+ * rpc filter 运行在其他线程中，ThreadLocal 中的事务信息会丢失，参与者也就不会被注册，
+ * 通过本类包装任务或线程池即可把提交线程的上下文带到执行线程.
+ * 注意：发起者必须在 @Myth 方法返回之前等待这些异步调用完成，否则参与者注册在消息发送之后.
+ *
+ * @author xiaoyu
+ */
+public final class MythContextExecutors {
+
+    private MythContextExecutors() {
+
+    }
+
+    /**
+     * 包装Runnable.
+     *
+     * @param runnable 任务
+     * @return Runnable
+     */
+    public static Runnable wrap(Runnable runnable) {
+        final MythContextSnapshot snapshot = MythContextSnapshot.capture();
+        return () -> {
+            final MythContextSnapshot previous = snapshot.attach();
+            try {
+                runnable.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装Callable.
+     *
+     * @param callable 任务
+     * @param <T>      返回类型
+     * @return Callable
+     */
+    public static <T> Callable<T> wrap(Callable<T> callable) {
+        final MythContextSnapshot snapshot = MythContextSnapshot.capture();
+        return () -> {
+            final MythContextSnapshot previous = snapshot.attach();
+            try {
+                return callable.call();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装Supplier.
+     *
+     * @param supplier 任务
+     * @param <T>      返回类型
+     * @return Supplier
+     */
+    public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier) {
+        final MythContextSnapshot snapshot = MythContextSnapshot.capture();
+        return () -> {
+            final MythContextSnapshot previous = snapshot.attach();
+            try {
+                return supplier.get();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装Function，用于 CompletableFuture 的 thenApplyAsync 等回调.
+     *
+     * @param function 任务
+     * @param <T>      参数类型
+     * @param <R>      返回类型
+     * @return Function
+     */
+    public static <T, R> Function<T, R> wrapFunction(Function<T, R> function) {
+        final MythContextSnapshot snapshot = MythContextSnapshot.capture();
+        return t -> {
+            final MythContextSnapshot previous = snapshot.attach();
+            try {
+                return function.apply(t);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    /**
+     * 包装线程池，提交的任务都会带上提交线程的事务上下文.
+     *
+     * @param executor 线程池
+     * @return Executor
+     */
+    public static Executor wrap(Executor executor) {
+        if (executor instanceof ExecutorService) {
+            return wrap((ExecutorService) executor);
+        }
+        return command -> executor.execute(wrap(command));
+    }
+
+    /**
+     * 包装线程池，提交的任务都会带上提交线程的事务上下文.
+     *
+     * @param executorService 线程池
+     * @return ExecutorService
+     */
+    public static ExecutorService wrap(ExecutorService executorService) {
+        if (executorService instanceof MythContextExecutorService) {
+            return executorService;
+        }
+        return new MythContextExecutorService(executorService);
+    }
+
+    /**
+     * 带事务上下文的 CompletableFuture.supplyAsync.
+     *
+     * @param supplier 任务
+     * @param executor 线程池
+     * @param <T>      返回类型
+     * @return CompletableFuture
+     */
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+        return CompletableFuture.supplyAsync(wrapSupplier(supplier), executor);
+    }
+
+    /**
+     * 带事务上下文的 CompletableFuture.runAsync.
+     *
+     * @param runnable 任务
+     * @param executor 线程池
+     * @return CompletableFuture
+     */
+    public static CompletableFuture<Void> runAsync(Runnable runnable, Executor executor) {
+        return CompletableFuture.runAsync(wrap(runnable), executor);
+    }
+}
@@ -20,8 +20,10 @@ package com.github.myth.core.concurrent.threadpool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
@@ -38,6 +40,11 @@ public class MythTransactionThreadFactory implements ThreadFactory {
 
     private final String namePrefix;
 
+    /**
+     * 虚拟线程工厂，未开启或者当前jdk不支持时为null
+     */
+    private final ThreadFactory virtualThreadFactory;
+
     private static volatile boolean daemon;
 
     private static final ThreadGroup THREAD_GROUP = new ThreadGroup("MythTransaction");
@@ -47,7 +54,19 @@ public class MythTransactionThreadFactory implements ThreadFactory {
     }
 
     public static ThreadFactory create(String namePrefix, boolean daemon) {
-        return new MythTransactionThreadFactory(namePrefix, daemon);
+        return new MythTransactionThreadFactory(namePrefix, daemon, false);
+    }
+
+    /**
+     * 创建线程工厂.
+     *
+     * @param namePrefix 线程名前缀
+     * @param daemon     是否守护线程（虚拟线程总是守护线程）
+     * @param virtual    是否使用虚拟线程，需要jdk21及以上，否则退化为普通线程
+     * @return ThreadFactory
+     */
+    public static ThreadFactory create(String namePrefix, boolean daemon, boolean virtual) {
+        return new MythTransactionThreadFactory(namePrefix, daemon, virtual);
     }
 
     public static boolean waitAllShutdown(int timeoutInMillis) {
@@ -98,14 +117,38 @@ public class MythTransactionThreadFactory implements ThreadFactory {
         des.addAll(set);
     }
 
-    private MythTransactionThreadFactory(String namePrefix, boolean daemon) {
+    private MythTransactionThreadFactory(String namePrefix, boolean daemon, boolean virtual) {
         this.namePrefix = namePrefix;
         MythTransactionThreadFactory.daemon = daemon;
+        this.virtualThreadFactory = virtual ? buildVirtualThreadFactory(namePrefix) : null;
+    }
+
+    /**
+     * 通过反射调用 Thread.ofVirtual().name(prefix, 1).factory()，保证在jdk1.8下依然可以编译运行.
+     *
+     * @param namePrefix 线程名前缀
+     * @return 虚拟线程工厂，不支持时返回null
+     */
+    private static ThreadFactory buildVirtualThreadFactory(String namePrefix) {
+        try {
+            final Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Object builder = ofVirtual.invoke(null);
+            final Class<?> builderClass = ofVirtual.getReturnType();
+            builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, THREAD_GROUP.getName() + "-" + namePrefix + "-virtual-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            log.warn("current jvm does not support virtual threads, use platform threads for [{}]", namePrefix);
+            return null;
+        }
     }
 
 
     @Override
     public Thread newThread(Runnable runnable) {
+        if (Objects.nonNull(virtualThreadFactory)) {
+            return virtualThreadFactory.newThread(runnable);
+        }
         Thread thread = new Thread(THREAD_GROUP, runnable,
                 THREAD_GROUP.getName() + "-" + namePrefix + "-" + threadNumber.getAndIncrement());
         thread.setDaemon(daemon);//Thread.setDaemon(true)设置为守护线程,JVM结束，守护线程关闭
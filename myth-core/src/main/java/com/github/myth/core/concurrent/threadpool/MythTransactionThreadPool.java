@@ -27,6 +27,7 @@ import com.github.myth.core.concurrent.threadpool.policy.BlockingPolicy;
 import com.github.myth.core.concurrent.threadpool.policy.CallerRunsPolicy;
 import com.github.myth.core.concurrent.threadpool.policy.DiscardedPolicy;
 import com.github.myth.core.concurrent.threadpool.policy.RejectedPolicy;
+import com.github.myth.core.metrics.MythMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,7 +57,11 @@ public class MythTransactionThreadPool {
     private static final Logger LOGGER = LoggerFactory.getLogger(MythTransactionThreadPool.class);
 
     private static final String THREAD_FACTORY_NAME = "tccTransaction";
-    private static final int MAX_ARRAY_QUEUE = 1000;
+
+    /**
+     * 弹性线程池中空闲线程的存活时间
+     */
+    private static final long ELASTIC_KEEP_ALIVE_SECONDS = 60;
 
     private MythConfig mythConfig;
 
@@ -64,6 +69,8 @@ public class MythTransactionThreadPool {
 
     private ExecutorService fixExecutorService;
 
+    private MythMetrics metrics = MythMetrics.NOOP;
+
     private static final ScheduledExecutorService SCHEDULED_THREAD_POOL_EXECUTOR =
             new ScheduledThreadPoolExecutor(1,
                     MythTransactionThreadFactory.create(THREAD_FACTORY_NAME, true));
@@ -77,7 +84,7 @@ public class MythTransactionThreadPool {
         fixExecutorService = new ThreadPoolExecutor(mythConfig.getCoordinatorThreadMax(),
                 mythConfig.getCoordinatorThreadMax(), 0, TimeUnit.MILLISECONDS,
                 createBlockingQueue(),
-                MythTransactionThreadFactory.create(THREAD_FACTORY_NAME, false), createPolicy());
+                MythTransactionThreadFactory.create(THREAD_FACTORY_NAME, false), createPolicy(THREAD_FACTORY_NAME));
 
     }
 
@@ -87,23 +94,28 @@ public class MythTransactionThreadPool {
         this.mythConfig = mythConfig;
     }
 
+    @Autowired(required = false)
+    public void setMetrics(MythMetrics metrics) {
+        this.metrics = metrics;
+    }
+
 
-    private RejectedExecutionHandler createPolicy() {
+    private RejectedExecutionHandler createPolicy(String name) {
 //        mythConfig的配置<property name="rejectPolicy" value="Abort"/> fromString后对应ABORT_POLICY
         RejectedPolicyTypeEnum rejectedPolicyType = RejectedPolicyTypeEnum.fromString(mythConfig.getRejectPolicy());
         switch (rejectedPolicyType) {
             case BLOCKING_POLICY:
-                return new BlockingPolicy();
+                return new BlockingPolicy(name, metrics);
             case CALLER_RUNS_POLICY:
-                return new CallerRunsPolicy();
+                return new CallerRunsPolicy(name, metrics);
             case ABORT_POLICY:
-                return new AbortPolicy();
+                return new AbortPolicy(name, metrics);
             case REJECTED_POLICY:
-                return new RejectedPolicy();
+                return new RejectedPolicy(name, metrics);
             case DISCARDED_POLICY:
-                return new DiscardedPolicy();
+                return new DiscardedPolicy(name, metrics);
             default:
-                return new DiscardedPolicy();
+                return new DiscardedPolicy(name, metrics);
         }
     }
 
@@ -113,7 +125,7 @@ public class MythTransactionThreadPool {
             case LINKED_BLOCKING_QUEUE:
                 return new LinkedBlockingQueue<>();
             case ARRAY_BLOCKING_QUEUE:
-                return new ArrayBlockingQueue<>(MAX_ARRAY_QUEUE);
+                return new ArrayBlockingQueue<>(mythConfig.getThreadPoolQueueMax());
             case SYNCHRONOUS_QUEUE:
                 return new SynchronousQueue<>();
             default:
@@ -123,9 +135,38 @@ public class MythTransactionThreadPool {
     }
 
     public ExecutorService newCustomFixedThreadPool(int threads) {
+        return newCustomFixedThreadPool(THREAD_FACTORY_NAME, threads);
+    }
+
+    /**
+     * 创建固定线程数的线程池.
+     *
+     * @param name    线程池名称，用作线程名前缀，拒绝任务时记录日志及指标
+     * @param threads 线程数
+     * @return ExecutorService
+     */
+    public ExecutorService newCustomFixedThreadPool(String name, int threads) {
         return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
                 createBlockingQueue(),
-                MythTransactionThreadFactory.create(THREAD_FACTORY_NAME, false), createPolicy());
+                MythTransactionThreadFactory.create(name, false,
+                        mythConfig.getVirtualThread()), createPolicy(name));
+    }
+
+    /**
+     * 创建线程数随提交任务增减的线程池，最多 maxThreads 个线程，空闲线程60秒后回收.
+     * 用于运行时调整工作线程数量的场景，工作线程退出后线程归还线程池，最大线程数可以通过 setMaximumPoolSize 调整.
+     *
+     * @param name       线程池名称
+     * @param maxThreads 最大线程数
+     * @return ThreadPoolExecutor
+     */
+    public ThreadPoolExecutor newElasticThreadPool(String name, int maxThreads) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads,
+                ELASTIC_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                MythTransactionThreadFactory.create(name, false,
+                        mythConfig.getVirtualThread()), createPolicy(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     public ExecutorService newFixedThreadPool() {
@@ -135,7 +176,7 @@ public class MythTransactionThreadPool {
     public ExecutorService newSingleThreadExecutor() {
         return new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
                 createBlockingQueue(),
-                MythTransactionThreadFactory.create(THREAD_FACTORY_NAME, false), createPolicy());
+                MythTransactionThreadFactory.create(THREAD_FACTORY_NAME, false), createPolicy(THREAD_FACTORY_NAME));
     }
 
     public ScheduledExecutorService newSingleThreadScheduledExecutor() {
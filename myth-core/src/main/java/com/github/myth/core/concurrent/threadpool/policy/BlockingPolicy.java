@@ -17,6 +17,8 @@
  */
 package com.github.myth.core.concurrent.threadpool.policy;
 
+import com.github.myth.common.enums.RejectedPolicyTypeEnum;
+import com.github.myth.core.metrics.MythMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,16 +33,24 @@ public class BlockingPolicy implements RejectedExecutionHandler {
 
     private String threadName;
 
+    private final MythMetrics metrics;
+
     public BlockingPolicy() {
         this(null);
     }
 
     public BlockingPolicy(String threadName) {
+        this(threadName, MythMetrics.NOOP);
+    }
+
+    public BlockingPolicy(String threadName, MythMetrics metrics) {
         this.threadName = threadName;
+        this.metrics = metrics;
     }
 
     @Override
     public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+        metrics.recordRejected(String.valueOf(threadName), RejectedPolicyTypeEnum.BLOCKING_POLICY.getValue());
         if (threadName != null) {
             LOG.error("MythTransaction Thread pool [{}] is exhausted, executor={}", threadName, executor.toString());
         }
@@ -17,6 +17,8 @@
  */
 package com.github.myth.core.concurrent.threadpool.policy;
 
+import com.github.myth.common.enums.RejectedPolicyTypeEnum;
+import com.github.myth.core.metrics.MythMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,16 +32,24 @@ public class CallerRunsPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
 
     private String threadName;
 
+    private final MythMetrics metrics;
+
     public CallerRunsPolicy() {
         this(null);
     }
 
     public CallerRunsPolicy(String threadName) {
+        this(threadName, MythMetrics.NOOP);
+    }
+
+    public CallerRunsPolicy(String threadName, MythMetrics metrics) {
         this.threadName = threadName;
+        this.metrics = metrics;
     }
 
     @Override
     public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+        metrics.recordRejected(String.valueOf(threadName), RejectedPolicyTypeEnum.CALLER_RUNS_POLICY.getValue());
         if (threadName != null) {
             LOG.error("MythTransaction Thread pool [{}] is exhausted, executor={}", threadName, executor.toString());
         }
@@ -17,6 +17,8 @@
  */
 package com.github.myth.core.concurrent.threadpool.policy;
 
+import com.github.myth.common.enums.RejectedPolicyTypeEnum;
+import com.github.myth.core.metrics.MythMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,16 +34,24 @@ public class DiscardedPolicy implements RejectedExecutionHandler {
 
     private String threadName;
 
+    private final MythMetrics metrics;
+
     public DiscardedPolicy() {
         this(null);
     }
 
     public DiscardedPolicy(String threadName) {
+        this(threadName, MythMetrics.NOOP);
+    }
+
+    public DiscardedPolicy(String threadName, MythMetrics metrics) {
         this.threadName = threadName;
+        this.metrics = metrics;
     }
 
     @Override
     public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+        metrics.recordRejected(String.valueOf(threadName), RejectedPolicyTypeEnum.DISCARDED_POLICY.getValue());
         if (threadName != null) {
             LOG.error("MythTransaction Thread pool [{}] is exhausted, executor={}", threadName, executor.toString());
         }
@@ -20,11 +20,17 @@ package com.github.myth.core.coordinator;
 
 
 import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageDelivery;
 import com.github.myth.common.config.MythConfig;
 import com.github.myth.common.exception.MythException;
 import com.github.myth.common.exception.MythRuntimeException;
 import com.github.myth.common.serializer.ObjectSerializer;
 import com.github.myth.core.coordinator.command.CoordinatorAction;
+import com.github.myth.core.metrics.MythMetrics;
+import com.github.myth.core.trace.MythTracer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author xiaoyu
@@ -39,6 +45,13 @@ public interface CoordinatorService {
      */
     void start(MythConfig mythConfig) throws MythException;
 
+    /**
+     * 停止：不再接收新的分布式事务，等待正在发送的消息，在 coordinatorShutdownTimeout 内执行完队列中的命令，
+     * 超时未执行的命令写入本地文件，下次启动时执行；之后提交的命令也写入本地文件.
+     * 重复调用只执行一次.
+     */
+    void stop();
+
     /**
      * 保存本地事务信息
      *
@@ -103,6 +116,31 @@ public interface CoordinatorService {
      */
     Boolean submit(CoordinatorAction coordinatorAction);
 
+    /**
+     * 提交补偿操作，队列已满时最多等待 timeout，之后按配置的队列已满策略处理.
+     *
+     * @param coordinatorAction 执行动作
+     * @param timeout           等待时间
+     * @param unit              时间单位
+     * @return true 已提交、已执行或者已写入本地文件  false 被丢弃
+     */
+    Boolean trySubmit(CoordinatorAction coordinatorAction, long timeout, TimeUnit unit);
+
+    /**
+     * 协调资源队列是否已饱和，饱和时应当拒绝新的分布式事务.
+     *
+     * @return true 饱和
+     */
+    boolean isSaturated();
+
+    /**
+     * 事务id生成器是否持有 workerId 的租约.
+     * 租约过期并且重新租用失败时，生成的事务id可能与租用了同一个 workerId 的节点重复，不能开始新的分布式事务.
+     *
+     * @return true 持有，或者存储不支持租用
+     */
+    boolean isWorkerIdLeased();
+
 
     /**
      * 设置序列化方式
@@ -110,6 +148,18 @@ public interface CoordinatorService {
      */
     void setSerializer(ObjectSerializer serializer);
 
+    /**
+     * 设置运行指标
+     * @param metrics 运行指标
+     */
+    void setMetrics(MythMetrics metrics);
+
+    /**
+     * 设置链路追踪
+     * @param tracer 链路追踪
+     */
+    void setTracer(MythTracer tracer);
+
 
 
     /**
@@ -120,6 +170,14 @@ public interface CoordinatorService {
     Boolean processMessage(byte[] message);
 
 
+    /**
+     * 批量处理接收到的mq消息，同一批中重复的事务只处理一次，已处理的事务一次查询得到
+     * @param messages 消息体集合
+     * @return true 处理成功  false 处理失败
+     */
+    Boolean processMessages(List<byte[]> messages);
+
+
     /**
      * 发送消息
      * @param mythTransaction 消息体
@@ -127,4 +185,23 @@ public interface CoordinatorService {
      */
     Boolean sendMessage(MythTransaction mythTransaction);
 
+
+    /**
+     * 按投递方式发送消息
+     * @param mythTransaction 消息体
+     * @param delivery 投递方式 首次发送、重试、延迟
+     * @return true 处理成功  false 处理失败
+     */
+    Boolean sendMessage(MythTransaction mythTransaction, MessageDelivery delivery);
+
+
+    /**
+     * mq异步发送结果回调
+     * 发送失败时将对应参与者重置为待发送，事务状态重置为开始，由定时任务重新发送
+     * @param transId     事务id
+     * @param destination 队列
+     * @param ack         true broker已确认 false 发送失败
+     */
+    void confirmMessage(String transId, String destination, boolean ack);
+
 }
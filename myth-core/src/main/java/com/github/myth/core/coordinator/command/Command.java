@@ -28,6 +28,7 @@ public interface Command {
      * 执行协调命令接口
      *
      * @param coordinatorAction 协调数据
+     * @throws com.github.myth.common.exception.MythOverloadException 协调资源队列已满，命令被放弃
      */
     void execute(CoordinatorAction coordinatorAction);
 
@@ -21,7 +21,6 @@ package com.github.myth.core.coordinator.command;
 
 import com.github.myth.common.bean.entity.MythTransaction;
 import com.github.myth.common.enums.CoordinatorActionEnum;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -30,7 +29,6 @@ import java.io.Serializable;
  * @author xiaoyu
  */
 @Data
-@AllArgsConstructor
 public class CoordinatorAction implements Serializable {
 
 
@@ -39,4 +37,19 @@ public class CoordinatorAction implements Serializable {
     private CoordinatorActionEnum action;
 
     private MythTransaction mythTransaction;
+
+    /**
+     * 放入队列的时间(纳秒)，用于统计队列等待时间
+     */
+    private transient long submitTime;
+
+    /**
+     * 放入队列时的 W3C traceparent，异步保存时作为父span
+     */
+    private transient String traceParent;
+
+    public CoordinatorAction(CoordinatorActionEnum action, MythTransaction mythTransaction) {
+        this.action = action;
+        this.mythTransaction = mythTransaction;
+    }
 }
@@ -19,6 +19,7 @@
 package com.github.myth.core.coordinator.command;
 
 
+import com.github.myth.common.exception.MythOverloadException;
 import com.github.myth.core.coordinator.CoordinatorService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -42,10 +43,14 @@ public class CoordinatorCommand implements Command {
      * 执行协调命令接口
      *
      * @param coordinatorAction 协调数据
+     * @throws MythOverloadException 协调资源队列已满，命令被放弃
      */
     @Override
     public void execute(CoordinatorAction coordinatorAction) {
-        coordinatorService.submit(coordinatorAction);
+        if (!coordinatorService.submit(coordinatorAction)) {
+            throw new MythOverloadException("协调资源队列已满，放弃命令："
+                    + coordinatorAction.getAction() + ":" + coordinatorAction.getMythTransaction().getTransId());
+        }
     }
 
 
@@ -0,0 +1,333 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.coordinator.command.CoordinatorAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 协调命令的本地文件.
+ * 回滚队列已满时命令按顺序写入文件，写入期间后续命令也写入文件；
+ * 队列空闲后由调度线程按写入顺序逐个文件重新执行，全部执行完后恢复写入队列.
+ * 文件格式：命令类型、事务日志序列化后的长度、事务日志，进程中断时未写完的最后一条会被忽略.
+ * 保存命令同时保留事务对象的引用，执行时保存的是事务当前的状态（如发送消息之后的状态），文件中的只在重启后使用.
+ * 执行抛出异常时在 .offset 文件中记录已执行的条数，下次从中断的位置继续，已执行的命令（如删除）不会重复执行.
+ *
+ * @author xiaoyu
+ */
+class CoordinatorJournal {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoordinatorJournal.class);
+
+    private static final String SUFFIX = ".journal";
+
+    private static final String CORRUPTED = ".corrupted";
+
+    private static final String OFFSET = ".offset";
+
+    private final File directory;
+
+    private final ObjectSerializer serializer;
+
+    private volatile boolean active;
+
+    private long sequence;
+
+    private DataOutputStream out;
+
+    /**
+     * 写入文件的保存命令的事务对象，key为事务id
+     */
+    private final Map<String, MythTransaction> liveSaves = new ConcurrentHashMap<>();
+
+    CoordinatorJournal(String path, ObjectSerializer serializer) {
+        this.directory = new File(path);
+        this.serializer = serializer;
+    }
+
+    /**
+     * 创建目录，上次运行遗留的文件会在队列空闲后重新执行.
+     *
+     * @throws MythException 目录无法创建
+     */
+    synchronized void open() throws MythException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new MythException("can not create coordinator journal directory: " + directory);
+        }
+        final File[] segments = segments();
+        if (segments.length > 0) {
+            sequence = sequenceOf(segments[segments.length - 1]);
+            active = true;
+            LogUtil.info(LOGGER, "发现未执行的协调命令文件:{}", () -> segments.length);
+        }
+    }
+
+    /**
+     * 是否有未执行的命令.
+     *
+     * @return true 有
+     */
+    boolean isActive() {
+        return active;
+    }
+
+    /**
+     * 有未执行的命令时写入文件，保证与之前写入文件的命令的顺序.
+     *
+     * @param coordinatorAction 命令
+     * @return false 没有未执行的命令或者写入失败，需要提交到队列
+     */
+    boolean appendIfActive(CoordinatorAction coordinatorAction) {
+        if (!active) {
+            return false;
+        }
+        synchronized (this) {
+            return active && write(coordinatorAction);
+        }
+    }
+
+    /**
+     * 写入文件.
+     *
+     * @param coordinatorAction 命令
+     * @return false 写入失败
+     */
+    synchronized boolean append(CoordinatorAction coordinatorAction) {
+        if (write(coordinatorAction)) {
+            active = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 按写入顺序执行文件中的命令，执行完的文件删除；执行抛出异常时保留当前文件并记录已执行的条数，下次从中断的位置继续.
+     * 无法反序列化的文件改名为 .corrupted 后跳过.
+     *
+     * @param handler 执行命令
+     * @return 执行的命令数量
+     * @throws IOException 读取文件失败
+     */
+    int replay(Consumer<CoordinatorAction> handler) throws IOException {
+        int count = 0;
+        for (;;) {
+            final File segment;
+            synchronized (this) {
+                segment = rotate();
+                if (segment == null) {
+                    active = false;
+                    return count;
+                }
+            }
+            try {
+                count += read(segment, handler);
+            } catch (CorruptedJournalException e) {
+                LogUtil.error(LOGGER, "协调命令文件已损坏，跳过：{}", e::getMessage);
+                if (!segment.renameTo(new File(directory, segment.getName() + CORRUPTED))) {
+                    throw new IOException("can not rename corrupted coordinator journal: " + segment);
+                }
+                deleteOffset(segment);
+                continue;
+            }
+            if (!segment.delete()) {
+                throw new IOException("can not delete coordinator journal: " + segment);
+            }
+            deleteOffset(segment);
+        }
+    }
+
+    /**
+     * 关闭正在写入的文件，之后写入的命令写入新文件.
+     */
+    synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            LogUtil.error(LOGGER, "关闭协调命令文件失败：{}", e::getMessage);
+        }
+        out = null;
+    }
+
+    /**
+     * 取出最早的文件，如果正在写入则关闭，之后的命令写入新文件.
+     *
+     * @return 文件，没有时为null
+     */
+    private File rotate() throws IOException {
+        final File[] segments = segments();
+        if (segments.length == 0) {
+            return null;
+        }
+        if (out != null && sequenceOf(segments[0]) == sequence) {
+            out.close();
+            out = null;
+        }
+        return segments[0];
+    }
+
+    private boolean write(CoordinatorAction coordinatorAction) {
+        try {
+            final byte[] bytes = serializer.serialize(coordinatorAction.getMythTransaction());
+            if (out == null) {
+                sequence++;
+                out = new DataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(new File(directory, sequence + SUFFIX))));
+            }
+            out.writeUTF(coordinatorAction.getAction().name());
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.flush();
+            if (coordinatorAction.getAction() == CoordinatorActionEnum.SAVE) {
+                liveSaves.put(coordinatorAction.getMythTransaction().getTransId(),
+                        coordinatorAction.getMythTransaction());
+            }
+            return true;
+        } catch (MythException | IOException e) {
+            LogUtil.error(LOGGER, "写入协调命令文件失败：{}", e::getMessage);
+            return false;
+        }
+    }
+
+    private int read(File segment, Consumer<CoordinatorAction> handler) throws IOException {
+        //上次执行中断时已执行的条数
+        final int offset = readOffset(segment);
+        int position = 0;
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            for (;; position++) {
+                final CoordinatorActionEnum action;
+                final byte[] bytes;
+                try {
+                    action = CoordinatorActionEnum.valueOf(in.readUTF());
+                    bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                } catch (EOFException e) {
+                    return count;
+                }
+                if (position < offset) {
+                    continue;
+                }
+                final MythTransaction mythTransaction;
+                try {
+                    mythTransaction = serializer.deSerialize(bytes, MythTransaction.class);
+                } catch (MythException e) {
+                    throw new CorruptedJournalException(segment + ":" + e.getMessage());
+                }
+                final CoordinatorAction coordinatorAction = new CoordinatorAction(action, live(action, mythTransaction));
+                coordinatorAction.setSubmitTime(System.nanoTime());
+                try {
+                    handler.accept(coordinatorAction);
+                } catch (RuntimeException e) {
+                    writeOffset(segment, position);
+                    throw e;
+                }
+                count++;
+            }
+        }
+    }
+
+    /**
+     * 本进程写入的保存命令使用事务对象当前的状态，重启后使用文件中的.
+     */
+    private MythTransaction live(CoordinatorActionEnum action, MythTransaction mythTransaction) {
+        if (action != CoordinatorActionEnum.SAVE) {
+            return mythTransaction;
+        }
+        final MythTransaction live = liveSaves.remove(mythTransaction.getTransId());
+        return live == null ? mythTransaction : live;
+    }
+
+    private int readOffset(File segment) throws IOException {
+        final File offset = new File(directory, segment.getName() + OFFSET);
+        if (!offset.isFile()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(offset))) {
+            return in.readInt();
+        } catch (EOFException e) {
+            return 0;
+        }
+    }
+
+    private void writeOffset(File segment, int position) {
+        try (DataOutputStream offset = new DataOutputStream(
+                new FileOutputStream(new File(directory, segment.getName() + OFFSET)))) {
+            offset.writeInt(position);
+        } catch (IOException e) {
+            LogUtil.error(LOGGER, "记录协调命令文件执行位置失败：{}", e::getMessage);
+        }
+    }
+
+    private void deleteOffset(File segment) {
+        final File offset = new File(directory, segment.getName() + OFFSET);
+        if (offset.exists() && !offset.delete()) {
+            LogUtil.error(LOGGER, "删除协调命令文件执行位置失败：{}", offset::getName);
+        }
+    }
+
+    private File[] segments() {
+        final File[] segments = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments, Comparator.comparingLong(CoordinatorJournal::sequenceOf));
+        return segments;
+    }
+
+    private static long sequenceOf(File segment) {
+        final String name = segment.getName();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * 文件内容无法反序列化
+     */
+    private static class CorruptedJournalException extends IOException {
+
+        private static final long serialVersionUID = -2218468302385364120L;
+
+        CorruptedJournalException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.concurrent.ringbuffer.MythKeyedExecutor;
+import com.github.myth.core.concurrent.threadpool.MythAdaptiveSizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 协调资源线程池：工作线程数量的自动调整及 JMX 管理.
+ *
+ * @author xiaoyu
+ */
+class CoordinatorPool implements CoordinatorPoolMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoordinatorPool.class);
+
+    private static final String OBJECT_NAME = "com.github.myth:type=CoordinatorPool";
+
+    private final MythKeyedExecutor<?> executor;
+
+    private final ThreadPoolExecutor threadPool;
+
+    private final MythAdaptiveSizer sizer;
+
+    private volatile boolean adaptive;
+
+    CoordinatorPool(MythKeyedExecutor<?> executor, ThreadPoolExecutor threadPool, MythConfig mythConfig) {
+        this.executor = executor;
+        this.threadPool = threadPool;
+        final int max = threadPool.getMaximumPoolSize();
+        this.sizer = new MythAdaptiveSizer(Math.max(1, Math.min(mythConfig.getCoordinatorThreadMin(), max)), max,
+                mythConfig.getCoordinatorWaitTarget(), executor::getWorkers, this::resize);
+        this.adaptive = mythConfig.getCoordinatorAdaptive();
+    }
+
+    /**
+     * 记录一次命令执行.
+     *
+     * @param waitNanos    队列等待时间
+     * @param serviceNanos 执行耗时
+     */
+    void record(long waitNanos, long serviceNanos) {
+        if (adaptive) {
+            sizer.record(waitNanos, serviceNanos);
+        }
+    }
+
+    /**
+     * 定时调整线程数，并注册 JMX.
+     *
+     * @param scheduler 调度线程池
+     * @param interval  调整周期 单位秒
+     */
+    void start(ScheduledExecutorService scheduler, int interval) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (adaptive) {
+                try {
+                    sizer.tick();
+                } catch (Exception e) {
+                    LogUtil.error(LOGGER, "调整协调资源线程数异常：{}", e::getMessage);
+                }
+            }
+        }, interval, interval, TimeUnit.SECONDS);
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "注册协调资源线程池JMX失败：{}", e::getMessage);
+        }
+    }
+
+    private void resize(int workers) {
+        final int before = executor.getWorkers();
+        executor.resize(workers);
+        LogUtil.info(LOGGER, "协调资源线程数调整为:{}", () -> before + "->" + workers);
+    }
+
+    @Override
+    public int getWorkers() {
+        return executor.getWorkers();
+    }
+
+    @Override
+    public void setWorkers(int workers) {
+        resize(Math.max(sizer.getMin(), Math.min(sizer.getMax(), workers)));
+    }
+
+    @Override
+    public int getMinWorkers() {
+        return sizer.getMin();
+    }
+
+    @Override
+    public void setMinWorkers(int minWorkers) {
+        sizer.setBounds(minWorkers, sizer.getMax());
+        if (executor.getWorkers() < minWorkers) {
+            resize(minWorkers);
+        }
+    }
+
+    @Override
+    public int getMaxWorkers() {
+        return sizer.getMax();
+    }
+
+    @Override
+    public synchronized void setMaxWorkers(int maxWorkers) {
+        //线程池只扩大不缩小，多余的空闲线程超时后回收
+        if (maxWorkers > threadPool.getMaximumPoolSize()) {
+            threadPool.setMaximumPoolSize(maxWorkers);
+            threadPool.setCorePoolSize(maxWorkers);
+        }
+        sizer.setBounds(Math.min(sizer.getMin(), maxWorkers), maxWorkers);
+        if (executor.getWorkers() > maxWorkers) {
+            resize(maxWorkers);
+        }
+    }
+
+    @Override
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    @Override
+    public void setAdaptive(boolean adaptive) {
+        this.adaptive = adaptive;
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.size();
+    }
+
+    @Override
+    public int getLaneCount() {
+        return executor.laneCount();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.coordinator.impl;
+
+/**
+ * 协调资源线程池的运行时管理接口，注册为 JMX：com.github.myth:type=CoordinatorPool.
+ *
+ * @author xiaoyu
+ */
+public interface CoordinatorPoolMXBean {
+
+    /**
+     * 当前工作线程数.
+     *
+     * @return 线程数
+     */
+    int getWorkers();
+
+    /**
+     * 调整工作线程数，开启自动调整时下一个周期会重新计算.
+     *
+     * @param workers 线程数，限制在最少、最多线程数之间
+     */
+    void setWorkers(int workers);
+
+    int getMinWorkers();
+
+    void setMinWorkers(int minWorkers);
+
+    int getMaxWorkers();
+
+    /**
+     * 调整最多线程数，超过线程池大小时同时扩大线程池.
+     *
+     * @param maxWorkers 最多线程数
+     */
+    void setMaxWorkers(int maxWorkers);
+
+    boolean isAdaptive();
+
+    void setAdaptive(boolean adaptive);
+
+    /**
+     * 队列中待处理的命令数量.
+     *
+     * @return 数量
+     */
+    int getQueueDepth();
+
+    int getLaneCount();
+}
@@ -23,27 +23,48 @@ import com.github.myth.common.bean.context.MythTransactionContext;
 import com.github.myth.common.bean.entity.MythInvocation;
 import com.github.myth.common.bean.entity.MythParticipant;
 import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageDelivery;
 import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.bean.mq.MessageHeader;
 import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.CompressEnum;
 import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
 import com.github.myth.common.enums.MythRoleEnum;
 import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.enums.OverflowPolicyEnum;
+import com.github.myth.common.enums.WaitStrategyEnum;
 import com.github.myth.common.exception.MythException;
 import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.exception.MythSignatureNotFoundException;
 import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.IdWorkerUtils;
 import com.github.myth.common.utils.LogUtil;
+import com.github.myth.common.utils.RepositoryPathUtils;
+import com.github.myth.core.concurrent.ringbuffer.MythKeyedExecutor;
+import com.github.myth.core.concurrent.ringbuffer.MythWaitStrategy;
 import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
 import com.github.myth.core.concurrent.threadpool.MythTransactionThreadFactory;
 import com.github.myth.core.concurrent.threadpool.MythTransactionThreadPool;
 import com.github.myth.core.coordinator.CoordinatorService;
 import com.github.myth.core.coordinator.command.CoordinatorAction;
+import com.github.myth.core.helper.MethodHandleHelper;
 import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.metrics.MythMetrics;
 import com.github.myth.core.service.ApplicationService;
 import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythMessageCodec;
+import com.github.myth.core.service.mq.MythDedupStore;
+import com.github.myth.core.service.mq.MythFailureClassifier;
+import com.github.myth.core.service.mq.MythLocalTransport;
+import com.github.myth.core.service.mq.MythMessageDispatcher;
+import com.github.myth.core.service.mq.MythSignatureRegistry;
 import com.github.myth.core.spi.CoordinatorRepository;
+import com.github.myth.core.trace.MythSpan;
+import com.github.myth.core.trace.MythTracer;
+import com.google.common.util.concurrent.Striped;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.reflect.MethodUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -51,12 +72,19 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.*;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
  * @author xiaoyu
@@ -69,8 +97,25 @@ public class CoordinatorServiceImpl implements CoordinatorService {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(CoordinatorServiceImpl.class);
 
-    //BlockingQueue:阻塞队列。当队列中没有数据的情况下，消费者端的所有线程都会被自动阻塞（挂起），直到有数据放入队列，线程被自动唤醒。
-    private static BlockingQueue<CoordinatorAction> QUEUE;
+    /**
+     * 协调资源队列，同一事务id的命令进入同一个通道，保证按提交顺序执行
+     */
+    private static MythKeyedExecutor<CoordinatorAction> EXECUTOR;
+
+    /**
+     * 把提交的命令复制到队列中预先分配的槽位
+     */
+    private static final BiConsumer<CoordinatorAction, CoordinatorAction> TRANSLATOR = (slot, source) -> {
+        slot.setAction(source.getAction());
+        slot.setMythTransaction(source.getMythTransaction());
+        slot.setSubmitTime(source.getSubmitTime());
+        slot.setTraceParent(source.getTraceParent());
+    };
+
+    /**
+     * 队列已满并且策略为 block 时，业务线程每次等待的时间
+     */
+    private static final long OVERFLOW_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 
     private MythConfig mythConfig;
 
@@ -79,13 +124,82 @@ public class CoordinatorServiceImpl implements CoordinatorService {
     private final ApplicationService applicationService;
 
 
-    private static volatile MythMqSendService mythMqSendService;
+    private volatile MythMqSendService mythMqSendService;
 
     private static final Lock LOCK = new ReentrantLock();
 
+    /**
+     * 错误信息最大长度，与日志表 error_msg 字段一致
+     */
+    private static final int ERROR_MSG_MAX_LENGTH = 1000;
+
 
     private ObjectSerializer serializer;
 
+    private MythMessageDispatcher messageDispatcher;
+
+    private MythMessageCodec messageCodec;
+
+    private MythFailureClassifier failureClassifier;
+
+    private MythLocalTransport localTransport;
+
+    private MythDedupStore dedupStore;
+
+    private MythMetrics metrics = MythMetrics.NOOP;
+
+    private MythTracer tracer = MythTracer.NOOP;
+
+    private OverflowPolicyEnum overflowPolicy;
+
+    private CoordinatorPool coordinatorPool;
+
+    private CoordinatorJournal journal;
+
+    private ScheduledFuture<?> journalReplay;
+
+    /**
+     * 租用的 workerId，不支持租用时为 -1
+     */
+    private volatile long workerId = -1L;
+
+    /**
+     * 是否持有 workerId 的租约，租约过期并且还没有重新租用时不能开始新的分布式事务
+     */
+    private volatile boolean workerIdLeased = true;
+
+    /**
+     * 最后一次租用或者续约成功的时间（开始请求的时间），续约异常超过租约时长时按租约过期处理
+     */
+    private volatile long workerIdRenewedAt;
+
+    private ScheduledFuture<?> workerIdRenewal;
+
+    private ThreadPoolExecutor coordinatorExecutor;
+
+    private ExecutorService sendExecutorService;
+
+    private ExecutorService localExecutorService;
+
+    private ScheduledExecutorService recoverExecutor;
+
+    /**
+     * 正在发送的发起者事务，发送结束并且事务日志已经保存后移除.
+     * mq发送失败的回调先修改内存中的事务，之后保存或者更新的事务日志就是回调后的状态
+     */
+    private final ConcurrentMap<String, InFlightTransaction> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 同一事务的异步保存、发送后更新、本地执行结果及发送失败回调互斥，避免读取后更新相互覆盖.
+     * 持有时会读写事务日志，使用 ReentrantLock 而不是事务对象的监视器，虚拟线程等待存储时不会占住载体线程
+     */
+    private final Striped<Lock> transactionLocks = Striped.lock(256);
+
+    /**
+     * 正在停止或者已停止
+     */
+    private volatile boolean stopping;
+
     @Autowired
     public CoordinatorServiceImpl(ApplicationService applicationService) {
         this.applicationService = applicationService;
@@ -97,6 +211,16 @@ public class CoordinatorServiceImpl implements CoordinatorService {
         this.serializer = serializer;
     }
 
+    @Override
+    public void setMetrics(MythMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void setTracer(MythTracer tracer) {
+        this.tracer = tracer;
+    }
+
 
     /**
      * 保存本地事务日志
@@ -113,8 +237,16 @@ public class CoordinatorServiceImpl implements CoordinatorService {
         final String repositorySuffix = buildRepositorySuffix(mythConfig.getRepositorySuffix());//mythConfig的配置为repositorySuffix = order-service
         //初始化spi 协调资源存储
         coordinatorRepository.init(repositorySuffix, mythConfig);
+        //租用 workerId，保证集群中生成的事务id不重复
+        initWorkerId();
         //初始化 协调资源线程池
         initCoordinatorPool();
+        //初始化 队列已满时写入的本地文件，并执行上次遗留的命令
+        initJournal(repositorySuffix);
+        //初始化 消息编解码
+        initMessageCodec();
+        //初始化 消息分发
+        initMessageDispatcher();
 
         //如果需要自动恢复 开启线程 调度线程池，进行恢复
         if (mythConfig.getNeedRecover()) { //配置为true，注意这里有个开关needRecover， 根据注释得知只需要在事务发起方我们才需要开启，默认关闭状态，我们这里是order服务，即为事务发起方，所以需要开启
@@ -122,6 +254,67 @@ public class CoordinatorServiceImpl implements CoordinatorService {
         }
     }
 
+    @Override
+    public synchronized void stop() {
+        //未启动完成或者已经停止
+        if (stopping || Objects.isNull(journal)) {
+            return;
+        }
+        //rpc过滤器不再接收新的 @Myth 调用
+        stopping = true;
+        final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(Math.max(0, mythConfig.getCoordinatorShutdownTimeout()));
+        LogUtil.info(LOGGER, "开始停止协调资源，队列中待执行的命令数量为:{}", EXECUTOR::size);
+        journalReplay.cancel(false);
+        if (Objects.nonNull(recoverExecutor)) {
+            recoverExecutor.shutdown();
+        }
+        //等待正在发送的消息及本地执行的参与者，再把mq客户端缓冲的消息发送出去并等待broker确认
+        awaitTermination(sendExecutorService, deadline);
+        awaitTermination(localExecutorService, deadline);
+        if (Objects.nonNull(mythMqSendService)) {
+            try {
+                mythMqSendService.flush(remaining(deadline), TimeUnit.NANOSECONDS);
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "发送mq客户端缓冲的消息失败：{}", e::getMessage);
+            }
+        }
+        //执行完队列中的命令，超时未执行的按通道顺序写入本地文件，下次启动时执行
+        EXECUTOR.shutdown();
+        try {
+            EXECUTOR.awaitTermination(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final int leftover = EXECUTOR.halt(this::spill);
+        coordinatorExecutor.shutdown();
+        journal.close();
+        releaseWorkerId();
+        if (leftover > 0) {
+            LogUtil.error(LOGGER, "协调资源停止超时，写入本地文件的命令数量为:{}", () -> leftover);
+        }
+        LogUtil.info(LOGGER, () -> "协调资源已停止");
+    }
+
+    private static void awaitTermination(ExecutorService executorService, long deadline) {
+        if (Objects.isNull(executorService)) {
+            return;
+        }
+        executorService.shutdown();
+        try {
+            if (!executorService.awaitTermination(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                LogUtil.error(LOGGER, "等待线程池任务超时，未执行的任务数量为:{}",
+                        () -> executorService.shutdownNow().size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
 
     /**
      * 保存本地事务信息
@@ -131,7 +324,20 @@ public class CoordinatorServiceImpl implements CoordinatorService {
      */
     @Override
     public String save(MythTransaction mythTransaction) {
-        final int rows = coordinatorRepository.create(mythTransaction);
+        final int rows;
+        //发起者的事务日志异步保存，与发送消息后更新事务日志互斥，保存的不会是发送之前的快照
+        final Lock lock = transactionLocks.get(mythTransaction.getTransId());
+        lock.lock();
+        try {
+            rows = coordinatorRepository.create(mythTransaction);
+            final InFlightTransaction inFlightTransaction = inFlight.get(mythTransaction.getTransId());
+            if (rows > 0 && Objects.nonNull(inFlightTransaction)
+                    && inFlightTransaction.mythTransaction == mythTransaction && inFlightTransaction.sendDone) {
+                inFlight.remove(mythTransaction.getTransId(), inFlightTransaction);
+            }
+        } finally {
+            lock.unlock();
+        }
         if (rows > 0) {
             return mythTransaction.getTransId();
         }
@@ -200,18 +406,93 @@ public class CoordinatorServiceImpl implements CoordinatorService {
      */
     @Override
     public Boolean submit(CoordinatorAction coordinatorAction) {
-        try {
-            //持久化
-// 之前讲服务启动源码解析，专门开了一个线程池任务 MythTransactionThreadPool （在本类中）来消费QUEUE队列做消息持久化操作，对的，消息就是在这里放进去的，
-// 然后已经初始化好的线程池 MythTransactionThreadPool 用new Worker()的excute方法中的QUEUE.take()消费 QUEUE队列的消息。
-            QUEUE.put(coordinatorAction);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-            return Boolean.FALSE;
+        //block 策略一直等待，其他策略最多等待 coordinatorSubmitTimeout
+        if (overflowPolicy == OverflowPolicyEnum.BLOCK) {
+            return trySubmit(coordinatorAction, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return trySubmit(coordinatorAction, mythConfig.getCoordinatorSubmitTimeout(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Boolean trySubmit(CoordinatorAction coordinatorAction, long timeout, TimeUnit unit) {
+        //持久化
+// 之前讲服务启动源码解析，专门开了一个线程池任务 MythTransactionThreadPool （在本类中）来消费队列做消息持久化操作，对的，消息就是在这里放进去的，
+// 然后已经初始化好的线程池 MythTransactionThreadPool 用new Worker()的execute方法消费对应队列的消息。
+        coordinatorAction.setSubmitTime(System.nanoTime());
+        coordinatorAction.setTraceParent(tracer.currentTraceParent());
+        //已经有命令写入本地文件时，后续命令也写入文件，保证同一事务的命令顺序
+        if (journal.appendIfActive(coordinatorAction)) {
+            return Boolean.TRUE;
+        }
+        final String transId = coordinatorAction.getMythTransaction().getTransId();
+        if (EXECUTOR.tryPublish(transId, TRANSLATOR, coordinatorAction)) {
+            return Boolean.TRUE;
+        }
+        if (EXECUTOR.isHalted()) {
+            return spill(coordinatorAction);
+        }
+        final long nanos = unit.toNanos(timeout);
+        final long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(Math.min(OVERFLOW_PARK_NANOS, remaining));
+            if (Thread.currentThread().isInterrupted()) {
+                LogUtil.error(LOGGER, "等待协调资源队列时被中断，放弃命令：{}", () -> coordinatorAction.getAction()
+                        + ":" + transId);
+                return Boolean.FALSE;
+            }
+            if (EXECUTOR.tryPublish(transId, TRANSLATOR, coordinatorAction)) {
+                return Boolean.TRUE;
+            }
+            if (EXECUTOR.isHalted()) {
+                return spill(coordinatorAction);
+            }
+            //Long.MAX_VALUE 表示一直等待
+            remaining = nanos == Long.MAX_VALUE ? nanos : deadline - System.nanoTime();
+        }
+        return overflow(coordinatorAction);
+    }
+
+    /**
+     * 队列已满并且等待超时后，按 coordinatorOverflowPolicy 处理.
+     *
+     * @param coordinatorAction 执行动作
+     * @return true 已执行或者已写入本地文件
+     */
+    private Boolean overflow(CoordinatorAction coordinatorAction) {
+        metrics.recordCoordinatorOverflow(coordinatorAction.getAction(), overflowPolicy.getPolicy());
+        switch (overflowPolicy) {
+            case CALLER_RUNS:
+                executeAction(coordinatorAction);
+                return Boolean.TRUE;
+            case SPILL:
+                return journal.append(coordinatorAction);
+            default:
+                LogUtil.error(LOGGER, "协调资源队列已满，放弃命令：{}", () -> coordinatorAction.getAction()
+                        + ":" + coordinatorAction.getMythTransaction().getTransId());
+                return Boolean.FALSE;
+        }
+    }
+
+    /**
+     * 已停止后提交的命令写入本地文件，下次启动时执行；写入失败时在当前线程执行.
+     *
+     * @param coordinatorAction 执行动作
+     * @return true
+     */
+    private Boolean spill(CoordinatorAction coordinatorAction) {
+        if (!journal.append(coordinatorAction)) {
+            executeAction(coordinatorAction);
         }
         return Boolean.TRUE;
     }
 
+    @Override
+    public boolean isSaturated() {
+        return stopping || journal.isActive()
+                || EXECUTOR.size() * 100L >= (long) EXECUTOR.capacity() * mythConfig.getCoordinatorSaturation();
+    }
+
     /**
      * 接收到mq消息处理
      *
@@ -220,55 +501,222 @@ public class CoordinatorServiceImpl implements CoordinatorService {
      */
     @Override
     public Boolean processMessage(byte[] message) {
+        final MessageHeader header = decodeHeader(message);
+        if (Objects.isNull(header)) {
+            return Boolean.TRUE;
+        }
+        if (dedupStore.contains(header.getTransId())) {
+            LogUtil.debug(LOGGER, "重复的Myth消息,事务id：{}", header::getTransId);
+            return Boolean.TRUE;
+        }
+        /*
+         * 1 检查该事务有没被处理过，已经处理过且处理未失败的 则不处理
+         * 2 发起调用，调用接口，进行处理
+         * 3 记录本地日志
+         */
+        LOCK.lock();
+        try (MythSpan span = startConsumeSpan(header)) {
+            final MythTransaction mythTransaction = findByTransId(header.getTransId());
+            if (needExecute(mythTransaction)) {
+                executeMessage(message, header.getTransId(), mythTransaction, span);
+            } else {
+                dedupStore.add(header.getTransId());
+            }
+        } finally {
+            LOCK.unlock();
+        }
+        return Boolean.TRUE;
+    }
+
+    /**
+     * 批量处理接收到的mq消息
+     *
+     * @param messages 实体对象转换成byte[]后的数据集合
+     * @return true 处理成功  false 处理失败
+     */
+    @Override
+    public Boolean processMessages(List<byte[]> messages) {
+        if (CollectionUtils.isEmpty(messages)) {
+            return Boolean.TRUE;
+        }
+        //同一批次中相同事务id的消息只处理一次，只解码消息头
+        final Map<String, byte[]> unique = new LinkedHashMap<>(messages.size());
+        final Map<String, MessageHeader> headers = new LinkedHashMap<>(messages.size());
+        for (byte[] message : messages) {
+            final MessageHeader header = decodeHeader(message);
+            if (Objects.nonNull(header) && !dedupStore.contains(header.getTransId())) {
+                unique.putIfAbsent(header.getTransId(), message);
+                headers.putIfAbsent(header.getTransId(), header);
+            }
+        }
+        if (unique.isEmpty()) {
+            return Boolean.TRUE;
+        }
+        MythRuntimeException failure = null;
+        LOCK.lock();
         try {
-            MessageEntity entity;
-            try {
-                entity = serializer.deSerialize(message, MessageEntity.class);
-            } catch (MythException e) {
-                e.printStackTrace();
-                throw new MythRuntimeException(e.getMessage());
+            final Map<String, MythTransaction> transactions =
+                    coordinatorRepository.listByTransIds(new ArrayList<>(unique.keySet()))
+                            .stream()
+                            .collect(Collectors.toMap(MythTransaction::getTransId, t -> t, (a, b) -> a));
+            for (Map.Entry<String, byte[]> entry : unique.entrySet()) {
+                if (!needExecute(transactions.get(entry.getKey()))) {
+                    dedupStore.add(entry.getKey());
+                    continue;
+                }
+                try (MythSpan span = startConsumeSpan(headers.get(entry.getKey()))) {
+                    executeMessage(entry.getValue(), entry.getKey(), transactions.get(entry.getKey()), span);
+                } catch (MythRuntimeException e) {
+                    //继续处理其他消息，整批消息重新投递时已处理成功的会被跳过
+                    failure = e;
+                }
             }
-            /*
-             * 1 检查该事务有没被处理过，已经处理过且处理未失败的 则不处理
-             * 2 发起调用，调用接口，进行处理
-             * 3 记录本地日志
-             */
-            LOCK.lock();
+        } finally {
+            LOCK.unlock();
+        }
+        if (Objects.nonNull(failure)) {
+            throw failure;
+        }
+        return Boolean.TRUE;
+    }
 
-            final String transId = entity.getTransId();
-            final MythTransaction mythTransaction = findByTransId(transId);
+    /**
+     * 消费消息的span，以发送方的span为父span，一个事务的rpc、mq、异步执行在同一条链路上.
+     *
+     * @param header 消息头
+     * @return span
+     */
+    private MythSpan startConsumeSpan(MessageHeader header) {
+        return tracer.start("myth.consume", header.getTraceParent())
+                .tag(MythSpan.TRANS_ID, header.getTransId());
+    }
 
-            //如果是空或者状态是失败的
-            if (Objects.isNull(mythTransaction)
-                    || mythTransaction.getStatus() == MythStatusEnum.FAILURE.getCode()) {
+    /**
+     * 解码消息头，无法解码的消息（如类已不存在的旧格式消息）转入死信.
+     * 此时没有事务id，按消息内容生成，重新投递的同一条消息只记录一次.
+     *
+     * @param message 消息
+     * @return 消息头，无法解码时为null，消息已经转入死信，不需要重新投递
+     */
+    private MessageHeader decodeHeader(byte[] message) {
+        try {
+            return messageCodec.decodeHeader(message);
+        } catch (Exception e) {
+            final String transId = UUID.nameUUIDFromBytes(message).toString();
+            if (!dedupStore.contains(transId)) {
+                LOCK.lock();
                 try {
+                    handleFailure(transId, null, findByTransId(transId), e);
+                } finally {
+                    LOCK.unlock();
+                }
+            }
+            return null;
+        }
+    }
 
-                    //设置事务上下文，这个类会传递给远端
-                    MythTransactionContext context = new MythTransactionContext();
+    /**
+     * 执行消息，执行失败时记录到本地事务日志.
+     * 暂时失败抛出异常由mq重新投递；永久失败或者超过最大重试次数的消息转入死信，正常返回不再重新投递.
+     *
+     * @param message         消息
+     * @param transId         事务id
+     * @param mythTransaction 本地事务日志
+     * @param span            消费消息的span
+     */
+    private void executeMessage(byte[] message, String transId, MythTransaction mythTransaction, MythSpan span) {
+        MessageEntity entity = null;
+        try {
+            entity = messageCodec.decode(message);
+            executeMessage(entity);
+        } catch (Exception e) {
+            span.error(e);
+            handleFailure(transId, Objects.isNull(entity) ? null : entity.getMythInvocation(), mythTransaction, e);
+            return;
+        }
+        dedupStore.add(transId);
+        if (Objects.nonNull(mythTransaction)) {
+            //之前执行失败的消息重新执行成功
+            updateStatus(transId, MythStatusEnum.COMMIT.getCode());
+        }
+    }
 
-                    //设置事务id
-                    context.setTransId(transId);
+    private void handleFailure(String transId, MythInvocation mythInvocation,
+                               MythTransaction mythTransaction, Exception e) {
+        final int retriedCount = (Objects.isNull(mythTransaction) ? 0 : mythTransaction.getRetriedCount()) + 1;
+        //签名id未注册时没有执行器，但修正配置后重新投递可以解码，与其他暂时失败一样等待mq重新投递
+        final boolean deadLetter = (Objects.isNull(mythInvocation) && !(e instanceof MythSignatureNotFoundException))
+                || failureClassifier.isPermanent(e)
+                || retriedCount >= mythConfig.getRetryMax();
+        final int status = deadLetter ? MythStatusEnum.DEAD_LETTER.getCode() : MythStatusEnum.FAILURE.getCode();
+        final String errorMsg = StringUtils.abbreviate(String.valueOf(e.getMessage()), ERROR_MSG_MAX_LENGTH);
+        try {
+            if (Objects.isNull(mythTransaction)) {
+                MythTransaction failure = new MythTransaction(transId);
+                failure.setRole(MythRoleEnum.LOCAL.getCode());
+                failure.setStatus(status);
+                failure.setRetriedCount(retriedCount);
+                failure.setErrorMsg(errorMsg);
+                if (Objects.nonNull(mythInvocation)) {
+                    failure.setTargetClass(mythInvocation.getTargetClass().getName());
+                    failure.setTargetMethod(mythInvocation.getMethodName());
+                    //保存执行器，死信回放时在本地重新执行
+                    failure.registerParticipant(new MythParticipant(transId, null, null, mythInvocation));
+                }
+                coordinatorRepository.create(failure);
+            } else {
+                mythTransaction.setStatus(status);
+                mythTransaction.setRetriedCount(retriedCount);
+                mythTransaction.setErrorMsg(errorMsg);
+                coordinatorRepository.update(mythTransaction);
+            }
+        } catch (Exception ex) {
+            //记录失败时交给mq重新投递
+            LogUtil.error(LOGGER, "保存消息执行失败记录异常：{}", ex::getMessage);
+            throw new MythRuntimeException(e.getMessage(), e);
+        }
+        if (deadLetter) {
+            dedupStore.add(transId);
+            LOGGER.error("消息执行失败转入死信,事务id：{},重试次数：{}", transId, retriedCount, e);
+            return;
+        }
+        throw e instanceof MythRuntimeException ? (MythRuntimeException) e : new MythRuntimeException(e.getMessage(), e);
+    }
+
+    /**
+     * 没有处理过或者处理失败的事务需要执行.
+     *
+     * @param mythTransaction 本地事务日志
+     * @return true 需要执行
+     */
+    private boolean needExecute(MythTransaction mythTransaction) {
+        return Objects.isNull(mythTransaction)
+                || mythTransaction.getStatus() == MythStatusEnum.FAILURE.getCode();
+    }
 
-                    //设置为本地执行角色
-                    context.setRole(MythRoleEnum.LOCAL.getCode());
+    private void executeMessage(MessageEntity entity) {
+        try {
 
-                    TransactionContextLocal.getInstance().set(context);
-                    //进行本地事务补偿
-                    executeLocalTransaction(entity.getMythInvocation());
+            //设置事务上下文，这个类会传递给远端
+            MythTransactionContext context = new MythTransactionContext();
 
-                    //会进入LocalMythTransactionHandler  那里有保存
+            //设置事务id
+            context.setTransId(entity.getTransId());
 
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    throw new MythRuntimeException(e.getMessage());
-                } finally {
-                    TransactionContextLocal.getInstance().remove();
-                }
-            }
+            //设置为本地执行角色
+            context.setRole(MythRoleEnum.LOCAL.getCode());
+
+            TransactionContextLocal.getInstance().set(context);
+            //进行本地事务补偿
+            executeLocalTransaction(entity.getMythInvocation());
+
+            //会进入LocalMythTransactionHandler  那里有保存
+
+        } catch (Exception e) {
+            throw new MythRuntimeException(e.getMessage(), e);
         } finally {
-            LOCK.unlock();
+            TransactionContextLocal.getInstance().remove();
         }
-        return Boolean.TRUE;
     }
 
 
@@ -280,6 +728,18 @@ public class CoordinatorServiceImpl implements CoordinatorService {
      */
     @Override
     public Boolean sendMessage(MythTransaction mythTransaction) {
+        return sendMessage(mythTransaction, MessageDelivery.fresh());
+    }
+
+    /**
+     * 按投递方式发送消息
+     *
+     * @param mythTransaction 消息体
+     * @param delivery        投递方式
+     * @return true 处理成功  false 处理失败
+     */
+    @Override
+    public Boolean sendMessage(MythTransaction mythTransaction, MessageDelivery delivery) {
         final List<MythParticipant> mythParticipants = mythTransaction.getMythParticipants();
             /*
              * 这里的这个判断很重要，不为空，表示本地的方法执行成功，需要执行远端的rpc方法
@@ -288,28 +748,131 @@ public class CoordinatorServiceImpl implements CoordinatorService {
              * 如果本地异常，则不需要发送mq ，此时mythParticipants为空
              */
         if (CollectionUtils.isNotEmpty(mythParticipants)) {
-
-            for (MythParticipant mythParticipant : mythParticipants) {
-                MessageEntity messageEntity =
-                        new MessageEntity(mythParticipant.getTransId(),
-                                mythParticipant.getMythInvocation());
+            final InFlightTransaction inFlightTransaction = new InFlightTransaction(mythTransaction);
+            inFlight.put(mythTransaction.getTransId(), inFlightTransaction);
+            final Lock lock = transactionLocks.get(mythTransaction.getTransId());
+            boolean persisted = false;
+            try {
+                //本进程内的参与者不经过mq，等事务日志更新后再执行，执行成功前仍为待发送
+                final List<MythParticipant> localParticipants = localTransport.claim(mythParticipants);
+                final List<MythParticipant> remoteParticipants = localTransport.exclude(mythParticipants);
+                messageDispatcher.dispatch(remoteParticipants, delivery);
+                final boolean sent;
+                lock.lock();
                 try {
-                    final byte[] message = serializer.serialize(messageEntity);
-                    getMythMqSendService().sendMessage(mythParticipant.getDestination(),
-                            mythParticipant.getPattern(),
-                            message);
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    return Boolean.FALSE;
+                    //发送失败或者mq已经回调发送失败（可能在发送时同步回调）的参与者仍为待发送
+                    sent = remoteParticipants.stream()
+                            .noneMatch(p -> p.getStatus() == MythDeliveryStatusEnum.PENDING.getCode());
+                    if (sent && localParticipants.isEmpty()) {
+                        //这里为什么要这么做呢？ 主要是为了防止在极端情况下，发起者执行过程中，突然自身down 机
+                        //造成消息未发送，新增一个状态标记，如果出现这种情况，通过定时任务发送消息
+                        //参与者的已发送状态与提交状态一次写入，之后的发送失败回调按事务日志只改回失败的参与者
+                        mythTransaction.setStatus(MythStatusEnum.COMMIT.getCode());
+                        persisted = update(mythTransaction) > 0;
+                    } else {
+                        //发送失败或者本地参与者还没有执行，保存每个参与者的投递状态，定时任务恢复时只重发未发送的参与者
+                        //事务日志还没有保存时更新0条，之后保存的就是发送后的状态
+                        persisted = updateParticipant(mythTransaction) > 0;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                localTransport.deliver(localParticipants,
+                        participant -> executeLocalParticipant(mythTransaction, participant));
+                return sent;
+            } finally {
+                lock.lock();
+                try {
+                    inFlightTransaction.sendDone = true;
+                    if (persisted) {
+                        inFlight.remove(mythTransaction.getTransId(), inFlightTransaction);
+                    }
+                } finally {
+                    lock.unlock();
                 }
             }
-            //这里为什么要这么做呢？ 主要是为了防止在极端情况下，发起者执行过程中，突然自身down 机
-            //造成消息未发送，新增一个状态标记，如果出现这种情况，通过定时任务发送消息
-            this.updateStatus(mythTransaction.getTransId(), MythStatusEnum.COMMIT.getCode());
         }
         return Boolean.TRUE;
     }
 
+    /**
+     * mq异步发送结果回调
+     *
+     * @param transId     事务id
+     * @param destination 队列
+     * @param ack         true broker已确认 false 发送失败
+     */
+    @Override
+    public void confirmMessage(String transId, String destination, boolean ack) {
+        if (ack) {
+            //发送时已经标记为已发送，确认成功不再额外读写一次事务日志
+            LogUtil.debug(LOGGER, "Myth消息broker已确认,事务id：{}", () -> transId + ":" + destination);
+            return;
+        }
+        LogUtil.error(LOGGER, "Myth消息发送失败,等待定时任务重新发送,事务id：{}", () -> transId + ":" + destination);
+        metrics.recordSendFailure(destination);
+        try {
+            if (confirmInFlight(transId, destination)) {
+                return;
+            }
+            final Lock lock = transactionLocks.get(transId);
+            lock.lock();
+            try {
+                final MythTransaction mythTransaction = findByTransId(transId);
+                if (Objects.isNull(mythTransaction)
+                        || CollectionUtils.isEmpty(mythTransaction.getMythParticipants())) {
+                    LogUtil.error(LOGGER, "Myth消息发送失败,事务日志不存在,事务id：{}", () -> transId);
+                    return;
+                }
+                markPending(mythTransaction, destination);
+                //参与者与状态一次写入，不会出现参与者待发送而状态已提交、定时任务不再恢复的日志
+                update(mythTransaction);
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "更新Myth消息发送状态失败：{}", e::getMessage);
+        }
+    }
+
+    /**
+     * 事务还在发送或者事务日志还没有保存时，在内存中的事务上记录发送失败.
+     *
+     * @param transId     事务id
+     * @param destination 队列
+     * @return true 已记录
+     */
+    private boolean confirmInFlight(String transId, String destination) {
+        final InFlightTransaction inFlightTransaction = inFlight.get(transId);
+        if (Objects.isNull(inFlightTransaction)) {
+            return false;
+        }
+        final MythTransaction mythTransaction = inFlightTransaction.mythTransaction;
+        final Lock lock = transactionLocks.get(transId);
+        lock.lock();
+        try {
+            //发送结束并且事务日志已经保存，按事务日志处理
+            if (inFlight.get(transId) != inFlightTransaction) {
+                return false;
+            }
+            markPending(mythTransaction, destination);
+            //发送中时由发送结束后更新，发送结束后事务日志还没有保存时更新0条，由之后的保存写入
+            if (inFlightTransaction.sendDone) {
+                update(mythTransaction);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    private static void markPending(MythTransaction mythTransaction, String destination) {
+        mythTransaction.getMythParticipants().stream()
+                .filter(participant -> Objects.equals(participant.getDestination(), destination))
+                .forEach(participant -> participant.setStatus(MythDeliveryStatusEnum.PENDING.getCode()));
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+    }
+
 //    前面我们创建了一个线程池进行分布式消息的持久化操作，这里就是如何使用这些数据，创建一个调度线程，定时 取出指定有效时间范围内 且 消息状态为开始 的数据，
 // 然后再往mq中投递消息
     private void scheduledAutoRecover() {
@@ -318,34 +881,175 @@ public class CoordinatorServiceImpl implements CoordinatorService {
 //        1.int corePoolSize：线程池维护线程的最少数量
 //        2. ThreadFactory threadFactory：线程工程类，线程池用它来制造线程
 //        可选3. RejectedExecutionHandler handler：线程池对拒绝任务的处理策略
-        new ScheduledThreadPoolExecutor(1,
+        recoverExecutor = new ScheduledThreadPoolExecutor(1,
 //                MythTransactionThreadFactory实现ThreadFactory，创建定制化的线程Thread（比如创建有意义的线程名称，设为守护线程，设置线程优先级，处理未捕获的异常等）
                 MythTransactionThreadFactory.create("MythAutoRecoverService",
-                        true))
+                        true));
+        recoverExecutor
 //scheduleWithFixedDelay (Runnable, long initialDelay, long period, TimeUnit timeunit)，period指的当前任务的结束执行时间到下个任务的开始执行时间。
-                .scheduleWithFixedDelay(() -> {
-                    LogUtil.debug(LOGGER, "auto recover execute delayTime:{}",
-                            () -> mythConfig.getScheduledDelay());
-                    try {
-                        final List<MythTransaction> mythTransactionList =
-                                coordinatorRepository.listAllByDelay(acquireData());
-                        if (CollectionUtils.isNotEmpty(mythTransactionList)) {
-                            mythTransactionList
-                                    .forEach(mythTransaction -> {
-                                        final Boolean success = sendMessage(mythTransaction);
-                                        //发送成功 ，更改状态
-                                        if (success) {
-                                            coordinatorRepository.updateStatus(mythTransaction.getTransId(),
-                                                    MythStatusEnum.COMMIT.getCode());
-                                        }
-                                    });
-                        }
+                .scheduleWithFixedDelay(this::recover, 30, mythConfig.getScheduledDelay(),
+                        TimeUnit.SECONDS);//配置getScheduledDelay()=120秒
 
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
-                }, 30, mythConfig.getScheduledDelay(), TimeUnit.SECONDS);//配置getScheduledDelay()=120秒
+    }
 
+    /**
+     * 重新发送超过恢复延迟时间仍未提交的事务，回放管理后台重新投递的死信.
+     */
+    void recover() {
+        LogUtil.debug(LOGGER, "auto recover execute delayTime:{}",
+                () -> mythConfig.getScheduledDelay());
+        final long start = System.nanoTime();
+        int backlog = 0;
+        try (MythSpan span = tracer.start("myth.recover", null)) {
+            final List<MythTransaction> mythTransactionList =
+                    coordinatorRepository.listAllByDelay(acquireData());
+            backlog = Objects.isNull(mythTransactionList) ? 0 : mythTransactionList.size();
+            span.tag("myth.backlog", backlog);
+            purgeInFlight();
+            if (CollectionUtils.isNotEmpty(mythTransactionList)) {
+                mythTransactionList
+                        .forEach(mythTransaction -> {
+                            if (mythTransaction.getRole() == MythRoleEnum.LOCAL.getCode()) {
+                                //管理后台回放的死信，在本地重新执行
+                                replayLocalTransaction(mythTransaction);
+                                return;
+                            }
+                            if (CollectionUtils.isEmpty(mythTransaction.getMythParticipants())) {
+                                //发起者在调用参与者之前就已经失败，或者参与者自身的日志，没有需要发送的消息
+                                updateStatus(mythTransaction.getTransId(), MythStatusEnum.COMMIT.getCode());
+                                return;
+                            }
+                            if (mythTransaction.getRetriedCount() >= mythConfig.getRetryMax()) {
+                                //超过最大重试次数不再重新发送，转入死信，由管理后台重新投递
+                                mythTransaction.setStatus(MythStatusEnum.DEAD_LETTER.getCode());
+                                update(mythTransaction);
+                                LogUtil.error(LOGGER, "Myth消息重新发送超过最大重试次数,转入死信,事务id：{}",
+                                        mythTransaction::getTransId);
+                                return;
+                            }
+                            //每次重新发送前先保存重试次数，各个mq按重试次数递增延迟；
+                            //开启版本校验时其他节点已经在重发的事务更新0条，不再重复发送
+                            mythTransaction.setRetriedCount(mythTransaction.getRetriedCount() + 1);
+                            if (update(mythTransaction) <= 0) {
+                                return;
+                            }
+                            //重试消息走各个mq的重试/延迟通道，不挤占首次发送的消息
+                            //全部发送成功并且没有发送失败的回调时，由 sendMessage 更改状态
+                            sendMessage(mythTransaction,
+                                    MessageDelivery.retry(mythTransaction.getRetriedCount()));
+                        });
+            }
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            metrics.recordRecoveryScan(backlog, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 移除发送结束后超过恢复延迟时间仍未保存成功的事务，之后的回调按事务日志处理.
+     */
+    private void purgeInFlight() {
+        final long expire = System.nanoTime() - TimeUnit.SECONDS.toNanos(mythConfig.getRecoverDelayTime());
+        inFlight.values().removeIf(inFlightTransaction -> inFlightTransaction.sendDone
+                && inFlightTransaction.registerTime - expire < 0);
+    }
+
+    private void replayLocalTransaction(MythTransaction mythTransaction) {
+        final MythInvocation mythInvocation = CollectionUtils.isEmpty(mythTransaction.getMythParticipants())
+                ? null : mythTransaction.getMythParticipants().get(0).getMythInvocation();
+        if (Objects.isNull(mythInvocation)) {
+            //消息无法解析时没有保存执行器，不能回放
+            updateStatus(mythTransaction.getTransId(), MythStatusEnum.DEAD_LETTER.getCode());
+            return;
+        }
+        LOCK.lock();
+        try (MythSpan span = tracer.start("myth.replay", null)
+                .tag(MythSpan.TRANS_ID, mythTransaction.getTransId())) {
+            try {
+                executeMessage(new MessageEntity(mythTransaction.getTransId(), mythInvocation));
+            } catch (MythRuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+            updateStatus(mythTransaction.getTransId(), MythStatusEnum.COMMIT.getCode());
+        } catch (MythRuntimeException e) {
+            try {
+                handleFailure(mythTransaction.getTransId(), mythInvocation, mythTransaction, e);
+            } catch (MythRuntimeException ignore) {
+                //暂时失败，等待下次回放
+                LogUtil.warn(LOGGER, "死信回放失败,事务id：{}", mythTransaction::getTransId);
+            }
+        } finally {
+            LOCK.unlock();
+        }
+    }
+
+    /**
+     * 本进程内执行参与者，执行成功后标记为已发送，全部参与者都已发送时事务日志改为提交；
+     * 执行失败时参与者仍为待发送，由定时任务重新投递，永久失败或者超过最大重试次数时事务日志转入死信.
+     * 都在内存中的事务上修改后再整体更新，事务日志还没有保存时更新0条，之后保存的就是执行后的状态.
+     *
+     * @param mythTransaction 发起者事务
+     * @param mythParticipant 参与者
+     */
+    private void executeLocalParticipant(MythTransaction mythTransaction, MythParticipant mythParticipant) {
+        try (MythSpan span = tracer.start("myth.local", null)
+                .tag(MythSpan.TRANS_ID, mythParticipant.getTransId())
+                .tag(MythSpan.DESTINATION, mythParticipant.getDestination())) {
+            try {
+                executeMessage(new MessageEntity(mythParticipant.getTransId(), mythParticipant.getMythInvocation()));
+            } catch (MythRuntimeException e) {
+                span.error(e);
+                recordLocalFailure(mythTransaction, e);
+                return;
+            }
+            recordLocalSuccess(mythTransaction, mythParticipant);
+        }
+    }
+
+    private void recordLocalSuccess(MythTransaction mythTransaction, MythParticipant mythParticipant) {
+        final Lock lock = transactionLocks.get(mythTransaction.getTransId());
+        lock.lock();
+        try {
+            mythParticipant.setSentTime(System.currentTimeMillis());
+            mythParticipant.setStatus(MythDeliveryStatusEnum.SENT.getCode());
+            if (mythTransaction.getStatus() == MythStatusEnum.BEGIN.getCode()
+                    && mythTransaction.getMythParticipants().stream()
+                    .noneMatch(p -> p.getStatus() == MythDeliveryStatusEnum.PENDING.getCode())) {
+                mythTransaction.setStatus(MythStatusEnum.COMMIT.getCode());
+            }
+            update(mythTransaction);
+        } catch (Exception ex) {
+            LogUtil.error(LOGGER, "保存本地执行参与者结果异常：{}", ex::getMessage);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordLocalFailure(MythTransaction mythTransaction, MythRuntimeException e) {
+        final String transId = mythTransaction.getTransId();
+        final Lock lock = transactionLocks.get(transId);
+        try {
+            //重试次数由定时任务每次重新发送时累加，这里是第 retriedCount + 1 次执行
+            final int attempts = mythTransaction.getRetriedCount() + 1;
+            final boolean deadLetter = failureClassifier.isPermanent(e)
+                    || attempts >= mythConfig.getRetryMax();
+            lock.lock();
+            try {
+                mythTransaction.setStatus(deadLetter
+                        ? MythStatusEnum.DEAD_LETTER.getCode() : MythStatusEnum.BEGIN.getCode());
+                mythTransaction.setErrorMsg(StringUtils.abbreviate(String.valueOf(e.getMessage()),
+                        ERROR_MSG_MAX_LENGTH));
+                update(mythTransaction);
+            } finally {
+                lock.unlock();
+            }
+            LOGGER.error("本地执行参与者失败,事务id：{},执行次数：{},转入死信：{}", transId, attempts, deadLetter, e);
+        } catch (Exception ex) {
+            LogUtil.error(LOGGER, "保存本地执行参与者失败记录异常：{}", ex::getMessage);
+        }
     }
 
     private Date acquireData() {
@@ -371,7 +1075,7 @@ public class CoordinatorServiceImpl implements CoordinatorService {
             final Object[] args = mythInvocation.getArgs();
             final Class[] parameterTypes = mythInvocation.getParameterTypes();
             final Object bean = SpringBeanUtils.getInstance().getBean(clazz);
-            MethodUtils.invokeMethod(bean, method, args, parameterTypes);
+            MethodHandleHelper.invoke(bean, clazz, method, parameterTypes, args);
             LogUtil.debug(LOGGER, "Myth执行本地协调事务:{}", () -> mythInvocation.getTargetClass()
                     + ":" + mythInvocation.getMethodName());
         }
@@ -379,31 +1083,154 @@ public class CoordinatorServiceImpl implements CoordinatorService {
 
     private void initCoordinatorPool() {
         synchronized (LOGGER) {
-//            基于链表的阻塞队列，同ArrayListBlockingQueue类似，其内部也维持着一个数据缓冲队列（该队列由一个链表构成），当生产者往队列中放入一个数据时，
-// 队列会从生产者手中获取数据，并缓存在队列内部，而生产者立即返回；只有当队列缓冲区达到最大值缓存容量时（LinkedBlockingQueue可以通过构造函数指定该值），
-// 才会阻塞生产者队列，直到消费者从队列中消费掉一份数据，生产者线程会被唤醒，反之对于消费者这端的处理也基于同样的原理。而LinkedBlockingQueue之所以能够高效的处理并发数据，
-// 还因为其对于生产者端和消费者端分别采用了独立的锁来控制数据同步，这也意味着在高并发的情况下生产者和消费者可以并行地操作队列中的数据，以此来提高整个队列的并发性能。
-//            作为开发者，我们需要注意的是，如果构造一个LinkedBlockingQueue对象，而没有指定其容量大小，LinkedBlockingQueue会默认一个类似无限大小的容量（Integer.MAX_VALUE），
-// 这样的话，如果生产者的速度一旦大于消费者的速度，也许还没有等到队列满阻塞产生，系统内存就有可能已被消耗殆尽了。
-//            ArrayBlockingQueue和LinkedBlockingQueue是两个最普通也是最常用的阻塞队列，一般情况下，在处理多线程间的生产者消费者问题，使用这两个类足以。
-
-//            首先初始化一个LinkedBlockingQueue阻塞队列QUEUE，该队列作用主要用于存放分布式消息内容，
-// 其次创建了一个线程池，线程池中执行的任务Worker,主要消费QUEUE队列消息进行分布式消息的持久化操作
-            QUEUE = new LinkedBlockingQueue<>(mythConfig.getCoordinatorQueueMax()); //5000
+//            预先分配槽位的环形队列按事务id分成 coordinatorLaneMax 个通道（总容量为 coordinatorQueueMax），
+// 同一事务的保存、更新、删除在同一个通道按顺序执行，空闲线程处理其他线程的通道，队列满时按 coordinatorOverflowPolicy 处理
             final int coordinatorThreadMax = mythConfig.getCoordinatorThreadMax(); //8
+            final int coordinatorLaneMax = Math.max(coordinatorThreadMax, mythConfig.getCoordinatorLaneMax());
+            EXECUTOR = new MythKeyedExecutor<>(coordinatorLaneMax,
+                    Math.max(1, mythConfig.getCoordinatorQueueMax() / coordinatorLaneMax),
+                    () -> new CoordinatorAction(null, null), this::executeSlot,
+                    MythWaitStrategy.of(WaitStrategyEnum.acquire(mythConfig.getCoordinatorWaitStrategy())));
+            overflowPolicy = OverflowPolicyEnum.acquire(mythConfig.getCoordinatorOverflowPolicy());
+            metrics.bindCoordinatorQueue(EXECUTOR::size);
             final MythTransactionThreadPool threadPool = SpringBeanUtils.getInstance().getBean(MythTransactionThreadPool.class);
-            final ExecutorService executorService = threadPool.newCustomFixedThreadPool(coordinatorThreadMax);
+            coordinatorExecutor = threadPool.newElasticThreadPool("mythCoordinator", coordinatorThreadMax);
             LogUtil.info(LOGGER, "启动协调资源操作线程数量为:{}", () -> coordinatorThreadMax);
-            for (int i = 0; i < coordinatorThreadMax; i++) {
-                //消费由于事务切面注解@Myth触发放入的QUEUE中的事务
-                executorService.execute(new Worker());
+            LogUtil.info(LOGGER, "协调资源队列通道数量为:{}", () -> coordinatorLaneMax);
+            //消费由于事务切面注解@Myth触发放入的队列中的事务
+            EXECUTOR.start(coordinatorExecutor, coordinatorThreadMax);
+            //根据队列等待时间及执行耗时调整线程数，可以通过JMX管理
+            coordinatorPool = new CoordinatorPool(EXECUTOR, coordinatorExecutor, mythConfig);
+            coordinatorPool.start(threadPool.newSingleThreadScheduledExecutor(),
+                    Math.max(1, mythConfig.getCoordinatorAdaptiveInterval()));
+        }
+    }
+
+    private void initJournal(String repositorySuffix) throws MythException {
+        final String root = StringUtils.isNoneBlank(mythConfig.getCoordinatorJournalPath())
+                ? mythConfig.getCoordinatorJournalPath() : System.getProperty("user.dir");
+        journal = new CoordinatorJournal(RepositoryPathUtils.buildJournalPath(root, repositorySuffix), serializer);
+        journal.open();
+        //队列空闲后（之前提交到队列的命令都已执行）按顺序执行文件中的命令
+        journalReplay = SpringBeanUtils.getInstance().getBean(MythTransactionThreadPool.class)
+                .newSingleThreadScheduledExecutor().scheduleWithFixedDelay(() -> {
+                    if (journal.isActive() && EXECUTOR.isIdle()) {
+                        try {
+                            final int count = journal.replay(this::executeAction);
+                            LogUtil.info(LOGGER, "执行本地文件中的协调命令数量为:{}", () -> count);
+                        } catch (Exception e) {
+                            LogUtil.error(LOGGER, "执行本地文件中的协调命令失败：{}", e::getMessage);
+                        }
+                    }
+                }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 租用 workerId，没有可以租用的时启动失败，不使用可能与其他节点重复的 workerId；
+     * 每三分之一租约时长续约一次，租约过期（如长时间停顿）后重新租用.
+     */
+    private void initWorkerId() {
+        workerIdRenewedAt = System.nanoTime();
+        workerId = coordinatorRepository.acquireWorkerId();
+        IdWorkerUtils.getInstance().setWorkerId(workerId);
+        LogUtil.info(LOGGER, "事务id生成器workerId为:{}", () -> IdWorkerUtils.getInstance().getWorkerId());
+        if (workerId < 0) {
+            return;
+        }
+        final long period = Math.max(1, TimeUnit.SECONDS.toMillis(mythConfig.getWorkerIdLease()) / 3);
+        workerIdRenewal = SpringBeanUtils.getInstance().getBean(MythTransactionThreadPool.class)
+                .newSingleThreadScheduledExecutor()
+                .scheduleWithFixedDelay(this::renewWorkerId, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renewWorkerId() {
+        final long start = System.nanoTime();
+        try {
+            if (workerIdLeased && coordinatorRepository.renewWorkerId(workerId)) {
+                workerIdRenewedAt = start;
+                return;
+            }
+            //租约已过期，可能已被其他节点租用，重新租用成功之前不再开始新的分布式事务
+            workerIdLeased = false;
+            final long expired = workerId;
+            final long acquired = coordinatorRepository.acquireWorkerId();
+            IdWorkerUtils.getInstance().setWorkerId(acquired);
+            workerId = acquired;
+            workerIdRenewedAt = start;
+            workerIdLeased = true;
+            LOGGER.error("workerId租约已过期，重新租用:{} -> {}", expired, acquired);
+        } catch (Exception e) {
+            //存储不可用时无法确认租约，超过租约时长没有续约成功就可能已被其他节点租用
+            if (workerIdLeased
+                    && start - workerIdRenewedAt >= TimeUnit.SECONDS.toNanos(mythConfig.getWorkerIdLease())) {
+                workerIdLeased = false;
             }
+            LogUtil.error(LOGGER, "workerId续约异常：{}", e::getMessage);
         }
     }
 
-    private synchronized MythMqSendService getMythMqSendService() {
+    /**
+     * 是否持有 workerId 的租约.
+     *
+     * @return true 持有，或者存储不支持租用
+     */
+    @Override
+    public boolean isWorkerIdLeased() {
+        return workerIdLeased;
+    }
+
+    private void releaseWorkerId() {
+        if (Objects.isNull(workerIdRenewal)) {
+            return;
+        }
+        workerIdRenewal.cancel(false);
+        if (!workerIdLeased) {
+            return;
+        }
+        try {
+            coordinatorRepository.releaseWorkerId(workerId);
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "释放workerId异常：{}", e::getMessage);
+        }
+    }
+
+    private void initMessageDispatcher() {
+        if (mythConfig.getParallelSend()) {
+            final int sendThreadMax = mythConfig.getSendThreadMax();
+            sendExecutorService = tracer.wrap(SpringBeanUtils.getInstance().getBean(MythTransactionThreadPool.class)
+                    .newCustomFixedThreadPool("mythSend", sendThreadMax));
+            LogUtil.info(LOGGER, "启动并行发送消息线程数量为:{}", () -> sendThreadMax);
+        }
+        messageDispatcher = new MythMessageDispatcher(messageCodec, this::getMythMqSendService,
+                sendExecutorService, metrics, tracer, mythConfig.getSendGroupStartWait());
+        if (CollectionUtils.isNotEmpty(mythConfig.getLocalDestinations())) {
+            final int localThreadMax = mythConfig.getLocalThreadMax();
+            localExecutorService = tracer.wrap(SpringBeanUtils.getInstance().getBean(MythTransactionThreadPool.class)
+                    .newCustomFixedThreadPool("mythLocal", localThreadMax));
+            LogUtil.info(LOGGER, "启动本地执行参与者线程数量为:{}", () -> localThreadMax);
+        }
+        localTransport = new MythLocalTransport(mythConfig.getLocalDestinations(), localExecutorService);
+    }
+
+    private void initMessageCodec() throws MythException {
+        if (CollectionUtils.isNotEmpty(mythConfig.getMessageSignatureClasses())) {
+            for (String className : mythConfig.getMessageSignatureClasses()) {
+                try {
+                    MythSignatureRegistry.getInstance().register(className);
+                } catch (ClassNotFoundException e) {
+                    throw new MythException("message signature class not found: " + className, e);
+                }
+            }
+        }
+        failureClassifier = new MythFailureClassifier(mythConfig.getPermanentExceptions());
+        dedupStore = new MythDedupStore(mythConfig.getDedupRetention(), mythConfig.getDedupMaxEntries());
+        messageCodec = new MythMessageCodec(serializer, mythConfig.getCompactMessage(),
+                CompressEnum.acquire(mythConfig.getMessageCompress()), mythConfig.getMessageCompressThreshold());
+    }
+
+    private MythMqSendService getMythMqSendService() {
         if (mythMqSendService == null) {
-            synchronized (CoordinatorServiceImpl.class) {//同步锁，保证多个线程只能有一个线程 来发送消息
+            synchronized (this) {//同步锁，保证多个线程只能有一个线程 来发送消息
                 if (mythMqSendService == null) {
                     mythMqSendService = SpringBeanUtils.getInstance().getBean(MythMqSendService.class);
                 }
@@ -413,40 +1240,55 @@ public class CoordinatorServiceImpl implements CoordinatorService {
     }
 
 
+    private void executeAction(CoordinatorAction coordinatorAction) {
+        final long start = System.nanoTime();
+        final long waitNanos = start - coordinatorAction.getSubmitTime();
+        metrics.recordCoordinatorWait(coordinatorAction.getAction(), waitNanos);
+        try (MythSpan ignored = tracer.start("myth.coordinator."
+                        + coordinatorAction.getAction().name().toLowerCase(),
+                coordinatorAction.getTraceParent())) {
+            final int code = coordinatorAction.getAction().getCode();
+            if (CoordinatorActionEnum.SAVE.getCode() == code) {
+                save(coordinatorAction.getMythTransaction());
+            } else if (CoordinatorActionEnum.DELETE.getCode() == code) {
+                remove(coordinatorAction.getMythTransaction().getTransId());
+            } else if (CoordinatorActionEnum.UPDATE.getCode() == code) {
+                update(coordinatorAction.getMythTransaction());
+            }
+        } finally {
+            coordinatorPool.record(waitNanos, System.nanoTime() - start);
+        }
+    }
+
+
     /**
-     * 线程执行器
+     * 执行队列中的命令，执行完后清空槽位的引用，避免事务对象一直被队列持有.
+     *
+     * @param coordinatorAction 槽位
      */
-    class Worker implements Runnable {
-
-        @Override
-        public void run() {
-            execute();
+    private void executeSlot(CoordinatorAction coordinatorAction) {
+        try {
+            executeAction(coordinatorAction);
+        } finally {
+            coordinatorAction.setMythTransaction(null);
+            coordinatorAction.setTraceParent(null);
         }
+    }
 
-        private void execute() {
-            while (true) {
-                try {
-                    //  take():取走BlockingQueue里排在首位的对象,若BlockingQueue为空,阻断进入等待状态直到
-                    //  BlockingQueue有新的数据被加入;
-                    final CoordinatorAction coordinatorAction = QUEUE.take();
-                    if (coordinatorAction != null) {
-                        final int code = coordinatorAction.getAction().getCode();
-                        if (CoordinatorActionEnum.SAVE.getCode() == code) {
-                            save(coordinatorAction.getMythTransaction());
-                        } else if (CoordinatorActionEnum.DELETE.getCode() == code) {
-                            remove(coordinatorAction.getMythTransaction().getTransId());
-                        } else if (CoordinatorActionEnum.UPDATE.getCode() == code) {
-                            update(coordinatorAction.getMythTransaction());
-                        }
-                    }
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    LogUtil.error(LOGGER, "执行协调命令失败：{}", e::getMessage);
-                }
-            }
+    /**
+     * 正在发送的发起者事务，sendDone 在事务的锁内修改.
+     */
+    private static final class InFlightTransaction {
 
+        private final MythTransaction mythTransaction;
+
+        private final long registerTime = System.nanoTime();
+
+        private volatile boolean sendDone;
+
+        private InFlightTransaction(MythTransaction mythTransaction) {
+            this.mythTransaction = mythTransaction;
         }
     }
 
-
 }
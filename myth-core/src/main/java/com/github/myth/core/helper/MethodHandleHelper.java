@@ -0,0 +1,144 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.helper;
+
+import org.apache.commons.lang3.reflect.MethodUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 本地补偿方法调用的 MethodHandle 缓存.
+ * 每个 类+方法名+参数类型 只解析一次，之后的调用为一次map查找加一次 invokeExact，
+ * 不再像 {@linkplain MethodUtils#invokeMethod(Object, String, Object[], Class[])} 那样每次反射查找方法.
+ *
+ * @author xiaoyu
+ */
+public final class MethodHandleHelper {
+
+    private static final Object[] EMPTY_ARGS = new Object[0];
+
+    private static final ConcurrentMap<InvokerKey, MethodHandle> INVOKERS = new ConcurrentHashMap<>();
+
+    private MethodHandleHelper() {
+
+    }
+
+    /**
+     * 调用bean的方法.
+     *
+     * @param bean           实例
+     * @param clazz          声明方法的类或接口
+     * @param methodName     方法名称
+     * @param parameterTypes 参数类型
+     * @param args           参数
+     * @return 方法返回值
+     * @throws Exception 方法不存在或者方法本身抛出的异常
+     */
+    public static Object invoke(Object bean, Class<?> clazz, String methodName,
+                                Class<?>[] parameterTypes, Object[] args) throws Exception {
+        final MethodHandle invoker = acquireInvoker(clazz, methodName, parameterTypes);
+        final Object[] arguments = Objects.isNull(args) ? EMPTY_ARGS : args;
+        try {
+            return (Object) invoker.invokeExact(bean, arguments);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    private static MethodHandle acquireInvoker(Class<?> clazz, String methodName,
+                                               Class<?>[] parameterTypes) throws NoSuchMethodException {
+        final InvokerKey key = new InvokerKey(clazz, methodName, parameterTypes);
+        MethodHandle invoker = INVOKERS.get(key);
+        if (Objects.isNull(invoker)) {
+            invoker = buildInvoker(clazz, methodName, parameterTypes);
+            INVOKERS.putIfAbsent(key, invoker);
+        }
+        return invoker;
+    }
+
+    private static MethodHandle buildInvoker(Class<?> clazz, String methodName,
+                                             Class<?>[] parameterTypes) throws NoSuchMethodException {
+        final Method method = MethodUtils.getMatchingAccessibleMethod(clazz, methodName, parameterTypes);
+        if (Objects.isNull(method)) {
+            throw new NoSuchMethodException("No such accessible method: " + methodName + "() on object: "
+                    + clazz.getName());
+        }
+        try {
+            MethodHandle handle;
+            if (Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+                handle = MethodHandles.publicLookup().unreflect(method);
+            } else {
+                method.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(method);
+            }
+            //可变参数方法按固定参数调用，参数数组与 MethodUtils 一样作为最后一个参数传入
+            handle = handle.asFixedArity();
+            //统一成 (Object, Object[])Object，调用时使用 invokeExact
+            return handle.asType(handle.type().generic())
+                    .asSpreader(Object[].class, method.getParameterCount());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class InvokerKey {
+
+        private final Class<?> clazz;
+
+        private final String methodName;
+
+        private final Class<?>[] parameterTypes;
+
+        private final int hash;
+
+        private InvokerKey(Class<?> clazz, String methodName, Class<?>[] parameterTypes) {
+            this.clazz = clazz;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+            this.hash = 31 * (31 * clazz.hashCode() + methodName.hashCode()) + Arrays.hashCode(parameterTypes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof InvokerKey)) {
+                return false;
+            }
+            InvokerKey that = (InvokerKey) o;
+            return clazz == that.clazz
+                    && methodName.equals(that.methodName)
+                    && Arrays.equals(parameterTypes, that.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -74,6 +74,22 @@ public class SpringBeanUtils {
         return cfgContext.getBean(type);
     }
 
+    /**
+     * 获取一个Bean信息，Spring容器中不存在时返回默认值
+     *
+     * @param type         类型
+     * @param defaultValue 默认值
+     * @param <T>          泛型
+     * @return 对象
+     */
+    public <T> T getBean(Class<T> type, T defaultValue) {
+        AssertUtils.notNull(type);
+        if (cfgContext.getBeanNamesForType(type).length == 0) {
+            return defaultValue;
+        }
+        return cfgContext.getBean(type);
+    }
+
     /**
      * 获取bean的名字
      *
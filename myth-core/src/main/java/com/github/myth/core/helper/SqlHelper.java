@@ -18,6 +18,7 @@
 package com.github.myth.core.helper;
 
 
+import com.github.myth.common.constant.CommonConstant;
 import com.github.myth.common.utils.DbTypeUtils;
 
 /**
@@ -25,6 +26,19 @@ import com.github.myth.common.utils.DbTypeUtils;
  */
 public class SqlHelper {
 
+    /**
+     * 租用 workerId 的租约表，每个 workerId 一行，所有模块共用.
+     *
+     * @return sql
+     */
+    public static String buildCreateWorkerIdTableSql() {
+        return "CREATE TABLE " + CommonConstant.WORKER_ID + " (\n"
+                + "  worker_id int NOT NULL,\n"
+                + "  owner varchar(64) NOT NULL,\n"
+                + "  expire_time numeric(19) NOT NULL,\n"
+                + "  PRIMARY KEY (worker_id)\n"
+                + ")";
+    }
 
     public static String buildCreateTableSql(String driverClassName, String tableName) {
 
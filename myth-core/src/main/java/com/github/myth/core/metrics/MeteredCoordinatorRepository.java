@@ -0,0 +1,127 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.metrics;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.spi.CoordinatorRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 记录存储操作耗时的 {@linkplain CoordinatorRepository}，按存储方式和操作分别统计.
+ *
+ * @author xiaoyu
+ */
+public class MeteredCoordinatorRepository implements CoordinatorRepository {
+
+    private final CoordinatorRepository delegate;
+
+    private final MythMetrics metrics;
+
+    public MeteredCoordinatorRepository(CoordinatorRepository delegate, MythMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int create(MythTransaction mythTransaction) {
+        return record("create", () -> delegate.create(mythTransaction));
+    }
+
+    @Override
+    public int remove(String transId) {
+        return record("remove", () -> delegate.remove(transId));
+    }
+
+    @Override
+    public int update(MythTransaction mythTransaction) throws MythRuntimeException {
+        return record("update", () -> delegate.update(mythTransaction));
+    }
+
+    @Override
+    public int updateParticipant(MythTransaction mythTransaction) throws MythRuntimeException {
+        return record("updateParticipant", () -> delegate.updateParticipant(mythTransaction));
+    }
+
+    @Override
+    public int updateStatus(String transId, Integer status) throws MythRuntimeException {
+        return record("updateStatus", () -> delegate.updateStatus(transId, status));
+    }
+
+    @Override
+    public MythTransaction findByTransId(String transId) {
+        return record("findByTransId", () -> delegate.findByTransId(transId));
+    }
+
+    @Override
+    public List<MythTransaction> listByTransIds(List<String> transIds) {
+        return record("listByTransIds", () -> delegate.listByTransIds(transIds));
+    }
+
+    @Override
+    public List<MythTransaction> listAllByDelay(Date date) {
+        return record("listAllByDelay", () -> delegate.listAllByDelay(date));
+    }
+
+    @Override
+    public void init(String modelName, MythConfig mythConfig) throws MythRuntimeException {
+        delegate.init(modelName, mythConfig);
+    }
+
+    @Override
+    public long acquireWorkerId() {
+        return delegate.acquireWorkerId();
+    }
+
+    @Override
+    public boolean renewWorkerId(long workerId) {
+        return delegate.renewWorkerId(workerId);
+    }
+
+    @Override
+    public void releaseWorkerId(long workerId) {
+        delegate.releaseWorkerId(workerId);
+    }
+
+    @Override
+    public String getScheme() {
+        return delegate.getScheme();
+    }
+
+    @Override
+    public void setSerializer(ObjectSerializer objectSerializer) {
+        delegate.setSerializer(objectSerializer);
+    }
+
+    private <T> T record(String operation, Supplier<T> supplier) {
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            final T result = supplier.get();
+            success = true;
+            return result;
+        } finally {
+            metrics.recordRepository(delegate.getScheme(), operation, System.nanoTime() - start, success);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.metrics;
+
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.serializer.ObjectSerializer;
+
+/**
+ * 记录序列化指标的 {@linkplain ObjectSerializer}.
+ *
+ * @author xiaoyu
+ */
+public class MeteredObjectSerializer implements ObjectSerializer {
+
+    private static final String SERIALIZE = "serialize";
+
+    private static final String DESERIALIZE = "deserialize";
+
+    private final ObjectSerializer delegate;
+
+    private final MythMetrics metrics;
+
+    public MeteredObjectSerializer(ObjectSerializer delegate, MythMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public byte[] serialize(Object obj) throws MythException {
+        final long start = System.nanoTime();
+        final byte[] bytes = delegate.serialize(obj);
+        metrics.recordSerializer(delegate.getScheme(), SERIALIZE, bytes.length, System.nanoTime() - start);
+        return bytes;
+    }
+
+    @Override
+    public <T> T deSerialize(byte[] param, Class<T> clazz) throws MythException {
+        final long start = System.nanoTime();
+        final T result = delegate.deSerialize(param, clazz);
+        metrics.recordSerializer(delegate.getScheme(), DESERIALIZE, param.length, System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public String getScheme() {
+        return delegate.getScheme();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.metrics;
+
+import com.github.myth.common.enums.CoordinatorActionEnum;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Myth运行指标.
+ * 默认实现 {@linkplain #NOOP} 不做任何事情，Spring容器中存在该接口的bean时使用容器中的实现，
+ * 如 myth-micrometer 提供的 MicrometerMythMetrics.
+ * 时间单位均为纳秒.
+ *
+ * @author xiaoyu
+ */
+public interface MythMetrics {
+
+    /**
+     * 不记录任何指标.
+     */
+    MythMetrics NOOP = new MythMetrics() {
+    };
+
+    /**
+     * 绑定协调资源队列，用于统计队列深度.
+     *
+     * @param depth 队列中待处理的命令数量
+     */
+    default void bindCoordinatorQueue(IntSupplier depth) {
+    }
+
+    /**
+     * 记录一次协调资源队列已满.
+     *
+     * @param action 命令类型
+     * @param policy 队列已满时的处理策略
+     */
+    default void recordCoordinatorOverflow(CoordinatorActionEnum action, String policy) {
+    }
+
+    /**
+     * 记录一次线程池拒绝任务.
+     *
+     * @param pool   线程池名称
+     * @param policy 拒绝策略
+     */
+    default void recordRejected(String pool, String policy) {
+    }
+
+    /**
+     * 记录协调命令在队列中的等待时间.
+     *
+     * @param action 命令类型
+     * @param nanos  等待时间
+     */
+    default void recordCoordinatorWait(CoordinatorActionEnum action, long nanos) {
+    }
+
+    /**
+     * 记录事务日志存储操作耗时.
+     *
+     * @param scheme    存储方式
+     * @param operation 操作
+     * @param nanos     耗时
+     * @param success   是否成功
+     */
+    default void recordRepository(String scheme, String operation, long nanos, boolean success) {
+    }
+
+    /**
+     * 记录序列化、反序列化的字节数及耗时.
+     *
+     * @param scheme    序列化方式
+     * @param operation 操作 serialize/deserialize
+     * @param bytes     字节数
+     * @param nanos     耗时
+     */
+    default void recordSerializer(String scheme, String operation, int bytes, long nanos) {
+    }
+
+    /**
+     * 记录mq发送成功的耗时.
+     *
+     * @param destination 队列
+     * @param nanos       耗时
+     */
+    default void recordSend(String destination, long nanos) {
+    }
+
+    /**
+     * 记录mq发送失败，包括同步发送异常以及broker异步确认失败.
+     *
+     * @param destination 队列
+     */
+    default void recordSendFailure(String destination) {
+    }
+
+    /**
+     * 记录一次定时恢复扫描.
+     *
+     * @param backlog 待恢复的事务日志数量
+     * @param nanos   扫描及重发耗时
+     */
+    default void recordRecoveryScan(int backlog, long nanos) {
+    }
+}
@@ -23,7 +23,6 @@ import com.github.myth.common.config.MythConfig;
 /**
  * @author xiaoyu
  */
-@FunctionalInterface
 public interface MythInitService {
 
     /**
@@ -32,4 +31,9 @@ public interface MythInitService {
      * @param mythConfig TCC配置
      */
     void initialization(MythConfig mythConfig);
+
+    /**
+     * Myth分布式事务停止方法，重复调用只执行一次
+     */
+    void destroy();
 }
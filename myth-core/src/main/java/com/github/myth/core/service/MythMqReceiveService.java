@@ -18,6 +18,8 @@
 
 package com.github.myth.core.service;
 
+import java.util.List;
+
 /**
  * <p>Description: .</p>
  *
@@ -36,4 +38,15 @@ public interface MythMqReceiveService {
      * @return true 成功 false 失败
      */
     Boolean processMessage(byte[] message);
+
+
+    /**
+     * myth框架批量处理发出的mq消息
+     * @param messages 实体对象转换成byte[]后的数据集合
+     * @return true 成功 false 失败
+     */
+    default Boolean processMessages(List<byte[]> messages) {
+        messages.forEach(this::processMessage);
+        return Boolean.TRUE;
+    }
 }
@@ -18,6 +18,10 @@
 
 package com.github.myth.core.service;
 
+import com.github.myth.common.bean.mq.MessageDelivery;
+
+import java.util.concurrent.TimeUnit;
+
 /**
  * <p>Description: .</p>
  *
@@ -40,5 +44,45 @@ public interface MythMqSendService {
     void sendMessage(String destination ,Integer pattern, byte[] message);
 
 
+    /**
+     * 发送消息，带上事务id，可以用作消息key（分区、查询）
+     * 默认忽略事务id，支持消息key的实现请覆盖此方法
+     * @param destination 队列
+     * @param pattern mq 模式
+     * @param transId 事务id
+     * @param message  MythTransaction实体对象转换成byte[]后的数据
+     */
+    default void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+        sendMessage(destination, pattern, message);
+    }
+
+
+    /**
+     * 按投递方式发送消息（首次发送、重试、延迟），重试和延迟消息不与首次发送的消息竞争
+     * 默认忽略投递方式，支持的实现请覆盖此方法
+     * @param destination 队列
+     * @param pattern mq 模式
+     * @param transId 事务id
+     * @param message  MythTransaction实体对象转换成byte[]后的数据
+     * @param delivery 投递方式
+     */
+    default void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                             MessageDelivery delivery) {
+        sendMessage(destination, pattern, transId, message);
+    }
+
+
+    /**
+     * 发送客户端缓冲区中的消息并等待broker确认，停止时调用
+     * 超时仍未确认的消息按发送失败回调协调者，参与者改回待发送，由定时任务重新发送；
+     * 默认什么也不做，异步发送的实现请覆盖此方法
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     */
+    default void flush(long timeout, TimeUnit unit) {
+    }
+
+
 
 }
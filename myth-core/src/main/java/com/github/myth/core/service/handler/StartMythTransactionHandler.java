@@ -23,6 +23,7 @@ import com.github.myth.annotation.PropagationEnum;
 import com.github.myth.common.bean.context.MythTransactionContext;
 import com.github.myth.common.bean.entity.MythTransaction;
 import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.exception.MythOverloadException;
 import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
 import com.github.myth.core.service.MythTransactionHandler;
 import com.github.myth.core.service.impl.MythTransactionManager;
@@ -77,7 +78,11 @@ public class StartMythTransactionHandler implements MythTransactionHandler {
      */
     @Override
     public Object handler(ProceedingJoinPoint point, MythTransactionContext mythTransactionContext) throws Throwable {
-
+        //协调资源队列已饱和时在开始之前拒绝，不保存事务日志，也不调用任何参与者
+        if (!mythTransactionManager.isBegin() && mythTransactionManager.isSaturated()) {
+            throw new MythOverloadException("myth协调资源队列已饱和，拒绝新的分布式事务："
+                    + point.getSignature().toShortString());
+        }
         try {
             //mythTransactionContext为null
             //主要防止并发问题，对事务日志的写造成压力，加了锁进行处理
@@ -95,10 +100,14 @@ public class StartMythTransactionHandler implements MythTransactionHandler {
            return  point.proceed();
 
         } finally {
-            //发送消息
-            mythTransactionManager.sendMessage();
-            mythTransactionManager.cleanThreadLocal();
-            TransactionContextLocal.getInstance().remove();
+            try {
+                //发送消息
+                mythTransactionManager.sendMessage();
+            } finally {
+                //发送消息失败也要清理，否则这个线程之后的调用都会被当成已经开始的事务
+                mythTransactionManager.cleanThreadLocal();
+                TransactionContextLocal.getInstance().remove();
+            }
         }
     }
 
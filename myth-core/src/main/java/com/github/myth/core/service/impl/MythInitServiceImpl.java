@@ -26,8 +26,13 @@ import com.github.myth.common.utils.LogUtil;
 import com.github.myth.common.utils.ServiceBootstrap;
 import com.github.myth.core.coordinator.CoordinatorService;
 import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.metrics.MeteredCoordinatorRepository;
+import com.github.myth.core.metrics.MeteredObjectSerializer;
+import com.github.myth.core.metrics.MythMetrics;
 import com.github.myth.core.service.MythInitService;
 import com.github.myth.core.spi.CoordinatorRepository;
+import com.github.myth.core.trace.MythTracer;
+import com.github.myth.core.trace.TracingCoordinatorRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -70,7 +75,8 @@ public class MythInitServiceImpl implements MythInitService {
      */
     @Override
     public void initialization(MythConfig mythConfig) {
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> LOGGER.error("系统关闭")));
+        //没有关闭spring容器时（kill、System.exit），由钩子线程停止
+        Runtime.getRuntime().addShutdownHook(new Thread(this::destroy, "MythShutdownHook"));
         try {
             loadSpiSupport(mythConfig);
             coordinatorService.start(mythConfig);
@@ -82,6 +88,19 @@ public class MythInitServiceImpl implements MythInitService {
         LogUtil.info(LOGGER, () -> "Myth事务初始化成功！");
     }
 
+    /**
+     * Myth分布式事务停止方法：执行完或者保存协调资源队列中的命令.
+     */
+    @Override
+    public void destroy() {
+        LOGGER.info("系统关闭");
+        try {
+            coordinatorService.stop();
+        } catch (Exception ex) {
+            LogUtil.error(LOGGER, "Myth事务停止异常:{}", ex::getMessage);
+        }
+    }
+
     /**
      * 根据配置文件初始化spi
      *
@@ -89,6 +108,13 @@ public class MythInitServiceImpl implements MythInitService {
      */
     private void loadSpiSupport(MythConfig mythConfig) {
 
+        //运行指标，用户没有提供实现时不记录
+        final MythMetrics metrics = SpringBeanUtils.getInstance().getBean(MythMetrics.class, MythMetrics.NOOP);
+        coordinatorService.setMetrics(metrics);
+        //链路追踪，用户没有提供实现时不记录
+        final MythTracer tracer = SpringBeanUtils.getInstance().getBean(MythTracer.class, MythTracer.NOOP);
+        coordinatorService.setTracer(tracer);
+
         //spi  serialize
         final SerializeEnum serializeEnum =
                 SerializeEnum.acquire(mythConfig.getSerializer());//这里的 SerializeEnum的枚举值是 kryo
@@ -101,7 +127,9 @@ public class MythInitServiceImpl implements MythInitService {
                         true)
                         .filter(objectSerializer ->
                                 Objects.equals(objectSerializer.getScheme(),
-                                        serializeEnum.getSerialize())).findFirst();// SerializeEnum的枚举值是 kryo。而Stream.findFirst()  将Stream转成Optional对象
+                                        serializeEnum.getSerialize())).findFirst()
+                        .map(objectSerializer -> metrics == MythMetrics.NOOP
+                                ? objectSerializer : new MeteredObjectSerializer(objectSerializer, metrics));// SerializeEnum的枚举值是 kryo。而Stream.findFirst()  将Stream转成Optional对象
 //                Stream.of(objectSerializers.spliterator()).filter(objectSerializer -> Objects.equals(objectSerializer.getScheme(),serializeEnum.getSerialize())).findFirst();
 //        ifPresent：
 //        如果Optional实例有值则为其调用consumer，否则不做处理
@@ -126,7 +154,11 @@ public class MythInitServiceImpl implements MythInitService {
                 StreamSupport.stream(recoverRepositories.spliterator(), false)
                         .filter(recoverRepository ->
                                 Objects.equals(recoverRepository.getScheme(),
-                                        repositorySupportEnum.getSupport())).findFirst();//得到空间名scheme 等于DB的RecoverRepository即 JdbcCoordinatorRepository
+                                        repositorySupportEnum.getSupport())).findFirst()
+                        .map(recoverRepository -> tracer == MythTracer.NOOP
+                                ? recoverRepository : new TracingCoordinatorRepository(recoverRepository, tracer))
+                        .map(recoverRepository -> metrics == MythMetrics.NOOP
+                                ? recoverRepository : new MeteredCoordinatorRepository(recoverRepository, metrics));//得到空间名scheme 等于DB的RecoverRepository即 JdbcCoordinatorRepository
 
         //将CoordinatorRepository实现注入到spring容器
         repositoryOptional.ifPresent(repository -> {
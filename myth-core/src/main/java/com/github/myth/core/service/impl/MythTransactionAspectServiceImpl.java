@@ -23,10 +23,14 @@ import com.github.myth.core.helper.SpringBeanUtils;
 import com.github.myth.core.service.MythTransactionAspectService;
 import com.github.myth.core.service.MythTransactionFactoryService;
 import com.github.myth.core.service.MythTransactionHandler;
+import com.github.myth.core.trace.MythSpan;
+import com.github.myth.core.trace.MythTracer;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Objects;
+
 /**
  * <p>Description: .</p>
  *
@@ -41,11 +45,18 @@ public class MythTransactionAspectServiceImpl implements MythTransactionAspectSe
 
     private final MythTransactionFactoryService mythTransactionFactoryService;
 
+    private MythTracer tracer = MythTracer.NOOP;
+
     @Autowired
     public MythTransactionAspectServiceImpl(MythTransactionFactoryService mythTransactionFactoryService) {
         this.mythTransactionFactoryService = mythTransactionFactoryService;
     }
 
+    @Autowired(required = false)
+    public void setTracer(MythTracer tracer) {
+        this.tracer = tracer;
+    }
+
     /**
      * myth事务切面服务
      * @param mythTransactionContext myth事务上下文对象
@@ -59,6 +70,18 @@ public class MythTransactionAspectServiceImpl implements MythTransactionAspectSe
         final Class clazz = mythTransactionFactoryService.factoryOf(mythTransactionContext);//order是发起者 即事务还没开启并且myth事务上下文是空，为 clazz = StartMythTransactionHandler.class
         final MythTransactionHandler mythTransactionHandler =
                 (MythTransactionHandler) SpringBeanUtils.getInstance().getBean(clazz);//获取StartMythTransactionHandler
-        return mythTransactionHandler.handler(point, mythTransactionContext);//Myth分布式事务处理接口
+        //rpc调用方的span随事务上下文传递过来，作为处理器span的父span
+        try (MythSpan span = tracer.start(clazz.getSimpleName(), Objects.isNull(mythTransactionContext)
+                ? null : mythTransactionContext.getTraceParent())) {
+            if (Objects.nonNull(mythTransactionContext)) {
+                span.tag(MythSpan.TRANS_ID, mythTransactionContext.getTransId());
+            }
+            try {
+                return mythTransactionHandler.handler(point, mythTransactionContext);//Myth分布式事务处理接口
+            } catch (Throwable throwable) {
+                span.error(throwable);
+                throw throwable;
+            }
+        }
     }
 }
@@ -24,11 +24,15 @@ import com.github.myth.common.bean.entity.MythTransaction;
 import com.github.myth.common.enums.CoordinatorActionEnum;
 import com.github.myth.common.enums.MythRoleEnum;
 import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.exception.MythOverloadException;
+import com.github.myth.common.exception.MythRuntimeException;
 import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.concurrent.threadlocal.MythTransactionLocal;
 import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
 import com.github.myth.core.coordinator.CoordinatorService;
 import com.github.myth.core.coordinator.command.CoordinatorAction;
 import com.github.myth.core.coordinator.command.CoordinatorCommand;
+import com.github.myth.core.trace.MythTracer;
 import org.apache.commons.lang3.StringUtils;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.reflect.MethodSignature;
@@ -39,6 +43,8 @@ import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -54,16 +60,18 @@ public class MythTransactionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(MythTransactionManager.class);
 
 
-    /**
-     * 将事务信息存放在threadLocal里面
-     */
-    private static final ThreadLocal<MythTransaction> CURRENT = new ThreadLocal<>();
-
     private final CoordinatorService coordinatorService;
 
 
     private final CoordinatorCommand coordinatorCommand;
 
+    private MythTracer tracer = MythTracer.NOOP;
+
+    /**
+     * 正在写入参与者列表的事务，值为已注册的次数
+     */
+    private final ConcurrentMap<String, Integer> participantWrites = new ConcurrentHashMap<>();
+
 
     @Autowired
     public MythTransactionManager(CoordinatorCommand coordinatorCommand,
@@ -73,12 +81,21 @@ public class MythTransactionManager {
 
     }
 
+    @Autowired(required = false)
+    public void setTracer(MythTracer tracer) {
+        this.tracer = tracer;
+    }
+
 
     public MythTransaction begin(ProceedingJoinPoint point) {
         LogUtil.debug(LOGGER, () -> "开始执行Myth分布式事务！start");
         //第一次进入@Myth切面 事务为null
         MythTransaction mythTransaction = getCurrentTransaction();
         if (Objects.isNull(mythTransaction)) {
+            if (!coordinatorService.isWorkerIdLeased()) {
+                //生成的事务id可能与其他节点重复，重新租用 workerId 之前拒绝新的分布式事务
+                throw new MythRuntimeException("workerId lease expired, rejecting new myth transaction");
+            }
 
             MethodSignature signature = (MethodSignature) point.getSignature();
             Method method = signature.getMethod();
@@ -98,7 +115,7 @@ public class MythTransactionManager {
         coordinatorCommand.execute(new CoordinatorAction(CoordinatorActionEnum.SAVE, mythTransaction));
 
         //当前事务保存到ThreadLocal
-        CURRENT.set(mythTransaction);
+        MythTransactionLocal.getInstance().set(mythTransaction);
 
     //设置tcc事务上下文，这个类会传递给远端
         MythTransactionContext context = new MythTransactionContext();
@@ -109,6 +126,9 @@ public class MythTransactionManager {
         //设置为发起者角色
         context.setRole(MythRoleEnum.START.getCode());
 
+        //rpc调用时随事务上下文传递给参与者
+        context.setTraceParent(tracer.currentTraceParent());
+
         //往ThreadLocal里设置 事务上下文 MythTransaction
         TransactionContextLocal.getInstance().set(context);
 
@@ -126,6 +146,8 @@ public class MythTransactionManager {
         //设置提供者角色
         mythTransactionContext.setRole(MythRoleEnum.PROVIDER.getCode());
 
+        mythTransactionContext.setTraceParent(tracer.currentTraceParent());
+
         TransactionContextLocal.getInstance().set(mythTransactionContext);
 
         return mythTransaction;
@@ -138,11 +160,18 @@ public class MythTransactionManager {
         if (StringUtils.isNoneBlank(transId)) {
             mythTransaction = coordinatorService.findByTransId(transId);
             if (Objects.nonNull(mythTransaction)) {
-                updateStatus(transId, MythStatusEnum.COMMIT.getCode());
+                //同一进程内执行的参与者，事务日志是发起者自己的，状态由发起者维护
+                if (mythTransaction.getRole() != MythRoleEnum.START.getCode()) {
+                    updateStatus(transId, MythStatusEnum.COMMIT.getCode());
+                }
             } else {
                 mythTransaction = buildProviderTransaction(point, transId, MythStatusEnum.COMMIT.getCode());
-                //保存当前事务信息
-                coordinatorCommand.execute(new CoordinatorAction(CoordinatorActionEnum.SAVE, mythTransaction));
+                //保存当前事务信息，本地事务已经提交，队列已满时直接同步保存，防止重复消费
+                try {
+                    coordinatorCommand.execute(new CoordinatorAction(CoordinatorActionEnum.SAVE, mythTransaction));
+                } catch (MythOverloadException e) {
+                    coordinatorService.save(mythTransaction);
+                }
 
             }
         }
@@ -161,18 +190,28 @@ public class MythTransactionManager {
     }
 
 
+    /**
+     * 协调资源队列是否已饱和，饱和时发起者在开始之前直接拒绝新的分布式事务.
+     *
+     * @return true 已饱和
+     */
+    public boolean isSaturated() {
+        return coordinatorService.isSaturated();
+    }
+
+
     public boolean isBegin() {
-        return CURRENT.get() != null;
+        return MythTransactionLocal.getInstance().get() != null;
     }
 
 
     public void cleanThreadLocal() {
-        CURRENT.remove();
+        MythTransactionLocal.getInstance().remove();
     }
 
 
     public MythTransaction getCurrentTransaction() {
-        return CURRENT.get();
+        return MythTransactionLocal.getInstance().get();
     }
 
 
@@ -180,11 +219,35 @@ public class MythTransactionManager {
         coordinatorService.updateStatus(transId, status);
     }
 
+    /**
+     * 注册参与者并持久化参与者列表.
+     * 异步并行调用参与者时会有多个线程同时注册：同一事务同时只有一个线程写入，写入期间其他线程注册的参与者
+     * 由它再写一次，其他线程不等待存储，保证最后一次持久化的是完整的参与者列表.
+     *
+     * @param participant 参与者
+     */
     public void registerParticipant(MythParticipant participant) {
         final MythTransaction transaction = this.getCurrentTransaction();
+        //参与者集合是 CopyOnWriteArrayList，注册不需要加锁，写入时序列化的是当时的快照
         transaction.registerParticipant(participant);
+        final String transId = transaction.getTransId();
+        if (participantWrites.merge(transId, 1, Integer::sum) > 1) {
+            return;
+        }
+        try {
+            Integer registered = participantWrites.get(transId);
+            while (Objects.nonNull(registered)) {
 //        更新 List<MythParticipant>  只更新这一个字段数据
-        coordinatorService.updateParticipant(transaction);
+                coordinatorService.updateParticipant(transaction);
+                final Integer written = registered;
+                //写入期间没有新注册的参与者时结束，否则再写一次
+                registered = participantWrites.computeIfPresent(transId,
+                        (key, count) -> count.equals(written) ? null : count);
+            }
+        } catch (RuntimeException e) {
+            participantWrites.remove(transId);
+            throw e;
+        }
     }
 
     private MythTransaction buildProviderTransaction(ProceedingJoinPoint point, String transId, Integer status) {
@@ -0,0 +1,167 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.mq;
+
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * 消费端已处理事务id的内存去重集合.
+ * 按时间分桶，每个桶只保存一个时间片内处理完成的事务id，过期的桶整个丢弃，不需要逐个清理.
+ * 事务id至少保留 retention 时长，重复消息在内存中直接过滤，不再读取事务日志；
+ * 未命中时（进程重启、超过保留时长、超过最大数量被提前丢弃）仍然由事务日志判断.
+ * 保存的事务id数量超过 maxEntries 时提前丢弃最早的桶，流量突增时内存不会无限增长，只是保留时长变短.
+ *
+ * @author xiaoyu
+ */
+public class MythDedupStore {
+
+    /**
+     * 保留时长内的桶数量，越多过期越精确
+     */
+    private static final int BUCKETS = 6;
+
+    private final long bucketMillis;
+
+    private final int maxEntries;
+
+    private final LongSupplier clock;
+
+    private final AtomicReferenceArray<Bucket> ring = new AtomicReferenceArray<>(BUCKETS + 1);
+
+    /**
+     * 构造.
+     *
+     * @param retentionSeconds 保留时长，单位秒，小于等于0时不去重
+     * @param maxEntries       最多保存的事务id数量，小于等于0时不限制
+     */
+    public MythDedupStore(int retentionSeconds, int maxEntries) {
+        this(retentionSeconds, maxEntries, System::currentTimeMillis);
+    }
+
+    MythDedupStore(int retentionSeconds, int maxEntries, LongSupplier clock) {
+        this.bucketMillis = retentionSeconds <= 0 ? 0 : Math.max(1, retentionSeconds * 1000L / BUCKETS);
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * 事务id是否在保留时长内处理过.
+     *
+     * @param transId 事务id
+     * @return true 重复消息
+     */
+    public boolean contains(String transId) {
+        if (bucketMillis == 0) {
+            return false;
+        }
+        final long epoch = clock.getAsLong() / bucketMillis;
+        for (int i = 0; i < ring.length(); i++) {
+            final Bucket bucket = ring.get(i);
+            if (Objects.nonNull(bucket) && epoch - bucket.epoch <= BUCKETS
+                    && bucket.transIds.contains(transId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 记录处理完成的事务id.
+     *
+     * @param transId 事务id
+     */
+    public void add(String transId) {
+        if (bucketMillis == 0) {
+            return;
+        }
+        final long epoch = clock.getAsLong() / bucketMillis;
+        final int index = (int) (epoch % ring.length());
+        Bucket bucket = ring.get(index);
+        while (Objects.isNull(bucket) || bucket.epoch < epoch) {
+            //该位置上是过期的桶，整体替换
+            final Bucket current = new Bucket(epoch);
+            if (ring.compareAndSet(index, bucket, current)) {
+                bucket = current;
+            } else {
+                bucket = ring.get(index);
+            }
+        }
+        if (bucket.transIds.add(transId)) {
+            bucket.size.incrementAndGet();
+            if (maxEntries > 0) {
+                evict();
+            }
+        }
+    }
+
+    /**
+     * 超过最大数量时从最早的桶开始丢弃，当前桶也可能被丢弃.
+     */
+    private void evict() {
+        while (size() > maxEntries) {
+            int oldest = -1;
+            Bucket oldestBucket = null;
+            for (int i = 0; i < ring.length(); i++) {
+                final Bucket bucket = ring.get(i);
+                if (Objects.nonNull(bucket) && (Objects.isNull(oldestBucket) || bucket.epoch < oldestBucket.epoch)) {
+                    oldest = i;
+                    oldestBucket = bucket;
+                }
+            }
+            if (Objects.isNull(oldestBucket)) {
+                return;
+            }
+            ring.compareAndSet(oldest, oldestBucket, null);
+        }
+    }
+
+    /**
+     * 所有桶（包括已过期还没有被替换的）保存的事务id数量.
+     *
+     * @return 事务id数量
+     */
+    int size() {
+        int size = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            final Bucket bucket = ring.get(i);
+            if (Objects.nonNull(bucket)) {
+                size += bucket.size.get();
+            }
+        }
+        return size;
+    }
+
+    private static final class Bucket {
+
+        private final long epoch;
+
+        private final Set<String> transIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.exception.MythException;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 消费端本地执行失败的分类.
+ * 永久失败（方法、类、bean不存在，参数类型不匹配等）重试也不会成功，直接转入死信；
+ * 其余视为暂时失败（数据库、网络超时等），由mq重新投递，超过最大重试次数后转入死信.
+ *
+ * @author xiaoyu
+ */
+public class MythFailureClassifier {
+
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MythFailureClassifier.class);
+
+    private static final List<Class<?>> DEFAULT_PERMANENT = Arrays.asList(
+            ClassNotFoundException.class,
+            NoSuchMethodException.class,
+            NoSuchBeanDefinitionException.class,
+            ClassCastException.class,
+            IllegalArgumentException.class,
+            UnsupportedOperationException.class,
+            MythException.class);
+
+    private final List<Class<?>> permanentExceptions;
+
+    /**
+     * 构造.
+     *
+     * @param permanentExceptions 额外的永久失败异常类名
+     */
+    public MythFailureClassifier(List<String> permanentExceptions) {
+        this.permanentExceptions = new ArrayList<>(DEFAULT_PERMANENT);
+        if (CollectionUtils.isNotEmpty(permanentExceptions)) {
+            for (String className : permanentExceptions) {
+                try {
+                    this.permanentExceptions.add(ClassUtils.getClass(className));
+                } catch (ClassNotFoundException e) {
+                    LOGGER.warn("permanent exception class not found：{}", className);
+                }
+            }
+        }
+    }
+
+    /**
+     * 是否永久失败，检查整个异常链.
+     *
+     * @param throwable 异常
+     * @return true 永久失败
+     */
+    public boolean isPermanent(Throwable throwable) {
+        Throwable cause = throwable;
+        while (Objects.nonNull(cause)) {
+            for (Class<?> permanent : permanentExceptions) {
+                if (permanent.isInstance(cause)) {
+                    return true;
+                }
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+}
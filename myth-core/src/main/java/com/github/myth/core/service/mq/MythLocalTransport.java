@@ -0,0 +1,132 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import org.apache.commons.collections.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 本进程内的参与者消息投递.
+ * 发起者与参与者部署在同一个进程时，发往本地队列的参与者不再序列化、经过mq再消费回来，
+ * 而是直接交给线程池执行，执行成功前与未发送的参与者一样为待发送，事务日志不会提交；
+ * 执行失败与mq发送失败一样记录到本地事务日志，由定时任务重新投递.
+ * 没有配置为本地的队列仍然经过mq发送.
+ *
+ * @author xiaoyu
+ */
+public class MythLocalTransport {
+
+    private final Set<String> destinations;
+
+    private final ExecutorService executorService;
+
+    /**
+     * 构造.
+     *
+     * @param destinations    本进程内的队列
+     * @param executorService 执行线程池
+     */
+    public MythLocalTransport(Collection<String> destinations,
+                              ExecutorService executorService) {
+        this.destinations = CollectionUtils.isEmpty(destinations)
+                ? Collections.emptySet() : new HashSet<>(destinations);
+        this.executorService = executorService;
+    }
+
+    /**
+     * 队列是否部署在本进程内.
+     *
+     * @param destination 队列
+     * @return true 本地队列
+     */
+    public boolean isLocal(String destination) {
+        return destinations.contains(destination);
+    }
+
+    /**
+     * 取出待发送的本地参与者，状态不变，执行成功后再由调用方标记为已发送.
+     *
+     * @param mythParticipants 参与者集合
+     * @return 本地参与者，没有时为空集合
+     */
+    public List<MythParticipant> claim(List<MythParticipant> mythParticipants) {
+        if (destinations.isEmpty() || CollectionUtils.isEmpty(mythParticipants)) {
+            return Collections.emptyList();
+        }
+        List<MythParticipant> claimed = Collections.emptyList();
+        for (MythParticipant mythParticipant : mythParticipants) {
+            if (mythParticipant.getStatus() != MythDeliveryStatusEnum.PENDING.getCode()
+                    || !isLocalParticipant(mythParticipant)) {
+                continue;
+            }
+            if (claimed.isEmpty()) {
+                claimed = new ArrayList<>();
+            }
+            claimed.add(mythParticipant);
+        }
+        return claimed;
+    }
+
+    /**
+     * 去掉本地参与者，剩下的经过mq发送.
+     *
+     * @param mythParticipants 参与者集合
+     * @return 经过mq发送的参与者
+     */
+    public List<MythParticipant> exclude(List<MythParticipant> mythParticipants) {
+        if (destinations.isEmpty() || CollectionUtils.isEmpty(mythParticipants)) {
+            return mythParticipants;
+        }
+        return mythParticipants.stream()
+                .filter(mythParticipant -> !isLocalParticipant(mythParticipant))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isLocalParticipant(MythParticipant mythParticipant) {
+        return Objects.nonNull(mythParticipant.getMythInvocation()) && isLocal(mythParticipant.getDestination());
+    }
+
+    /**
+     * 在线程池中执行本地参与者，线程池已满时由调用线程执行.
+     *
+     * @param mythParticipants 本地参与者
+     * @param handler          参与者执行
+     */
+    public void deliver(List<MythParticipant> mythParticipants, Consumer<MythParticipant> handler) {
+        for (MythParticipant mythParticipant : mythParticipants) {
+            try {
+                executorService.execute(() -> handler.accept(mythParticipant));
+            } catch (RejectedExecutionException e) {
+                handler.accept(mythParticipant);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.bean.mq.MessageHeader;
+import com.github.myth.common.enums.CompressEnum;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.exception.MythSignatureNotFoundException;
+import com.github.myth.common.serializer.ObjectSerializer;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * <p>Description: mq消息编解码.</p>
+ * 紧凑格式：magic(2) + version(1) + flags(1) + transId + [traceparent] + 签名（id 或 类名、方法名、参数类型名） + 参数长度 + 参数，
+ * 参数使用配置的序列化方式，超过阈值时可以lz4压缩；
+ * 带 traceparent 的消息版本为 {@linkplain #TRACE_VERSION}，不带时仍为 {@linkplain #VERSION}，未开启链路追踪时旧的消费端也能解码；
+ * 未开启紧凑格式时与原来一样直接序列化 {@linkplain MessageEntity}，解码时两种格式都支持.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythMessageCodec {
+
+    /**
+     * 当前紧凑格式版本
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * 消息头带 traceparent 的紧凑格式版本
+     */
+    public static final int TRACE_VERSION = 2;
+
+    private static final byte MAGIC_HIGH = (byte) 0x9E;
+
+    private static final byte MAGIC_LOW = (byte) 0x4D;
+
+    private static final int FLAG_LZ4 = 1;
+
+    private static final int FLAG_SIGNATURE_ID = 1 << 1;
+
+    private static final int FLAG_TRACE = 1 << 2;
+
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * 解压后参数的最大长度，消息中的长度超过时按格式错误处理，避免损坏的消息申请过大的内存
+     */
+    private static final int MAX_ARGS_LENGTH = 64 * 1024 * 1024;
+
+    private final ObjectSerializer serializer;
+
+    private final boolean compact;
+
+    private final CompressEnum compress;
+
+    private final int compressThreshold;
+
+    private final MythSignatureRegistry signatureRegistry = MythSignatureRegistry.getInstance();
+
+    /**
+     * 旧格式编码.
+     *
+     * @param serializer 序列化方式
+     */
+    public MythMessageCodec(ObjectSerializer serializer) {
+        this(serializer, false, CompressEnum.NONE, Integer.MAX_VALUE);
+    }
+
+    public MythMessageCodec(ObjectSerializer serializer, boolean compact,
+                            CompressEnum compress, int compressThreshold) {
+        this.serializer = serializer;
+        this.compact = compact;
+        this.compress = compress;
+        this.compressThreshold = compressThreshold;
+    }
+
+    /**
+     * 编码消息.
+     *
+     * @param messageEntity 消息
+     * @return byte[]
+     * @throws MythException 序列化异常
+     */
+    public byte[] encode(MessageEntity messageEntity) throws MythException {
+        if (!compact) {
+            return serializer.serialize(messageEntity);
+        }
+        final MythInvocation invocation = messageEntity.getMythInvocation();
+        //参数放在去掉签名的 MythInvocation 中序列化，兼容所有序列化方式
+        final byte[] args = serializer.serialize(new MythInvocation(null, null, null, invocation.getArgs()));
+        byte[] payload = args;
+        int flags = 0;
+        if (compress == CompressEnum.LZ4 && args.length >= compressThreshold) {
+            payload = LZ4Factory.fastestInstance().fastCompressor().compress(args);
+            flags |= FLAG_LZ4;
+        }
+        final Class<?>[] parameterTypes = Objects.isNull(invocation.getParameterTypes())
+                ? new Class<?>[0] : invocation.getParameterTypes();
+        final Long signatureId = signatureRegistry.idOf(invocation.getTargetClass(),
+                invocation.getMethodName(), parameterTypes);
+        if (Objects.nonNull(signatureId)) {
+            flags |= FLAG_SIGNATURE_ID;
+        }
+        final String traceParent = messageEntity.getTraceParent();
+        if (Objects.nonNull(traceParent)) {
+            flags |= FLAG_TRACE;
+        }
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(payload.length + 128);
+             DataOutputStream out = new DataOutputStream(outputStream)) {
+            out.writeByte(MAGIC_HIGH);
+            out.writeByte(MAGIC_LOW);
+            out.writeByte(Objects.isNull(traceParent) ? VERSION : TRACE_VERSION);
+            out.writeByte(flags);
+            out.writeUTF(messageEntity.getTransId());
+            if (Objects.nonNull(traceParent)) {
+                out.writeUTF(traceParent);
+            }
+            if (Objects.nonNull(signatureId)) {
+                out.writeLong(signatureId);
+            } else {
+                out.writeUTF(invocation.getTargetClass().getName());
+                out.writeUTF(invocation.getMethodName());
+                out.writeShort(parameterTypes.length);
+                for (Class<?> parameterType : parameterTypes) {
+                    out.writeUTF(parameterType.getName());
+                }
+            }
+            out.writeInt(args.length);
+            out.writeInt(payload.length);
+            out.write(payload);
+            out.flush();
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new MythException("encode message error " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 只解码消息头，不反序列化参数.
+     *
+     * @param message 消息
+     * @return 消息头
+     * @throws MythException 格式错误
+     */
+    public MessageHeader decodeHeader(byte[] message) throws MythException {
+        if (!isCompact(message)) {
+            final MessageEntity entity = serializer.deSerialize(message, MessageEntity.class);
+            final MythInvocation invocation = entity.getMythInvocation();
+            return new MessageHeader(0, entity.getTransId(),
+                    Objects.isNull(invocation) ? null : invocation.getTargetClass().getName(),
+                    Objects.isNull(invocation) ? null : invocation.getMethodName(), null);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            final int version = readVersion(in);
+            final int flags = in.readUnsignedByte();
+            final String transId = in.readUTF();
+            final String traceParent = (flags & FLAG_TRACE) != 0 ? in.readUTF() : null;
+            if ((flags & FLAG_SIGNATURE_ID) != 0) {
+                final MythSignatureRegistry.Signature signature = signatureRegistry.lookup(in.readLong());
+                return new MessageHeader(version, transId,
+                        Objects.isNull(signature) ? null : signature.getTargetClass().getName(),
+                        Objects.isNull(signature) ? null : signature.getMethodName(), traceParent);
+            }
+            return new MessageHeader(version, transId, in.readUTF(), in.readUTF(), traceParent);
+        } catch (IOException e) {
+            throw new MythException("decode message header error " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 解码消息.
+     *
+     * @param message 消息
+     * @return 消息实体
+     * @throws MythException 格式错误
+     * @throws MythSignatureNotFoundException 签名id未注册
+     */
+    public MessageEntity decode(byte[] message) throws MythException {
+        if (!isCompact(message)) {
+            return serializer.deSerialize(message, MessageEntity.class);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(message))) {
+            readVersion(in);
+            final int flags = in.readUnsignedByte();
+            final String transId = in.readUTF();
+            final String traceParent = (flags & FLAG_TRACE) != 0 ? in.readUTF() : null;
+            Class<?> targetClass;
+            String methodName;
+            Class<?>[] parameterTypes;
+            if ((flags & FLAG_SIGNATURE_ID) != 0) {
+                final long signatureId = in.readLong();
+                final MythSignatureRegistry.Signature signature = signatureRegistry.lookup(signatureId);
+                if (Objects.isNull(signature)) {
+                    throw new MythSignatureNotFoundException("message signature not registered: " + signatureId);
+                }
+                targetClass = signature.getTargetClass();
+                methodName = signature.getMethodName();
+                parameterTypes = signature.getParameterTypes();
+            } else {
+                targetClass = signatureRegistry.resolveClass(in.readUTF());
+                methodName = in.readUTF();
+                parameterTypes = new Class<?>[in.readUnsignedShort()];
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    parameterTypes[i] = signatureRegistry.resolveClass(in.readUTF());
+                }
+            }
+            final int argsLength = in.readInt();
+            final int payloadLength = in.readInt();
+            final boolean lz4 = (flags & FLAG_LZ4) != 0;
+            //两个长度都来自消息，分配内存前先与剩余的消息长度和上限比较
+            if (payloadLength < 0 || payloadLength > in.available()
+                    || argsLength < 0 || argsLength > MAX_ARGS_LENGTH
+                    || (!lz4 && argsLength != payloadLength)) {
+                throw new MythException("invalid message length, args: " + argsLength
+                        + ", payload: " + payloadLength + ", message: " + message.length);
+            }
+            byte[] payload = new byte[payloadLength];
+            in.readFully(payload);
+            if (lz4) {
+                //fastDecompressor 按解压后的长度读取，长度不对时会越界读取，使用按压缩数据长度检查的 safeDecompressor
+                final byte[] args = new byte[argsLength];
+                final int decompressed = LZ4Factory.fastestInstance().safeDecompressor()
+                        .decompress(payload, 0, payload.length, args, 0);
+                if (decompressed != argsLength) {
+                    throw new MythException("invalid compressed args length, expected: " + argsLength
+                            + ", actual: " + decompressed);
+                }
+                payload = args;
+            }
+            final MythInvocation args = serializer.deSerialize(payload, MythInvocation.class);
+            final MessageEntity entity = new MessageEntity(transId, new MythInvocation(targetClass, methodName,
+                    parameterTypes, Objects.isNull(args) ? null : args.getArgs()));
+            entity.setTraceParent(traceParent);
+            return entity;
+        } catch (IOException | ClassNotFoundException | LZ4Exception e) {
+            throw new MythException("decode message error " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isCompact(byte[] message) {
+        return message.length > HEADER_LENGTH && message[0] == MAGIC_HIGH && message[1] == MAGIC_LOW;
+    }
+
+    private static int readVersion(DataInputStream in) throws IOException, MythException {
+        in.skipBytes(2);
+        final int version = in.readUnsignedByte();
+        if (version < VERSION || version > TRACE_VERSION) {
+            throw new MythException("unsupported message version: " + version);
+        }
+        return version;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.metrics.MythMetrics;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.trace.MythSpan;
+import com.github.myth.core.trace.MythTracer;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 参与者消息分发.
+ * 1 未配置线程池时按顺序逐个发送
+ * 2 配置线程池时按 destination 分组，每组在线程池中并行序列化、发送，组内保持注册顺序
+ * 无论哪种方式，单个参与者发送失败都不会影响其他参与者，返回发送失败的参与者由调用方处理.
+ * 线程池的拒绝策略可能直接丢弃任务（Discarded、DiscardedOldest），分组在 groupStartWaitMillis（MythConfig.sendGroupStartWait）内
+ * 没有开始发送时由调用线程认领并发送，已开始的分组由线程池发送完成，发起者不会一直等待被丢弃的任务.
+ * 等待时间需要大于高峰时线程池的排队时间，否则分组都会被调用线程认领，退化为顺序发送.
+ * 只发送投递状态为 {@linkplain MythDeliveryStatusEnum#PENDING} 的参与者，发送成功后标记为 {@linkplain MythDeliveryStatusEnum#SENT}.
+ *
+ * @author xiaoyu
+ */
+public class MythMessageDispatcher {
+
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MythMessageDispatcher.class);
+
+    /**
+     * 默认等待分组在线程池中开始发送的时间.
+     */
+    static final long DEFAULT_GROUP_START_WAIT_MILLIS = 200;
+
+    private final MythMessageCodec messageCodec;
+
+    private final Supplier<MythMqSendService> mythMqSendServiceSupplier;
+
+    private final ExecutorService executorService;
+
+    private final MythMetrics metrics;
+
+    private final MythTracer tracer;
+
+    private final long groupStartWaitMillis;
+
+    /**
+     * 构造.
+     *
+     * @param serializer                序列化方式
+     * @param mythMqSendServiceSupplier mq发送服务
+     * @param executorService           并行发送线程池，为null时顺序发送
+     */
+    public MythMessageDispatcher(ObjectSerializer serializer,
+                                 Supplier<MythMqSendService> mythMqSendServiceSupplier,
+                                 ExecutorService executorService) {
+        this(new MythMessageCodec(serializer), mythMqSendServiceSupplier, executorService);
+    }
+
+    /**
+     * 构造.
+     *
+     * @param messageCodec              消息编码
+     * @param mythMqSendServiceSupplier mq发送服务
+     * @param executorService           并行发送线程池，为null时顺序发送
+     */
+    public MythMessageDispatcher(MythMessageCodec messageCodec,
+                                 Supplier<MythMqSendService> mythMqSendServiceSupplier,
+                                 ExecutorService executorService) {
+        this(messageCodec, mythMqSendServiceSupplier, executorService, MythMetrics.NOOP);
+    }
+
+    /**
+     * 构造.
+     *
+     * @param messageCodec              消息编码
+     * @param mythMqSendServiceSupplier mq发送服务
+     * @param executorService           并行发送线程池，为null时顺序发送
+     * @param metrics                   运行指标，记录每个 destination 的发送耗时及失败次数
+     */
+    public MythMessageDispatcher(MythMessageCodec messageCodec,
+                                 Supplier<MythMqSendService> mythMqSendServiceSupplier,
+                                 ExecutorService executorService,
+                                 MythMetrics metrics) {
+        this(messageCodec, mythMqSendServiceSupplier, executorService, metrics, MythTracer.NOOP);
+    }
+
+    /**
+     * 构造.
+     *
+     * @param messageCodec              消息编码
+     * @param mythMqSendServiceSupplier mq发送服务
+     * @param executorService           并行发送线程池，为null时顺序发送
+     * @param metrics                   运行指标，记录每个 destination 的发送耗时及失败次数
+     * @param tracer                    链路追踪，每个参与者的发送记录一个span，traceparent 随消息头发送
+     */
+    public MythMessageDispatcher(MythMessageCodec messageCodec,
+                                 Supplier<MythMqSendService> mythMqSendServiceSupplier,
+                                 ExecutorService executorService,
+                                 MythMetrics metrics,
+                                 MythTracer tracer) {
+        this(messageCodec, mythMqSendServiceSupplier, executorService, metrics, tracer,
+                DEFAULT_GROUP_START_WAIT_MILLIS);
+    }
+
+    /**
+     * 构造.
+     *
+     * @param messageCodec              消息编码
+     * @param mythMqSendServiceSupplier mq发送服务
+     * @param executorService           并行发送线程池，为null时顺序发送
+     * @param metrics                   运行指标，记录每个 destination 的发送耗时及失败次数
+     * @param tracer                    链路追踪，每个参与者的发送记录一个span，traceparent 随消息头发送
+     * @param groupStartWaitMillis      等待分组在线程池中开始发送的时间，超时后由调用线程发送
+     */
+    public MythMessageDispatcher(MythMessageCodec messageCodec,
+                                 Supplier<MythMqSendService> mythMqSendServiceSupplier,
+                                 ExecutorService executorService,
+                                 MythMetrics metrics,
+                                 MythTracer tracer,
+                                 long groupStartWaitMillis) {
+        this.messageCodec = messageCodec;
+        this.mythMqSendServiceSupplier = mythMqSendServiceSupplier;
+        this.executorService = executorService;
+        this.metrics = metrics;
+        this.tracer = tracer;
+        this.groupStartWaitMillis = groupStartWaitMillis;
+    }
+
+    /**
+     * 发送参与者消息.
+     *
+     * @param mythParticipants 参与者集合
+     * @return 发送失败的参与者，全部成功时为空集合
+     */
+    public List<MythParticipant> dispatch(List<MythParticipant> mythParticipants) {
+        return dispatch(mythParticipants, MessageDelivery.fresh());
+    }
+
+    /**
+     * 按投递方式发送参与者消息.
+     *
+     * @param mythParticipants 参与者集合
+     * @param delivery         投递方式
+     * @return 发送失败的参与者，全部成功时为空集合
+     */
+    public List<MythParticipant> dispatch(List<MythParticipant> mythParticipants, MessageDelivery delivery) {
+        if (CollectionUtils.isEmpty(mythParticipants)) {
+            return Collections.emptyList();
+        }
+        final List<MythParticipant> pending = mythParticipants.stream()
+                .filter(p -> p.getStatus() == MythDeliveryStatusEnum.PENDING.getCode())
+                .collect(Collectors.toList());
+        if (Objects.isNull(executorService) || pending.size() <= 1) {
+            return sendGroup(pending, delivery);
+        }
+        final Map<String, List<MythParticipant>> groups = pending.stream()
+                .collect(Collectors.groupingBy(MythParticipant::getDestination,
+                        LinkedHashMap::new, Collectors.toList()));
+        if (groups.size() == 1) {
+            return sendGroup(pending, delivery);
+        }
+        final List<GroupTask> tasks = new ArrayList<>(groups.size());
+        for (List<MythParticipant> group : groups.values()) {
+            tasks.add(submitGroup(group, delivery));
+        }
+        return tasks.stream()
+                .map(this::awaitGroup)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    private GroupTask submitGroup(List<MythParticipant> group, MessageDelivery delivery) {
+        final GroupTask task = new GroupTask(group, delivery);
+        try {
+            executorService.execute(task);
+        } catch (RejectedExecutionException e) {
+            //线程池已满，由调用线程发送
+            task.run();
+        }
+        return task;
+    }
+
+    private List<MythParticipant> awaitGroup(GroupTask task) {
+        try {
+            return task.future.get(groupStartWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (task.claimed.compareAndSet(false, true)) {
+                //还在排队或已被拒绝策略丢弃，由调用线程发送，之后线程池再执行到时直接跳过
+                LOGGER.warn("Myth参与者消息分组等待超时，由调用线程发送,destination：{}",
+                        task.group.get(0).getDestination());
+                return sendGroup(task.group, task.delivery);
+            }
+            //已经在发送，等待发送结束，发送本身受mq客户端超时限制
+            return task.future.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return unsent(task.group);
+        } catch (ExecutionException e) {
+            LOGGER.error("发送Myth参与者消息分组异常", e.getCause());
+            return unsent(task.group);
+        }
+    }
+
+    private static List<MythParticipant> unsent(List<MythParticipant> group) {
+        return group.stream()
+                .filter(p -> p.getStatus() == MythDeliveryStatusEnum.PENDING.getCode())
+                .collect(Collectors.toList());
+    }
+
+    private List<MythParticipant> sendGroup(List<MythParticipant> group, MessageDelivery delivery) {
+        List<MythParticipant> failures = Collections.emptyList();
+        for (MythParticipant mythParticipant : group) {
+            if (!send(mythParticipant, delivery)) {
+                if (failures.isEmpty()) {
+                    failures = new ArrayList<>();
+                }
+                failures.add(mythParticipant);
+            }
+        }
+        return failures;
+    }
+
+    private boolean send(MythParticipant mythParticipant, MessageDelivery delivery) {
+        MessageEntity messageEntity =
+                new MessageEntity(mythParticipant.getTransId(),
+                        mythParticipant.getMythInvocation());
+        final long start = System.nanoTime();
+        try (MythSpan span = tracer.start("myth.send", null)
+                .tag(MythSpan.TRANS_ID, mythParticipant.getTransId())
+                .tag(MythSpan.DESTINATION, mythParticipant.getDestination())) {
+            messageEntity.setTraceParent(tracer.currentTraceParent());
+            //先标记为已发送，mq在发送返回之前回调发送失败时改回的待发送不会被覆盖
+            final long sentTime = mythParticipant.getSentTime();
+            mythParticipant.setSentTime(System.currentTimeMillis());
+            mythParticipant.setStatus(MythDeliveryStatusEnum.SENT.getCode());
+            try {
+                final byte[] message = messageCodec.encode(messageEntity);
+                mythMqSendServiceSupplier.get().sendMessage(mythParticipant.getDestination(),
+                        mythParticipant.getPattern(),
+                        mythParticipant.getTransId(),
+                        message,
+                        delivery);
+            } catch (Exception e) {
+                mythParticipant.setSentTime(sentTime);
+                mythParticipant.setStatus(MythDeliveryStatusEnum.PENDING.getCode());
+                span.error(e);
+                metrics.recordSendFailure(mythParticipant.getDestination());
+                LOGGER.error("发送Myth参与者消息失败,事务id：{}, destination：{}",
+                        mythParticipant.getTransId(), mythParticipant.getDestination(), e);
+                return false;
+            }
+            metrics.recordSend(mythParticipant.getDestination(), System.nanoTime() - start);
+            return true;
+        }
+    }
+
+    /**
+     * 一组参与者的发送任务，线程池与调用线程只有一方能认领.
+     */
+    private final class GroupTask implements Runnable {
+
+        private final List<MythParticipant> group;
+
+        private final MessageDelivery delivery;
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private final CompletableFuture<List<MythParticipant>> future = new CompletableFuture<>();
+
+        private GroupTask(List<MythParticipant> group, MessageDelivery delivery) {
+            this.group = group;
+            this.delivery = delivery;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                future.complete(sendGroup(group, delivery));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -24,6 +24,8 @@ import com.github.myth.core.service.MythMqReceiveService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 /**
  * <p>Description: .</p>
  *
@@ -52,4 +54,14 @@ public class MythMqReceiveServiceImpl implements MythMqReceiveService {
     public Boolean processMessage(byte[] message) {
         return coordinatorService.processMessage(message);
     }
+
+    /**
+     * myth框架批量处理发出的mq消息
+     * @param messages 实体对象转换成byte[]后的数据集合
+     * @return true 成功 false 失败
+     */
+    @Override
+    public Boolean processMessages(List<byte[]> messages) {
+        return coordinatorService.processMessages(messages);
+    }
 }
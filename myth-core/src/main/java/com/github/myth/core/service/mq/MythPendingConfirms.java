@@ -0,0 +1,110 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.mq;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * 异步发送等待broker确认的消息.
+ * 发送前登记，回调时完成，只有完成登记的一方回调协调者，超时后回调的结果被忽略；
+ * 停止时等待未确认的消息，超时后按发送失败回调协调者，参与者改回待发送，由定时任务重新发送.
+ *
+ * @author xiaoyu
+ */
+public class MythPendingConfirms {
+
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final ConcurrentMap<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * 发送前登记.
+     *
+     * @param transId     事务id
+     * @param destination 队列
+     * @return 登记号，完成时使用
+     */
+    public long register(String transId, String destination) {
+        final long id = sequence.incrementAndGet();
+        pending.put(id, new Pending(transId, destination));
+        return id;
+    }
+
+    /**
+     * broker确认或者发送失败时完成登记.
+     *
+     * @param id 登记号
+     * @return false 已经完成（如停止时超时已按发送失败回调），不需要再回调协调者
+     */
+    public boolean complete(long id) {
+        return Objects.nonNull(pending.remove(id));
+    }
+
+    /**
+     * 未确认的消息数量.
+     *
+     * @return 数量
+     */
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * 等待未确认的消息，超时后完成剩余的登记并按发送失败回调.
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @param nack    发送失败回调，参数为事务id和队列
+     * @return 超时未确认的消息数量
+     */
+    public int await(long timeout, TimeUnit unit, BiConsumer<String, String> nack) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!pending.isEmpty() && deadline - System.nanoTime() > 0) {
+            LockSupport.parkNanos(Math.min(PARK_NANOS, deadline - System.nanoTime()));
+        }
+        int count = 0;
+        for (Long id : pending.keySet()) {
+            final Pending expired = pending.remove(id);
+            if (Objects.nonNull(expired)) {
+                nack.accept(expired.transId, expired.destination);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class Pending {
+
+        private final String transId;
+
+        private final String destination;
+
+        private Pending(String transId, String destination) {
+            this.transId = transId;
+            this.destination = destination;
+        }
+    }
+}
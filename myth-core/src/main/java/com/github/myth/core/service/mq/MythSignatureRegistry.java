@@ -0,0 +1,202 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 消息方法签名字典.
+ * 签名id为 类名#方法名(参数类型) 的64位FNV-1a哈希，各个节点注册相同的类即可得到相同的id，不需要额外协调；
+ * 只有注册过的签名才在紧凑消息中以id传递，其余签名携带完整类名，消费端解析的类会被缓存.
+ *
+ * @author xiaoyu
+ */
+public final class MythSignatureRegistry {
+
+    private static final MythSignatureRegistry INSTANCE = new MythSignatureRegistry();
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final ConcurrentMap<Signature, Long> ids = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, Signature> signatures = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    private MythSignatureRegistry() {
+
+    }
+
+    public static MythSignatureRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册类的所有public方法.
+     *
+     * @param clazz 类或接口
+     */
+    public void register(Class<?> clazz) {
+        for (Method method : clazz.getMethods()) {
+            if (method.getDeclaringClass() != Object.class && !Modifier.isStatic(method.getModifiers())) {
+                register(new Signature(clazz, method.getName(), method.getParameterTypes()));
+            }
+        }
+    }
+
+    /**
+     * 按类名注册.
+     *
+     * @param className 类名
+     * @throws ClassNotFoundException 类不存在
+     */
+    public void register(String className) throws ClassNotFoundException {
+        register(resolveClass(className));
+    }
+
+    /**
+     * 获取已注册签名的id.
+     *
+     * @param clazz          类
+     * @param methodName     方法名
+     * @param parameterTypes 参数类型
+     * @return 签名id，未注册返回null
+     */
+    public Long idOf(Class<?> clazz, String methodName, Class<?>[] parameterTypes) {
+        return ids.get(new Signature(clazz, methodName, parameterTypes));
+    }
+
+    /**
+     * 根据id获取签名.
+     *
+     * @param id 签名id
+     * @return 签名，未注册返回null
+     */
+    public Signature lookup(long id) {
+        return signatures.get(id);
+    }
+
+    /**
+     * 解析类名，结果缓存.
+     *
+     * @param className 类名，支持基本类型和数组
+     * @return Class
+     * @throws ClassNotFoundException 类不存在
+     */
+    public Class<?> resolveClass(String className) throws ClassNotFoundException {
+        Class<?> clazz = classes.get(className);
+        if (Objects.isNull(clazz)) {
+            clazz = ClassUtils.getClass(className);
+            classes.putIfAbsent(className, clazz);
+        }
+        return clazz;
+    }
+
+    private void register(Signature signature) {
+        final Signature exist = signatures.putIfAbsent(signature.getId(), signature);
+        //哈希冲突的签名不注册，继续携带完整类名传递
+        if (Objects.isNull(exist) || exist.equals(signature)) {
+            ids.putIfAbsent(signature, signature.getId());
+        }
+    }
+
+    private static long hash(String descriptor) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : descriptor.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 方法签名.
+     */
+    public static final class Signature {
+
+        private final Class<?> targetClass;
+
+        private final String methodName;
+
+        private final Class<?>[] parameterTypes;
+
+        private final int hash;
+
+        private Signature(Class<?> targetClass, String methodName, Class<?>[] parameterTypes) {
+            this.targetClass = targetClass;
+            this.methodName = methodName;
+            this.parameterTypes = Objects.isNull(parameterTypes) ? new Class<?>[0] : parameterTypes;
+            this.hash = 31 * (31 * targetClass.hashCode() + methodName.hashCode())
+                    + Arrays.hashCode(this.parameterTypes);
+        }
+
+        public Class<?> getTargetClass() {
+            return targetClass;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public Class<?>[] getParameterTypes() {
+            return parameterTypes;
+        }
+
+        private long getId() {
+            StringBuilder descriptor = new StringBuilder(targetClass.getName())
+                    .append('#').append(methodName).append('(');
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (i > 0) {
+                    descriptor.append(',');
+                }
+                descriptor.append(parameterTypes[i].getName());
+            }
+            return hash(descriptor.append(')').toString());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Signature)) {
+                return false;
+            }
+            Signature that = (Signature) o;
+            return targetClass == that.targetClass
+                    && methodName.equals(that.methodName)
+                    && Arrays.equals(parameterTypes, that.parameterTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -25,6 +25,8 @@ import com.github.myth.common.serializer.ObjectSerializer;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 
 /**
@@ -50,7 +52,7 @@ public interface CoordinatorRepository {
 
 
     /**
-     * 更新数据
+     * 更新数据，重试次数、状态、错误信息按传入的值保存
      *
      * @param tccTransaction 事务对象
      * @return rows 1 成功 0 失败 失败需要抛异常
@@ -88,6 +90,20 @@ public interface CoordinatorRepository {
     MythTransaction findByTransId(String transId);
 
 
+    /**
+     * 根据事务id集合批量获取对象，默认逐个查询，支持批量查询的存储请覆盖此方法
+     *
+     * @param transIds 事务id集合
+     * @return List<MythTransaction> 不存在的事务不会返回
+     */
+    default List<MythTransaction> listByTransIds(List<String> transIds) {
+        return transIds.stream()
+                .map(this::findByTransId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+
     /**
      * 获取延迟多长时间后的事务信息,只要为了防止并发的时候，刚新增的数据被执行
      *
@@ -106,6 +122,35 @@ public interface CoordinatorRepository {
      */
     void init(String modelName, MythConfig mythConfig) throws MythRuntimeException;
 
+    /**
+     * 租用一个 workerId 用于生成事务id，使用同一个存储的节点之间不重复，init之后调用.
+     * 超过租约时长（workerIdLease）没有续约的 workerId 可以被其他节点租用；不支持的存储返回 -1，生成器使用随机的 workerId
+     *
+     * @return workerId，范围 0 到 IdWorkerUtils.MAX_WORKER_ID
+     * @throws MythRuntimeException 没有可以租用的 workerId
+     */
+    default long acquireWorkerId() {
+        return -1L;
+    }
+
+    /**
+     * 续约租用的 workerId.
+     *
+     * @param workerId 租用的 workerId
+     * @return false 租约已经过期，可能已被其他节点租用，需要重新租用
+     */
+    default boolean renewWorkerId(long workerId) {
+        return true;
+    }
+
+    /**
+     * 释放租用的 workerId，停止时调用.
+     *
+     * @param workerId 租用的 workerId
+     */
+    default void releaseWorkerId(long workerId) {
+    }
+
     /**
      * 设置scheme
      *
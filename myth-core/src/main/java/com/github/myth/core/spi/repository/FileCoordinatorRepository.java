@@ -100,7 +100,6 @@ public class FileCoordinatorRepository implements CoordinatorRepository {
     public int update(MythTransaction transaction) throws MythRuntimeException {
         transaction.setLastTime(new Date());
         transaction.setVersion(transaction.getVersion() + 1);
-        transaction.setRetriedCount(transaction.getRetriedCount() + 1);
         try {
             writeFile(transaction);
         } catch (Exception e) {
@@ -121,6 +120,10 @@ public class FileCoordinatorRepository implements CoordinatorRepository {
             final String fullFileName =
                     RepositoryPathUtils.getFullFileName(filePath, mythTransaction.getTransId());
             final File file = new File(fullFileName);
+            if (!file.exists()) {
+                //事务日志异步保存，还没有写入时与 db 方式一样更新0条
+                return CommonConstant.ERROR;
+            }
             final CoordinatorRepositoryAdapter adapter = readAdapter(file);
             if (Objects.nonNull(adapter)) {
                 adapter.setContents(serializer.serialize(mythTransaction.getMythParticipants()));
@@ -145,7 +148,9 @@ public class FileCoordinatorRepository implements CoordinatorRepository {
         try {
             final String fullFileName = RepositoryPathUtils.getFullFileName(filePath, id);
             final File file = new File(fullFileName);
-
+            if (!file.exists()) {
+                return CommonConstant.ERROR;
+            }
             final CoordinatorRepositoryAdapter adapter = readAdapter(file);
             if (Objects.nonNull(adapter)) {
                 adapter.setStatus(status);
@@ -169,6 +174,10 @@ public class FileCoordinatorRepository implements CoordinatorRepository {
     public MythTransaction findByTransId(String transId) {
         String fullFileName = RepositoryPathUtils.getFullFileName(filePath, transId);
         File file = new File(fullFileName);
+        if (!file.exists()) {
+            //消费端第一次收到消息时没有事务日志
+            return null;
+        }
         try {
             return readTransaction(file);
         } catch (Exception e) {
@@ -197,7 +206,7 @@ public class FileCoordinatorRepository implements CoordinatorRepository {
     private List<MythTransaction> listAll() {
         List<MythTransaction> transactionRecoverList = Lists.newArrayList();
         File path = new File(filePath);
-        File[] files = path.listFiles();
+        File[] files = path.listFiles(file -> !FileUtils.isTempFile(file));
         if (files != null && files.length > 0) {
             for (File file : files) {
                 try {
@@ -298,6 +307,6 @@ public class FileCoordinatorRepository implements CoordinatorRepository {
                 }
             }
         }
-        return false;
+        return true;
     }
 }
@@ -22,10 +22,12 @@ import com.github.myth.common.bean.entity.MythParticipant;
 import com.github.myth.common.bean.entity.MythTransaction;
 import com.github.myth.common.config.MythConfig;
 import com.github.myth.common.config.MythDbConfig;
+import com.github.myth.common.constant.CommonConstant;
 import com.github.myth.common.enums.RepositorySupportEnum;
 import com.github.myth.common.exception.MythException;
 import com.github.myth.common.exception.MythRuntimeException;
 import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.IdWorkerUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
 import com.github.myth.core.helper.SqlHelper;
 import com.github.myth.core.spi.CoordinatorRepository;
@@ -41,10 +43,14 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -63,6 +69,15 @@ public class JdbcCoordinatorRepository implements CoordinatorRepository {
 
     private ObjectSerializer serializer;
 
+    private boolean versionCheck = true;
+
+    /**
+     * 租用 workerId 时写入的值，续约及释放时只处理自己租用的
+     */
+    private final String workerIdOwner = UUID.randomUUID().toString();
+
+    private long workerIdLeaseMillis;
+
     @Override
     public void setSerializer(ObjectSerializer serializer) {
         this.serializer = serializer;
@@ -117,17 +132,27 @@ public class JdbcCoordinatorRepository implements CoordinatorRepository {
         mythTransaction.setVersion(mythTransaction.getVersion() + 1);
 
         String sql = "update " + tableName +
-                " set last_time = ?,version =?,retried_count =?,invocation=?,status=?  where trans_id = ? and version=? ";
+                " set last_time = ?,version =?,retried_count =?,invocation=?,status=?,error_msg=?  where trans_id = ? ";
 
         try {
             final byte[] serialize = serializer.serialize(mythTransaction.getMythParticipants());
-
-            return executeUpdate(sql,
+            if (!versionCheck) {
+                return executeUpdate(sql,
+                        mythTransaction.getLastTime(),
+                        mythTransaction.getVersion(),
+                        mythTransaction.getRetriedCount(),
+                        serialize,
+                        mythTransaction.getStatus(),
+                        mythTransaction.getErrorMsg(),
+                        mythTransaction.getTransId());
+            }
+            return executeUpdate(sql + "and version=? ",
                     mythTransaction.getLastTime(),
                     mythTransaction.getVersion(),
                     mythTransaction.getRetriedCount(),
                     serialize,
                     mythTransaction.getStatus(),
+                    mythTransaction.getErrorMsg(),
                     mythTransaction.getTransId(),
                     currentVersion);
 
@@ -198,6 +223,27 @@ public class JdbcCoordinatorRepository implements CoordinatorRepository {
         return null;
     }
 
+    /**
+     * 根据事务id集合批量获取对象
+     *
+     * @param transIds 事务id集合
+     * @return List<MythTransaction>
+     */
+    @Override
+    public List<MythTransaction> listByTransIds(List<String> transIds) {
+        if (CollectionUtils.isEmpty(transIds)) {
+            return new ArrayList<>();
+        }
+        String selectSql = "select * from " + tableName + " where trans_id in ("
+                + transIds.stream().map(id -> "?").collect(Collectors.joining(",")) + ")";
+        List<Map<String, Object>> list = executeQuery(selectSql, transIds.toArray());
+        if (CollectionUtils.isNotEmpty(list)) {
+            return list.stream().filter(Objects::nonNull)
+                    .map(this::buildByResultMap).collect(Collectors.toList());
+        }
+        return new ArrayList<>();
+    }
+
     /**
      * 获取延迟多长时间后的事务信息,只要为了防止并发的时候，刚新增的数据被执行
      *
@@ -240,6 +286,93 @@ public class JdbcCoordinatorRepository implements CoordinatorRepository {
         return mythTransaction;
     }
 
+    /**
+     * 每个 workerId 一行租约，跳过租约未过期的，过期的直接抢占，没有租约时插入，主键冲突说明被其他节点抢先租用
+     *
+     * @return workerId
+     */
+    @Override
+    public long acquireWorkerId() {
+        final String table = CommonConstant.WORKER_ID;
+        final long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection()) {
+            final Set<Long> leased = new HashSet<>();
+            try (PreparedStatement query = connection.prepareStatement(
+                    "select worker_id from " + table + " where expire_time > ?")) {
+                query.setLong(1, now);
+                try (ResultSet rs = query.executeQuery()) {
+                    while (rs.next()) {
+                        leased.add(rs.getLong(1));
+                    }
+                }
+            }
+            for (long workerId = 0; workerId <= IdWorkerUtils.MAX_WORKER_ID; workerId++) {
+                if (!leased.contains(workerId) && leaseWorkerId(connection, workerId, now)) {
+                    return workerId;
+                }
+            }
+        } catch (SQLException e) {
+            throw new MythRuntimeException(e);
+        }
+        throw new MythRuntimeException("no workerId available in " + table);
+    }
+
+    private boolean leaseWorkerId(Connection connection, long workerId, long now) throws SQLException {
+        final String table = CommonConstant.WORKER_ID;
+        try (PreparedStatement update = connection.prepareStatement("update " + table
+                + " set owner = ?, expire_time = ? where worker_id = ? and expire_time <= ?")) {
+            update.setString(1, workerIdOwner);
+            update.setLong(2, now + workerIdLeaseMillis);
+            update.setLong(3, workerId);
+            update.setLong(4, now);
+            if (update.executeUpdate() > 0) {
+                return true;
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement("insert into " + table
+                + " (worker_id, owner, expire_time) values (?, ?, ?)")) {
+            insert.setLong(1, workerId);
+            insert.setString(2, workerIdOwner);
+            insert.setLong(3, now + workerIdLeaseMillis);
+            insert.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            //23 开头为违反约束，被其他节点抢先租用
+            if (Objects.nonNull(e.getSQLState()) && e.getSQLState().startsWith("23")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean renewWorkerId(long workerId) {
+        return updateWorkerId("update " + CommonConstant.WORKER_ID
+                        + " set expire_time = ? where worker_id = ? and owner = ?",
+                System.currentTimeMillis() + workerIdLeaseMillis, workerId, workerIdOwner) > 0;
+    }
+
+    @Override
+    public void releaseWorkerId(long workerId) {
+        updateWorkerId("delete from " + CommonConstant.WORKER_ID + " where worker_id = ? and owner = ?",
+                workerId, workerIdOwner);
+    }
+
+    /**
+     * 与 executeUpdate 不同，异常时抛出，不会被当作租约已过期.
+     */
+    private int updateWorkerId(String sql, Object... params) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new MythRuntimeException(e);
+        }
+    }
+
     /**
      * 初始化操作
      *
@@ -250,6 +383,8 @@ public class JdbcCoordinatorRepository implements CoordinatorRepository {
     public void init(String modelName, MythConfig mythConfig) {
         dataSource = new DruidDataSource();
         final MythDbConfig tccDbConfig = mythConfig.getMythDbConfig();
+        versionCheck = !Boolean.FALSE.equals(tccDbConfig.getVersionCheck());
+        workerIdLeaseMillis = TimeUnit.SECONDS.toMillis(mythConfig.getWorkerIdLease());
         dataSource.setUrl(tccDbConfig.getUrl());
         dataSource.setDriverClassName(tccDbConfig.getDriverClassName());
         dataSource.setUsername(tccDbConfig.getUsername());
@@ -267,6 +402,7 @@ public class JdbcCoordinatorRepository implements CoordinatorRepository {
         this.tableName = RepositoryPathUtils.buildDbTableName(modelName);//例如：传过来的modelName是配置中的 order-service，加上前缀 myth_ 并替换"-"为"_"，即 myth_order_service
 
         executeUpdate(SqlHelper.buildCreateTableSql(tccDbConfig.getDriverClassName(), tableName));
+        executeUpdate(SqlHelper.buildCreateWorkerIdTableSql());
     }
 
 
@@ -28,16 +28,19 @@ import com.github.myth.common.enums.RepositorySupportEnum;
 import com.github.myth.common.exception.MythException;
 import com.github.myth.common.exception.MythRuntimeException;
 import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.IdWorkerUtils;
 import com.github.myth.common.utils.LogUtil;
 import com.github.myth.common.utils.RepositoryPathUtils;
 import com.github.myth.core.spi.CoordinatorRepository;
 import com.google.common.base.Splitter;
+import com.mongodb.DBObject;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import com.mongodb.WriteResult;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.MongoClientFactoryBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -48,7 +51,10 @@ import java.net.InetSocketAddress;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -61,12 +67,23 @@ public class MongoCoordinatorRepository implements CoordinatorRepository {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(MongoCoordinatorRepository.class);
 
+    private static final String WORKER_ID_OWNER = "owner";
+
+    private static final String WORKER_ID_EXPIRE_TIME = "expireTime";
+
     private ObjectSerializer objectSerializer;
 
     private MongoTemplate template;
 
     private String collectionName;
 
+    /**
+     * 租用 workerId 时写入的值，续约及释放时只处理自己租用的
+     */
+    private final String workerIdOwner = UUID.randomUUID().toString();
+
+    private long workerIdLeaseMillis;
+
 
     /**
      * 创建本地事务对象
@@ -123,8 +140,10 @@ public class MongoCoordinatorRepository implements CoordinatorRepository {
         query.addCriteria(new Criteria("transId").is(mythTransaction.getTransId()));
         Update update = new Update();
         update.set("lastTime", new Date());
-        update.set("retriedCount", mythTransaction.getRetriedCount() + 1);
+        update.set("retriedCount", mythTransaction.getRetriedCount());
         update.set("version", mythTransaction.getVersion() + 1);
+        update.set("status", mythTransaction.getStatus());
+        update.set("errorMsg", mythTransaction.getErrorMsg());
 
         try {
             if (CollectionUtils.isNotEmpty(mythTransaction.getMythParticipants())) {
@@ -199,6 +218,24 @@ public class MongoCoordinatorRepository implements CoordinatorRepository {
 
     }
 
+    /**
+     * 根据事务id集合批量获取对象
+     *
+     * @param transIds 事务id集合
+     * @return List<MythTransaction>
+     */
+    @Override
+    public List<MythTransaction> listByTransIds(List<String> transIds) {
+        Query query = new Query();
+        query.addCriteria(new Criteria("transId").in(transIds));
+        final List<MongoAdapter> mongoBeans =
+                template.find(query, MongoAdapter.class, collectionName);
+        if (CollectionUtils.isNotEmpty(mongoBeans)) {
+            return mongoBeans.stream().map(this::buildByCache).collect(Collectors.toList());
+        }
+        return new ArrayList<>();
+    }
+
     /**
      * 获取延迟多长时间后的事务信息,只要为了防止并发的时候，刚新增的数据被执行
      *
@@ -219,6 +256,49 @@ public class MongoCoordinatorRepository implements CoordinatorRepository {
     }
 
 
+    /**
+     * 每个 workerId 一个文档，跳过租约未过期的，过期的直接抢占，没有文档时插入，_id 冲突说明被其他节点抢先租用
+     *
+     * @return workerId
+     */
+    @Override
+    public long acquireWorkerId() {
+        final long now = System.currentTimeMillis();
+        final Set<Long> leased = template.find(new Query(Criteria.where(WORKER_ID_EXPIRE_TIME).gt(now)),
+                DBObject.class, CommonConstant.WORKER_ID).stream()
+                .map(lease -> ((Number) lease.get("_id")).longValue())
+                .collect(Collectors.toSet());
+        for (long workerId = 0; workerId <= IdWorkerUtils.MAX_WORKER_ID; workerId++) {
+            if (leased.contains(workerId)) {
+                continue;
+            }
+            final Query query = new Query(Criteria.where("_id").is(workerId).and(WORKER_ID_EXPIRE_TIME).lte(now));
+            final Update update = new Update().set(WORKER_ID_OWNER, workerIdOwner)
+                    .set(WORKER_ID_EXPIRE_TIME, now + workerIdLeaseMillis);
+            try {
+                template.upsert(query, update, CommonConstant.WORKER_ID);
+                return workerId;
+            } catch (DuplicateKeyException ignore) {
+                //被其他节点抢先租用
+            }
+        }
+        throw new MythRuntimeException("no workerId available in " + CommonConstant.WORKER_ID);
+    }
+
+    @Override
+    public boolean renewWorkerId(long workerId) {
+        final Query query = new Query(Criteria.where("_id").is(workerId).and(WORKER_ID_OWNER).is(workerIdOwner));
+        final Update update = new Update().set(WORKER_ID_EXPIRE_TIME,
+                System.currentTimeMillis() + workerIdLeaseMillis);
+        return template.updateFirst(query, update, CommonConstant.WORKER_ID).getN() > 0;
+    }
+
+    @Override
+    public void releaseWorkerId(long workerId) {
+        template.remove(new Query(Criteria.where("_id").is(workerId).and(WORKER_ID_OWNER).is(workerIdOwner)),
+                CommonConstant.WORKER_ID);
+    }
+
     /**
      * 初始化操作
      *
@@ -228,6 +308,7 @@ public class MongoCoordinatorRepository implements CoordinatorRepository {
     @Override
     public void init(String modelName, MythConfig mythConfig) {
         collectionName = RepositoryPathUtils.buildMongoTableName(modelName);
+        workerIdLeaseMillis = TimeUnit.SECONDS.toMillis(mythConfig.getWorkerIdLease());
         final MythMongoConfig tccMongoConfig = mythConfig.getMythMongoConfig();
         MongoClientFactoryBean clientFactoryBean = buildMongoClientFactoryBean(tccMongoConfig);
         try {
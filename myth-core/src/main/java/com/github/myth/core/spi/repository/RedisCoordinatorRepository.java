@@ -30,6 +30,7 @@ import com.github.myth.common.jedis.JedisClient;
 import com.github.myth.common.jedis.JedisClientCluster;
 import com.github.myth.common.jedis.JedisClientSingle;
 import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.IdWorkerUtils;
 import com.github.myth.common.utils.LogUtil;
 import com.github.myth.common.utils.RepositoryConvertUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
@@ -44,9 +45,14 @@ import redis.clients.jedis.JedisCluster;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +65,15 @@ public class RedisCoordinatorRepository implements CoordinatorRepository {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisCoordinatorRepository.class);
 
+    /**
+     * 值为自己时延长过期时间，已被其他节点租用或者已过期删除时返回0
+     */
+    private static final String RENEW_WORKER_ID_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+
+    private static final String RELEASE_WORKER_ID_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
 
     private ObjectSerializer objectSerializer;
 
@@ -67,6 +82,13 @@ public class RedisCoordinatorRepository implements CoordinatorRepository {
 
     private String keyPrefix;
 
+    /**
+     * 租用 workerId 时写入的值，续约及释放时只处理自己租用的
+     */
+    private final String workerIdOwner = UUID.randomUUID().toString();
+
+    private long workerIdLeaseMillis;
+
     /**
      * 创建本地事务对象
      *
@@ -117,7 +139,6 @@ public class RedisCoordinatorRepository implements CoordinatorRepository {
                     RepositoryPathUtils.buildRedisKey(keyPrefix, mythTransaction.getTransId());
             mythTransaction.setVersion(mythTransaction.getVersion() + 1);
             mythTransaction.setLastTime(new Date());
-            mythTransaction.setRetriedCount(mythTransaction.getRetriedCount() + 1);
             jedisClient.set(redisKey,
                     RepositoryConvertUtils.convert(mythTransaction, objectSerializer));
             return CommonConstant.SUCCESS;
@@ -222,6 +243,41 @@ public class RedisCoordinatorRepository implements CoordinatorRepository {
     }
 
 
+    /**
+     * 从0开始依次 SET NX PX，设置成功即租用成功，租约到期后key自动删除
+     *
+     * @return workerId
+     */
+    @Override
+    public long acquireWorkerId() {
+        for (long workerId = 0; workerId <= IdWorkerUtils.MAX_WORKER_ID; workerId++) {
+            if (Objects.nonNull(jedisClient.set(buildWorkerIdKey(workerId), workerIdOwner,
+                    "NX", "PX", workerIdLeaseMillis))) {
+                return workerId;
+            }
+        }
+        throw new MythRuntimeException("no workerId available under " + CommonConstant.WORKER_ID);
+    }
+
+    @Override
+    public boolean renewWorkerId(long workerId) {
+        final Object renewed = jedisClient.eval(RENEW_WORKER_ID_SCRIPT,
+                Collections.singletonList(buildWorkerIdKey(workerId)),
+                Arrays.asList(workerIdOwner, String.valueOf(workerIdLeaseMillis)));
+        return Long.valueOf(1L).equals(renewed);
+    }
+
+    @Override
+    public void releaseWorkerId(long workerId) {
+        jedisClient.eval(RELEASE_WORKER_ID_SCRIPT,
+                Collections.singletonList(buildWorkerIdKey(workerId)),
+                Collections.singletonList(workerIdOwner));
+    }
+
+    private static String buildWorkerIdKey(long workerId) {
+        return CommonConstant.WORKER_ID + ":" + workerId;
+    }
+
     /**
      * 初始化操作
      *
@@ -231,6 +287,7 @@ public class RedisCoordinatorRepository implements CoordinatorRepository {
     @Override
     public void init(String modelName, MythConfig mythConfig) {
         keyPrefix = RepositoryPathUtils.buildRedisKeyPrefix(modelName);
+        workerIdLeaseMillis = TimeUnit.SECONDS.toMillis(mythConfig.getWorkerIdLease());
         final MythRedisConfig mythRedisConfig = mythConfig.getMythRedisConfig();
         try {
             buildJedisPool(mythRedisConfig);
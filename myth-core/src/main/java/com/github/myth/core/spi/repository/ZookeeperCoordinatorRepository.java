@@ -27,6 +27,7 @@ import com.github.myth.common.enums.RepositorySupportEnum;
 import com.github.myth.common.exception.MythException;
 import com.github.myth.common.exception.MythRuntimeException;
 import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.common.utils.IdWorkerUtils;
 import com.github.myth.common.utils.LogUtil;
 import com.github.myth.common.utils.RepositoryConvertUtils;
 import com.github.myth.common.utils.RepositoryPathUtils;
@@ -45,6 +46,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.Collectors;
 
@@ -240,6 +242,76 @@ public class ZookeeperCoordinatorRepository implements CoordinatorRepository {
     }
 
 
+    /**
+     * 以 workerId 为名创建临时节点，创建成功即租用成功，会话结束时释放
+     *
+     * @return workerId
+     */
+    @Override
+    public long acquireWorkerId() {
+        final String path = "/" + CommonConstant.WORKER_ID;
+        try {
+            if (zooKeeper.exists(path, false) == null) {
+                try {
+                    zooKeeper.create(path, new byte[0], ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.PERSISTENT);
+                } catch (KeeperException.NodeExistsException ignore) {
+                    //其他节点已经创建
+                }
+            }
+            final List<String> leased = zooKeeper.getChildren(path, false);
+            for (long workerId = 0; workerId <= IdWorkerUtils.MAX_WORKER_ID; workerId++) {
+                if (leased.contains(String.valueOf(workerId))) {
+                    continue;
+                }
+                try {
+                    zooKeeper.create(path + "/" + workerId, new byte[0],
+                            ZooDefs.Ids.OPEN_ACL_UNSAFE, CreateMode.EPHEMERAL);
+                    return workerId;
+                } catch (KeeperException.NodeExistsException ignore) {
+                    //被其他节点抢先租用
+                }
+            }
+        } catch (KeeperException | InterruptedException e) {
+            throw new MythRuntimeException(e);
+        }
+        throw new MythRuntimeException("no workerId available under " + path);
+    }
+
+    /**
+     * 临时节点由会话心跳续约，会话过期后节点被删除，可能已被其他节点重新创建，需要重新租用
+     *
+     * @param workerId 租用的 workerId
+     * @return false 节点不存在或者不属于当前会话
+     */
+    @Override
+    public boolean renewWorkerId(long workerId) {
+        return Objects.nonNull(ownWorkerId(workerId));
+    }
+
+    @Override
+    public void releaseWorkerId(long workerId) {
+        final Stat stat = ownWorkerId(workerId);
+        if (Objects.isNull(stat)) {
+            return;
+        }
+        try {
+            zooKeeper.delete("/" + CommonConstant.WORKER_ID + "/" + workerId, stat.getVersion());
+        } catch (KeeperException.NoNodeException ignore) {
+            //会话过期时已被删除
+        } catch (KeeperException | InterruptedException e) {
+            throw new MythRuntimeException(e);
+        }
+    }
+
+    private Stat ownWorkerId(long workerId) {
+        try {
+            final Stat stat = zooKeeper.exists("/" + CommonConstant.WORKER_ID + "/" + workerId, false);
+            return Objects.nonNull(stat) && stat.getEphemeralOwner() == zooKeeper.getSessionId() ? stat : null;
+        } catch (KeeperException | InterruptedException e) {
+            throw new MythRuntimeException(e);
+        }
+    }
+
     /**
      * 初始化操作
      *
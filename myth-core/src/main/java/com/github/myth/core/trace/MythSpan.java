@@ -0,0 +1,73 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.trace;
+
+/**
+ * span，使用 try-with-resources 在开启的线程中关闭.
+ *
+ * @author xiaoyu
+ */
+public interface MythSpan extends AutoCloseable {
+
+    /**
+     * 事务id
+     */
+    String TRANS_ID = "myth.trans_id";
+
+    /**
+     * mq队列
+     */
+    String DESTINATION = "myth.destination";
+
+    /**
+     * 事务日志存储方式
+     */
+    String SCHEME = "myth.scheme";
+
+    /**
+     * 不记录任何数据.
+     */
+    MythSpan NOOP = new MythSpan() {
+    };
+
+    /**
+     * 设置属性.
+     *
+     * @param key   属性名
+     * @param value 属性值
+     * @return this
+     */
+    default MythSpan tag(String key, Object value) {
+        return this;
+    }
+
+    /**
+     * 记录异常.
+     *
+     * @param throwable 异常
+     */
+    default void error(Throwable throwable) {
+    }
+
+    /**
+     * 结束span.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.trace;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Myth链路追踪.
+ * 默认实现 {@linkplain #NOOP} 不做任何事情，Spring容器中存在该接口的bean时使用容器中的实现，
+ * 如 myth-opentelemetry 提供的 OpenTelemetryMythTracer.
+ * 跨进程传递使用 W3C traceparent 字符串：rpc 随 MythTransactionContext 传递，mq 放在紧凑格式的消息头中.
+ *
+ * @author xiaoyu
+ */
+public interface MythTracer {
+
+    /**
+     * 不记录任何span.
+     */
+    MythTracer NOOP = new MythTracer() {
+    };
+
+    /**
+     * 开启span并设置为当前线程的span，关闭时恢复.
+     *
+     * @param name        名称
+     * @param traceParent 远端的父span，为空时使用当前线程的span作为父span
+     * @return span
+     */
+    default MythSpan start(String name, String traceParent) {
+        return MythSpan.NOOP;
+    }
+
+    /**
+     * 当前线程的span.
+     *
+     * @return W3C traceparent，没有时返回null
+     */
+    default String currentTraceParent() {
+        return null;
+    }
+
+    /**
+     * 包装线程池，提交的任务在提交线程的span下执行.
+     *
+     * @param executorService 线程池
+     * @return 包装后的线程池
+     */
+    default ExecutorService wrap(ExecutorService executorService) {
+        return executorService;
+    }
+}
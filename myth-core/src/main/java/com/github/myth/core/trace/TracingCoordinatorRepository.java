@@ -0,0 +1,131 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.trace;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.spi.CoordinatorRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 每次存储操作记录一个span的 {@linkplain CoordinatorRepository}.
+ *
+ * @author xiaoyu
+ */
+public class TracingCoordinatorRepository implements CoordinatorRepository {
+
+    private final CoordinatorRepository delegate;
+
+    private final MythTracer tracer;
+
+    public TracingCoordinatorRepository(CoordinatorRepository delegate, MythTracer tracer) {
+        this.delegate = delegate;
+        this.tracer = tracer;
+    }
+
+    @Override
+    public int create(MythTransaction mythTransaction) {
+        return trace("create", mythTransaction.getTransId(), () -> delegate.create(mythTransaction));
+    }
+
+    @Override
+    public int remove(String transId) {
+        return trace("remove", transId, () -> delegate.remove(transId));
+    }
+
+    @Override
+    public int update(MythTransaction mythTransaction) throws MythRuntimeException {
+        return trace("update", mythTransaction.getTransId(), () -> delegate.update(mythTransaction));
+    }
+
+    @Override
+    public int updateParticipant(MythTransaction mythTransaction) throws MythRuntimeException {
+        return trace("updateParticipant", mythTransaction.getTransId(),
+                () -> delegate.updateParticipant(mythTransaction));
+    }
+
+    @Override
+    public int updateStatus(String transId, Integer status) throws MythRuntimeException {
+        return trace("updateStatus", transId, () -> delegate.updateStatus(transId, status));
+    }
+
+    @Override
+    public MythTransaction findByTransId(String transId) {
+        return trace("findByTransId", transId, () -> delegate.findByTransId(transId));
+    }
+
+    @Override
+    public List<MythTransaction> listByTransIds(List<String> transIds) {
+        return trace("listByTransIds", null, () -> delegate.listByTransIds(transIds));
+    }
+
+    @Override
+    public List<MythTransaction> listAllByDelay(Date date) {
+        return trace("listAllByDelay", null, () -> delegate.listAllByDelay(date));
+    }
+
+    @Override
+    public void init(String modelName, MythConfig mythConfig) throws MythRuntimeException {
+        delegate.init(modelName, mythConfig);
+    }
+
+    @Override
+    public long acquireWorkerId() {
+        return delegate.acquireWorkerId();
+    }
+
+    @Override
+    public boolean renewWorkerId(long workerId) {
+        return delegate.renewWorkerId(workerId);
+    }
+
+    @Override
+    public void releaseWorkerId(long workerId) {
+        delegate.releaseWorkerId(workerId);
+    }
+
+    @Override
+    public String getScheme() {
+        return delegate.getScheme();
+    }
+
+    @Override
+    public void setSerializer(ObjectSerializer objectSerializer) {
+        delegate.setSerializer(objectSerializer);
+    }
+
+    private <T> T trace(String operation, String transId, Supplier<T> supplier) {
+        try (MythSpan span = tracer.start("myth.repository." + operation, null)) {
+            span.tag(MythSpan.SCHEME, delegate.getScheme());
+            if (transId != null) {
+                span.tag(MythSpan.TRANS_ID, transId);
+            }
+            try {
+                return supplier.get();
+            } catch (RuntimeException e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+}
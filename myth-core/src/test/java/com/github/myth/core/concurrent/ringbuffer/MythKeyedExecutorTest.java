@@ -0,0 +1,135 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.concurrent.ringbuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythKeyedExecutorTest {
+
+    private static final int KEYS = 32;
+
+    @Test
+    public void executesEachKeyInOrderOnOneThreadAtATime() throws InterruptedException {
+        final int producers = 4;
+        final int count = 20_000;
+        final AtomicLongArray next = new AtomicLongArray(KEYS);
+        final AtomicInteger[] running = new AtomicInteger[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            running[i] = new AtomicInteger();
+        }
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final MythKeyedExecutor<long[]> executor = new MythKeyedExecutor<>(16, 64, () -> new long[2], slot -> {
+            final int key = (int) slot[0];
+            if (running[key].incrementAndGet() != 1) {
+                failure.compareAndSet(null, "key " + key + " executed concurrently");
+            }
+            if (next.get(key) != slot[1]) {
+                failure.compareAndSet(null, "key " + key + " expected " + next.get(key) + " but " + slot[1]);
+            }
+            next.set(key, slot[1] + 1);
+            running[key].decrementAndGet();
+            done.incrementAndGet();
+        }, new BlockingWaitStrategy());
+        final ExecutorService workers = Executors.newFixedThreadPool(3);
+        executor.start(workers, 3);
+
+        //每个生产者负责一部分key，同一个key只有一个生产者，写入顺序即期望的执行顺序
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                final long[] sequences = new long[KEYS];
+                for (int i = 0; i < count; i++) {
+                    final int key = producer + (i % (KEYS / producers)) * producers;
+                    final long[] value = {key, sequences[key]++};
+                    while (!executor.tryPublish(key, (slot, v) -> {
+                        slot[0] = v[0];
+                        slot[1] = v[1];
+                    }, value)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (done.get() < producers * count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        workers.shutdownNow();
+
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(producers * count, done.get());
+        Assert.assertEquals(0, executor.size());
+        for (int key = 0; key < KEYS; key++) {
+            Assert.assertEquals(count / (KEYS / producers), next.get(key));
+        }
+    }
+
+    @Test
+    public void keepsProcessingWhileResized() throws InterruptedException {
+        final AtomicInteger done = new AtomicInteger();
+        final MythKeyedExecutor<long[]> executor = new MythKeyedExecutor<>(8, 16, () -> new long[1],
+                slot -> done.incrementAndGet(), new BlockingWaitStrategy());
+        final ExecutorService workers = Executors.newCachedThreadPool();
+        executor.start(workers, 4);
+        int published = 0;
+        for (int size : new int[]{1, 6, 2, 4}) {
+            executor.resize(size);
+            Assert.assertEquals(size, executor.getWorkers());
+            for (int i = 0; i < 1000; i++, published++) {
+                while (!executor.tryPublish(i, (slot, v) -> slot[0] = v, (long) i)) {
+                    Thread.yield();
+                }
+            }
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (done.get() < published && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(published, done.get());
+        //多余的线程退出后线程池中只剩4个在运行
+        Thread.sleep(300);
+        Assert.assertEquals(4, ((ThreadPoolExecutor) workers).getActiveCount());
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.concurrent.ringbuffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythRingBufferTest {
+
+    @Test
+    public void reusesSlotsAndRejectsWhenFull() {
+        final AtomicInteger created = new AtomicInteger();
+        final MythRingBuffer<long[]> ring = new MythRingBuffer<>(3, () -> {
+            created.incrementAndGet();
+            return new long[1];
+        });
+        Assert.assertEquals(4, ring.capacity());
+        Assert.assertEquals(4, created.get());
+
+        for (long i = 0; i < 4; i++) {
+            Assert.assertTrue(ring.tryPublish((slot, value) -> slot[0] = value, i));
+        }
+        Assert.assertFalse(ring.tryPublish((slot, value) -> slot[0] = value, 4L));
+        Assert.assertEquals(4, ring.size());
+
+        final List<Long> values = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            Assert.assertTrue(ring.poll(slot -> values.add(slot[0])));
+            Assert.assertTrue(ring.tryPublish((slot, value) -> slot[0] = value, 4L + round));
+        }
+        while (ring.poll(slot -> values.add(slot[0]))) {
+            Assert.assertTrue(values.size() <= 7);
+        }
+        Assert.assertTrue(ring.isEmpty());
+        Assert.assertFalse(ring.hasAvailable());
+        Assert.assertEquals(4, created.get());
+        for (int i = 0; i < values.size(); i++) {
+            Assert.assertEquals(i, values.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void keepsPublishOrderOfEachProducer() throws InterruptedException {
+        final int producers = 4;
+        final int count = 50_000;
+        final MythRingBuffer<long[]> ring = new MythRingBuffer<>(64, () -> new long[2]);
+        final MythWaitStrategy waitStrategy = new BlockingWaitStrategy();
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final long producer = p;
+            final Thread thread = new Thread(() -> {
+                for (long i = 0; i < count; i++) {
+                    final long[] value = {producer, i};
+                    while (!ring.tryPublish((slot, v) -> {
+                        slot[0] = v[0];
+                        slot[1] = v[1];
+                    }, value)) {
+                        Thread.yield();
+                    }
+                    waitStrategy.signalAll();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        final long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * count) {
+            if (ring.poll(slot -> {
+                Assert.assertEquals(next[(int) slot[0]], slot[1]);
+                next[(int) slot[0]]++;
+            })) {
+                received++;
+            } else {
+                waitStrategy.waitFor(ring::hasAvailable);
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long n : next) {
+            Assert.assertEquals(count, n);
+        }
+        Assert.assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.threadlocal;
+
+import com.github.myth.common.bean.context.MythTransactionContext;
+import com.github.myth.common.bean.entity.MythTransaction;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * <p>Description:</p>
+ * 事务上下文快照：捕获、设置到其他线程、执行完成后恢复.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythContextSnapshotTest {
+
+    @After
+    public void tearDown() {
+        TransactionContextLocal.getInstance().remove();
+        MythTransactionLocal.getInstance().remove();
+    }
+
+    @Test
+    public void attachReplacesAndRestoreBringsBackThePreviousContext() {
+        final MythTransactionContext caller = context("t1");
+        final MythTransaction transaction = new MythTransaction("t1");
+        TransactionContextLocal.getInstance().set(caller);
+        MythTransactionLocal.getInstance().set(transaction);
+        final MythContextSnapshot snapshot = MythContextSnapshot.capture();
+        Assert.assertSame(caller, snapshot.getMythTransactionContext());
+        Assert.assertSame(transaction, snapshot.getMythTransaction());
+
+        final MythTransactionContext own = context("t2");
+        TransactionContextLocal.getInstance().set(own);
+        MythTransactionLocal.getInstance().remove();
+        final MythContextSnapshot previous = snapshot.attach();
+        Assert.assertSame(caller, TransactionContextLocal.getInstance().get());
+        Assert.assertSame(transaction, MythTransactionLocal.getInstance().get());
+
+        previous.restore();
+        Assert.assertSame(own, TransactionContextLocal.getInstance().get());
+        Assert.assertNull(MythTransactionLocal.getInstance().get());
+    }
+
+    @Test
+    public void emptySnapshotClearsTheThread() {
+        final MythContextSnapshot empty = MythContextSnapshot.capture();
+        Assert.assertNull(empty.getMythTransactionContext());
+        Assert.assertNull(empty.getMythTransaction());
+
+        TransactionContextLocal.getInstance().set(context("t3"));
+        MythTransactionLocal.getInstance().set(new MythTransaction("t3"));
+        final MythContextSnapshot previous = empty.attach();
+        Assert.assertNull(TransactionContextLocal.getInstance().get());
+        Assert.assertNull(MythTransactionLocal.getInstance().get());
+
+        previous.restore();
+        Assert.assertEquals("t3", TransactionContextLocal.getInstance().get().getTransId());
+        Assert.assertEquals("t3", MythTransactionLocal.getInstance().get().getTransId());
+    }
+
+    private static MythTransactionContext context(String transId) {
+        final MythTransactionContext context = new MythTransactionContext();
+        context.setTransId(transId);
+        return context;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.concurrent.threadpool;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythAdaptiveSizerTest {
+
+    private static final long PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger workers = new AtomicInteger(4);
+
+    private final MythAdaptiveSizer sizer = new MythAdaptiveSizer(2, 16, 20,
+            workers::get, workers::set, now::get);
+
+    @Test
+    public void growsToLittlesLawEstimateWhenQueueing() {
+        //每秒2000次，每次5ms，平均10个线程忙碌，等待50ms
+        record(2000, 50, 5);
+        Assert.assertEquals(13, sizer.tick());
+        Assert.assertEquals(13, workers.get());
+
+        //已经足够时不再增加
+        record(2000, 1, 5);
+        Assert.assertEquals(13, sizer.tick());
+
+        //等待时间超出但忙碌线程估计不足时至少加1，且不超过上限
+        workers.set(16);
+        record(10, 50, 1);
+        Assert.assertEquals(16, sizer.tick());
+    }
+
+    @Test
+    public void shrinksByAQuarterPerPeriodDownToTheMinimum() {
+        workers.set(16);
+        record(100, 1, 1);
+        Assert.assertEquals(12, sizer.tick());
+        record(100, 1, 1);
+        Assert.assertEquals(9, sizer.tick());
+        record(0, 0, 0);
+        Assert.assertEquals(7, sizer.tick());
+        for (int i = 0; i < 5; i++) {
+            record(0, 0, 0);
+            sizer.tick();
+        }
+        Assert.assertEquals(2, workers.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidBounds() {
+        sizer.setBounds(8, 4);
+    }
+
+    private void record(int count, long waitMillis, long serviceMillis) {
+        for (int i = 0; i < count; i++) {
+            sizer.record(TimeUnit.MILLISECONDS.toNanos(waitMillis), TimeUnit.MILLISECONDS.toNanos(serviceMillis));
+        }
+        now.addAndGet(PERIOD);
+    }
+}
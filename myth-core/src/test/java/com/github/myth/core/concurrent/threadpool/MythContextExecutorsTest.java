@@ -0,0 +1,131 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.concurrent.threadpool;
+
+import com.github.myth.common.bean.context.MythTransactionContext;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.core.concurrent.threadlocal.MythTransactionLocal;
+import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <p>Description:</p>
+ * 异步任务带上提交线程的事务上下文，执行完成（包括抛出异常）后恢复执行线程原来的上下文.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythContextExecutorsTest {
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+
+    private final ExecutorService executorService = MythContextExecutors.wrap(worker);
+
+    private final MythTransaction transaction = new MythTransaction("t1");
+
+    @Before
+    public void setUp() {
+        TransactionContextLocal.getInstance().set(context("t1"));
+        MythTransactionLocal.getInstance().set(transaction);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        TransactionContextLocal.getInstance().remove();
+        MythTransactionLocal.getInstance().remove();
+        worker.shutdownNow();
+        worker.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void propagatesTheCallerContextToTheTask() throws Exception {
+        Assert.assertEquals("t1", executorService.submit(currentTransId()).get());
+        Assert.assertSame(transaction, executorService.submit(MythTransactionLocal.getInstance()::get).get());
+        Assert.assertEquals("t1", MythContextExecutors.supplyAsync(() ->
+                TransactionContextLocal.getInstance().get().getTransId(), worker).get());
+
+        final List<Future<String>> futures = executorService.invokeAll(Arrays.asList(currentTransId(), currentTransId()));
+        for (Future<String> future : futures) {
+            Assert.assertEquals("t1", future.get());
+        }
+        Assert.assertSame(executorService, MythContextExecutors.wrap(executorService));
+    }
+
+    @Test
+    public void restoresTheWorkerContextAfterTheTask() throws Exception {
+        worker.submit(() -> TransactionContextLocal.getInstance().set(context("own"))).get();
+
+        Assert.assertEquals("t1", executorService.submit(currentTransId()).get());
+        MythContextExecutors.runAsync(() -> { }, worker).get();
+        Assert.assertEquals("own", worker.submit(currentTransId()).get());
+        Assert.assertNull(worker.submit(MythTransactionLocal.getInstance()::get).get());
+    }
+
+    @Test
+    public void cleansUpWhenTheTaskThrows() throws Exception {
+        final Future<?> failed = executorService.submit((Runnable) () -> {
+            throw new IllegalStateException("participant failed");
+        });
+        try {
+            failed.get();
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        Assert.assertNull(worker.submit(currentTransId()).get());
+        Assert.assertNull(worker.submit(MythTransactionLocal.getInstance()::get).get());
+    }
+
+    @Test
+    public void wrapsPlainTasksForOtherExecutors() throws Exception {
+        final Callable<String> callable = MythContextExecutors.wrap(currentTransId());
+        final Function<Integer, String> function = MythContextExecutors.wrapFunction(i ->
+                TransactionContextLocal.getInstance().get().getTransId() + ":" + i);
+        TransactionContextLocal.getInstance().remove();
+        Assert.assertEquals("t1", worker.submit(callable).get());
+        Assert.assertNull(TransactionContextLocal.getInstance().get());
+        Assert.assertEquals("t1:1", worker.submit(() -> function.apply(1)).get());
+    }
+
+    private static Callable<String> currentTransId() {
+        return () -> {
+            final MythTransactionContext context = TransactionContextLocal.getInstance().get();
+            return context == null ? null : context.getTransId();
+        };
+    }
+
+    private static MythTransactionContext context(String transId) {
+        final MythTransactionContext context = new MythTransactionContext();
+        context.setTransId(transId);
+        return context;
+    }
+}
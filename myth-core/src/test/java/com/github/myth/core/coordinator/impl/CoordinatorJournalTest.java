@@ -0,0 +1,157 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.core.coordinator.command.CoordinatorAction;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysSpilledActionsInOrderAfterRestart() throws Exception {
+        final String path = folder.getRoot().getPath();
+        final CoordinatorJournal journal = new CoordinatorJournal(path, new KryoSerializer());
+        journal.open();
+        Assert.assertFalse(journal.isActive());
+        Assert.assertFalse(journal.appendIfActive(action(CoordinatorActionEnum.SAVE, "1")));
+
+        Assert.assertTrue(journal.append(action(CoordinatorActionEnum.SAVE, "1")));
+        Assert.assertTrue(journal.appendIfActive(action(CoordinatorActionEnum.UPDATE, "1")));
+        Assert.assertTrue(journal.appendIfActive(action(CoordinatorActionEnum.DELETE, "1")));
+
+        //模拟进程中断，最后一条命令只写了一半
+        final File[] segments = folder.getRoot().listFiles();
+        Assert.assertNotNull(segments);
+        try (FileOutputStream out = new FileOutputStream(segments[0], true)) {
+            out.write(new byte[]{0, 4, 'S', 'A'});
+        }
+
+        final CoordinatorJournal restarted = new CoordinatorJournal(path, new KryoSerializer());
+        restarted.open();
+        Assert.assertTrue(restarted.isActive());
+
+        final List<String> replayed = new ArrayList<>();
+        Assert.assertEquals(3, restarted.replay(a ->
+                replayed.add(a.getAction().name() + ":" + a.getMythTransaction().getTransId())));
+        Assert.assertEquals("[SAVE:1, UPDATE:1, DELETE:1]", replayed.toString());
+        Assert.assertFalse(restarted.isActive());
+        Assert.assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void keepsAppendingWhileReplaying() throws Exception {
+        final CoordinatorJournal journal = new CoordinatorJournal(folder.getRoot().getPath(), new KryoSerializer());
+        journal.open();
+        journal.append(action(CoordinatorActionEnum.SAVE, "1"));
+
+        final List<String> replayed = new ArrayList<>();
+        final int count = journal.replay(a -> {
+            replayed.add(a.getMythTransaction().getTransId());
+            //执行期间提交的命令写入新文件，在同一次执行中按顺序执行
+            if (replayed.size() == 1) {
+                Assert.assertTrue(journal.appendIfActive(action(CoordinatorActionEnum.SAVE, "2")));
+            }
+        });
+        Assert.assertEquals(2, count);
+        Assert.assertEquals("[1, 2]", replayed.toString());
+        Assert.assertFalse(journal.isActive());
+    }
+
+    @Test
+    public void replaysLiveStateOfSpilledSave() throws Exception {
+        final String path = folder.getRoot().getPath();
+        final CoordinatorJournal journal = new CoordinatorJournal(path, new KryoSerializer());
+        journal.open();
+        final CoordinatorAction save = action(CoordinatorActionEnum.SAVE, "1");
+        save.getMythTransaction().setStatus(MythStatusEnum.BEGIN.getCode());
+        Assert.assertTrue(journal.append(save));
+        //写入文件之后发送消息，事务改为提交
+        save.getMythTransaction().setStatus(MythStatusEnum.COMMIT.getCode());
+
+        final List<MythTransaction> replayed = new ArrayList<>();
+        journal.replay(a -> replayed.add(a.getMythTransaction()));
+        Assert.assertSame(save.getMythTransaction(), replayed.get(0));
+
+        //重启后只能使用文件中的
+        journal.append(save);
+        journal.close();
+        final CoordinatorJournal restarted = new CoordinatorJournal(path, new KryoSerializer());
+        restarted.open();
+        restarted.replay(a -> replayed.add(a.getMythTransaction()));
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), replayed.get(1).getStatus());
+        Assert.assertNotSame(save.getMythTransaction(), replayed.get(1));
+    }
+
+    @Test
+    public void resumesAfterTheLastExecutedAction() throws Exception {
+        final String path = folder.getRoot().getPath();
+        final CoordinatorJournal journal = new CoordinatorJournal(path, new KryoSerializer());
+        journal.open();
+        journal.append(action(CoordinatorActionEnum.SAVE, "1"));
+        journal.appendIfActive(action(CoordinatorActionEnum.DELETE, "1"));
+        journal.appendIfActive(action(CoordinatorActionEnum.SAVE, "2"));
+
+        final List<String> replayed = new ArrayList<>();
+        try {
+            journal.replay(a -> {
+                if ("2".equals(a.getMythTransaction().getTransId()) && replayed.size() == 2) {
+                    throw new IllegalStateException("repository unavailable");
+                }
+                replayed.add(a.getAction().name() + ":" + a.getMythTransaction().getTransId());
+            });
+            Assert.fail("handler failure should be rethrown");
+        } catch (IllegalStateException expected) {
+            Assert.assertEquals("[SAVE:1, DELETE:1]", replayed.toString());
+        }
+
+        //已执行的保存、删除不会重复执行，重启后也从中断的位置继续
+        journal.close();
+        final CoordinatorJournal restarted = new CoordinatorJournal(path, new KryoSerializer());
+        restarted.open();
+        Assert.assertEquals(1, restarted.replay(a ->
+                replayed.add(a.getAction().name() + ":" + a.getMythTransaction().getTransId())));
+        Assert.assertEquals("[SAVE:1, DELETE:1, SAVE:2]", replayed.toString());
+        Assert.assertEquals(0, folder.getRoot().list().length);
+    }
+
+    private static CoordinatorAction action(CoordinatorActionEnum action, String transId) {
+        return new CoordinatorAction(action, new MythTransaction(transId));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.common.enums.MythRoleEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.core.service.MythMqSendService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.function.BiConsumer;
+
+/**
+ * <p>Description:</p>
+ * mq发送失败的回调：早于事务日志保存、在发送时同步回调、提交之后回调，事务日志都不能是全部已发送的提交状态.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceConfirmTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubCoordinatorRepository coordinatorRepository = new StubCoordinatorRepository();
+
+    private final CallbackSendService sendService = new CallbackSendService();
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MythConfig mythConfig = CoordinatorTestSupport.mythConfig(folder.getRoot());
+        context = CoordinatorTestSupport.context(mythConfig, coordinatorRepository, sendService);
+        coordinatorService = CoordinatorTestSupport.start(mythConfig);
+    }
+
+    @After
+    public void tearDown() {
+        coordinatorService.stop();
+        context.close();
+    }
+
+    @Test
+    public void nackBeforeSaveIsKeptBySave() {
+        final MythTransaction mythTransaction = transaction("t1");
+
+        //事务日志还没有保存，更新0条
+        Assert.assertTrue(coordinatorService.sendMessage(mythTransaction));
+        coordinatorService.confirmMessage("t1", "inventory", false);
+        coordinatorService.save(mythTransaction);
+
+        MythTransaction stored = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), stored.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.SENT.getCode(), status(stored, "account"));
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(), status(stored, "inventory"));
+
+        //保存之后的回调按事务日志处理
+        coordinatorService.confirmMessage("t1", "account", false);
+        stored = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), stored.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(), status(stored, "account"));
+    }
+
+    @Test
+    public void inlineNackDuringSendKeepsBegin() {
+        final MythTransaction mythTransaction = transaction("t2");
+        coordinatorService.save(mythTransaction);
+        sendService.onSend = (transId, destination) -> {
+            if ("inventory".equals(destination)) {
+                coordinatorService.confirmMessage(transId, destination, false);
+            }
+        };
+
+        Assert.assertFalse(coordinatorService.sendMessage(mythTransaction));
+
+        final MythTransaction stored = coordinatorRepository.findByTransId("t2");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), stored.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.SENT.getCode(), status(stored, "account"));
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(), status(stored, "inventory"));
+        Assert.assertEquals(0, coordinatorRepository.calls("updateStatus"));
+    }
+
+    @Test
+    public void nackAfterCommitRevertsToBegin() {
+        final MythTransaction mythTransaction = transaction("t3");
+        coordinatorService.save(mythTransaction);
+        Assert.assertTrue(coordinatorService.sendMessage(mythTransaction));
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(),
+                coordinatorRepository.findByTransId("t3").getStatus());
+
+        coordinatorService.confirmMessage("t3", "inventory", false);
+
+        //broker已确认的参与者仍为已发送，定时任务只重发失败的参与者
+        final MythTransaction stored = coordinatorRepository.findByTransId("t3");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), stored.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.SENT.getCode(), status(stored, "account"));
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(), status(stored, "inventory"));
+    }
+
+    private static MythTransaction transaction(String transId) {
+        final MythTransaction mythTransaction = new MythTransaction(transId);
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.registerParticipant(participant(transId, "account"));
+        mythTransaction.registerParticipant(participant(transId, "inventory"));
+        return mythTransaction;
+    }
+
+    private static MythParticipant participant(String transId, String destination) {
+        return new MythParticipant(transId, destination, null,
+                new MythInvocation(CallbackSendService.class, "flush", new Class[0], new Object[0]));
+    }
+
+    private static int status(MythTransaction mythTransaction, String destination) {
+        return mythTransaction.getMythParticipants().stream()
+                .filter(p -> destination.equals(p.getDestination()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new)
+                .getStatus();
+    }
+
+    /**
+     * mq发送服务，发送时可以同步回调发送结果.
+     */
+    public static class CallbackSendService implements MythMqSendService {
+
+        private volatile BiConsumer<String, String> onSend = (transId, destination) -> {
+        };
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+            onSend.accept(transId, destination);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.common.enums.MythRoleEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>Description:</p>
+ * 本进程内的参与者执行成功前仍为待发送，事务日志不会提前提交；执行失败记录在内存中的事务上，事务日志还没有保存时也不会丢失.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceLocalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubCoordinatorRepository coordinatorRepository = new StubCoordinatorRepository();
+
+    private final InventoryParticipant inventoryParticipant = new InventoryParticipant();
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MythConfig mythConfig = CoordinatorTestSupport.mythConfig(folder.getRoot());
+        mythConfig.setRetryMax(1);
+        mythConfig.setLocalDestinations(Collections.singletonList("inventory"));
+        context = CoordinatorTestSupport.context(mythConfig, coordinatorRepository, inventoryParticipant);
+        coordinatorService = CoordinatorTestSupport.start(mythConfig);
+    }
+
+    @After
+    public void tearDown() {
+        inventoryParticipant.executing.countDown();
+        coordinatorService.stop();
+        context.close();
+    }
+
+    @Test
+    public void keepsBeginUntilLocalParticipantExecutes() throws Exception {
+        final MythTransaction mythTransaction = transaction("t1", "i1");
+        coordinatorRepository.create(mythTransaction);
+
+        Assert.assertTrue(coordinatorService.sendMessage(mythTransaction));
+        final MythTransaction pending = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), pending.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(),
+                pending.getMythParticipants().get(0).getStatus());
+
+        inventoryParticipant.executing.countDown();
+        await(() -> coordinatorRepository.findByTransId("t1").getStatus() == MythStatusEnum.COMMIT.getCode());
+        Assert.assertEquals(MythDeliveryStatusEnum.SENT.getCode(),
+                coordinatorRepository.findByTransId("t1").getMythParticipants().get(0).getStatus());
+    }
+
+    @Test
+    public void recordsLocalFailureBeforeSave() throws Exception {
+        final MythTransaction mythTransaction = transaction("t1", "fail");
+        inventoryParticipant.executing.countDown();
+
+        coordinatorService.sendMessage(mythTransaction);
+        await(() -> mythTransaction.getErrorMsg() != null);
+        coordinatorService.save(mythTransaction);
+
+        final MythTransaction deadLetter = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.DEAD_LETTER.getCode(), deadLetter.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(),
+                deadLetter.getMythParticipants().get(0).getStatus());
+        Assert.assertTrue(deadLetter.getErrorMsg().contains("inventory locked"));
+    }
+
+    private static MythTransaction transaction(String transId, String sku) {
+        final MythTransaction mythTransaction = new MythTransaction(transId);
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.registerParticipant(new MythParticipant(transId, "inventory", null,
+                new MythInvocation(InventoryParticipant.class, "decrease",
+                        new Class[]{String.class}, new Object[]{sku})));
+        return mythTransaction;
+    }
+
+    private static void await(Supplier<Boolean> condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!condition.get()) {
+            Assert.assertTrue("condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 本地参与者，放行前阻塞，sku 为 fail 时抛出异常.
+     */
+    public static class InventoryParticipant {
+
+        private final CountDownLatch executing = new CountDownLatch(1);
+
+        public void decrease(String sku) throws InterruptedException {
+            executing.await();
+            if ("fail".equals(sku)) {
+                throw new IllegalStateException("inventory locked");
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.CompressEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.core.service.mq.MythMessageCodec;
+import com.github.myth.core.service.mq.MythSignatureRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * <p>Description:</p>
+ * 消费端批量处理：同一批次按事务id去重，一次批量查询事务日志，部分失败时继续处理其余消息后再抛出异常；
+ * 超过最大重试次数、永久失败、无法解码的消息转入死信，批量回放后由定时任务在本地重新执行；
+ * 签名id未注册的消息按暂时失败重新投递.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceProcessMessagesTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubCoordinatorRepository coordinatorRepository = new StubCoordinatorRepository();
+
+    private final AccountParticipant accountParticipant = new AccountParticipant();
+
+    private final MythMessageCodec messageCodec = new MythMessageCodec(new KryoSerializer());
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MythConfig mythConfig = CoordinatorTestSupport.mythConfig(folder.getRoot());
+        mythConfig.setRetryMax(2);
+        mythConfig.setRecoverDelayTime(0);
+        context = CoordinatorTestSupport.context(mythConfig, coordinatorRepository, accountParticipant);
+        coordinatorService = CoordinatorTestSupport.start(mythConfig);
+    }
+
+    @After
+    public void tearDown() {
+        coordinatorService.stop();
+        context.close();
+    }
+
+    @Test
+    public void dedupesBatchByTransIdWithOneLookup() throws Exception {
+        coordinatorService.processMessages(Arrays.asList(
+                message("t1", "a1"), message("t1", "a1"), message("t2", "a2")));
+
+        Assert.assertEquals(Arrays.asList("a1", "a2"), accountParticipant.executed);
+        Assert.assertEquals(Collections.singletonList(Arrays.asList("t1", "t2")),
+                coordinatorRepository.getBatchLookups());
+        Assert.assertEquals(0, coordinatorRepository.calls("findByTransId"));
+
+        //已处理成功的事务再次投递时跳过，不再查询事务日志
+        coordinatorService.processMessages(Collections.singletonList(message("t2", "a2")));
+        Assert.assertEquals(Arrays.asList("a1", "a2"), accountParticipant.executed);
+        Assert.assertEquals(1, coordinatorRepository.calls("listByTransIds"));
+    }
+
+    @Test
+    public void continuesAfterAFailureThenRethrows() throws Exception {
+        final List<byte[]> batch = Arrays.asList(message("t1", "fail"), message("t2", "a2"));
+        try {
+            coordinatorService.processMessages(batch);
+            Assert.fail("partial failure should be rethrown");
+        } catch (MythRuntimeException expected) {
+            Assert.assertEquals(Arrays.asList("fail", "a2"), accountParticipant.executed);
+        }
+        final MythTransaction failure = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.FAILURE.getCode(), failure.getStatus());
+        Assert.assertEquals(1, failure.getRetriedCount());
+
+        //整批重新投递时只重新执行失败的消息
+        accountParticipant.failing = false;
+        coordinatorService.processMessages(batch);
+        Assert.assertEquals(Arrays.asList("fail", "a2", "fail"), accountParticipant.executed);
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), coordinatorRepository.findByTransId("t1").getStatus());
+    }
+
+    @Test
+    public void deadLettersAfterRetryMaxWithoutRethrowing() throws Exception {
+        final byte[] message = message("t1", "fail");
+        try {
+            coordinatorService.processMessage(message);
+            Assert.fail("transient failure should be redelivered");
+        } catch (MythRuntimeException expected) {
+            Assert.assertEquals(MythStatusEnum.FAILURE.getCode(),
+                    coordinatorRepository.findByTransId("t1").getStatus());
+        }
+
+        //达到最大重试次数，转入死信并正常返回
+        coordinatorService.processMessage(message);
+        final MythTransaction deadLetter = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.DEAD_LETTER.getCode(), deadLetter.getStatus());
+        Assert.assertEquals(2, deadLetter.getRetriedCount());
+        Assert.assertTrue(deadLetter.getErrorMsg().contains("database timeout"));
+
+        coordinatorService.processMessage(message);
+        Assert.assertEquals(Arrays.asList("fail", "fail"), accountParticipant.executed);
+    }
+
+    @Test
+    public void deadLettersPermanentFailureOnFirstAttempt() throws Exception {
+        final MythInvocation invocation = new MythInvocation(AccountParticipant.class, "refund",
+                new Class[]{String.class}, new Object[]{"a1"});
+        coordinatorService.processMessage(messageCodec.encode(new MessageEntity("t2", invocation)));
+
+        final MythTransaction deadLetter = coordinatorRepository.findByTransId("t2");
+        Assert.assertEquals(MythStatusEnum.DEAD_LETTER.getCode(), deadLetter.getStatus());
+        Assert.assertEquals(1, deadLetter.getRetriedCount());
+        Assert.assertEquals(1, deadLetter.getMythParticipants().size());
+    }
+
+    @Test
+    public void deadLettersUndecodableMessageAndContinuesBatch() throws Exception {
+        //旧格式的消息，参与者类已经不存在，消息头也无法解码
+        final byte[] legacy = replace(message("t3", "a3"), "ProcessMessages", "ProcessMassages");
+        coordinatorService.processMessages(Arrays.asList(legacy, message("t4", "a4")));
+
+        Assert.assertEquals(Collections.singletonList("a4"), accountParticipant.executed);
+        final MythTransaction deadLetter =
+                coordinatorRepository.findByTransId(UUID.nameUUIDFromBytes(legacy).toString());
+        Assert.assertEquals(MythStatusEnum.DEAD_LETTER.getCode(), deadLetter.getStatus());
+        Assert.assertTrue(deadLetter.getMythParticipants().isEmpty());
+
+        //重新投递时不再记录
+        coordinatorService.processMessage(legacy);
+        Assert.assertEquals(1, coordinatorRepository.calls("create"));
+    }
+
+    @Test
+    public void unknownSignatureIsRedeliveredUntilTheConfigurationMatches() throws Exception {
+        MythSignatureRegistry.getInstance().register(AccountParticipant.class);
+        final MythMessageCodec compactCodec = new MythMessageCodec(new KryoSerializer(), true, CompressEnum.NONE, 0);
+        final MessageEntity entity = new MessageEntity("t6", new MythInvocation(AccountParticipant.class, "payment",
+                new Class[]{String.class}, new Object[]{"a6"}));
+        final byte[] message = compactCodec.encode(entity);
+        //签名id的最后一个字节：消息头4字节 + 事务id（2字节长度 + 2字节内容）+ 8字节id
+        final byte[] unknown = message.clone();
+        unknown[15] ^= 0x5A;
+
+        try {
+            coordinatorService.processMessage(unknown);
+            Assert.fail("an unknown signature should be redelivered");
+        } catch (MythRuntimeException expected) {
+            final MythTransaction failure = coordinatorRepository.findByTransId("t6");
+            Assert.assertEquals(MythStatusEnum.FAILURE.getCode(), failure.getStatus());
+            Assert.assertTrue(failure.getErrorMsg().contains("signature not registered"));
+        }
+
+        //配置一致后重新投递，正常执行
+        coordinatorService.processMessage(message);
+        Assert.assertEquals(Collections.singletonList("a6"), accountParticipant.executed);
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), coordinatorRepository.findByTransId("t6").getStatus());
+    }
+
+    @Test
+    public void replaysDeadLetterAfterBatchReplay() throws Exception {
+        final byte[] message = message("t5", "fail");
+        try {
+            coordinatorService.processMessage(message);
+            Assert.fail("transient failure should be redelivered");
+        } catch (MythRuntimeException expected) {
+            coordinatorService.processMessage(message);
+        }
+        Assert.assertEquals(MythStatusEnum.DEAD_LETTER.getCode(),
+                coordinatorRepository.findByTransId("t5").getStatus());
+
+        //管理后台批量回放：状态重置为开始，重试次数清零，由定时任务在本地重新执行
+        accountParticipant.failing = false;
+        final MythTransaction deadLetter = coordinatorRepository.findByTransId("t5");
+        deadLetter.setStatus(MythStatusEnum.BEGIN.getCode());
+        deadLetter.setRetriedCount(0);
+        coordinatorRepository.update(deadLetter);
+        Thread.sleep(5);
+        coordinatorService.recover();
+
+        Assert.assertEquals(Arrays.asList("fail", "fail", "fail"), accountParticipant.executed);
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), coordinatorRepository.findByTransId("t5").getStatus());
+    }
+
+    private byte[] message(String transId, String accountId) throws Exception {
+        final MythInvocation invocation = new MythInvocation(AccountParticipant.class, "payment",
+                new Class[]{String.class}, new Object[]{accountId});
+        return messageCodec.encode(new MessageEntity(transId, invocation));
+    }
+
+    private static byte[] replace(byte[] message, String target, String replacement) {
+        final String text = new String(message, StandardCharsets.ISO_8859_1);
+        Assert.assertTrue(text.contains(target));
+        return text.replace(target, replacement).getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 参与者，accountId 为 fail 时抛出暂时失败的异常.
+     */
+    public static class AccountParticipant {
+
+        private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile boolean failing = true;
+
+        public void payment(String accountId) {
+            executed.add(accountId);
+            if (failing && "fail".equals(accountId)) {
+                throw new IllegalStateException("database timeout");
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.MythDeliveryClassEnum;
+import com.github.myth.common.enums.MythRoleEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.core.service.MythMqSendService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>Description:</p>
+ * 定时任务每次重新发送前保存递增的重试次数，mq按重试次数选择重试延迟；
+ * 没有参与者的日志直接提交，超过最大重试次数转入死信.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceRecoverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubCoordinatorRepository coordinatorRepository = new StubCoordinatorRepository();
+
+    private final FailingSendService sendService = new FailingSendService();
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MythConfig mythConfig = CoordinatorTestSupport.mythConfig(folder.getRoot());
+        mythConfig.setRecoverDelayTime(0);
+        context = CoordinatorTestSupport.context(mythConfig, coordinatorRepository, sendService);
+        coordinatorService = CoordinatorTestSupport.start(mythConfig);
+    }
+
+    @After
+    public void tearDown() {
+        coordinatorService.stop();
+        context.close();
+    }
+
+    @Test
+    public void incrementsRetriedCountOnEveryResend() throws Exception {
+        final MythTransaction mythTransaction = new MythTransaction("t1");
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.registerParticipant(new MythParticipant("t1", "account", null,
+                new MythInvocation(FailingSendService.class, "flush", new Class[0], new Object[0])));
+        coordinatorRepository.create(mythTransaction);
+        Thread.sleep(5);
+
+        coordinatorService.recover();
+        coordinatorService.recover();
+
+        Assert.assertEquals(2, sendService.deliveries.size());
+        Assert.assertEquals(MythDeliveryClassEnum.RETRY, sendService.deliveries.get(0).getDeliveryClass());
+        Assert.assertEquals(1, sendService.deliveries.get(0).getAttempt());
+        Assert.assertEquals(2, sendService.deliveries.get(1).getAttempt());
+        final MythTransaction stored = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(2, stored.getRetriedCount());
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), stored.getStatus());
+    }
+
+    @Test
+    public void commitsRowsWithoutParticipants() throws Exception {
+        final MythTransaction originator = new MythTransaction("t2");
+        originator.setStatus(MythStatusEnum.BEGIN.getCode());
+        originator.setRole(MythRoleEnum.START.getCode());
+        coordinatorRepository.create(originator);
+        final MythTransaction provider = new MythTransaction("t3");
+        provider.setStatus(MythStatusEnum.BEGIN.getCode());
+        provider.setRole(MythRoleEnum.PROVIDER.getCode());
+        coordinatorRepository.create(provider);
+        Thread.sleep(5);
+
+        coordinatorService.recover();
+
+        Assert.assertTrue(sendService.deliveries.isEmpty());
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), coordinatorRepository.findByTransId("t2").getStatus());
+        Assert.assertEquals(0, coordinatorRepository.findByTransId("t2").getRetriedCount());
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), coordinatorRepository.findByTransId("t3").getStatus());
+    }
+
+    @Test
+    public void deadLettersAfterRetryMaxResends() throws Exception {
+        final MythTransaction mythTransaction = new MythTransaction("t4");
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.registerParticipant(new MythParticipant("t4", "account", null,
+                new MythInvocation(FailingSendService.class, "flush", new Class[0], new Object[0])));
+        coordinatorRepository.create(mythTransaction);
+        Thread.sleep(5);
+
+        for (int i = 0; i < 5; i++) {
+            coordinatorService.recover();
+        }
+
+        //默认最大重试3次，第4次扫描转入死信，之后不再扫描到
+        Assert.assertEquals(3, sendService.deliveries.size());
+        final MythTransaction stored = coordinatorRepository.findByTransId("t4");
+        Assert.assertEquals(MythStatusEnum.DEAD_LETTER.getCode(), stored.getStatus());
+        Assert.assertEquals(3, stored.getRetriedCount());
+    }
+
+    /**
+     * mq发送服务，记录投递方式后发送失败.
+     */
+    public static class FailingSendService implements MythMqSendService {
+
+        private final List<MessageDelivery> deliveries = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                                MessageDelivery delivery) {
+            deliveries.add(delivery);
+            throw new IllegalStateException("broker unavailable");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadPool;
+import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.spi.CoordinatorRepository;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Description:</p>
+ * 发起者的事务日志异步保存，与发送消息后的更新交错时，保存的必须是发送之后的状态.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceSaveTest {
+
+    private final CoordinatorRepository coordinatorRepository = Mockito.mock(CoordinatorRepository.class);
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MythConfig mythConfig = new MythConfig();
+        mythConfig.setCoordinatorThreadMax(1);
+        final MythTransactionThreadPool threadPool = new MythTransactionThreadPool(mythConfig);
+        threadPool.init();
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("mythTransactionThreadPool", threadPool);
+        context.getBeanFactory().registerSingleton("coordinatorRepository", coordinatorRepository);
+        context.getBeanFactory().registerSingleton("mythMqSendService",
+                (MythMqSendService) (destination, pattern, message) -> {
+                    if ("down".equals(destination)) {
+                        throw new IllegalStateException("broker down");
+                    }
+                });
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+        Mockito.when(coordinatorRepository.create(Mockito.any(MythTransaction.class))).thenReturn(1);
+        coordinatorService = new CoordinatorServiceImpl(() -> "myth-save-test");
+        coordinatorService.setSerializer(new KryoSerializer());
+        coordinatorService.start(mythConfig);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test(timeout = 10_000)
+    public void saveWaitsForThePostSendUpdate() throws Exception {
+        final MythTransaction mythTransaction = transaction("save-1", "down");
+        final CountDownLatch updating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(coordinatorRepository.updateParticipant(mythTransaction)).then(invocation -> {
+            updating.countDown();
+            release.await();
+            return 0;
+        });
+        final Thread sender = new Thread(() -> coordinatorService.sendMessage(mythTransaction));
+        sender.start();
+        updating.await();
+
+        //发送失败后正在更新参与者，保存等待更新结束
+        final Thread saver = new Thread(() -> coordinatorService.save(mythTransaction));
+        saver.start();
+        TimeUnit.MILLISECONDS.sleep(200);
+        Mockito.verify(coordinatorRepository, Mockito.never()).create(mythTransaction);
+
+        release.countDown();
+        sender.join();
+        saver.join();
+        Mockito.verify(coordinatorRepository).create(mythTransaction);
+    }
+
+    @Test
+    public void lateSavePersistsCommitAfterAFullSend() {
+        final MythTransaction mythTransaction = transaction("save-2", "account");
+
+        Assert.assertTrue(coordinatorService.sendMessage(mythTransaction));
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(), mythTransaction.getStatus());
+    }
+
+    private static MythTransaction transaction(String transId, String destination) {
+        final MythTransaction mythTransaction = new MythTransaction(transId);
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        final MythInvocation invocation = new MythInvocation(CoordinatorServiceSaveTest.class, "payment",
+                new Class[]{String.class}, new Object[]{destination});
+        mythTransaction.setMythParticipants(Collections.singletonList(
+                new MythParticipant(transId, destination, 1, invocation)));
+        return mythTransaction;
+    }
+}
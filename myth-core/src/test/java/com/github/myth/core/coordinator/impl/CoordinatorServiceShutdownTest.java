@@ -0,0 +1,308 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.common.enums.MythRoleEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadPool;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.coordinator.command.CoordinatorAction;
+import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythPendingConfirms;
+import com.github.myth.core.spi.CoordinatorRepository;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Description:</p>
+ * 负载下停止节点：停止时执行不完的命令写入本地文件，重新启动后执行，每个事务的命令不丢失、不重复、顺序不变；
+ * 停止时等待mq确认，超时未确认的参与者改回待发送.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceShutdownTest {
+
+    private static final int PRODUCERS = 4;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, List<CoordinatorActionEnum>> executed = new ConcurrentHashMap<>();
+
+    @Test
+    public void stopsUnderLoadAndResumesSpilledActionsAfterRestart() throws Exception {
+        final Set<String> submitted = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong sequence = new AtomicLong();
+
+        GenericApplicationContext context = context(new RecordingRepository(executed, 10));
+        final CoordinatorServiceImpl node = start(context);
+        final List<Thread> producers = new ArrayList<>();
+        for (int i = 0; i < PRODUCERS; i++) {
+            final Thread producer = new Thread(() -> {
+                while (running.get()) {
+                    //与rpc过滤器一样，饱和（包括正在停止）时不再开始新的事务
+                    if (node.isSaturated()) {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                        continue;
+                    }
+                    final MythTransaction mythTransaction = new MythTransaction("t" + sequence.incrementAndGet());
+                    submitted.add(mythTransaction.getTransId());
+                    node.submit(new CoordinatorAction(CoordinatorActionEnum.SAVE, mythTransaction));
+                    node.submit(new CoordinatorAction(CoordinatorActionEnum.UPDATE, mythTransaction));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        TimeUnit.MILLISECONDS.sleep(300);
+        node.stop();
+        running.set(false);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        context.close();
+
+        final int before = executedCount();
+        Assert.assertTrue("no action left at shutdown", before < submitted.size() * 2);
+        Assert.assertTrue(folder.getRoot().listFiles().length > 0);
+
+        context = context(new RecordingRepository(executed, 0));
+        final CoordinatorServiceImpl restarted = start(context);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executedCount() < submitted.size() * 2 && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        restarted.stop();
+        context.close();
+
+        Assert.assertEquals(submitted, executed.keySet());
+        for (Map.Entry<String, List<CoordinatorActionEnum>> entry : executed.entrySet()) {
+            Assert.assertEquals(entry.getKey(),
+                    "[SAVE, UPDATE]", entry.getValue().toString());
+        }
+    }
+
+    @Test
+    public void nacksUnconfirmedMessagesBackToPendingOnStop() throws Exception {
+        final MythConfig mythConfig = CoordinatorTestSupport.mythConfig(folder.newFolder());
+        mythConfig.setCoordinatorShutdownTimeout(1);
+        final StubCoordinatorRepository coordinatorRepository = new StubCoordinatorRepository();
+        final AsyncSendService sendService = new AsyncSendService();
+        final GenericApplicationContext context =
+                CoordinatorTestSupport.context(mythConfig, coordinatorRepository, sendService);
+        final CoordinatorServiceImpl node = CoordinatorTestSupport.start(mythConfig);
+        sendService.coordinatorService = node;
+
+        final MythTransaction mythTransaction = new MythTransaction("t1");
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.registerParticipant(participant("account"));
+        mythTransaction.registerParticipant(participant("inventory"));
+        coordinatorRepository.create(mythTransaction);
+        Assert.assertTrue(node.sendMessage(mythTransaction));
+        Assert.assertEquals(MythStatusEnum.COMMIT.getCode(),
+                coordinatorRepository.findByTransId("t1").getStatus());
+
+        final long start = System.nanoTime();
+        node.stop();
+        context.close();
+
+        //account 在超时前确认，inventory 超时后按发送失败处理
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+        Assert.assertEquals(Collections.singletonList("inventory"), sendService.nacked);
+        final MythTransaction stored = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), stored.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.SENT.getCode(), stored.getMythParticipants().get(0).getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(), stored.getMythParticipants().get(1).getStatus());
+    }
+
+    private static MythParticipant participant(String destination) {
+        return new MythParticipant("t1", destination, null,
+                new MythInvocation(CoordinatorServiceShutdownTest.class, "payment",
+                        new Class[]{String.class}, new Object[]{destination}));
+    }
+
+    private int executedCount() {
+        return executed.values().stream().mapToInt(List::size).sum();
+    }
+
+    private GenericApplicationContext context(CoordinatorRepository coordinatorRepository) {
+        final MythTransactionThreadPool threadPool = new MythTransactionThreadPool(mythConfig());
+        threadPool.init();
+        final GenericApplicationContext context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("mythTransactionThreadPool", threadPool);
+        context.getBeanFactory().registerSingleton("coordinatorRepository", coordinatorRepository);
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+        return context;
+    }
+
+    private CoordinatorServiceImpl start(GenericApplicationContext context) throws Exception {
+        final CoordinatorServiceImpl coordinatorService = new CoordinatorServiceImpl(() -> "myth-shutdown-test");
+        coordinatorService.setSerializer(new KryoSerializer());
+        coordinatorService.start(mythConfig());
+        return coordinatorService;
+    }
+
+    private MythConfig mythConfig() {
+        final MythConfig mythConfig = new MythConfig();
+        mythConfig.setCoordinatorQueueMax(256);
+        mythConfig.setCoordinatorThreadMax(1);
+        mythConfig.setCoordinatorLaneMax(8);
+        mythConfig.setCoordinatorShutdownTimeout(1);
+        mythConfig.setCoordinatorJournalPath(folder.getRoot().getPath());
+        return mythConfig;
+    }
+
+    /**
+     * 异步发送的mq，account 100毫秒后确认，inventory 一直不确认.
+     */
+    public static class AsyncSendService implements MythMqSendService {
+
+        private final MythPendingConfirms pendingConfirms = new MythPendingConfirms();
+
+        private final List<String> nacked = new CopyOnWriteArrayList<>();
+
+        private volatile CoordinatorService coordinatorService;
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                                MessageDelivery delivery) {
+            final long confirmId = pendingConfirms.register(transId, destination);
+            if ("account".equals(destination)) {
+                new Thread(() -> {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+                    if (pendingConfirms.complete(confirmId)) {
+                        coordinatorService.confirmMessage(transId, destination, true);
+                    }
+                }).start();
+            }
+        }
+
+        @Override
+        public void flush(long timeout, TimeUnit unit) {
+            pendingConfirms.await(timeout, unit, (transId, destination) -> {
+                nacked.add(destination);
+                coordinatorService.confirmMessage(transId, destination, false);
+            });
+        }
+    }
+
+    /**
+     * 按事务记录执行的命令，每个命令耗时 delayMillis
+     */
+    private static class RecordingRepository implements CoordinatorRepository {
+
+        private final Map<String, List<CoordinatorActionEnum>> executed;
+
+        private final long delayMillis;
+
+        RecordingRepository(Map<String, List<CoordinatorActionEnum>> executed, long delayMillis) {
+            this.executed = executed;
+            this.delayMillis = delayMillis;
+        }
+
+        private int record(String transId, CoordinatorActionEnum action) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+            executed.computeIfAbsent(transId, k -> Collections.synchronizedList(new ArrayList<>())).add(action);
+            return 1;
+        }
+
+        @Override
+        public int create(MythTransaction mythTransaction) {
+            return record(mythTransaction.getTransId(), CoordinatorActionEnum.SAVE);
+        }
+
+        @Override
+        public int remove(String transId) {
+            return record(transId, CoordinatorActionEnum.DELETE);
+        }
+
+        @Override
+        public int update(MythTransaction mythTransaction) {
+            return record(mythTransaction.getTransId(), CoordinatorActionEnum.UPDATE);
+        }
+
+        @Override
+        public int updateParticipant(MythTransaction mythTransaction) {
+            return 1;
+        }
+
+        @Override
+        public int updateStatus(String transId, Integer status) {
+            return 1;
+        }
+
+        @Override
+        public MythTransaction findByTransId(String transId) {
+            return null;
+        }
+
+        @Override
+        public List<MythTransaction> listAllByDelay(Date date) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void init(String modelName, MythConfig mythConfig) {
+        }
+
+        @Override
+        public String getScheme() {
+            return "memory";
+        }
+
+        @Override
+        public void setSerializer(ObjectSerializer objectSerializer) {
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.common.enums.MythRoleEnum;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.utils.RepositoryPathUtils;
+import com.github.myth.core.coordinator.command.CoordinatorAction;
+import com.github.myth.core.service.MythMqSendService;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Description:</p>
+ * 写入本地文件的保存命令执行时保存的是发送消息之后的状态，发送失败的参与者仍为待发送，已发送的不会被重发.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceSpillTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final StubCoordinatorRepository coordinatorRepository = new StubCoordinatorRepository();
+
+    private GenericApplicationContext context;
+
+    private CoordinatorServiceImpl coordinatorService;
+
+    @Before
+    public void setUp() throws Exception {
+        final MythConfig mythConfig = CoordinatorTestSupport.mythConfig(folder.getRoot());
+        //上次运行遗留的命令，启动后的命令也写入文件，保证顺序
+        final CoordinatorJournal leftover = new CoordinatorJournal(
+                RepositoryPathUtils.buildJournalPath(folder.getRoot().getPath(), "myth-test"), new KryoSerializer());
+        leftover.open();
+        leftover.append(new CoordinatorAction(CoordinatorActionEnum.DELETE, new MythTransaction("t0")));
+        leftover.close();
+        context = CoordinatorTestSupport.context(mythConfig, coordinatorRepository, new InventoryDownSendService());
+        coordinatorService = CoordinatorTestSupport.start(mythConfig);
+    }
+
+    @After
+    public void tearDown() {
+        coordinatorService.stop();
+        context.close();
+    }
+
+    @Test
+    public void spilledSaveKeepsThePostSendState() throws Exception {
+        final MythTransaction mythTransaction = new MythTransaction("t1");
+        mythTransaction.setStatus(MythStatusEnum.BEGIN.getCode());
+        mythTransaction.setRole(MythRoleEnum.START.getCode());
+        mythTransaction.registerParticipant(participant("account"));
+        mythTransaction.registerParticipant(participant("inventory"));
+
+        Assert.assertTrue(coordinatorService.submit(new CoordinatorAction(CoordinatorActionEnum.SAVE, mythTransaction)));
+        Assert.assertFalse(coordinatorService.sendMessage(mythTransaction));
+        Assert.assertNull(coordinatorRepository.findByTransId("t1"));
+
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (Objects.isNull(coordinatorRepository.findByTransId("t1"))) {
+            Assert.assertTrue("journal not replayed in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+        final MythTransaction saved = coordinatorRepository.findByTransId("t1");
+        Assert.assertEquals(MythStatusEnum.BEGIN.getCode(), saved.getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.SENT.getCode(), saved.getMythParticipants().get(0).getStatus());
+        Assert.assertEquals(MythDeliveryStatusEnum.PENDING.getCode(),
+                saved.getMythParticipants().get(1).getStatus());
+    }
+
+    private static MythParticipant participant(String destination) {
+        return new MythParticipant("t1", destination, null,
+                new MythInvocation(CoordinatorServiceSpillTest.class, "payment",
+                        new Class[]{String.class}, new Object[]{destination}));
+    }
+
+    /**
+     * mq发送服务，inventory 队列发送失败.
+     */
+    public static class InventoryDownSendService implements MythMqSendService {
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, byte[] message) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                                MessageDelivery delivery) {
+            if ("inventory".equals(destination)) {
+                throw new IllegalStateException("broker unavailable");
+            }
+        }
+    }
+}
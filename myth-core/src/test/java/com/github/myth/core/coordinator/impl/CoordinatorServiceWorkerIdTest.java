@@ -0,0 +1,187 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.utils.IdWorkerUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <p>Description:</p>
+ * 启动时租用 workerId，定时续约，租约过期后重新租用，停止时释放；没有可以租用的 workerId 时启动失败，
+ * 租约过期并且重新租用失败时不开始新的分布式事务.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class CoordinatorServiceWorkerIdTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final LeasingCoordinatorRepository coordinatorRepository = new LeasingCoordinatorRepository();
+
+    private final long original = IdWorkerUtils.getInstance().getWorkerId();
+
+    private MythConfig mythConfig;
+
+    private GenericApplicationContext context;
+
+    @Before
+    public void setUp() {
+        mythConfig = CoordinatorTestSupport.mythConfig(folder.getRoot());
+        mythConfig.setWorkerIdLease(1);
+        context = CoordinatorTestSupport.context(mythConfig, coordinatorRepository);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        IdWorkerUtils.getInstance().setWorkerId(original);
+    }
+
+    @Test
+    public void renewsAndReleasesWorkerId() throws Exception {
+        final CoordinatorServiceImpl coordinatorService = CoordinatorTestSupport.start(mythConfig);
+        try {
+            Assert.assertEquals(7, IdWorkerUtils.getInstance().getWorkerId());
+
+            //租约过期后重新租用
+            coordinatorRepository.renewable = false;
+            final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (IdWorkerUtils.getInstance().getWorkerId() != 8) {
+                Assert.assertTrue("workerId not renewed in time", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+        } finally {
+            coordinatorService.stop();
+        }
+        Assert.assertEquals(8, coordinatorRepository.released.get(0).longValue());
+    }
+
+    @Test
+    public void rejectsTransactionsUntilAnExpiredLeaseIsReacquired() throws Exception {
+        final CoordinatorServiceImpl coordinatorService = CoordinatorTestSupport.start(mythConfig);
+        try {
+            Assert.assertTrue(coordinatorService.isWorkerIdLeased());
+
+            //租约过期，没有可以租用的 workerId
+            coordinatorRepository.exhausted = true;
+            coordinatorRepository.renewable = false;
+            await(() -> !coordinatorService.isWorkerIdLeased());
+            Assert.assertEquals(7, IdWorkerUtils.getInstance().getWorkerId());
+
+            coordinatorRepository.exhausted = false;
+            await(coordinatorService::isWorkerIdLeased);
+            Assert.assertEquals(8, IdWorkerUtils.getInstance().getWorkerId());
+        } finally {
+            coordinatorService.stop();
+        }
+    }
+
+    @Test
+    public void leaseIsLostWhenRenewalFailsForTheLeaseDuration() throws Exception {
+        final CoordinatorServiceImpl coordinatorService = CoordinatorTestSupport.start(mythConfig);
+        try {
+            coordinatorRepository.storeDown = true;
+            //续约异常但还在租约时长内，仍然持有租约
+            Thread.sleep(500);
+            Assert.assertTrue(coordinatorService.isWorkerIdLeased());
+            await(() -> !coordinatorService.isWorkerIdLeased());
+
+            coordinatorRepository.storeDown = false;
+            await(coordinatorService::isWorkerIdLeased);
+            Assert.assertEquals(8, IdWorkerUtils.getInstance().getWorkerId());
+        } finally {
+            coordinatorService.stop();
+        }
+        //租约过期后重新租用的才释放
+        Assert.assertEquals(8, coordinatorRepository.released.get(0).longValue());
+    }
+
+    @Test
+    public void failsToStartWithoutWorkerId() throws Exception {
+        coordinatorRepository.exhausted = true;
+        try {
+            CoordinatorTestSupport.start(mythConfig);
+            Assert.fail("start should fail without a workerId");
+        } catch (MythRuntimeException expected) {
+            Assert.assertEquals(original, IdWorkerUtils.getInstance().getWorkerId());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("condition not reached in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * 从7开始依次租出 workerId 的事务日志存储.
+     */
+    private static class LeasingCoordinatorRepository extends StubCoordinatorRepository {
+
+        private final AtomicLong next = new AtomicLong(7);
+
+        private final List<Long> released = new CopyOnWriteArrayList<>();
+
+        private volatile boolean renewable = true;
+
+        private volatile boolean exhausted;
+
+        private volatile boolean storeDown;
+
+        @Override
+        public long acquireWorkerId() {
+            if (exhausted || storeDown) {
+                throw new MythRuntimeException("no workerId available");
+            }
+            renewable = true;
+            return next.getAndIncrement();
+        }
+
+        @Override
+        public boolean renewWorkerId(long workerId) {
+            if (storeDown) {
+                throw new MythRuntimeException("store unavailable");
+            }
+            return renewable;
+        }
+
+        @Override
+        public void releaseWorkerId(long workerId) {
+            released.add(workerId);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadPool;
+import com.github.myth.core.helper.SpringBeanUtils;
+import com.github.myth.core.spi.CoordinatorRepository;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.io.File;
+
+/**
+ * <p>Description: 不依赖spring配置启动协调服务.</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+final class CoordinatorTestSupport {
+
+    private CoordinatorTestSupport() {
+    }
+
+    /**
+     * 测试用的配置，溢出的命令写入指定目录.
+     *
+     * @param journalPath 溢出文件目录
+     * @return MythConfig
+     */
+    static MythConfig mythConfig(File journalPath) {
+        final MythConfig mythConfig = new MythConfig();
+        mythConfig.setCoordinatorThreadMax(1);
+        mythConfig.setCoordinatorJournalPath(journalPath.getPath());
+        return mythConfig;
+    }
+
+    /**
+     * 注册协调服务需要的bean.
+     *
+     * @param mythConfig            配置
+     * @param coordinatorRepository 事务日志存储
+     * @param beans                 其他bean，如参与者、mq发送服务
+     * @return spring上下文
+     */
+    static GenericApplicationContext context(MythConfig mythConfig, CoordinatorRepository coordinatorRepository,
+                                             Object... beans) {
+        final MythTransactionThreadPool threadPool = new MythTransactionThreadPool(mythConfig);
+        threadPool.init();
+        final GenericApplicationContext context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("mythTransactionThreadPool", threadPool);
+        context.getBeanFactory().registerSingleton("coordinatorRepository", coordinatorRepository);
+        for (Object bean : beans) {
+            context.getBeanFactory().registerSingleton(bean.getClass().getName(), bean);
+        }
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+        return context;
+    }
+
+    /**
+     * 启动协调服务.
+     *
+     * @param mythConfig 配置
+     * @return CoordinatorServiceImpl
+     * @throws MythException 启动失败
+     */
+    static CoordinatorServiceImpl start(MythConfig mythConfig) throws MythException {
+        final CoordinatorServiceImpl coordinatorService = new CoordinatorServiceImpl(() -> "myth-test");
+        coordinatorService.setSerializer(new KryoSerializer());
+        coordinatorService.start(mythConfig);
+        return coordinatorService;
+    }
+}
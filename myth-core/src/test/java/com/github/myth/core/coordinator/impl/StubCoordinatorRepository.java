@@ -0,0 +1,170 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.coordinator.impl;
+
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.spi.CoordinatorRepository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Description: 内存中的事务日志，保存的是序列化后的副本，与真实存储一样不会看到之后对内存对象的修改.</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+class StubCoordinatorRepository implements CoordinatorRepository {
+
+    private final KryoSerializer serializer = new KryoSerializer();
+
+    private final Map<String, byte[]> store = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+    private final List<List<String>> batchLookups = new CopyOnWriteArrayList<>();
+
+    /**
+     * 某个方法被调用的次数.
+     *
+     * @param method 方法名
+     * @return 次数
+     */
+    int calls(String method) {
+        final AtomicInteger count = calls.get(method);
+        return Objects.isNull(count) ? 0 : count.get();
+    }
+
+    List<List<String>> getBatchLookups() {
+        return batchLookups;
+    }
+
+    private void count(String method) {
+        calls.computeIfAbsent(method, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private byte[] write(MythTransaction mythTransaction) {
+        try {
+            return serializer.serialize(mythTransaction);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private MythTransaction read(byte[] bytes) {
+        try {
+            return Objects.isNull(bytes) ? null : serializer.deSerialize(bytes, MythTransaction.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public int create(MythTransaction mythTransaction) {
+        count("create");
+        store.put(mythTransaction.getTransId(), write(mythTransaction));
+        return 1;
+    }
+
+    @Override
+    public int remove(String transId) {
+        count("remove");
+        return Objects.isNull(store.remove(transId)) ? 0 : 1;
+    }
+
+    @Override
+    public int update(MythTransaction mythTransaction) {
+        count("update");
+        return Objects.isNull(store.computeIfPresent(mythTransaction.getTransId(),
+                (k, v) -> write(mythTransaction))) ? 0 : 1;
+    }
+
+    @Override
+    public int updateParticipant(MythTransaction mythTransaction) {
+        count("updateParticipant");
+        final List<MythParticipant> participants = new ArrayList<>(mythTransaction.getMythParticipants());
+        return Objects.isNull(store.computeIfPresent(mythTransaction.getTransId(), (k, v) -> {
+            final MythTransaction stored = read(v);
+            stored.setMythParticipants(participants);
+            return write(stored);
+        })) ? 0 : 1;
+    }
+
+    @Override
+    public int updateStatus(String transId, Integer status) {
+        count("updateStatus");
+        return Objects.isNull(store.computeIfPresent(transId, (k, v) -> {
+            final MythTransaction stored = read(v);
+            stored.setStatus(status);
+            return write(stored);
+        })) ? 0 : 1;
+    }
+
+    @Override
+    public MythTransaction findByTransId(String transId) {
+        count("findByTransId");
+        return read(store.get(transId));
+    }
+
+    @Override
+    public List<MythTransaction> listByTransIds(List<String> transIds) {
+        count("listByTransIds");
+        batchLookups.add(new ArrayList<>(transIds));
+        return transIds.stream()
+                .map(store::get)
+                .filter(Objects::nonNull)
+                .map(this::read)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<MythTransaction> listAllByDelay(Date date) {
+        count("listAllByDelay");
+        return store.values().stream()
+                .map(this::read)
+                .filter(t -> t.getLastTime().before(date))
+                .filter(t -> t.getStatus() == MythStatusEnum.BEGIN.getCode())
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void init(String modelName, MythConfig mythConfig) {
+    }
+
+    @Override
+    public String getScheme() {
+        return "memory";
+    }
+
+    @Override
+    public void setSerializer(ObjectSerializer objectSerializer) {
+    }
+}
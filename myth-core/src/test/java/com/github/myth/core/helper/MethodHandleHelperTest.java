@@ -0,0 +1,187 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.helper;
+
+import com.github.myth.core.service.mq.MythFailureClassifier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.sql.SQLTransientConnectionException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Description:</p>
+ * 按参数类型选择重载方法，支持基本类型和可变参数，方法句柄只解析一次，目标方法的异常原样抛出.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MethodHandleHelperTest {
+
+    @Test
+    public void overloadedMethodsAreSelectedByParameterTypes() throws Exception {
+        final Account account = new Account();
+
+        Assert.assertEquals("string:a", MethodHandleHelper.invoke(account, AccountApi.class, "pay",
+                new Class<?>[]{String.class}, new Object[]{"a"}));
+        Assert.assertEquals("long:3", MethodHandleHelper.invoke(account, AccountApi.class, "pay",
+                new Class<?>[]{Long.class}, new Object[]{3L}));
+        Assert.assertEquals("none", MethodHandleHelper.invoke(account, AccountApi.class, "pay",
+                new Class<?>[0], null));
+    }
+
+    @Test
+    public void primitiveAndVarargsParametersAreInvoked() throws Exception {
+        final Account account = new Account();
+
+        Assert.assertEquals(5, MethodHandleHelper.invoke(account, AccountApi.class, "add",
+                new Class<?>[]{int.class, int.class}, new Object[]{2, 3}));
+        Assert.assertEquals("a,b", MethodHandleHelper.invoke(account, AccountApi.class, "join",
+                new Class<?>[]{String[].class}, new Object[]{new String[]{"a", "b"}}));
+        Assert.assertNull(MethodHandleHelper.invoke(account, AccountApi.class, "reset",
+                new Class<?>[0], new Object[0]));
+        Assert.assertEquals(1, account.resets.get());
+    }
+
+    @Test
+    public void handlesAreResolvedOncePerSignature() throws Exception {
+        final Map<?, ?> invokers = invokers();
+        final Account first = new Account();
+        final Account second = new Account();
+
+        Assert.assertEquals(2, MethodHandleHelper.invoke(first, Account.class, "add",
+                new Class<?>[]{int.class, int.class}, new Object[]{1, 1}));
+        final int cached = invokers.size();
+
+        Assert.assertEquals(7, MethodHandleHelper.invoke(second, Account.class, "add",
+                new Class<?>[]{int.class, int.class}, new Object[]{3, 4}));
+        Assert.assertEquals(cached, invokers.size());
+
+        Assert.assertEquals("long:1", MethodHandleHelper.invoke(second, Account.class, "pay",
+                new Class<?>[]{Long.class}, new Object[]{1L}));
+        Assert.assertEquals(cached + 1, invokers.size());
+    }
+
+    @Test
+    public void targetExceptionsAreThrownUnwrapped() throws Exception {
+        final Account account = new Account();
+        final MythFailureClassifier classifier = new MythFailureClassifier(Collections.emptyList());
+        try {
+            MethodHandleHelper.invoke(account, AccountApi.class, "fail",
+                    new Class<?>[]{String.class}, new Object[]{"timeout"});
+            Assert.fail();
+        } catch (SQLTransientConnectionException e) {
+            Assert.assertEquals("timeout", e.getMessage());
+            Assert.assertFalse(classifier.isPermanent(e));
+        }
+        try {
+            MethodHandleHelper.invoke(account, AccountApi.class, "fail",
+                    new Class<?>[]{Integer.class}, new Object[]{1});
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("1", e.getMessage());
+            Assert.assertTrue(classifier.isPermanent(e));
+        }
+    }
+
+    @Test
+    public void missingMethodsAreReportedAsPermanent() throws Exception {
+        final MythFailureClassifier classifier = new MythFailureClassifier(Collections.emptyList());
+        try {
+            MethodHandleHelper.invoke(new Account(), AccountApi.class, "pay",
+                    new Class<?>[]{Double.class}, new Object[]{1D});
+            Assert.fail();
+        } catch (NoSuchMethodException e) {
+            Assert.assertTrue(classifier.isPermanent(e));
+        }
+    }
+
+    private static Map<?, ?> invokers() throws Exception {
+        final Field field = MethodHandleHelper.class.getDeclaredField("INVOKERS");
+        field.setAccessible(true);
+        return (Map<?, ?>) field.get(null);
+    }
+
+    public interface AccountApi {
+
+        String pay();
+
+        String pay(String id);
+
+        String pay(Long amount);
+
+        int add(int left, int right);
+
+        String join(String... values);
+
+        void reset();
+
+        void fail(String message) throws SQLTransientConnectionException;
+
+        void fail(Integer code);
+    }
+
+    private static class Account implements AccountApi {
+
+        private final AtomicInteger resets = new AtomicInteger();
+
+        @Override
+        public String pay() {
+            return "none";
+        }
+
+        @Override
+        public String pay(String id) {
+            return "string:" + id;
+        }
+
+        @Override
+        public String pay(Long amount) {
+            return "long:" + amount;
+        }
+
+        @Override
+        public int add(int left, int right) {
+            return left + right;
+        }
+
+        @Override
+        public String join(String... values) {
+            return String.join(",", values);
+        }
+
+        @Override
+        public void reset() {
+            resets.incrementAndGet();
+        }
+
+        @Override
+        public void fail(String message) throws SQLTransientConnectionException {
+            throw new SQLTransientConnectionException(message);
+        }
+
+        @Override
+        public void fail(Integer code) {
+            throw new IllegalArgumentException(String.valueOf(code));
+        }
+    }
+}
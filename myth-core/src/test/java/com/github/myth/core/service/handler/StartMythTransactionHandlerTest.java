@@ -0,0 +1,88 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.handler;
+
+import com.github.myth.common.bean.context.MythTransactionContext;
+import com.github.myth.common.exception.MythOverloadException;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.concurrent.threadlocal.TransactionContextLocal;
+import com.github.myth.core.service.impl.MythTransactionManager;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * <p>Description:</p>
+ * 发送失败时也清理线程变量；协调资源队列饱和时在开始之前拒绝新的分布式事务.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class StartMythTransactionHandlerTest {
+
+    @Test
+    public void cleansThreadLocalsWhenSendFails() throws Throwable {
+        final MythTransactionManager manager = Mockito.mock(MythTransactionManager.class);
+        Mockito.doThrow(new MythRuntimeException("broker down")).when(manager).sendMessage();
+        final ProceedingJoinPoint point = Mockito.mock(ProceedingJoinPoint.class);
+        Mockito.when(point.proceed()).then(invocation -> {
+            TransactionContextLocal.getInstance().set(new MythTransactionContext());
+            return "ok";
+        });
+        try {
+            new StartMythTransactionHandler(manager).handler(point, null);
+            Assert.fail("send failure should propagate");
+        } catch (MythRuntimeException expected) {
+            Mockito.verify(manager).cleanThreadLocal();
+            Assert.assertNull(TransactionContextLocal.getInstance().get());
+        } finally {
+            TransactionContextLocal.getInstance().remove();
+        }
+    }
+
+    @Test
+    public void rejectsNewTransactionsBeforeBeginWhenSaturated() throws Throwable {
+        final MythTransactionManager manager = Mockito.mock(MythTransactionManager.class);
+        Mockito.when(manager.isSaturated()).thenReturn(true);
+        final ProceedingJoinPoint point = Mockito.mock(ProceedingJoinPoint.class);
+        Mockito.when(point.getSignature()).thenReturn(Mockito.mock(Signature.class));
+        try {
+            new StartMythTransactionHandler(manager).handler(point, null);
+            Assert.fail("a saturated coordinator should reject new transactions");
+        } catch (MythOverloadException expected) {
+            Mockito.verify(manager, Mockito.never()).begin(point);
+            Mockito.verify(point, Mockito.never()).proceed();
+            Mockito.verify(manager, Mockito.never()).sendMessage();
+        }
+    }
+
+    @Test
+    public void nestedCallsJoinTheStartedTransactionWhenSaturated() throws Throwable {
+        final MythTransactionManager manager = Mockito.mock(MythTransactionManager.class);
+        Mockito.when(manager.isSaturated()).thenReturn(true);
+        Mockito.when(manager.isBegin()).thenReturn(true);
+        final ProceedingJoinPoint point = Mockito.mock(ProceedingJoinPoint.class);
+        Mockito.when(point.proceed()).thenReturn("ok");
+
+        Assert.assertEquals("ok", new StartMythTransactionHandler(manager).handler(point, null));
+        Mockito.verify(manager).begin(point);
+    }
+}
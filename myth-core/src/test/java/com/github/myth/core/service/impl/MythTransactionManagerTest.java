@@ -0,0 +1,137 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.impl;
+
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.concurrent.threadlocal.MythTransactionLocal;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.coordinator.command.CoordinatorCommand;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Description:</p>
+ * 并行注册参与者：只有一个线程写入，其他线程不等待存储，最后写入的是完整的参与者列表；
+ * 没有 workerId 租约时不开始新的分布式事务.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythTransactionManagerTest {
+
+    @Test
+    public void parallelRegistrationsDoNotWaitForTheWriterAndAreAllPersisted() throws Exception {
+        final CoordinatorService coordinatorService = Mockito.mock(CoordinatorService.class);
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> written = new CopyOnWriteArrayList<>();
+        Mockito.when(coordinatorService.updateParticipant(Mockito.any(MythTransaction.class))).then(invocation -> {
+            final MythTransaction transaction = (MythTransaction) invocation.getArguments()[0];
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            written.add(transaction.getMythParticipants().size());
+            return 1;
+        });
+        final MythTransactionManager manager =
+                new MythTransactionManager(Mockito.mock(CoordinatorCommand.class), coordinatorService);
+        final MythTransaction transaction = new MythTransaction("t1");
+        final ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            final CompletableFuture<Void> first = register(manager, transaction, "account", executorService);
+            Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+            //第一个线程还在写入，其他线程注册后直接返回
+            register(manager, transaction, "inventory", executorService).get(5, TimeUnit.SECONDS);
+            register(manager, transaction, "order", executorService).get(5, TimeUnit.SECONDS);
+            Assert.assertFalse(first.isDone());
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(3, transaction.getMythParticipants().size());
+        Assert.assertEquals(2, written.size());
+        Assert.assertEquals(Integer.valueOf(3), written.get(written.size() - 1));
+    }
+
+    @Test
+    public void writesAgainAfterAFailedWrite() {
+        final CoordinatorService coordinatorService = Mockito.mock(CoordinatorService.class);
+        Mockito.when(coordinatorService.updateParticipant(Mockito.any(MythTransaction.class)))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(1);
+        final MythTransactionManager manager =
+                new MythTransactionManager(Mockito.mock(CoordinatorCommand.class), coordinatorService);
+        MythTransactionLocal.getInstance().set(new MythTransaction("t2"));
+        try {
+            try {
+                manager.registerParticipant(participant("t2", "account"));
+                Assert.fail();
+            } catch (IllegalStateException expected) {
+                //写入失败抛给rpc过滤器
+            }
+            manager.registerParticipant(participant("t2", "inventory"));
+        } finally {
+            MythTransactionLocal.getInstance().remove();
+        }
+        Mockito.verify(coordinatorService, Mockito.times(2)).updateParticipant(Mockito.any(MythTransaction.class));
+    }
+
+    @Test
+    public void rejectsNewTransactionsWithoutAWorkerIdLease() {
+        final CoordinatorService coordinatorService = Mockito.mock(CoordinatorService.class);
+        final CoordinatorCommand coordinatorCommand = Mockito.mock(CoordinatorCommand.class);
+        final MythTransactionManager manager = new MythTransactionManager(coordinatorCommand, coordinatorService);
+        try {
+            manager.begin(Mockito.mock(ProceedingJoinPoint.class));
+            Assert.fail("a transaction id may collide without a workerId lease");
+        } catch (MythRuntimeException expected) {
+            Mockito.verifyZeroInteractions(coordinatorCommand);
+            Assert.assertNull(MythTransactionLocal.getInstance().get());
+        }
+    }
+
+    private static CompletableFuture<Void> register(MythTransactionManager manager, MythTransaction transaction,
+                                                    String destination, ExecutorService executorService) {
+        return CompletableFuture.runAsync(() -> {
+            MythTransactionLocal.getInstance().set(transaction);
+            try {
+                manager.registerParticipant(participant(transaction.getTransId(), destination));
+            } finally {
+                MythTransactionLocal.getInstance().remove();
+            }
+        }, executorService);
+    }
+
+    private static MythParticipant participant(String transId, String destination) {
+        return new MythParticipant(transId, destination, null, null);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythDedupStoreTest {
+
+    @Test
+    public void keepsTransIdsForTheRetentionWindow() {
+        final AtomicLong now = new AtomicLong(1_000_000L);
+        final MythDedupStore store = new MythDedupStore(60, 0, now::get);
+        store.add("100");
+        Assert.assertTrue(store.contains("100"));
+        Assert.assertFalse(store.contains("200"));
+
+        now.addAndGet(60_000L);
+        Assert.assertTrue(store.contains("100"));
+
+        //超过保留时长后整个桶过期
+        now.addAndGet(20_000L);
+        Assert.assertFalse(store.contains("100"));
+
+        store.add("200");
+        Assert.assertTrue(store.contains("200"));
+    }
+
+    @Test
+    public void evictsOldestBucketWhenFull() {
+        final AtomicLong now = new AtomicLong(1_000_000L);
+        final MythDedupStore store = new MythDedupStore(60, 3, now::get);
+        store.add("100");
+        store.add("101");
+        now.addAndGet(10_000L);
+        store.add("200");
+        Assert.assertEquals(3, store.size());
+
+        //超过最大数量，还在保留时长内的最早的桶也被提前丢弃
+        store.add("201");
+        Assert.assertEquals(2, store.size());
+        Assert.assertFalse(store.contains("100"));
+        Assert.assertFalse(store.contains("101"));
+        Assert.assertTrue(store.contains("200"));
+        Assert.assertTrue(store.contains("201"));
+
+        //只剩当前桶时丢弃当前桶，之后由事务日志判断
+        store.add("202");
+        store.add("203");
+        Assert.assertEquals(0, store.size());
+        Assert.assertFalse(store.contains("203"));
+        store.add("204");
+        Assert.assertTrue(store.contains("204"));
+    }
+
+    @Test
+    public void disabledWhenRetentionIsZero() {
+        final MythDedupStore store = new MythDedupStore(0, 0);
+        store.add("100");
+        Assert.assertFalse(store.contains("100"));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.exception.MythRuntimeException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * <p>Description:</p>
+ * 永久失败检查整个异常链，可以配置额外的永久失败异常，找不到的类名忽略.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythFailureClassifierTest {
+
+    @Test
+    public void defaultPermanentFailuresAreFoundInTheCauseChain() {
+        final MythFailureClassifier classifier = new MythFailureClassifier(Collections.emptyList());
+
+        Assert.assertTrue(classifier.isPermanent(new NoSuchMethodException("payment")));
+        Assert.assertTrue(classifier.isPermanent(new MythException("kryo deSerialize error")));
+        Assert.assertTrue(classifier.isPermanent(
+                new MythRuntimeException("wrapped", new IllegalStateException(new ClassNotFoundException("x")))));
+        Assert.assertFalse(classifier.isPermanent(new MythRuntimeException("database timeout",
+                new SQLTransientConnectionException("timeout"))));
+        Assert.assertFalse(classifier.isPermanent(null));
+    }
+
+    @Test
+    public void configuredPermanentFailuresAreAdded() {
+        final MythFailureClassifier classifier = new MythFailureClassifier(Arrays.asList(
+                IllegalStateException.class.getName(), "com.example.MissingException"));
+
+        Assert.assertTrue(classifier.isPermanent(new MythRuntimeException("x", new IllegalStateException())));
+        Assert.assertFalse(classifier.isPermanent(new SQLTransientConnectionException("timeout")));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.mq.MessageEntity;
+import com.github.myth.common.bean.mq.MessageHeader;
+import com.github.myth.common.enums.CompressEnum;
+import com.github.myth.common.exception.MythException;
+import com.github.myth.common.exception.MythSignatureNotFoundException;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.serializer.ObjectSerializer;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythMessageCodecTest {
+
+    private final ObjectSerializer serializer = new KryoSerializer();
+
+    @Test
+    public void compactRoundTripWithClassNames() throws Exception {
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.NONE, 0);
+        final MessageEntity entity = buildEntity(StringBuilder.class, "x");
+        final byte[] message = codec.encode(entity);
+
+        assertEntity(entity, codec.decode(message));
+        final MessageHeader header = codec.decodeHeader(message);
+        Assert.assertEquals(MythMessageCodec.VERSION, header.getVersion());
+        Assert.assertEquals("1001", header.getTransId());
+        Assert.assertEquals(StringBuilder.class.getName(), header.getTargetClassName());
+        Assert.assertEquals("append", header.getMethodName());
+    }
+
+    @Test
+    public void registeredSignatureIsSmallerAndCompressedAboveThreshold() throws Exception {
+        final MessageEntity entity = buildEntity(StringBuffer.class, StringUtils.repeat("myth", 1000));
+        final byte[] inline = new MythMessageCodec(serializer, true, CompressEnum.NONE, 0).encode(entity);
+
+        MythSignatureRegistry.getInstance().register(StringBuffer.class);
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.LZ4, 1024);
+        final byte[] message = codec.encode(entity);
+
+        Assert.assertTrue(message.length < inline.length / 10);
+        assertEntity(entity, codec.decode(message));
+        Assert.assertEquals("append", codec.decodeHeader(message).getMethodName());
+    }
+
+    @Test
+    public void legacyMessageIsStillDecoded() throws Exception {
+        final MessageEntity entity = buildEntity(StringBuilder.class, "x");
+        final byte[] legacy = serializer.serialize(entity);
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.LZ4, 0);
+
+        assertEntity(entity, codec.decode(legacy));
+        Assert.assertEquals(0, codec.decodeHeader(legacy).getVersion());
+        Assert.assertEquals("1001", codec.decodeHeader(legacy).getTransId());
+    }
+
+    @Test
+    public void unknownSignatureIdIsReportedSeparately() throws Exception {
+        MythSignatureRegistry.getInstance().register(StringBuffer.class);
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.NONE, 0);
+        final byte[] message = codec.encode(buildEntity(StringBuffer.class, "x"));
+        //签名id在事务id之后：消息头4字节 + 事务id（2字节长度 + 4字节内容）
+        message[17] ^= 0x5A;
+
+        try {
+            codec.decode(message);
+            Assert.fail();
+        } catch (MythSignatureNotFoundException expected) {
+            Assert.assertTrue(expected.getMessage().contains("not registered"));
+        }
+    }
+
+    @Test
+    public void rejectsLengthsThatDoNotFitTheMessage() throws Exception {
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.NONE, 0);
+        final byte[] message = codec.encode(buildEntity(StringBuilder.class, "x"));
+        final int payloadLengthOffset = message.length - payloadLength(message) - 4;
+
+        assertInvalid(codec, withInt(message, payloadLengthOffset, Integer.MAX_VALUE));
+        assertInvalid(codec, withInt(message, payloadLengthOffset, -1));
+        assertInvalid(codec, withInt(message, payloadLengthOffset - 4, -1));
+        //未压缩时参数长度与消息中的参数长度必须一致
+        assertInvalid(codec, withInt(message, payloadLengthOffset - 4, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void rejectsCorruptCompressedPayload() throws Exception {
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.LZ4, 0);
+        final byte[] message = codec.encode(buildEntity(StringBuilder.class, StringUtils.repeat("myth", 100)));
+        final int argsLengthOffset = message.length - payloadLength(message) - 8;
+
+        //解压后的长度超过上限时不分配内存
+        assertInvalid(codec, withInt(message, argsLengthOffset, Integer.MAX_VALUE));
+        //解压后的长度与压缩数据不一致，lz4 解压失败
+        assertInvalid(codec, withInt(message, argsLengthOffset, 400 * 1024));
+    }
+
+    @Test
+    public void rejectsVersionZero() throws Exception {
+        final MythMessageCodec codec = new MythMessageCodec(serializer, true, CompressEnum.NONE, 0);
+        final byte[] message = codec.encode(buildEntity(StringBuilder.class, "x"));
+        message[2] = 0;
+
+        assertInvalid(codec, message);
+        try {
+            codec.decodeHeader(message);
+            Assert.fail();
+        } catch (MythException expected) {
+            Assert.assertTrue(expected.getMessage().contains("version"));
+        }
+    }
+
+    /**
+     * 消息以 参数长度 + 压缩后长度 + 参数 结尾，从后往前找到与剩余长度一致的压缩后长度.
+     */
+    private static int payloadLength(byte[] message) {
+        final ByteBuffer buffer = ByteBuffer.wrap(message);
+        for (int length = 1; length < message.length - 8; length++) {
+            if (buffer.getInt(message.length - length - 4) == length) {
+                return length;
+            }
+        }
+        throw new IllegalStateException("payload length not found");
+    }
+
+    private static byte[] withInt(byte[] message, int offset, int value) {
+        final byte[] corrupt = message.clone();
+        ByteBuffer.wrap(corrupt).putInt(offset, value);
+        return corrupt;
+    }
+
+    private static void assertInvalid(MythMessageCodec codec, byte[] message) {
+        try {
+            codec.decode(message);
+            Assert.fail();
+        } catch (MythException expected) {
+            Assert.assertNotNull(expected.getMessage());
+        }
+    }
+
+    private static MessageEntity buildEntity(Class<?> targetClass, String arg) {
+        return new MessageEntity("1001",
+                new MythInvocation(targetClass, "append", new Class[]{String.class}, new Object[]{arg}));
+    }
+
+    private static void assertEntity(MessageEntity expected, MessageEntity actual) {
+        Assert.assertEquals(expected.getTransId(), actual.getTransId());
+        final MythInvocation invocation = actual.getMythInvocation();
+        Assert.assertEquals(expected.getMythInvocation().getTargetClass(), invocation.getTargetClass());
+        Assert.assertEquals(expected.getMythInvocation().getMethodName(), invocation.getMethodName());
+        Assert.assertArrayEquals(expected.getMythInvocation().getParameterTypes(), invocation.getParameterTypes());
+        Assert.assertArrayEquals(expected.getMythInvocation().getArgs(), invocation.getArgs());
+    }
+}
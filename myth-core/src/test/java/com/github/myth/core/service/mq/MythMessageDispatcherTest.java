@@ -0,0 +1,205 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.enums.MythDeliveryStatusEnum;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.core.metrics.MythMetrics;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.trace.MythTracer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythMessageDispatcherTest {
+
+    private ExecutorService executorService;
+
+    @After
+    public void tearDown() {
+        if (Objects.nonNull(executorService)) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void brokerFailsMidFanOut() {
+        final List<MythParticipant> participants = buildParticipants("account", "inventory", "coupon");
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+
+        //broker在发送第二个参与者时异常
+        MythMqSendService failingBroker = (destination, pattern, message) -> {
+            if ("inventory".equals(destination)) {
+                throw new MythRuntimeException("broker unavailable");
+            }
+            delivered.add(destination);
+        };
+        final List<MythParticipant> failures =
+                new MythMessageDispatcher(new KryoSerializer(), () -> failingBroker, null).dispatch(participants);
+
+        Assert.assertEquals(1, failures.size());
+        Assert.assertEquals("inventory", failures.get(0).getDestination());
+        Assert.assertEquals(2, delivered.size());
+        assertStatus(participants.get(0), MythDeliveryStatusEnum.SENT);
+        assertStatus(participants.get(1), MythDeliveryStatusEnum.PENDING);
+        assertStatus(participants.get(2), MythDeliveryStatusEnum.SENT);
+        Assert.assertTrue(participants.get(0).getSentTime() > 0);
+
+        //恢复时只重发未发送的参与者
+        delivered.clear();
+        MythMqSendService healthyBroker = (destination, pattern, message) -> delivered.add(destination);
+        final List<MythParticipant> retryFailures =
+                new MythMessageDispatcher(new KryoSerializer(), () -> healthyBroker, null).dispatch(participants);
+
+        Assert.assertTrue(retryFailures.isEmpty());
+        Assert.assertEquals(Collections.singletonList("inventory"), delivered);
+        participants.forEach(p -> assertStatus(p, MythDeliveryStatusEnum.SENT));
+    }
+
+    @Test
+    public void parallelDispatchTracksEachParticipant() {
+        executorService = Executors.newFixedThreadPool(2);
+        final List<MythParticipant> participants =
+                buildParticipants("account", "inventory", "account", "inventory");
+        MythMqSendService broker = (destination, pattern, message) -> {
+            if ("inventory".equals(destination)) {
+                throw new MythRuntimeException("broker unavailable");
+            }
+        };
+        final List<MythParticipant> failures =
+                new MythMessageDispatcher(new KryoSerializer(), () -> broker, executorService).dispatch(participants);
+
+        Assert.assertEquals(2, failures.size());
+        assertStatus(participants.get(0), MythDeliveryStatusEnum.SENT);
+        assertStatus(participants.get(1), MythDeliveryStatusEnum.PENDING);
+        assertStatus(participants.get(2), MythDeliveryStatusEnum.SENT);
+        assertStatus(participants.get(3), MythDeliveryStatusEnum.PENDING);
+    }
+
+    @Test(timeout = 10_000)
+    public void discardedGroupsAreSentByTheCaller() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        executorService = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new ThreadPoolExecutor.DiscardPolicy());
+        //唯一的线程被占用、队列已满，之后提交的分组都会被丢弃
+        executorService.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executorService.execute(() -> {
+        });
+        final List<MythParticipant> participants = buildParticipants("account", "inventory");
+        final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        MythMqSendService broker = (destination, pattern, message) -> delivered.add(destination);
+
+        final List<MythParticipant> failures =
+                new MythMessageDispatcher(new KryoSerializer(), () -> broker, executorService).dispatch(participants);
+        release.countDown();
+
+        Assert.assertTrue(failures.isEmpty());
+        Assert.assertEquals(Arrays.asList("account", "inventory"), delivered);
+        participants.forEach(p -> assertStatus(p, MythDeliveryStatusEnum.SENT));
+    }
+
+    @Test(timeout = 10_000)
+    public void queuedGroupsWaitForThePoolWithinTheConfiguredTime() {
+        executorService = Executors.newSingleThreadExecutor();
+        //唯一的线程被占用 300ms，超过默认等待时间，但在配置的等待时间内
+        executorService.execute(() -> LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(300)));
+        final List<MythParticipant> participants = buildParticipants("account", "inventory");
+        final List<Thread> senders = Collections.synchronizedList(new ArrayList<>());
+        MythMqSendService broker = (destination, pattern, message) -> senders.add(Thread.currentThread());
+
+        final List<MythParticipant> failures = new MythMessageDispatcher(new MythMessageCodec(new KryoSerializer()),
+                () -> broker, executorService, MythMetrics.NOOP, MythTracer.NOOP, 5000).dispatch(participants);
+
+        Assert.assertTrue(failures.isEmpty());
+        Assert.assertEquals(2, senders.size());
+        Assert.assertFalse(senders.contains(Thread.currentThread()));
+    }
+
+    @Test
+    public void localParticipantsSkipTheBroker() {
+        final List<MythParticipant> participants = buildParticipants("account", "inventory", "coupon");
+        final List<String> delivered = new ArrayList<>();
+        final List<String> executed = new ArrayList<>();
+        executorService = Executors.newSingleThreadExecutor();
+        MythLocalTransport localTransport = new MythLocalTransport(Collections.singletonList("inventory"),
+                executorService);
+        executorService.shutdown();
+
+        final List<MythParticipant> localParticipants = localTransport.claim(participants);
+        MythMqSendService broker = (destination, pattern, message) -> delivered.add(destination);
+        final List<MythParticipant> failures = new MythMessageDispatcher(new KryoSerializer(), () -> broker, null)
+                .dispatch(localTransport.exclude(participants));
+
+        Assert.assertTrue(failures.isEmpty());
+        Assert.assertEquals(1, localParticipants.size());
+        Assert.assertEquals(Arrays.asList("account", "coupon"), delivered);
+        assertStatus(participants.get(0), MythDeliveryStatusEnum.SENT);
+        assertStatus(participants.get(2), MythDeliveryStatusEnum.SENT);
+        //本地参与者执行成功前仍为待发送
+        assertStatus(localParticipants.get(0), MythDeliveryStatusEnum.PENDING);
+
+        //线程池已关闭时由调用线程执行
+        localTransport.deliver(localParticipants, p -> executed.add(p.getDestination()));
+        Assert.assertEquals(Collections.singletonList("inventory"), executed);
+        Assert.assertEquals(localParticipants, localTransport.claim(participants));
+    }
+
+    private static void assertStatus(MythParticipant participant, MythDeliveryStatusEnum status) {
+        Assert.assertEquals(status.getCode(), participant.getStatus());
+    }
+
+    private static List<MythParticipant> buildParticipants(String... destinations) {
+        List<MythParticipant> participants = new ArrayList<>();
+        for (String destination : destinations) {
+            MythInvocation invocation = new MythInvocation(MythMessageDispatcherTest.class, "payment",
+                    new Class[]{String.class}, new Object[]{destination});
+            participants.add(new MythParticipant("100", destination, 1, invocation));
+        }
+        return participants;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.service.mq;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Description:</p>
+ * 停止时等待mq确认，超时后按发送失败回调.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythPendingConfirmsTest {
+
+    @Test
+    public void returnsOnceEveryMessageIsConfirmed() {
+        final MythPendingConfirms pendingConfirms = new MythPendingConfirms();
+        final long id = pendingConfirms.register("100", "account");
+        Assert.assertEquals(1, pendingConfirms.size());
+
+        new Thread(() -> pendingConfirms.complete(id)).start();
+        final List<String> nacked = new ArrayList<>();
+        Assert.assertEquals(0, pendingConfirms.await(5, TimeUnit.SECONDS, (transId, destination) -> nacked.add(destination)));
+        Assert.assertTrue(nacked.isEmpty());
+        Assert.assertEquals(0, pendingConfirms.size());
+    }
+
+    @Test
+    public void nacksMessagesUnconfirmedAtTheDeadline() {
+        final MythPendingConfirms pendingConfirms = new MythPendingConfirms();
+        final long account = pendingConfirms.register("100", "account");
+        final long inventory = pendingConfirms.register("100", "inventory");
+        Assert.assertTrue(pendingConfirms.complete(account));
+
+        final List<String> nacked = new ArrayList<>();
+        Assert.assertEquals(1, pendingConfirms.await(20, TimeUnit.MILLISECONDS,
+                (transId, destination) -> nacked.add(transId + ":" + destination)));
+        Assert.assertEquals(Collections.singletonList("100:inventory"), nacked);
+
+        //超时后到达的确认被忽略，不再回调协调者
+        Assert.assertFalse(pendingConfirms.complete(inventory));
+        Assert.assertEquals(0, pendingConfirms.size());
+    }
+}
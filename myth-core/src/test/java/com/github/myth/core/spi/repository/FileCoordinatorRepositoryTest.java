@@ -0,0 +1,94 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.spi.repository;
+
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.constant.CommonConstant;
+import com.github.myth.common.enums.MythStatusEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.utils.FileUtils;
+import com.github.myth.common.utils.RepositoryPathUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class FileCoordinatorRepositoryTest {
+
+    private final String modelName = "myth-file-test-" + System.nanoTime();
+
+    private FileCoordinatorRepository repository;
+
+    @Before
+    public void setUp() {
+        repository = new FileCoordinatorRepository();
+        repository.setSerializer(new KryoSerializer());
+        repository.init(modelName, new MythConfig());
+    }
+
+    @After
+    public void tearDown() {
+        final File directory = new File(RepositoryPathUtils.buildFilePath(modelName));
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test(timeout = 10_000)
+    public void createsMoreThanOneTransaction() {
+        Assert.assertEquals(1, repository.create(new MythTransaction("1")));
+        Assert.assertEquals(1, repository.create(new MythTransaction("2")));
+        Assert.assertEquals("1", repository.findByTransId("1").getTransId());
+        Assert.assertEquals("2", repository.findByTransId("2").getTransId());
+    }
+
+    @Test
+    public void rewritesShorterContentsWithoutStaleBytes() throws Exception {
+        final String fileName = RepositoryPathUtils.getFullFileName(
+                RepositoryPathUtils.buildFilePath(modelName), "rewrite");
+        FileUtils.writeFile(fileName, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        FileUtils.writeFile(fileName, new byte[]{9, 9});
+        Assert.assertArrayEquals(new byte[]{9, 9}, Files.readAllBytes(new File(fileName).toPath()));
+        final File[] temps = new File(fileName).getParentFile().listFiles(FileUtils::isTempFile);
+        Assert.assertEquals(0, temps == null ? 0 : temps.length);
+    }
+
+    @Test
+    public void ignoresUpdatesBeforeTheLogIsSaved() {
+        Assert.assertEquals(CommonConstant.ERROR,
+                repository.updateStatus("missing", MythStatusEnum.COMMIT.getCode()));
+        Assert.assertEquals(CommonConstant.ERROR, repository.updateParticipant(new MythTransaction("missing")));
+        Assert.assertNull(repository.findByTransId("missing"));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.core.spi.repository;
+
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.config.MythDbConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * <p>Description:</p>
+ * workerId 按行租用，未过期的租约不会重复租出，过期后可以被其他节点抢占，续约及释放只处理自己租用的.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class JdbcCoordinatorRepositoryTest {
+
+    @Test
+    public void leasesDistinctWorkerIds() {
+        final String url = url();
+        final JdbcCoordinatorRepository first = repository(url, 60);
+        final JdbcCoordinatorRepository second = repository(url, 60);
+
+        Assert.assertEquals(0, first.acquireWorkerId());
+        Assert.assertEquals(1, second.acquireWorkerId());
+        Assert.assertTrue(first.renewWorkerId(0));
+        Assert.assertFalse(second.renewWorkerId(0));
+
+        //只能释放自己租用的
+        second.releaseWorkerId(0);
+        Assert.assertTrue(first.renewWorkerId(0));
+        first.releaseWorkerId(0);
+        Assert.assertEquals(0, second.acquireWorkerId());
+    }
+
+    @Test
+    public void reclaimsExpiredLease() throws Exception {
+        final String url = url();
+        final JdbcCoordinatorRepository first = repository(url, 1);
+        final JdbcCoordinatorRepository second = repository(url, 1);
+
+        Assert.assertEquals(0, first.acquireWorkerId());
+        Thread.sleep(1100);
+        Assert.assertEquals(0, second.acquireWorkerId());
+        Assert.assertFalse(first.renewWorkerId(0));
+    }
+
+    private static String url() {
+        return "jdbc:h2:mem:myth_" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+    }
+
+    private static JdbcCoordinatorRepository repository(String url, int workerIdLease) {
+        final MythDbConfig mythDbConfig = new MythDbConfig();
+        mythDbConfig.setDriverClassName("org.h2.Driver");
+        mythDbConfig.setUrl(url);
+        mythDbConfig.setUsername("sa");
+        mythDbConfig.setPassword("");
+        mythDbConfig.setInitialSize(1);
+        mythDbConfig.setMinIdle(1);
+        final MythConfig mythConfig = new MythConfig();
+        mythConfig.setMythDbConfig(mythDbConfig);
+        mythConfig.setWorkerIdLease(workerIdLease);
+        final JdbcCoordinatorRepository repository = new JdbcCoordinatorRepository();
+        repository.init("myth-jdbc-test", mythConfig);
+        return repository;
+    }
+}
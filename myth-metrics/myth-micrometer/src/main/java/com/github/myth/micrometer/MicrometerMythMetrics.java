@@ -0,0 +1,158 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.micrometer;
+
+import com.github.myth.common.enums.CoordinatorActionEnum;
+import com.github.myth.core.metrics.MythMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * 基于 micrometer 的运行指标，注册为Spring bean后生效.
+ * 使用 prometheus 时传入 PrometheusMeterRegistry 即可：
+ * <pre>
+ * &#64;Bean
+ * public MythMetrics mythMetrics(MeterRegistry meterRegistry) {
+ *     return new MicrometerMythMetrics(meterRegistry);
+ * }
+ * </pre>
+ * 指标：
+ * <ul>
+ * <li>myth.coordinator.queue.depth 协调资源队列深度</li>
+ * <li>myth.coordinator.queue.wait 协调命令队列等待时间，tag：action</li>
+ * <li>myth.coordinator.queue.overflow 协调资源队列已满次数，tag：action、policy</li>
+ * <li>myth.threadpool.rejected 线程池拒绝任务次数，tag：pool、policy</li>
+ * <li>myth.repository.operation 事务日志存储耗时，tag：scheme、operation、outcome</li>
+ * <li>myth.serializer.bytes / myth.serializer.time 序列化字节数及耗时，tag：scheme、operation</li>
+ * <li>myth.mq.send / myth.mq.send.failures mq发送耗时及失败次数，tag：destination</li>
+ * <li>myth.recovery.backlog / myth.recovery.scan 定时恢复待处理数量及扫描耗时</li>
+ * </ul>
+ *
+ * @author xiaoyu
+ */
+public class MicrometerMythMetrics implements MythMetrics {
+
+    private static final String SUCCESS = "success";
+
+    private static final String FAILURE = "failure";
+
+    private final MeterRegistry registry;
+
+    private final AtomicInteger recoveryBacklog = new AtomicInteger();
+
+    private final Timer recoveryScan;
+
+    private volatile IntSupplier coordinatorQueueDepth = () -> 0;
+
+    public MicrometerMythMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        registry.gauge("myth.recovery.backlog", recoveryBacklog);
+        //gauge 只弱引用被观察的对象，绑定的队列深度由本对象持有
+        registry.gauge("myth.coordinator.queue.depth", this, metrics -> metrics.coordinatorQueueDepth.getAsInt());
+        this.recoveryScan = Timer.builder("myth.recovery.scan")
+                .description("定时恢复扫描及重发耗时")
+                .register(registry);
+    }
+
+    @Override
+    public void bindCoordinatorQueue(IntSupplier depth) {
+        this.coordinatorQueueDepth = depth;
+    }
+
+    @Override
+    public void recordCoordinatorOverflow(CoordinatorActionEnum action, String policy) {
+        Counter.builder("myth.coordinator.queue.overflow")
+                .tag("action", action.name())
+                .tag("policy", policy)
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void recordRejected(String pool, String policy) {
+        Counter.builder("myth.threadpool.rejected")
+                .tag("pool", pool)
+                .tag("policy", policy)
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void recordCoordinatorWait(CoordinatorActionEnum action, long nanos) {
+        Timer.builder("myth.coordinator.queue.wait")
+                .tag("action", action.name())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordRepository(String scheme, String operation, long nanos, boolean success) {
+        Timer.builder("myth.repository.operation")
+                .tag("scheme", scheme)
+                .tag("operation", operation)
+                .tag("outcome", success ? SUCCESS : FAILURE)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordSerializer(String scheme, String operation, int bytes, long nanos) {
+        DistributionSummary.builder("myth.serializer.bytes")
+                .baseUnit("bytes")
+                .tag("scheme", scheme)
+                .tag("operation", operation)
+                .register(registry)
+                .record(bytes);
+        Timer.builder("myth.serializer.time")
+                .tag("scheme", scheme)
+                .tag("operation", operation)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordSend(String destination, long nanos) {
+        Timer.builder("myth.mq.send")
+                .tag("destination", destination)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordSendFailure(String destination) {
+        Counter.builder("myth.mq.send.failures")
+                .tag("destination", destination)
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void recordRecoveryScan(int backlog, long nanos) {
+        recoveryBacklog.set(backlog);
+        recoveryScan.record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.micrometer;
+
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.entity.MythTransaction;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.serializer.ObjectSerializer;
+import com.github.myth.core.metrics.MeteredCoordinatorRepository;
+import com.github.myth.core.metrics.MeteredObjectSerializer;
+import com.github.myth.core.metrics.MythMetrics;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythMessageCodec;
+import com.github.myth.core.service.mq.MythMessageDispatcher;
+import com.github.myth.core.spi.CoordinatorRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MicrometerMythMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    private MythMetrics metrics;
+
+    @Before
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new MicrometerMythMetrics(registry);
+    }
+
+    @Test
+    public void coordinatorQueueAndRecovery() {
+        final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        metrics.bindCoordinatorQueue(queue::size);
+        queue.add(new Object());
+        queue.add(new Object());
+        Assert.assertEquals(2, registry.get("myth.coordinator.queue.depth").gauge().value(), 0);
+
+        metrics.recordRecoveryScan(7, TimeUnit.MILLISECONDS.toNanos(5));
+        Assert.assertEquals(7, registry.get("myth.recovery.backlog").gauge().value(), 0);
+        Assert.assertEquals(1, registry.get("myth.recovery.scan").timer().count());
+    }
+
+    @Test
+    public void repositoryLatencyByOperation() {
+        final CoordinatorRepository repository = new MeteredCoordinatorRepository(new FailingRepository(), metrics);
+        repository.create(new MythTransaction());
+        repository.create(new MythTransaction());
+        try {
+            repository.findByTransId("1");
+            Assert.fail();
+        } catch (MythRuntimeException ignore) {
+        }
+        Assert.assertEquals(2, registry.get("myth.repository.operation")
+                .tags("scheme", "test", "operation", "create", "outcome", "success").timer().count());
+        Assert.assertEquals(1, registry.get("myth.repository.operation")
+                .tags("scheme", "test", "operation", "findByTransId", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    public void serializerAndSend() {
+        final ObjectSerializer serializer = new MeteredObjectSerializer(new KryoSerializer(), metrics);
+        MythMqSendService broker = (destination, pattern, message) -> {
+            if ("inventory".equals(destination)) {
+                throw new MythRuntimeException("broker unavailable");
+            }
+        };
+        final List<MythParticipant> failures =
+                new MythMessageDispatcher(new MythMessageCodec(serializer), () -> broker, null, metrics)
+                        .dispatch(Arrays.asList(participant("account"), participant("inventory")));
+
+        Assert.assertEquals(1, failures.size());
+        Assert.assertEquals(1, registry.get("myth.mq.send").tag("destination", "account").timer().count());
+        Assert.assertEquals(1, registry.get("myth.mq.send.failures")
+                .tag("destination", "inventory").counter().count(), 0);
+        Assert.assertEquals(2, registry.get("myth.serializer.bytes")
+                .tags("scheme", "kryo", "operation", "serialize").summary().count());
+        Assert.assertTrue(registry.get("myth.serializer.bytes").summary().totalAmount() > 0);
+    }
+
+    private static MythParticipant participant(String destination) {
+        return new MythParticipant("1", destination, 0,
+                new MythInvocation(String.class, "length", new Class[0], new Object[0]));
+    }
+
+    private static class FailingRepository implements CoordinatorRepository {
+
+        @Override
+        public int create(MythTransaction mythTransaction) {
+            return 1;
+        }
+
+        @Override
+        public int remove(String transId) {
+            return 1;
+        }
+
+        @Override
+        public int update(MythTransaction mythTransaction) {
+            return 1;
+        }
+
+        @Override
+        public int updateParticipant(MythTransaction mythTransaction) {
+            return 1;
+        }
+
+        @Override
+        public int updateStatus(String transId, Integer status) {
+            return 1;
+        }
+
+        @Override
+        public MythTransaction findByTransId(String transId) {
+            throw new MythRuntimeException("database unavailable");
+        }
+
+        @Override
+        public List<MythTransaction> listAllByDelay(Date date) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void init(String modelName, MythConfig mythConfig) {
+        }
+
+        @Override
+        public String getScheme() {
+            return "test";
+        }
+
+        @Override
+        public void setSerializer(ObjectSerializer objectSerializer) {
+        }
+    }
+}
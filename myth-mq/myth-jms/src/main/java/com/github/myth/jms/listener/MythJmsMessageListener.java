@@ -0,0 +1,60 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.github.myth.jms.listener;
+
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.service.MythMqReceiveService;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageListener;
+import java.util.Collections;
+
+/**
+ * <p>Description: myth框架jms(activemq)消费者.</p>
+ * 处理失败时抛出异常，配合事务会话（sessionTransacted）由broker重新投递.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythJmsMessageListener implements MessageListener {
+
+    private MythMqReceiveService mythMqReceiveService;
+
+    public void setMythMqReceiveService(MythMqReceiveService mythMqReceiveService) {
+        this.mythMqReceiveService = mythMqReceiveService;
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        if (!(message instanceof BytesMessage)) {
+            return;
+        }
+        try {
+            final BytesMessage bytesMessage = (BytesMessage) message;
+            byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(body);
+            mythMqReceiveService.processMessages(Collections.singletonList(body));
+        } catch (JMSException e) {
+            throw new MythRuntimeException(e);
+        }
+    }
+}
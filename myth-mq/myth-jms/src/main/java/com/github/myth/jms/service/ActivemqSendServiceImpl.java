@@ -18,19 +18,48 @@
 
 package com.github.myth.jms.service;
 
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.enums.MythDeliveryClassEnum;
+import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
 import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythPendingConfirms;
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.ActiveMQSession;
+import org.apache.activemq.AsyncCallback;
+import org.apache.activemq.ScheduledMessage;
 import org.apache.activemq.command.ActiveMQQueue;
 import org.apache.activemq.command.ActiveMQTopic;
+import org.apache.activemq.jms.pool.PooledConnectionFactory;
+import org.apache.activemq.jms.pool.PooledSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.connection.SessionProxy;
 import org.springframework.jms.core.JmsTemplate;
 
+import javax.jms.BytesMessage;
+import javax.jms.ConnectionFactory;
 import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
-import static com.github.myth.annotation.MessageTypeEnum.P2P;
 import static com.github.myth.annotation.MessageTypeEnum.TOPIC;
 
 /**
  * <p>Description: .</p>
+ * activemq 发送消息服务.
+ * Destination 按模式和名称缓存；可以直接注入 connectionFactory，会包装成连接池（connection/session/producer 复用）；
+ * 带事务id的消息异步发送，broker确认后回调协调者；sessionTransacted 为 true 时每条消息在事务会话中提交后再回调；
+ * 连接池中的每个会话按 Destination 缓存 producer，会话关闭时一起移除，不再每条消息创建、关闭一次 producer；
+ * 定时任务重试的消息以较低优先级发送，首次发送的消息优先被消费.
  *
  * @author xiaoyu(Myth)
  * @version 1.0
@@ -39,13 +68,70 @@ import static com.github.myth.annotation.MessageTypeEnum.TOPIC;
  */
 public class ActivemqSendServiceImpl implements MythMqSendService {
 
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ActivemqSendServiceImpl.class);
+
+    private final ConcurrentMap<String, Destination> destinationCache = new ConcurrentHashMap<>();
+
+    /**
+     * 连接池中会话的 producer，同一个会话同一时间只会被一个线程借出
+     */
+    private final ConcurrentMap<ActiveMQSession, ConcurrentMap<Destination, ActiveMQMessageProducer>> producerCache =
+            new ConcurrentHashMap<>();
 
     private JmsTemplate jmsTemplate;
 
+    private boolean sessionTransacted;
+
+    /**
+     * 重试消息的优先级，首次发送的消息为默认优先级4
+     */
+    private int retryPriority = 2;
+
+    /**
+     * 重试消息的延迟基数 单位毫秒，0 表示不延迟
+     */
+    private long retryDelay;
+
+    private volatile CoordinatorService coordinatorService;
+
+    /**
+     * 异步发送等待broker确认的消息
+     */
+    private final MythPendingConfirms pendingConfirms = new MythPendingConfirms();
+
     public void setJmsTemplate(JmsTemplate jmsTemplate) {
         this.jmsTemplate = jmsTemplate;
     }
 
+    /**
+     * 直接使用连接工厂，未池化的工厂会包装成 {@link PooledConnectionFactory}.
+     *
+     * @param connectionFactory 连接工厂
+     */
+    public void setConnectionFactory(ConnectionFactory connectionFactory) {
+        final JmsTemplate template = new JmsTemplate(buildPooledConnectionFactory(connectionFactory));
+        template.setSessionTransacted(sessionTransacted);
+        this.jmsTemplate = template;
+    }
+
+    public void setRetryPriority(int retryPriority) {
+        this.retryPriority = retryPriority;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    public void setSessionTransacted(boolean sessionTransacted) {
+        this.sessionTransacted = sessionTransacted;
+        if (Objects.nonNull(jmsTemplate)) {
+            jmsTemplate.setSessionTransacted(sessionTransacted);
+        }
+    }
+
 
     /**
      * 发送消息
@@ -56,13 +142,171 @@ public class ActivemqSendServiceImpl implements MythMqSendService {
      */
     @Override
     public void sendMessage(String destination, Integer pattern, byte[] message) {
-        Destination queue = new ActiveMQQueue(destination);
-        if (Objects.equals(P2P.getCode(), pattern)) {
-            queue  = new ActiveMQQueue(destination);
-        } else if (Objects.equals(TOPIC.getCode(), pattern)) {
-            queue  = new ActiveMQTopic(destination);
+        jmsTemplate.convertAndSend(getDestination(destination, pattern), message);
+    }
+
+    /**
+     * 异步发送消息，发送结果回调协调者
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+        send(destination, pattern, transId, message, Message.DEFAULT_PRIORITY, 0);
+    }
+
+    /**
+     * 按投递方式发送消息.
+     * 重试消息使用较低的优先级 retryPriority（broker需要开启 prioritizedMessages），
+     * 配置了 retryDelay 时第n次重试延迟 n * retryDelay 定时投递（broker需要开启 schedulerSupport）.
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     * @param delivery    投递方式
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                            MessageDelivery delivery) {
+        if (delivery.getDeliveryClass() == MythDeliveryClassEnum.RETRY) {
+            send(destination, pattern, transId, message, retryPriority,
+                    retryDelay * Math.max(delivery.getAttempt(), 1));
+        } else {
+            send(destination, pattern, transId, message, Message.DEFAULT_PRIORITY, 0);
+        }
+    }
+
+    private void send(String destination, Integer pattern, String transId, byte[] message,
+                      int priority, long delay) {
+        final Destination target = getDestination(destination, pattern);
+        jmsTemplate.execute(session -> {
+            final BytesMessage bytesMessage = session.createBytesMessage();
+            bytesMessage.writeBytes(message);
+            bytesMessage.setJMSCorrelationID(transId);
+            if (delay > 0) {
+                bytesMessage.setLongProperty(ScheduledMessage.AMQ_SCHEDULED_DELAY, delay);
+            }
+            final ActiveMQSession activeMQSession = unwrapSession(session);
+            if (Objects.isNull(activeMQSession)) {
+                final MessageProducer producer = session.createProducer(target);
+                try {
+                    producer.send(bytesMessage, producer.getDeliveryMode(), priority, producer.getTimeToLive());
+                    if (session.getTransacted()) {
+                        session.commit();
+                    }
+                } finally {
+                    producer.close();
+                }
+                getCoordinatorService().confirmMessage(transId, destination, true);
+                return null;
+            }
+            final ActiveMQMessageProducer producer = getProducer(activeMQSession, target);
+            if (session.getTransacted()) {
+                producer.send(bytesMessage, producer.getDeliveryMode(), priority, producer.getTimeToLive());
+                session.commit();
+                getCoordinatorService().confirmMessage(transId, destination, true);
+                return null;
+            }
+            final long confirmId = pendingConfirms.register(transId, destination);
+            try {
+                producer.send(bytesMessage, producer.getDeliveryMode(), priority, producer.getTimeToLive(),
+                        new AsyncCallback() {
+                            @Override
+                            public void onSuccess() {
+                                if (pendingConfirms.complete(confirmId)) {
+                                    getCoordinatorService().confirmMessage(transId, destination, true);
+                                }
+                            }
+
+                            @Override
+                            public void onException(JMSException e) {
+                                LogUtil.error(LOGGER, "activemq发送消息失败：{}", e::getMessage);
+                                if (pendingConfirms.complete(confirmId)) {
+                                    getCoordinatorService().confirmMessage(transId, destination, false);
+                                }
+                            }
+                        });
+            } catch (JMSException | RuntimeException e) {
+                pendingConfirms.complete(confirmId);
+                throw e;
+            }
+            return null;
+        }, true);
+    }
+
+    /**
+     * 等待异步发送的消息被broker确认，停止时调用；超时仍未确认的消息按发送失败回调协调者.
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     */
+    @Override
+    public void flush(long timeout, TimeUnit unit) {
+        final int expired = pendingConfirms.await(timeout, unit,
+                (transId, destination) -> getCoordinatorService().confirmMessage(transId, destination, false));
+        if (expired > 0) {
+            LogUtil.error(LOGGER, "停止时activemq未确认的消息数量:{}", () -> expired);
+        }
+    }
+
+    /**
+     * 获取会话缓存的 producer，创建时移除已关闭会话的 producer.
+     *
+     * @param session 会话
+     * @param target  Destination
+     * @return ActiveMQMessageProducer
+     * @throws JMSException 创建失败
+     */
+    private ActiveMQMessageProducer getProducer(ActiveMQSession session, Destination target) throws JMSException {
+        final ConcurrentMap<Destination, ActiveMQMessageProducer> producers = producerCache.get(session);
+        final ActiveMQMessageProducer producer = Objects.isNull(producers) ? null : producers.get(target);
+        if (Objects.nonNull(producer)) {
+            return producer;
+        }
+        producerCache.keySet().removeIf(ActiveMQSession::isClosed);
+        final ActiveMQMessageProducer created = (ActiveMQMessageProducer) session.createProducer(target);
+        producerCache.computeIfAbsent(session, key -> new ConcurrentHashMap<>()).put(target, created);
+        return created;
+    }
+
+    private Destination getDestination(String destination, Integer pattern) {
+        if (Objects.equals(TOPIC.getCode(), pattern)) {
+            return destinationCache.computeIfAbsent("topic://" + destination, key -> new ActiveMQTopic(destination));
+        }
+        return destinationCache.computeIfAbsent("queue://" + destination, key -> new ActiveMQQueue(destination));
+    }
+
+    private static ActiveMQSession unwrapSession(Session session) throws JMSException {
+        Session target = session;
+        if (target instanceof SessionProxy) {
+            target = ((SessionProxy) target).getTargetSession();
+        }
+        if (target instanceof PooledSession) {
+            target = ((PooledSession) target).getInternalSession();
+        }
+        return target instanceof ActiveMQSession ? (ActiveMQSession) target : null;
+    }
+
+    private static ConnectionFactory buildPooledConnectionFactory(ConnectionFactory connectionFactory) {
+        if (connectionFactory instanceof PooledConnectionFactory
+                || connectionFactory instanceof CachingConnectionFactory) {
+            return connectionFactory;
+        }
+        final PooledConnectionFactory pooledConnectionFactory = new PooledConnectionFactory();
+        pooledConnectionFactory.setConnectionFactory(connectionFactory);
+        pooledConnectionFactory.start();
+        return pooledConnectionFactory;
+    }
+
+    private CoordinatorService getCoordinatorService() {
+        if (Objects.isNull(coordinatorService)) {
+            coordinatorService = SpringBeanUtils.getInstance().getBean(CoordinatorService.class);
         }
-        jmsTemplate.convertAndSend(queue , message);
+        return coordinatorService;
     }
 
 }
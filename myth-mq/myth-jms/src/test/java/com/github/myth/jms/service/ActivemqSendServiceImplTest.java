@@ -0,0 +1,122 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.jms.service;
+
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerPlugin;
+import org.apache.activemq.broker.BrokerFilter;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.ConnectionContext;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ProducerInfo;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+
+import javax.jms.Connection;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * <p>Description:</p>
+ * 嵌入式 vm:// broker：异步发送的结果回调协调者，同一会话同一 Destination 只创建一次 producer.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class ActivemqSendServiceImplTest {
+
+    private static final String BROKER_URL = "vm://myth-test?create=false";
+
+    private final CoordinatorService coordinatorService = mock(CoordinatorService.class);
+
+    private final AtomicInteger producers = new AtomicInteger();
+
+    private BrokerService broker;
+
+    private GenericApplicationContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        broker = new BrokerService();
+        broker.setBrokerName("myth-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setPlugins(new BrokerPlugin[]{next -> new BrokerFilter(next) {
+            @Override
+            public void addProducer(ConnectionContext context, ProducerInfo info) throws Exception {
+                producers.incrementAndGet();
+                super.addProducer(context, info);
+            }
+        }});
+        broker.start();
+        broker.waitUntilStarted();
+
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("coordinatorService", coordinatorService);
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        context.close();
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+
+    @Test
+    public void reusesProducerAndConfirmsAsyncSends() throws Exception {
+        final ActivemqSendServiceImpl sendService = new ActivemqSendServiceImpl();
+        sendService.setConnectionFactory(new ActiveMQConnectionFactory(BROKER_URL));
+
+        for (int i = 0; i < 3; i++) {
+            sendService.sendMessage("account", null, "t" + i, new byte[]{(byte) i});
+        }
+
+        for (int i = 0; i < 3; i++) {
+            verify(coordinatorService, timeout(5000)).confirmMessage("t" + i, "account", true);
+        }
+        Assert.assertEquals(1, producers.get());
+
+        final Connection connection = new ActiveMQConnectionFactory(BROKER_URL).createConnection();
+        try {
+            connection.start();
+            final Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            final MessageConsumer consumer = session.createConsumer(new ActiveMQQueue("account"));
+            for (int i = 0; i < 3; i++) {
+                final Message message = consumer.receive(5000);
+                Assert.assertNotNull(message);
+                Assert.assertEquals("t" + i, message.getJMSCorrelationID());
+            }
+        } finally {
+            connection.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.myth.kafka.listener;
+
+import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.service.MythMqReceiveService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Description: myth框架kafka批量消费者.</p>
+ * 容器需要开启批量监听（batchListener）并且使用 AckMode.MANUAL 或 MANUAL_IMMEDIATE，
+ * 整批消息处理成功后才提交offset，处理失败时抛出异常，整批重新消费，已处理成功的事务会被跳过.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythKafkaBatchListener implements BatchAcknowledgingMessageListener<String, byte[]> {
+
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MythKafkaBatchListener.class);
+
+    private MythMqReceiveService mythMqReceiveService;
+
+    public void setMythMqReceiveService(MythMqReceiveService mythMqReceiveService) {
+        this.mythMqReceiveService = mythMqReceiveService;
+    }
+
+    /**
+     * 批量处理消息
+     *
+     * @param records        消息集合
+     * @param acknowledgment 手动提交offset
+     */
+    @Override
+    public void onMessage(List<ConsumerRecord<String, byte[]>> records, Acknowledgment acknowledgment) {
+        final List<byte[]> messages = records.stream()
+                .map(ConsumerRecord::value)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        LogUtil.debug(LOGGER, "接收到Myth分布式框架消息数量：{}", messages::size);
+        mythMqReceiveService.processMessages(messages);
+        if (Objects.nonNull(acknowledgment)) {
+            acknowledgment.acknowledge();
+        }
+    }
+}
@@ -1,15 +1,38 @@
 package com.github.myth.kafka.service;
 
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.config.MythConfig;
+import com.github.myth.common.config.MythKafkaConfig;
+import com.github.myth.common.enums.MythDeliveryClassEnum;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
 import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythPendingConfirms;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
-
-import static com.github.myth.annotation.MessageTypeEnum.P2P;
-import static com.github.myth.annotation.MessageTypeEnum.TOPIC;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>Description: .</p>
+ * 消息以事务id作为key，同一事务的消息进入同一个分区，可以按顺序消费；
+ * 发送结果异步回调给协调者，发送失败时由定时任务重新发送；
+ * 定时任务重试的消息可以发送到单独的重试主题 {@link #setRetryTopicSuffix(String)}，不影响首次发送消息的消费.
+ * 未注入 KafkaTemplate 时，根据 {@linkplain MythConfig#getMythKafkaConfig()} 创建生产者.
  *
  * @author xiaoyu(Myth)
  * @version 1.0
@@ -18,13 +41,30 @@ import static com.github.myth.annotation.MessageTypeEnum.TOPIC;
  */
 public class KafkaSendServiceImpl implements MythMqSendService {
 
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(KafkaSendServiceImpl.class);
+
+    private volatile KafkaTemplate kafkaTemplate;
+
+    private volatile CoordinatorService coordinatorService;
+
+    private final MythPendingConfirms pendingConfirms = new MythPendingConfirms();
 
-    private KafkaTemplate kafkaTemplate;
+    /**
+     * 重试主题后缀，消费端需要同时订阅重试主题
+     */
+    private String retryTopicSuffix;
 
     public void setKafkaTemplate(KafkaTemplate kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
     }
 
+    public void setRetryTopicSuffix(String retryTopicSuffix) {
+        this.retryTopicSuffix = retryTopicSuffix;
+    }
+
     /**
      * 发送消息
      *
@@ -35,7 +75,136 @@ public class KafkaSendServiceImpl implements MythMqSendService {
     @Override
     @SuppressWarnings("unchecked")
     public void sendMessage(String destination, Integer pattern, byte[] message) {
-        kafkaTemplate.send(destination, message);
+        getKafkaTemplate().send(destination, message);
+    }
+
+    /**
+     * 发送消息，以事务id为key
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+        send(destination, destination, transId, message);
+    }
 
+    /**
+     * 按投递方式发送消息.
+     * 重试消息发送到 destination + retryTopicSuffix 主题（未配置时发送到原主题）.
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     * @param delivery    投递方式
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                            MessageDelivery delivery) {
+        if (delivery.getDeliveryClass() == MythDeliveryClassEnum.RETRY && StringUtils.isNotBlank(retryTopicSuffix)) {
+            send(destination + retryTopicSuffix, destination, transId, message);
+            return;
+        }
+        send(destination, destination, transId, message);
+    }
+
+    /**
+     * 发送生产者缓冲区中的消息，停止时调用；超时仍未确认的消息按发送失败回调协调者.
+     * KafkaProducer.flush 本身没有超时，由生产者的 request.timeout.ms 限制.
+     */
+    @Override
+    public void flush(long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (kafkaTemplate != null) {
+            kafkaTemplate.flush();
+        }
+        final int expired = pendingConfirms.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS,
+                (transId, destination) -> getCoordinatorService().confirmMessage(transId, destination, false));
+        if (expired > 0) {
+            LogUtil.error(LOGGER, "停止时kafka未确认的消息数量:{}", () -> expired);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void send(String topic, String destination, String transId, byte[] message) {
+        final long confirmId = pendingConfirms.register(transId, destination);
+        final ListenableFuture<SendResult> future;
+        try {
+            future = getKafkaTemplate().send(topic, transId, message);
+        } catch (RuntimeException e) {
+            pendingConfirms.complete(confirmId);
+            throw e;
+        }
+        future.addCallback(new ListenableFutureCallback<SendResult>() {
+            @Override
+            public void onSuccess(SendResult result) {
+                if (pendingConfirms.complete(confirmId)) {
+                    getCoordinatorService().confirmMessage(transId, destination, true);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable ex) {
+                LogUtil.error(LOGGER, "kafka发送消息失败：{}", ex::getMessage);
+                if (pendingConfirms.complete(confirmId)) {
+                    getCoordinatorService().confirmMessage(transId, destination, false);
+                }
+            }
+        });
+    }
+
+    private KafkaTemplate getKafkaTemplate() {
+        if (Objects.isNull(kafkaTemplate)) {
+            synchronized (this) {
+                if (Objects.isNull(kafkaTemplate)) {
+                    kafkaTemplate = buildKafkaTemplate();
+                }
+            }
+        }
+        return kafkaTemplate;
+    }
+
+    private CoordinatorService getCoordinatorService() {
+        if (Objects.isNull(coordinatorService)) {
+            coordinatorService = SpringBeanUtils.getInstance().getBean(CoordinatorService.class);
+        }
+        return coordinatorService;
+    }
+
+    private KafkaTemplate<String, byte[]> buildKafkaTemplate() {
+        final MythKafkaConfig mythKafkaConfig =
+                SpringBeanUtils.getInstance().getBean(MythConfig.class).getMythKafkaConfig();
+        if (Objects.isNull(mythKafkaConfig)) {
+            throw new MythRuntimeException("kafkaTemplate or mythKafkaConfig must be configured!");
+        }
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(buildProducerConfig(mythKafkaConfig)));
+    }
+
+    /**
+     * 根据配置构建生产者参数
+     *
+     * @param mythKafkaConfig kafka配置
+     * @return 生产者参数
+     */
+    public static Map<String, Object> buildProducerConfig(MythKafkaConfig mythKafkaConfig) {
+        Map<String, Object> props = new HashMap<>(16);
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, mythKafkaConfig.getBootstrapServers());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, mythKafkaConfig.getLingerMs());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, mythKafkaConfig.getBatchSize());
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, mythKafkaConfig.getCompressionType());
+        props.put(ProducerConfig.ACKS_CONFIG, mythKafkaConfig.getAcks());
+        props.put(ProducerConfig.RETRIES_CONFIG, mythKafkaConfig.getRetries());
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
+                mythKafkaConfig.getMaxInFlightRequestsPerConnection());
+        if (mythKafkaConfig.getEnableIdempotence()) {
+            //kafka-clients 0.11 及以上支持，低版本会忽略该参数
+            props.put("enable.idempotence", true);
+        }
+        return props;
     }
 }
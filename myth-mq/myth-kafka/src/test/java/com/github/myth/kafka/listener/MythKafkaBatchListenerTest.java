@@ -0,0 +1,73 @@
+package com.github.myth.kafka.listener;
+
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.service.MythMqReceiveService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythKafkaBatchListenerTest {
+
+    private final List<List<byte[]>> batches = new ArrayList<>();
+
+    private final AtomicInteger acknowledged = new AtomicInteger();
+
+    @Test
+    public void acknowledgesOnceTheWholeBatchIsProcessed() {
+        final MythKafkaBatchListener listener = listener(false);
+        listener.onMessage(Arrays.asList(record(0, new byte[]{1}), record(1, null), record(2, new byte[]{2})),
+                acknowledged::incrementAndGet);
+
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(2, batches.get(0).size());
+        Assert.assertEquals(1, acknowledged.get());
+    }
+
+    @Test
+    public void leavesTheBatchUncommittedWhenProcessingFails() {
+        final MythKafkaBatchListener listener = listener(true);
+        try {
+            listener.onMessage(Arrays.asList(record(0, new byte[]{1}), record(1, new byte[]{2})),
+                    acknowledged::incrementAndGet);
+            Assert.fail("batch failure should reach the container");
+        } catch (MythRuntimeException expected) {
+            Assert.assertEquals(0, acknowledged.get());
+        }
+    }
+
+    private MythKafkaBatchListener listener(boolean failing) {
+        final MythKafkaBatchListener listener = new MythKafkaBatchListener();
+        listener.setMythMqReceiveService(new MythMqReceiveService() {
+            @Override
+            public Boolean processMessage(byte[] message) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Boolean processMessages(List<byte[]> messages) {
+                batches.add(messages);
+                if (failing) {
+                    throw new MythRuntimeException("participant failed");
+                }
+                return Boolean.TRUE;
+            }
+        });
+        return listener;
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, byte[] value) {
+        return new ConsumerRecord<>("account", 0, offset, null, value);
+    }
+}
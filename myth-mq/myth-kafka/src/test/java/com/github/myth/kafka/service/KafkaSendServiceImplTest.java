@@ -0,0 +1,124 @@
+package com.github.myth.kafka.service;
+
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.config.MythKafkaConfig;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+/**
+ * <p>Description:</p>
+ * 消息以事务id为key发送，broker的发送结果回调给协调者，重试消息发送到重试主题.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class KafkaSendServiceImplTest {
+
+    private static final byte[] MESSAGE = {1, 2, 3};
+
+    private final CoordinatorService coordinatorService = mock(CoordinatorService.class);
+
+    /**
+     * 手动完成发送结果；flush 不完成未确认的消息，模拟broker在停止时没有应答
+     */
+    private final MockProducer<String, byte[]> producer =
+            new MockProducer<String, byte[]>(false, new StringSerializer(), new ByteArraySerializer()) {
+                @Override
+                public synchronized void flush() {
+                }
+            };
+
+    private final KafkaSendServiceImpl sendService = new KafkaSendServiceImpl();
+
+    private GenericApplicationContext context;
+
+    @Before
+    public void setUp() {
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("coordinatorService", coordinatorService);
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+        sendService.setKafkaTemplate(new KafkaTemplate<>(() -> producer));
+        sendService.setRetryTopicSuffix("-retry");
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void sendsKeyedByTransIdAndConfirmsTheAck() {
+        sendService.sendMessage("account", 1, "t1", MESSAGE, MessageDelivery.fresh());
+
+        final ProducerRecord<String, byte[]> record = producer.history().get(0);
+        Assert.assertEquals("account", record.topic());
+        Assert.assertEquals("t1", record.key());
+        Assert.assertArrayEquals(MESSAGE, record.value());
+        verifyZeroInteractions(coordinatorService);
+
+        producer.completeNext();
+
+        verify(coordinatorService).confirmMessage("t1", "account", true);
+    }
+
+    @Test
+    public void reportsABrokerFailureAgainstTheOriginalDestination() {
+        sendService.sendMessage("account", 1, "t2", MESSAGE, MessageDelivery.retry(2));
+
+        Assert.assertEquals("account-retry", producer.history().get(0).topic());
+        Assert.assertEquals("t2", producer.history().get(0).key());
+
+        producer.errorNext(new TimeoutException("broker unavailable"));
+
+        verify(coordinatorService).confirmMessage("t2", "account", false);
+        verify(coordinatorService, never()).confirmMessage("t2", "account", true);
+    }
+
+    @Test
+    public void flushReportsUnconfirmedMessagesAsFailed() {
+        sendService.sendMessage("inventory", 1, "t3", MESSAGE, MessageDelivery.fresh());
+
+        sendService.flush(50, TimeUnit.MILLISECONDS);
+
+        verify(coordinatorService).confirmMessage("t3", "inventory", false);
+        //停止后才到达的确认不再重复回调
+        producer.completeNext();
+        verify(coordinatorService, never()).confirmMessage("t3", "inventory", true);
+    }
+
+    @Test
+    public void defaultProducerConfigFavoursDurabilityAndOrder() {
+        final MythKafkaConfig mythKafkaConfig = new MythKafkaConfig();
+        mythKafkaConfig.setBootstrapServers("localhost:9092");
+
+        final Map<String, Object> props = KafkaSendServiceImpl.buildProducerConfig(mythKafkaConfig);
+
+        Assert.assertEquals("all", props.get(ProducerConfig.ACKS_CONFIG));
+        Assert.assertEquals(3, props.get(ProducerConfig.RETRIES_CONFIG));
+        Assert.assertEquals(1, props.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION));
+        Assert.assertEquals("lz4", props.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        Assert.assertFalse(props.containsKey("enable.idempotence"));
+    }
+}
@@ -0,0 +1,30 @@
+package com.github.myth.rabbitmq.listener;
+
+import com.github.myth.core.service.MythMqReceiveService;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageListener;
+
+import java.util.Collections;
+
+/**
+ * <p>Description: myth框架rabbitmq消费者.</p>
+ * 处理失败时抛出异常，由容器拒绝并重新投递；
+ * 在 SimpleMessageListenerContainer 上设置 txSize 即可每N条消息批量确认一次.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythRabbitmqMessageListener implements MessageListener {
+
+    private MythMqReceiveService mythMqReceiveService;
+
+    public void setMythMqReceiveService(MythMqReceiveService mythMqReceiveService) {
+        this.mythMqReceiveService = mythMqReceiveService;
+    }
+
+    @Override
+    public void onMessage(Message message) {
+        mythMqReceiveService.processMessages(Collections.singletonList(message.getBody()));
+    }
+}
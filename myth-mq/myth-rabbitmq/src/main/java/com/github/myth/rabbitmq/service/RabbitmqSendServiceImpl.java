@@ -1,16 +1,38 @@
 package com.github.myth.rabbitmq.service;
 
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.enums.MythDeliveryClassEnum;
 import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.concurrent.threadpool.MythTransactionThreadFactory;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
 import com.github.myth.core.service.MythMqSendService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.support.CorrelationData;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * <p>Description: .</p>
  *  Rabbitmq 发生消息服务
+ *  连接工厂开启 publisher-confirms 时（CachingConnectionFactory 缓存的channel即为confirm模式的channel池），
+ *  每条消息携带包含事务id的correlationId，broker异步确认后回调协调者，
+ *  nack 的消息按退避时间自动重发，超过重发次数后交给定时任务恢复；
+ *  定时任务重试的消息经过 TTL/死信 延迟队列再投递，不与首次发送的消息竞争.
  * @author xiaoyu(Myth)
  * @version 1.0
  * @date 2017/12/7 15:29
@@ -21,10 +43,79 @@ public class RabbitmqSendServiceImpl implements MythMqSendService,RabbitTemplate
     /** logger */
     private static final Logger LOGGER = LoggerFactory.getLogger(RabbitmqSendServiceImpl.class);
 
+    private static final String CORRELATION_SEPARATOR = ":";
+
+    private static final String DEFAULT_EXCHANGE = "";
+
+    private static final String DELAY_QUEUE_INFIX = ".delay.";
+
+    private static final long FLUSH_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
     private AmqpTemplate amqpTemplate;
 
+    /**
+     * 是否开启了 publisher confirms
+     */
+    private boolean confirmEnabled;
+
+    /**
+     * nack后最大重发次数
+     */
+    private int maxResend = 3;
+
+    /**
+     * 重发退避时间 单位毫秒，第n次重发等待 n * resendDelay
+     */
+    private long resendDelay = 1000;
+
+    /**
+     * 延迟队列的档位 单位毫秒，为空时重试消息直接发送
+     */
+    private long[] delayTtls = {1000, 5000, 30000, 60000, 300000, 1800000};
+
+    /**
+     * 已声明的延迟队列
+     */
+    private final ConcurrentMap<String, Boolean> declaredQueues = new ConcurrentHashMap<>();
+
+    /**
+     * 等待broker确认的消息
+     */
+    private final ConcurrentMap<String, PendingMessage> pendingMessages = new ConcurrentHashMap<>();
+
+    /**
+     * nack后等待重发的消息，重发任务与停止时的超时处理只有先移除的一方处理
+     */
+    private final Set<PendingMessage> resendingMessages = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private volatile ScheduledExecutorService resendExecutor;
+
+    private volatile CoordinatorService coordinatorService;
+
     public void setAmqpTemplate(AmqpTemplate amqpTemplate) {
         this.amqpTemplate = amqpTemplate;
+        if (amqpTemplate instanceof RabbitTemplate) {
+            final RabbitTemplate rabbitTemplate = (RabbitTemplate) amqpTemplate;
+            if (rabbitTemplate.getConnectionFactory() instanceof CachingConnectionFactory
+                    && ((CachingConnectionFactory) rabbitTemplate.getConnectionFactory()).isPublisherConfirms()) {
+                rabbitTemplate.setConfirmCallback(this);
+                confirmEnabled = true;
+            }
+        }
+    }
+
+    public void setMaxResend(int maxResend) {
+        this.maxResend = maxResend;
+    }
+
+    public void setResendDelay(long resendDelay) {
+        this.resendDelay = resendDelay;
+    }
+
+    public void setDelayTtls(long[] delayTtls) {
+        this.delayTtls = delayTtls;
     }
 
     /**
@@ -39,6 +130,88 @@ public class RabbitmqSendServiceImpl implements MythMqSendService,RabbitTemplate
         amqpTemplate.convertAndSend(destination, message);
     }
 
+    /**
+     * 发送消息，correlationId 携带事务id
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+        if (!confirmEnabled) {
+            sendMessage(destination, pattern, message);
+            return;
+        }
+        publish(new PendingMessage(((RabbitTemplate) amqpTemplate).getExchange(), destination,
+                destination, transId, message));
+    }
+
+    /**
+     * 按投递方式发送消息.
+     * 重试消息先发送到 TTL 延迟队列 destination.delay.ttl，过期后经死信交换机转发到 destination，
+     * 第n次重试使用第n档延迟（最长为最后一档）.
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     * @param delivery    投递方式
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                            MessageDelivery delivery) {
+        final long ttl = acquireDelayTtl(delivery);
+        if (ttl <= 0 || !(amqpTemplate instanceof RabbitTemplate)) {
+            sendMessage(destination, pattern, transId, message);
+            return;
+        }
+        final String delayQueue = declareDelayQueue(destination, ttl);
+        if (!confirmEnabled) {
+            amqpTemplate.convertAndSend(DEFAULT_EXCHANGE, delayQueue, message);
+            return;
+        }
+        publish(new PendingMessage(DEFAULT_EXCHANGE, delayQueue, destination, transId, message));
+    }
+
+    private long acquireDelayTtl(MessageDelivery delivery) {
+        if (delayTtls.length == 0 || delivery.getDeliveryClass() != MythDeliveryClassEnum.RETRY) {
+            return 0;
+        }
+        return delayTtls[Math.min(Math.max(delivery.getAttempt(), 1), delayTtls.length) - 1];
+    }
+
+    private String declareDelayQueue(String destination, long ttl) {
+        final String delayQueue = destination + DELAY_QUEUE_INFIX + ttl;
+        //声明失败时不会缓存，下次发送重新声明
+        declaredQueues.computeIfAbsent(delayQueue, key -> {
+            Map<String, Object> arguments = new HashMap<>(4);
+            arguments.put("x-message-ttl", ttl);
+            arguments.put("x-dead-letter-exchange", ((RabbitTemplate) amqpTemplate).getExchange());
+            arguments.put("x-dead-letter-routing-key", destination);
+            ((RabbitTemplate) amqpTemplate).execute(channel ->
+                    channel.queueDeclare(delayQueue, true, false, false, arguments));
+            return Boolean.TRUE;
+        });
+        return delayQueue;
+    }
+
+    private void publish(PendingMessage pendingMessage) {
+        final String correlationId = pendingMessage.transId + CORRELATION_SEPARATOR + sequence.incrementAndGet();
+        pendingMessages.put(correlationId, pendingMessage);
+        try {
+            ((RabbitTemplate) amqpTemplate).convertAndSend(pendingMessage.exchange, pendingMessage.routingKey,
+                    pendingMessage.message,
+                    msg -> {
+                        msg.getMessageProperties().setMessageId(pendingMessage.transId);
+                        return msg;
+                    }, new CorrelationData(correlationId));
+        } catch (RuntimeException e) {
+            pendingMessages.remove(correlationId);
+            throw e;
+        }
+    }
 
 
     /**
@@ -51,11 +224,113 @@ public class RabbitmqSendServiceImpl implements MythMqSendService,RabbitTemplate
      */
     @Override
     public void confirm(CorrelationData correlationData, boolean ack, String cause) {
+        if (Objects.isNull(correlationData)) {
+            return;
+        }
+        final PendingMessage pendingMessage = pendingMessages.remove(correlationData.getId());
+        if (Objects.isNull(pendingMessage)) {
+            return;
+        }
         if (ack) {
-            LogUtil.info(LOGGER,()->"消息成功发送！");
-        } else {
-            LogUtil.info(LOGGER,()->"消息发送失败！" + cause+"\n重新发送");
+            getCoordinatorService().confirmMessage(pendingMessage.transId, pendingMessage.destination, true);
+            return;
+        }
+        final int attempts = ++pendingMessage.attempts;
+        if (attempts > maxResend) {
+            LogUtil.error(LOGGER, "消息发送失败,超过最大重发次数：{}", () -> cause);
+            getCoordinatorService().confirmMessage(pendingMessage.transId, pendingMessage.destination, false);
+            return;
+        }
+        LogUtil.info(LOGGER, () -> "消息发送失败！" + cause + "\n重新发送,第" + attempts + "次");
+        resendingMessages.add(pendingMessage);
+        getResendExecutor().schedule(() -> {
+            if (!resendingMessages.remove(pendingMessage)) {
+                return;
+            }
+            try {
+                publish(pendingMessage);
+            } catch (Exception e) {
+                LogUtil.error(LOGGER, "消息重新发送失败：{}", e::getMessage);
+                getCoordinatorService().confirmMessage(pendingMessage.transId, pendingMessage.destination, false);
+            }
+        }, attempts * resendDelay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 等待broker确认及nack后的重发，停止时调用；超时仍未确认或者等待重发的消息按发送失败回调协调者.
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     */
+    @Override
+    public void flush(long timeout, TimeUnit unit) {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while ((!pendingMessages.isEmpty() || !resendingMessages.isEmpty()) && deadline - System.nanoTime() > 0) {
+            LockSupport.parkNanos(Math.min(FLUSH_PARK_NANOS, deadline - System.nanoTime()));
+        }
+        int expired = 0;
+        for (PendingMessage pendingMessage : resendingMessages) {
+            if (resendingMessages.remove(pendingMessage)) {
+                getCoordinatorService().confirmMessage(pendingMessage.transId, pendingMessage.destination, false);
+                expired++;
+            }
+        }
+        for (String correlationId : pendingMessages.keySet()) {
+            final PendingMessage pendingMessage = pendingMessages.remove(correlationId);
+            if (Objects.nonNull(pendingMessage)) {
+                getCoordinatorService().confirmMessage(pendingMessage.transId, pendingMessage.destination, false);
+                expired++;
+            }
+        }
+        if (expired > 0) {
+            final int count = expired;
+            LogUtil.error(LOGGER, "停止时rabbitmq未确认的消息数量:{}", () -> count);
+        }
+    }
+
+    private ScheduledExecutorService getResendExecutor() {
+        if (Objects.isNull(resendExecutor)) {
+            synchronized (this) {
+                if (Objects.isNull(resendExecutor)) {
+                    resendExecutor = new ScheduledThreadPoolExecutor(1,
+                            MythTransactionThreadFactory.create("rabbitmqResend", true));
+                }
+            }
+        }
+        return resendExecutor;
+    }
+
+    private CoordinatorService getCoordinatorService() {
+        if (Objects.isNull(coordinatorService)) {
+            coordinatorService = SpringBeanUtils.getInstance().getBean(CoordinatorService.class);
+        }
+        return coordinatorService;
+    }
+
+    /**
+     * 等待确认的消息
+     */
+    private static final class PendingMessage {
+
+        private final String exchange;
+
+        private final String routingKey;
+
+        private final String destination;
+
+        private final String transId;
+
+        private final byte[] message;
+
+        private volatile int attempts;
 
+        private PendingMessage(String exchange, String routingKey, String destination,
+                               String transId, byte[] message) {
+            this.exchange = exchange;
+            this.routingKey = routingKey;
+            this.destination = destination;
+            this.transId = transId;
+            this.message = message;
         }
     }
 }
@@ -0,0 +1,163 @@
+package com.github.myth.rabbitmq.service;
+
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>Description:</p>
+ * publisher confirms：按 correlationId 回调协调者，nack 按退避时间重发，超过重发次数后回调发送失败.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class RabbitmqSendServiceImplTest {
+
+    private static final long RESEND_DELAY = 100;
+
+    private static final byte[] MESSAGE = {1, 2, 3};
+
+    private final CoordinatorService coordinatorService = mock(CoordinatorService.class);
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+
+    private final List<Long> publishTimes = new CopyOnWriteArrayList<>();
+
+    private final RabbitmqSendServiceImpl sendService = new RabbitmqSendServiceImpl();
+
+    private GenericApplicationContext context;
+
+    @Before
+    public void setUp() {
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("coordinatorService", coordinatorService);
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+
+        final CachingConnectionFactory connectionFactory = new CachingConnectionFactory();
+        connectionFactory.setPublisherConfirms(true);
+        when(rabbitTemplate.getConnectionFactory()).thenReturn(connectionFactory);
+        when(rabbitTemplate.getExchange()).thenReturn("");
+        doAnswer(invocation -> {
+            publishTimes.add(System.nanoTime());
+            return null;
+        }).when(rabbitTemplate).convertAndSend(anyString(), anyString(), any(), any(MessagePostProcessor.class),
+                any(CorrelationData.class));
+        sendService.setAmqpTemplate(rabbitTemplate);
+        sendService.setResendDelay(RESEND_DELAY);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void confirmsByCorrelationId() {
+        sendService.sendMessage("account", null, "t1", MESSAGE);
+        sendService.sendMessage("inventory", null, "t1", MESSAGE);
+        final List<CorrelationData> correlations = publishedCorrelations(2);
+        Assert.assertNotEquals(correlations.get(0).getId(), correlations.get(1).getId());
+        Assert.assertTrue(correlations.get(0).getId().startsWith("t1:"));
+
+        sendService.confirm(correlations.get(1), true, null);
+        verify(coordinatorService).confirmMessage("t1", "inventory", true);
+
+        //重复或者未知的确认忽略
+        sendService.confirm(correlations.get(1), true, null);
+        sendService.confirm(new CorrelationData("t9:1"), false, "unknown");
+        sendService.confirm(null, true, null);
+        verify(coordinatorService, times(1)).confirmMessage(anyString(), anyString(), anyBoolean());
+    }
+
+    @Test
+    public void resendsNackAfterAttemptsTimesDelay() {
+        sendService.sendMessage("account", null, "t2", MESSAGE);
+        sendService.confirm(publishedCorrelations(1).get(0), false, "nack");
+        sendService.confirm(publishedCorrelations(2).get(1), false, "nack");
+        final List<CorrelationData> correlations = publishedCorrelations(3);
+
+        //第n次重发等待 n * resendDelay
+        Assert.assertTrue(publishTimes.get(1) - publishTimes.get(0) >= TimeUnit.MILLISECONDS.toNanos(RESEND_DELAY));
+        Assert.assertTrue(publishTimes.get(2) - publishTimes.get(1)
+                >= TimeUnit.MILLISECONDS.toNanos(2 * RESEND_DELAY));
+        Assert.assertEquals(3, correlations.stream().map(CorrelationData::getId).distinct().count());
+
+        sendService.confirm(correlations.get(2), true, null);
+        verify(coordinatorService).confirmMessage("t2", "account", true);
+        verify(coordinatorService, never()).confirmMessage("t2", "account", false);
+    }
+
+    @Test
+    public void reportsFailureAfterMaxResend() {
+        sendService.setMaxResend(1);
+        sendService.sendMessage("account", null, "t3", MESSAGE);
+        sendService.confirm(publishedCorrelations(1).get(0), false, "nack");
+        sendService.confirm(publishedCorrelations(2).get(1), false, "nack");
+
+        verify(coordinatorService).confirmMessage("t3", "account", false);
+        verify(rabbitTemplate, times(2)).convertAndSend(eq(""), eq("account"), eq(MESSAGE),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+    }
+
+    @Test
+    public void flushReportsUnconfirmedMessagesAsFailed() {
+        sendService.sendMessage("account", null, "t4", MESSAGE);
+        sendService.sendMessage("inventory", null, "t4", MESSAGE);
+        sendService.sendMessage("order", null, "t4", MESSAGE);
+        final List<CorrelationData> correlations = publishedCorrelations(3);
+        sendService.confirm(correlations.get(0), true, null);
+        sendService.confirm(correlations.get(2), false, "nack");
+
+        //inventory 未确认，order 等待重发，超时后都按发送失败回调
+        sendService.flush(20, TimeUnit.MILLISECONDS);
+        verify(coordinatorService).confirmMessage("t4", "account", true);
+        verify(coordinatorService).confirmMessage("t4", "inventory", false);
+        verify(coordinatorService).confirmMessage("t4", "order", false);
+
+        //超时后到达的确认及重发任务被忽略
+        sendService.confirm(correlations.get(1), true, null);
+        verify(rabbitTemplate, after((int) (2 * RESEND_DELAY)).times(3)).convertAndSend(anyString(), anyString(), any(),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+        verify(coordinatorService, times(3)).confirmMessage(anyString(), anyString(), anyBoolean());
+    }
+
+    /**
+     * 等待发送了 count 条消息，返回每次发送的 correlationData.
+     */
+    private List<CorrelationData> publishedCorrelations(int count) {
+        verify(rabbitTemplate, timeout(5000).times(count)).convertAndSend(anyString(), anyString(), any(),
+                any(MessagePostProcessor.class), any(CorrelationData.class));
+        final ArgumentCaptor<CorrelationData> captor = ArgumentCaptor.forClass(CorrelationData.class);
+        verify(rabbitTemplate, times(count)).convertAndSend(anyString(), anyString(), any(),
+                any(MessagePostProcessor.class), captor.capture());
+        return captor.getAllValues();
+    }
+}
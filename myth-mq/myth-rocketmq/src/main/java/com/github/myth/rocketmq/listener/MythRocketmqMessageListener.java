@@ -0,0 +1,50 @@
+package com.github.myth.rocketmq.listener;
+
+import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.service.MythMqReceiveService;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyContext;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * <p>Description: myth框架rocketmq批量消费者.</p>
+ * 通过 consumer.setConsumeMessageBatchMaxSize 设置每批消息数量，
+ * 整批处理成功返回 CONSUME_SUCCESS，否则整批 RECONSUME_LATER，已处理成功的事务重新消费时会被跳过.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythRocketmqMessageListener implements MessageListenerConcurrently {
+
+    /**
+     * logger
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MythRocketmqMessageListener.class);
+
+    private MythMqReceiveService mythMqReceiveService;
+
+    public void setMythMqReceiveService(MythMqReceiveService mythMqReceiveService) {
+        this.mythMqReceiveService = mythMqReceiveService;
+    }
+
+    @Override
+    public ConsumeConcurrentlyStatus consumeMessage(List<MessageExt> msgs, ConsumeConcurrentlyContext context) {
+        try {
+            final List<byte[]> messages = msgs.stream()
+                    .map(MessageExt::getBody)
+                    .collect(Collectors.toList());
+            mythMqReceiveService.processMessages(messages);
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, "Myth分布式框架消息处理失败：{}", e::getMessage);
+            return ConsumeConcurrentlyStatus.RECONSUME_LATER;
+        }
+        return ConsumeConcurrentlyStatus.CONSUME_SUCCESS;
+    }
+}
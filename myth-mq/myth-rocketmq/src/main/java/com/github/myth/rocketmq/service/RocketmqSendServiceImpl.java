@@ -1,17 +1,33 @@
 package com.github.myth.rocketmq.service;
 
-import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.enums.MythDeliveryClassEnum;
 import com.github.myth.common.exception.MythRuntimeException;
 import com.github.myth.common.utils.LogUtil;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
 import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythPendingConfirms;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.MessageQueueSelector;
+import org.apache.rocketmq.client.producer.SendCallback;
 import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
 import org.apache.rocketmq.common.message.Message;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
 /**
  * <p>Description: .</p>
  * Rocketmq 发生消息服务
+ * 事务id作为消息key（可以在控制台按事务id查询），并按事务id的hash选择队列，同一事务的消息进入同一个队列；
+ * 发送方式 {@link #setSendMode(String)}：sync（默认，broker返回结果后才算发送成功）、
+ * async（需要显式开启，结果异步回调协调者，发送失败时由协调者改回待发送）；
+ * 两种方式都只有 {@link SendStatus#SEND_OK} 才算发送成功. 不支持 oneway，没有broker结果时参与者会被标记为已发送，消息丢失后不会重发；
+ * 定时任务重试的消息按重试次数使用递增的延迟级别，不与首次发送的消息同时到达消费端.
  *
  * @author xiaoyu(Myth)
  * @version 1.0
@@ -25,13 +41,66 @@ public class RocketmqSendServiceImpl implements MythMqSendService {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(RocketmqSendServiceImpl.class);
 
+    private static final String SEND_MODE_SYNC = "sync";
+
+    private static final String SEND_MODE_ASYNC = "async";
+
+    /**
+     * broker默认的延迟级别
+     */
+    private static final String DEFAULT_DELAY_LEVEL = "1s 5s 10s 30s 1m 2m 3m 4m 5m 6m 7m 8m 9m 10m 20m 30m 1h 2h";
+
+    /**
+     * 按事务id的hash选择队列
+     */
+    private static final MessageQueueSelector TRANS_ID_HASH_SELECTOR = (mqs, msg, arg) ->
+            mqs.get((arg.hashCode() & Integer.MAX_VALUE) % mqs.size());
+
 
     private DefaultMQProducer defaultMQProducer;
 
+    /**
+     * 发送方式 sync async，默认 sync
+     */
+    private String sendMode = SEND_MODE_SYNC;
+
+    private volatile CoordinatorService coordinatorService;
+
+    /**
+     * async 方式等待回调的消息
+     */
+    private final MythPendingConfirms pendingConfirms = new MythPendingConfirms();
+
+    /**
+     * 第一次重试使用的延迟级别
+     */
+    private int retryDelayLevel = 3;
+
+    /**
+     * broker延迟级别对应的毫秒数，需要与broker的 messageDelayLevel 配置一致
+     */
+    private long[] delayLevelMillis = parseDelayLevel(DEFAULT_DELAY_LEVEL);
+
     public void setDefaultMQProducer(DefaultMQProducer defaultMQProducer) {
         this.defaultMQProducer = defaultMQProducer;
     }
 
+    public void setRetryDelayLevel(int retryDelayLevel) {
+        this.retryDelayLevel = retryDelayLevel;
+    }
+
+    public void setMessageDelayLevel(String messageDelayLevel) {
+        this.delayLevelMillis = parseDelayLevel(messageDelayLevel);
+    }
+
+    public void setSendMode(String sendMode) {
+        if (!SEND_MODE_SYNC.equals(sendMode) && !SEND_MODE_ASYNC.equals(sendMode)) {
+            throw new MythRuntimeException("unsupported rocketmq send mode: " + sendMode
+                    + ", only sync and async report the broker result");
+        }
+        this.sendMode = sendMode;
+    }
+
     /**
      * 发送消息
      *
@@ -43,13 +112,151 @@ public class RocketmqSendServiceImpl implements MythMqSendService {
     public void sendMessage(String destination, Integer pattern, byte[] message) {
         try {
             Message msg = new Message(destination, destination, message);
-            final SendResult sendResult = defaultMQProducer.send(msg);
-            LogUtil.debug(LOGGER, sendResult::toString);
+            checkSendResult(defaultMQProducer.send(msg));
         } catch (Exception e) {
-            e.printStackTrace();
             LogUtil.error(LOGGER, e::getMessage);
-            throw new MythRuntimeException();
+            throw new MythRuntimeException(e);
+        }
+    }
+
+    /**
+     * 发送消息，事务id作为消息key并用于选择队列
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message) {
+        send(new Message(destination, destination, transId, message), destination, transId);
+    }
+
+    /**
+     * 按投递方式发送消息，重试消息使用broker的延迟级别.
+     * 第n次重试使用 retryDelayLevel + n - 1 级（最大为最后一级）.
+     *
+     * @param destination 队列
+     * @param pattern     mq 模式
+     * @param transId     事务id
+     * @param message     MythTransaction实体对象转换成byte[]后的数据
+     * @param delivery    投递方式
+     */
+    @Override
+    public void sendMessage(String destination, Integer pattern, String transId, byte[] message,
+                            MessageDelivery delivery) {
+        Message msg = new Message(destination, destination, transId, message);
+        if (delivery.getDeliveryClass() == MythDeliveryClassEnum.RETRY) {
+            msg.setDelayTimeLevel(Math.min(retryDelayLevel + Math.max(delivery.getAttempt(), 1) - 1,
+                    delayLevelMillis.length));
+        }
+        send(msg, destination, transId);
+    }
+
+    private void send(Message msg, String destination, String transId) {
+        try {
+            if (SEND_MODE_ASYNC.equals(sendMode)) {
+                sendAsync(msg, destination, transId);
+            } else {
+                checkSendResult(defaultMQProducer.send(msg, TRANS_ID_HASH_SELECTOR, transId));
+            }
+        } catch (Exception e) {
+            LogUtil.error(LOGGER, e::getMessage);
+            throw new MythRuntimeException(e);
+        }
+    }
+
+    /**
+     * broker 没有刷盘或者同步到从节点时同样按发送失败处理，由定时任务重新发送.
+     *
+     * @param sendResult 发送结果
+     */
+    private static void checkSendResult(SendResult sendResult) {
+        LogUtil.debug(LOGGER, sendResult::toString);
+        if (sendResult.getSendStatus() != SendStatus.SEND_OK) {
+            throw new MythRuntimeException("rocketmq send status: " + sendResult.getSendStatus());
+        }
+    }
+
+    private void sendAsync(Message msg, String destination, String transId) throws Exception {
+        final long confirmId = pendingConfirms.register(transId, destination);
+        try {
+            defaultMQProducer.send(msg, TRANS_ID_HASH_SELECTOR, transId, new SendCallback() {
+                @Override
+                public void onSuccess(SendResult sendResult) {
+                    LogUtil.debug(LOGGER, sendResult::toString);
+                    if (pendingConfirms.complete(confirmId)) {
+                        getCoordinatorService().confirmMessage(transId, destination,
+                                sendResult.getSendStatus() == SendStatus.SEND_OK);
+                    }
+                }
+
+                @Override
+                public void onException(Throwable e) {
+                    LogUtil.error(LOGGER, e::getMessage);
+                    if (pendingConfirms.complete(confirmId)) {
+                        getCoordinatorService().confirmMessage(transId, destination, false);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            pendingConfirms.complete(confirmId);
+            throw e;
+        }
+    }
+
+    /**
+     * 等待 async 方式发送的消息回调，停止时调用；超时仍未回调的消息按发送失败回调协调者.
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     */
+    @Override
+    public void flush(long timeout, TimeUnit unit) {
+        final int expired = pendingConfirms.await(timeout, unit,
+                (transId, destination) -> getCoordinatorService().confirmMessage(transId, destination, false));
+        if (expired > 0) {
+            LogUtil.error(LOGGER, "停止时rocketmq未回调的消息数量:{}", () -> expired);
+        }
+    }
+
+    /**
+     * 解析延迟级别配置，格式与broker的 messageDelayLevel 相同，如 1s 5s 10s 30s 1m 2h.
+     *
+     * @param messageDelayLevel 延迟级别
+     * @return 每个级别的毫秒数
+     */
+    private static long[] parseDelayLevel(String messageDelayLevel) {
+        final String[] levels = messageDelayLevel.trim().split("\\s+");
+        final long[] millis = new long[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            final String level = levels[i];
+            final long value = Long.parseLong(level.substring(0, level.length() - 1));
+            millis[i] = TimeUnit.MILLISECONDS.convert(value, acquireTimeUnit(level.charAt(level.length() - 1)));
+        }
+        return millis;
+    }
+
+    private static TimeUnit acquireTimeUnit(char unit) {
+        switch (unit) {
+            case 's':
+                return TimeUnit.SECONDS;
+            case 'm':
+                return TimeUnit.MINUTES;
+            case 'h':
+                return TimeUnit.HOURS;
+            case 'd':
+                return TimeUnit.DAYS;
+            default:
+                throw new MythRuntimeException("unknown delay level unit: " + unit);
+        }
+    }
+
+    private CoordinatorService getCoordinatorService() {
+        if (Objects.isNull(coordinatorService)) {
+            coordinatorService = SpringBeanUtils.getInstance().getBean(CoordinatorService.class);
         }
+        return coordinatorService;
     }
 
 
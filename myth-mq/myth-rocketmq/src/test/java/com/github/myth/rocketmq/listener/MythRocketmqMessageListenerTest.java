@@ -0,0 +1,68 @@
+package com.github.myth.rocketmq.listener;
+
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.service.MythMqReceiveService;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class MythRocketmqMessageListenerTest {
+
+    private final List<List<byte[]>> batches = new ArrayList<>();
+
+    @Test
+    public void consumesTheWholeBatchAtOnce() {
+        final ConsumeConcurrentlyStatus status =
+                listener(false).consumeMessage(Arrays.asList(message(new byte[]{1}), message(new byte[]{2})), null);
+
+        Assert.assertEquals(ConsumeConcurrentlyStatus.CONSUME_SUCCESS, status);
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    public void reconsumesTheBatchWhenProcessingFails() {
+        final ConsumeConcurrentlyStatus status =
+                listener(true).consumeMessage(Arrays.asList(message(new byte[]{1}), message(new byte[]{2})), null);
+
+        Assert.assertEquals(ConsumeConcurrentlyStatus.RECONSUME_LATER, status);
+    }
+
+    private MythRocketmqMessageListener listener(boolean failing) {
+        final MythRocketmqMessageListener listener = new MythRocketmqMessageListener();
+        listener.setMythMqReceiveService(new MythMqReceiveService() {
+            @Override
+            public Boolean processMessage(byte[] message) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Boolean processMessages(List<byte[]> messages) {
+                batches.add(messages);
+                if (failing) {
+                    throw new MythRuntimeException("participant failed");
+                }
+                return Boolean.TRUE;
+            }
+        });
+        return listener;
+    }
+
+    private static MessageExt message(byte[] body) {
+        final MessageExt messageExt = new MessageExt();
+        messageExt.setBody(body);
+        return messageExt;
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.myth.rocketmq.service;
+
+import com.github.myth.common.bean.mq.MessageDelivery;
+import com.github.myth.common.exception.MythRuntimeException;
+import com.github.myth.core.coordinator.CoordinatorService;
+import com.github.myth.core.helper.SpringBeanUtils;
+import org.apache.rocketmq.client.exception.MQClientException;
+import org.apache.rocketmq.client.producer.DefaultMQProducer;
+import org.apache.rocketmq.client.producer.MessageQueueSelector;
+import org.apache.rocketmq.client.producer.SendCallback;
+import org.apache.rocketmq.client.producer.SendResult;
+import org.apache.rocketmq.client.producer.SendStatus;
+import org.apache.rocketmq.common.message.Message;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * <p>Description:</p>
+ * sync 和 async 两种发送方式都只有 SEND_OK 才算发送成功，不支持没有broker结果的 oneway.
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class RocketmqSendServiceImplTest {
+
+    private static final byte[] MESSAGE = {1, 2, 3};
+
+    private final CoordinatorService coordinatorService = mock(CoordinatorService.class);
+
+    private final DefaultMQProducer producer = mock(DefaultMQProducer.class);
+
+    private final RocketmqSendServiceImpl sendService = new RocketmqSendServiceImpl();
+
+    private GenericApplicationContext context;
+
+    @Before
+    public void setUp() {
+        context = new GenericApplicationContext();
+        context.getBeanFactory().registerSingleton("coordinatorService", coordinatorService);
+        context.refresh();
+        SpringBeanUtils.getInstance().setCfgContext(context);
+        sendService.setDefaultMQProducer(producer);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void syncSendIsKeyedByTransId() throws Exception {
+        when(producer.send(any(Message.class), any(MessageQueueSelector.class), eq("t1")))
+                .thenReturn(result(SendStatus.SEND_OK));
+
+        sendService.sendMessage("account", 1, "t1", MESSAGE, MessageDelivery.fresh());
+
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(producer).send(captor.capture(), any(MessageQueueSelector.class), eq("t1"));
+        Assert.assertEquals("account", captor.getValue().getTopic());
+        Assert.assertEquals("t1", captor.getValue().getKeys());
+        Assert.assertArrayEquals(MESSAGE, captor.getValue().getBody());
+        Assert.assertEquals(0, captor.getValue().getDelayTimeLevel());
+    }
+
+    @Test
+    public void syncSendFailsUnlessTheBrokerReturnsSendOk() throws Exception {
+        when(producer.send(any(Message.class), any(MessageQueueSelector.class), eq("t2")))
+                .thenReturn(result(SendStatus.FLUSH_DISK_TIMEOUT));
+
+        try {
+            sendService.sendMessage("account", 1, "t2", MESSAGE, MessageDelivery.fresh());
+            Assert.fail("a send without SEND_OK must stay pending");
+        } catch (MythRuntimeException expected) {
+            verifyZeroInteractions(coordinatorService);
+        }
+    }
+
+    @Test
+    public void retriesUseIncreasingDelayLevels() throws Exception {
+        when(producer.send(any(Message.class), any(MessageQueueSelector.class), eq("t3")))
+                .thenReturn(result(SendStatus.SEND_OK));
+
+        sendService.sendMessage("account", 1, "t3", MESSAGE, MessageDelivery.retry(2));
+        sendService.sendMessage("account", 1, "t3", MESSAGE, MessageDelivery.retry(100));
+
+        final ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(producer, times(2))
+                .send(captor.capture(), any(MessageQueueSelector.class), eq("t3"));
+        Assert.assertEquals(4, captor.getAllValues().get(0).getDelayTimeLevel());
+        Assert.assertEquals(18, captor.getAllValues().get(1).getDelayTimeLevel());
+    }
+
+    @Test
+    public void asyncSendConfirmsOnlySendOk() throws Exception {
+        sendService.setSendMode("async");
+
+        sendService.sendMessage("account", 1, "t4", MESSAGE, MessageDelivery.fresh());
+        sendService.sendMessage("inventory", 1, "t4", MESSAGE, MessageDelivery.fresh());
+        sendService.sendMessage("order", 1, "t4", MESSAGE, MessageDelivery.fresh());
+
+        final ArgumentCaptor<SendCallback> captor = ArgumentCaptor.forClass(SendCallback.class);
+        verify(producer, times(3))
+                .send(any(Message.class), any(MessageQueueSelector.class), eq("t4"), captor.capture());
+        captor.getAllValues().get(0).onSuccess(result(SendStatus.SEND_OK));
+        captor.getAllValues().get(1).onSuccess(result(SendStatus.SLAVE_NOT_AVAILABLE));
+        captor.getAllValues().get(2).onException(new IllegalStateException("broker unavailable"));
+
+        verify(coordinatorService).confirmMessage("t4", "account", true);
+        verify(coordinatorService).confirmMessage("t4", "inventory", false);
+        verify(coordinatorService).confirmMessage("t4", "order", false);
+    }
+
+    @Test
+    public void asyncSendThatFailsToSubmitIsNotAwaitedOnFlush() throws Exception {
+        sendService.setSendMode("async");
+        doThrow(new MQClientException("no route", null)).when(producer)
+                .send(any(Message.class), any(MessageQueueSelector.class), eq("t5"), any(SendCallback.class));
+
+        try {
+            sendService.sendMessage("account", 1, "t5", MESSAGE, MessageDelivery.fresh());
+            Assert.fail();
+        } catch (MythRuntimeException expected) {
+            sendService.flush(10, TimeUnit.MILLISECONDS);
+            verify(coordinatorService, never()).confirmMessage("t5", "account", false);
+        }
+    }
+
+    @Test
+    public void onewayIsRejected() {
+        try {
+            sendService.setSendMode("oneway");
+            Assert.fail("oneway has no broker result");
+        } catch (MythRuntimeException expected) {
+            Assert.assertTrue(expected.getMessage().contains("oneway"));
+        }
+    }
+
+    private static SendResult result(SendStatus status) {
+        final SendResult sendResult = new SendResult();
+        sendResult.setSendStatus(status);
+        return sendResult;
+    }
+}
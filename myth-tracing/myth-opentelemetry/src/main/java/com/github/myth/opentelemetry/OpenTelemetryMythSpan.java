@@ -0,0 +1,63 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.opentelemetry;
+
+import com.github.myth.core.trace.MythSpan;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Scope;
+
+/**
+ * OpenTelemetry span，关闭时恢复开启前的当前span.
+ *
+ * @author xiaoyu
+ */
+class OpenTelemetryMythSpan implements MythSpan {
+
+    private final Span span;
+
+    private final Scope scope;
+
+    OpenTelemetryMythSpan(Span span, Scope scope) {
+        this.span = span;
+        this.scope = scope;
+    }
+
+    @Override
+    public MythSpan tag(String key, Object value) {
+        if (value instanceof Number) {
+            span.setAttribute(AttributeKey.longKey(key), ((Number) value).longValue());
+        } else {
+            span.setAttribute(key, String.valueOf(value));
+        }
+        return this;
+    }
+
+    @Override
+    public void error(Throwable throwable) {
+        span.recordException(throwable);
+        span.setStatus(StatusCode.ERROR, String.valueOf(throwable.getMessage()));
+    }
+
+    @Override
+    public void close() {
+        scope.close();
+        span.end();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.opentelemetry;
+
+import com.github.myth.core.trace.MythSpan;
+import com.github.myth.core.trace.MythTracer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapSetter;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 基于 OpenTelemetry 的链路追踪，注册为Spring bean后生效：
+ * <pre>
+ * &#64;Bean
+ * public MythTracer mythTracer(OpenTelemetry openTelemetry) {
+ *     return new OpenTelemetryMythTracer(openTelemetry);
+ * }
+ * </pre>
+ * 一个事务的发起者、rpc参与者、mq发送、消费端执行以及异步保存事务日志都在同一条链路上.
+ *
+ * @author xiaoyu
+ */
+public class OpenTelemetryMythTracer implements MythTracer {
+
+    private static final String INSTRUMENTATION_NAME = "com.github.myth";
+
+    private static final String TRACE_PARENT = "traceparent";
+
+    private static final TextMapGetter<String> GETTER = new TextMapGetter<String>() {
+        @Override
+        public Iterable<String> keys(String carrier) {
+            return Collections.singletonList(TRACE_PARENT);
+        }
+
+        @Override
+        public String get(String carrier, String key) {
+            return TRACE_PARENT.equals(key) ? carrier : null;
+        }
+    };
+
+    private static final TextMapSetter<String[]> SETTER = (carrier, key, value) -> {
+        if (TRACE_PARENT.equals(key)) {
+            carrier[0] = value;
+        }
+    };
+
+    private final Tracer tracer;
+
+    public OpenTelemetryMythTracer(OpenTelemetry openTelemetry) {
+        this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    }
+
+    @Override
+    public MythSpan start(String name, String traceParent) {
+        final Context parent = traceParent == null ? Context.current()
+                : W3CTraceContextPropagator.getInstance().extract(Context.current(), traceParent, GETTER);
+        final Span span = tracer.spanBuilder(name).setParent(parent).startSpan();
+        return new OpenTelemetryMythSpan(span, span.makeCurrent());
+    }
+
+    @Override
+    public String currentTraceParent() {
+        if (!Span.current().getSpanContext().isValid()) {
+            return null;
+        }
+        final String[] carrier = new String[1];
+        W3CTraceContextPropagator.getInstance().inject(Context.current(), carrier, SETTER);
+        return carrier[0];
+    }
+
+    @Override
+    public ExecutorService wrap(ExecutorService executorService) {
+        return Context.taskWrapping(executorService);
+    }
+}
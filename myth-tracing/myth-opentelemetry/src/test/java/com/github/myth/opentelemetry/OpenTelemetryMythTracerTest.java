@@ -0,0 +1,150 @@
+/*
+ *
+ * Copyright 2017-2018 549477611@qq.com(xiaoyu)
+ *
+ * This copyrighted material is made available to anyone wishing to use, modify,
+ * copy, or redistribute it subject to the terms and conditions of the GNU
+ * Lesser General Public License, as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ * for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this distribution; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package com.github.myth.opentelemetry;
+
+import com.github.myth.common.bean.context.MythTransactionContext;
+import com.github.myth.common.bean.entity.MythInvocation;
+import com.github.myth.common.bean.entity.MythParticipant;
+import com.github.myth.common.bean.mq.MessageHeader;
+import com.github.myth.common.enums.CompressEnum;
+import com.github.myth.common.serializer.KryoSerializer;
+import com.github.myth.common.utils.GsonUtils;
+import com.github.myth.core.metrics.MythMetrics;
+import com.github.myth.core.service.MythMqSendService;
+import com.github.myth.core.service.mq.MythMessageCodec;
+import com.github.myth.core.service.mq.MythMessageDispatcher;
+import com.github.myth.core.trace.MythSpan;
+import com.github.myth.core.trace.MythTracer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>Description:</p>
+ *
+ * @author xiaoyu(Myth)
+ * @version 1.0
+ * @since JDK 1.8
+ */
+public class OpenTelemetryMythTracerTest {
+
+    private final InMemorySpanExporter exporter = InMemorySpanExporter.create();
+
+    private MythTracer tracer;
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        final SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build();
+        tracer = new OpenTelemetryMythTracer(OpenTelemetrySdk.builder().setTracerProvider(tracerProvider).build());
+    }
+
+    @After
+    public void tearDown() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rpcAndMqHopsShareOneTrace() throws Exception {
+        final List<byte[]> sent = Collections.synchronizedList(new ArrayList<>());
+        MythMqSendService broker = (destination, pattern, message) -> sent.add(message);
+        final MythMessageCodec codec = new MythMessageCodec(new KryoSerializer(), true, CompressEnum.NONE, 0);
+        final MythMessageDispatcher dispatcher =
+                new MythMessageDispatcher(codec, () -> broker, null, MythMetrics.NOOP, tracer);
+
+        final String rpcContext;
+        try (MythSpan ignored = tracer.start("StartMythTransactionHandler", null)) {
+            //rpc 随事务上下文传递
+            final MythTransactionContext context = new MythTransactionContext();
+            context.setTransId("1001");
+            context.setTraceParent(tracer.currentTraceParent());
+            rpcContext = GsonUtils.getInstance().toJson(context);
+            dispatcher.dispatch(Collections.singletonList(participant("account")));
+        }
+        Assert.assertNull(tracer.currentTraceParent());
+
+        final MythTransactionContext received =
+                GsonUtils.getInstance().fromJson(rpcContext, MythTransactionContext.class);
+        tracer.start("ActorMythTransactionHandler", received.getTraceParent()).close();
+
+        //mq 消息头传递
+        final MessageHeader header = codec.decodeHeader(sent.get(0));
+        Assert.assertEquals(MythMessageCodec.TRACE_VERSION, header.getVersion());
+        Assert.assertEquals(header.getTraceParent(), codec.decode(sent.get(0)).getTraceParent());
+        tracer.start("myth.consume", header.getTraceParent()).tag(MythSpan.TRANS_ID, "1001").close();
+
+        final SpanData start = span("StartMythTransactionHandler");
+        final SpanData send = span("myth.send");
+        Assert.assertEquals(start.getSpanId(), send.getParentSpanId());
+        Assert.assertEquals("account", send.getAttributes().get(AttributeKey.stringKey(MythSpan.DESTINATION)));
+        Assert.assertEquals(start.getSpanId(), span("ActorMythTransactionHandler").getParentSpanId());
+        Assert.assertEquals(send.getSpanId(), span("myth.consume").getParentSpanId());
+        exporter.getFinishedSpanItems().forEach(spanData ->
+                Assert.assertEquals(start.getTraceId(), spanData.getTraceId()));
+    }
+
+    @Test
+    public void wrappedExecutorKeepsParent() throws Exception {
+        executorService = tracer.wrap(Executors.newSingleThreadExecutor());
+        try (MythSpan ignored = tracer.start("StartMythTransactionHandler", null)) {
+            executorService.submit(() -> tracer.start("myth.local", null).close()).get();
+        }
+        Assert.assertEquals(span("StartMythTransactionHandler").getSpanId(), span("myth.local").getParentSpanId());
+    }
+
+    @Test
+    public void errorMarksSpan() {
+        try (MythSpan span = tracer.start("myth.consume", null)) {
+            span.error(new IllegalStateException("boom"));
+        }
+        Assert.assertEquals(StatusCode.ERROR,
+                span("myth.consume").getStatus().getStatusCode());
+        Assert.assertEquals(1, span("myth.consume").getEvents().size());
+    }
+
+    private SpanData span(String name) {
+        return exporter.getFinishedSpanItems().stream()
+                .filter(spanData -> name.equals(spanData.getName()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("span not found: " + name));
+    }
+
+    private static MythParticipant participant(String destination) {
+        return new MythParticipant("1001", destination, 1,
+                new MythInvocation(StringBuilder.class, "append", new Class[]{String.class}, new Object[]{"x"}));
+    }
+}